@@ -0,0 +1,223 @@
+package benchmark;
+
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfiguration;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/**
+ * Banco MariaDB embutido usado pelos benchmarks e pelo gerador de carga.
+ * Cada tamanho de catálogo usa um banco próprio (db_produto_N), criado pelo
+ * schema.sql e populado uma única vez; os dados ficam no diretório
+ * benchmark.dadosDir e são reaproveitados nas execuções seguintes.
+ *
+ * Ao iniciar, aponta a configuração do backend (db.url, db.usuario e db.senha)
+ * para o banco embutido; deve ser chamado antes do primeiro uso dos DAOs.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+public final class BancoEmbutido {
+
+    /**
+     * Produtos por lote de inserção na carga inicial.
+     */
+    private static final int TAMANHO_LOTE = 1000;
+
+    /**
+     * Quantidade de categorias geradas.
+     */
+    private static final int QUANTIDADE_CATEGORIAS = 50;
+
+    /**
+     * Dias de histórico cobertos pelas movimentações geradas.
+     */
+    private static final int DIAS_HISTORICO = 60;
+
+    /**
+     * Banco em execução, ou null.
+     */
+    private static DB banco;
+
+    /**
+     * URL JDBC do banco em uso.
+     */
+    private static String url;
+
+    /**
+     * Construtor privado (classe utilitária).
+     */
+    private BancoEmbutido() {
+    }
+
+    /**
+     * Inicia o banco embutido com um catálogo do tamanho informado, populando-o
+     * se necessário, e aponta a configuração do backend para ele.
+     *
+     * @param produtos Quantidade de produtos do catálogo
+     * @return URL JDBC do banco
+     * @throws Exception Se o banco não puder ser iniciado ou populado
+     */
+    public static synchronized String iniciar(int produtos) throws Exception {
+        if (banco != null) {
+            return url;
+        }
+        DBConfigurationBuilder construtor = DBConfigurationBuilder.newBuilder();
+        construtor.setPort(Integer.getInteger("benchmark.porta", 0));
+        construtor.setDataDir(System.getProperty("benchmark.dadosDir", "target/mariadb4j-dados"));
+        DBConfiguration configuracao = construtor.build();
+
+        banco = DB.newEmbeddedDB(configuracao);
+        banco.start();
+
+        String nomeBanco = "db_produto_" + produtos;
+        banco.createDB(nomeBanco);
+        url = "jdbc:mysql://localhost:" + configuracao.getPort() + "/" + nomeBanco
+                + "?serverTimezone=UTC&useServerPrepStmts=true&rewriteBatchedStatements=true&useCursorFetch=true";
+
+        try (Connection conn = DriverManager.getConnection(url, "root", "")) {
+            criarEsquema(conn);
+            int movimentacoes = Integer.getInteger("benchmark.movimentacoes", Math.max(100, produtos / 10));
+            popular(conn, produtos, movimentacoes);
+        }
+
+        System.setProperty("db.url", url);
+        System.setProperty("db.usuario", "root");
+        System.setProperty("db.senha", "");
+        return url;
+    }
+
+    /**
+     * Encerra o banco embutido, mantendo os dados em disco.
+     */
+    public static synchronized void parar() {
+        if (banco == null) {
+            return;
+        }
+        try {
+            banco.stop();
+        } catch (Exception e) {
+            System.err.println("Erro ao parar o banco embutido: " + e.getMessage());
+        }
+        banco = null;
+    }
+
+    /**
+     * Executa o schema.sql do classpath.
+     *
+     * @param conn Conexão com o banco
+     * @throws SQLException Se um comando falhar
+     * @throws IOException Se o arquivo não puder ser lido
+     */
+    private static void criarEsquema(Connection conn) throws SQLException, IOException {
+        String script;
+        try (InputStream in = BancoEmbutido.class.getResourceAsStream("/schema.sql");
+             BufferedReader leitor = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            script = leitor.lines()
+                    .filter(linha -> !linha.trim().startsWith("--"))
+                    .collect(Collectors.joining("\n"));
+        }
+        try (Statement st = conn.createStatement()) {
+            for (String comando : script.split(";")) {
+                if (!comando.isBlank()) {
+                    st.execute(comando);
+                }
+            }
+        }
+    }
+
+    /**
+     * Popula o banco com categorias, produtos e movimentações, se ainda não populado.
+     * Os dados são gerados com semente fixa para que execuções sejam comparáveis.
+     *
+     * @param conn Conexão com o banco
+     * @param produtos Quantidade de produtos
+     * @param movimentacoes Quantidade de movimentações
+     * @throws SQLException Se ocorrer erro na carga
+     */
+    private static void popular(Connection conn, int produtos, int movimentacoes) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            try (ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM produto")) {
+                if (rs.next() && rs.getInt(1) >= produtos) {
+                    return;
+                }
+            }
+            // carga anterior interrompida: recomeça do zero
+            st.execute("SET FOREIGN_KEY_CHECKS = 0");
+            st.execute("TRUNCATE TABLE registro_movimentacao");
+            st.execute("TRUNCATE TABLE produto");
+            st.execute("TRUNCATE TABLE categoria");
+            st.execute("SET FOREIGN_KEY_CHECKS = 1");
+        }
+        System.out.println("Populando banco embutido com " + produtos + " produtos e " + movimentacoes + " movimentações...");
+        Random aleatorio = new Random(42);
+        conn.setAutoCommit(false);
+
+        try (PreparedStatement st = conn.prepareStatement(
+                "INSERT INTO categoria (nome, tamanho, embalagem) VALUES (?, ?, ?)")) {
+            for (int i = 1; i <= QUANTIDADE_CATEGORIAS; i++) {
+                st.setString(1, "Categoria " + i);
+                st.setString(2, i % 3 == 0 ? "Grande" : i % 3 == 1 ? "Médio" : "Pequeno");
+                st.setString(3, i % 2 == 0 ? "Caixa" : "Pacote");
+                st.addBatch();
+            }
+            st.executeBatch();
+        }
+
+        try (PreparedStatement st = conn.prepareStatement(
+                "INSERT INTO produto (nome, unidade, quantidade, preco, min, max, categoria) VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 1; i <= produtos; i++) {
+                int min = 10 + aleatorio.nextInt(40);
+                int max = min * 10;
+                st.setString(1, String.format("Produto %07d", i));
+                st.setString(2, "un");
+                // cerca de 10% dos produtos começam abaixo do mínimo
+                st.setInt(3, aleatorio.nextInt(10) == 0 ? aleatorio.nextInt(min) : min + aleatorio.nextInt(max - min));
+                st.setDouble(4, 1 + aleatorio.nextInt(100000) / 100.0);
+                st.setInt(5, min);
+                st.setInt(6, max);
+                st.setString(7, "Categoria " + (1 + aleatorio.nextInt(QUANTIDADE_CATEGORIAS)));
+                st.addBatch();
+                if (i % TAMANHO_LOTE == 0) {
+                    st.executeBatch();
+                    conn.commit();
+                }
+            }
+            st.executeBatch();
+            conn.commit();
+        }
+
+        LocalDate hoje = LocalDate.now();
+        try (PreparedStatement st = conn.prepareStatement(
+                "INSERT INTO registro_movimentacao (produto_id, tipo_movimentacao, quantidade, observacao, data_movimentacao) VALUES (?, ?, ?, ?, ?)")) {
+            for (int i = 1; i <= movimentacoes; i++) {
+                st.setInt(1, 1 + aleatorio.nextInt(produtos));
+                st.setString(2, aleatorio.nextBoolean() ? "Entrada" : "Saída");
+                st.setInt(3, 1 + aleatorio.nextInt(20));
+                st.setString(4, "Carga inicial");
+                st.setDate(5, java.sql.Date.valueOf(hoje.minusDays(aleatorio.nextInt(DIAS_HISTORICO))));
+                st.addBatch();
+                if (i % TAMANHO_LOTE == 0) {
+                    st.executeBatch();
+                    conn.commit();
+                }
+            }
+            st.executeBatch();
+            conn.commit();
+        }
+        conn.setAutoCommit(true);
+    }
+}
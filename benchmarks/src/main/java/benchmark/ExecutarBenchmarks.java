@@ -0,0 +1,39 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Ponto de entrada dos benchmarks. Repassa os argumentos ao JMH e, se o
+ * formato do resultado não for informado, grava os resultados em JSON em
+ * resultados-jmh.json, para comparação entre versões.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+public final class ExecutarBenchmarks {
+
+    /**
+     * Construtor privado (classe utilitária).
+     */
+    private ExecutarBenchmarks() {
+    }
+
+    /**
+     * Executa os benchmarks selecionados.
+     *
+     * @param args Argumentos do JMH (ex.: ProdutoDAO -p produtos=1000 -t 4)
+     * @throws Exception Se a execução falhar
+     */
+    public static void main(String[] args) throws Exception {
+        List<String> argumentos = new ArrayList<>(Arrays.asList(args));
+        if (!argumentos.contains("-rf")) {
+            argumentos.addAll(Arrays.asList("-rf", "json"));
+        }
+        if (!argumentos.contains("-rff")) {
+            argumentos.addAll(Arrays.asList("-rff", "resultados-jmh.json"));
+        }
+        org.openjdk.jmh.Main.main(argumentos.toArray(new String[0]));
+    }
+}
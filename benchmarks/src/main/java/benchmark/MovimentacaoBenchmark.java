@@ -0,0 +1,122 @@
+package benchmark;
+
+import dao.ProdutoDAO;
+import dao.RegistroMovimentacaoDAO;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import modelo.RegistroMovimentacao;
+import modelo.ResultadoMovimentacao;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark do registro de movimentações com atualização de saldo.
+ * Alterna entradas e saídas da mesma quantidade para manter os saldos estáveis.
+ * O registro em lote é medido por movimentação ({@link OperationsPerInvocation}),
+ * de modo que sua vazão é diretamente comparável à do registro individual.
+ * Use a opção -t do JMH para medir com várias threads concorrentes.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class MovimentacaoBenchmark {
+
+    /**
+     * Movimentações por chamada do registro em lote.
+     */
+    private static final int TAMANHO_LOTE = 100;
+
+    /**
+     * Quantidade de produtos do catálogo.
+     */
+    @Param({"1000", "100000", "1000000"})
+    public int produtos;
+
+    /**
+     * DAO de produtos usado na atualização do saldo.
+     */
+    private ProdutoDAO produtoDAO;
+
+    /**
+     * DAO medido.
+     */
+    private RegistroMovimentacaoDAO registroMovimentacaoDAO;
+
+    /**
+     * Inicia o banco embutido e os DAOs.
+     *
+     * @throws Exception Se o banco não puder ser iniciado
+     */
+    @Setup(Level.Trial)
+    public void iniciar() throws Exception {
+        BancoEmbutido.iniciar(produtos);
+        produtoDAO = new ProdutoDAO();
+        registroMovimentacaoDAO = new RegistroMovimentacaoDAO();
+    }
+
+    /**
+     * Encerra o banco embutido.
+     */
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        BancoEmbutido.parar();
+    }
+
+    /**
+     * Registro de uma entrada ou saída em um produto aleatório.
+     *
+     * @return true se a movimentação foi registrada
+     */
+    @Benchmark
+    public boolean registrarMovimentacaoEAtualizarSaldo() {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        RegistroMovimentacao registro = new RegistroMovimentacao();
+        registro.setProdutoId(1 + aleatorio.nextInt(produtos));
+        registro.setTipoMovimentacao(aleatorio.nextBoolean() ? "Entrada" : "Saída");
+        registro.setQuantidade(1);
+        registro.setObservacao("Benchmark");
+        return registroMovimentacaoDAO.registrarMovimentacaoEAtualizarSaldo(registro, produtoDAO).isSucesso();
+    }
+
+    /**
+     * Registro de um lote de entradas e saídas em produtos aleatórios, com um
+     * resultado por movimentação.
+     *
+     * @return Resultados das movimentações
+     */
+    @Benchmark
+    @OperationsPerInvocation(TAMANHO_LOTE)
+    public List<ResultadoMovimentacao> registrarMovimentacoesEmLote() {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        List<RegistroMovimentacao> lote = new ArrayList<>(TAMANHO_LOTE);
+        for (int i = 0; i < TAMANHO_LOTE; i++) {
+            RegistroMovimentacao registro = new RegistroMovimentacao();
+            registro.setProdutoId(1 + aleatorio.nextInt(produtos));
+            registro.setTipoMovimentacao(aleatorio.nextBoolean() ? "Entrada" : "Saída");
+            registro.setQuantidade(1);
+            registro.setObservacao("Benchmark");
+            lote.add(registro);
+        }
+        return registroMovimentacaoDAO.registrarMovimentacoesEmLote(lote, produtoDAO);
+    }
+}
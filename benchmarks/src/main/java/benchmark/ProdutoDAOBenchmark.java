@@ -0,0 +1,97 @@
+package benchmark;
+
+import dao.ProdutoDAO;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import modelo.Produto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks das consultas de produtos do {@link ProdutoDAO}.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ProdutoDAOBenchmark {
+
+    /**
+     * Quantidade de produtos do catálogo.
+     */
+    @Param({"1000", "100000", "1000000"})
+    public int produtos;
+
+    /**
+     * DAO medido.
+     */
+    private ProdutoDAO produtoDAO;
+
+    /**
+     * Inicia o banco embutido e o DAO.
+     *
+     * @throws Exception Se o banco não puder ser iniciado
+     */
+    @Setup(Level.Trial)
+    public void iniciar() throws Exception {
+        BancoEmbutido.iniciar(produtos);
+        produtoDAO = new ProdutoDAO();
+    }
+
+    /**
+     * Encerra o banco embutido.
+     */
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        BancoEmbutido.parar();
+    }
+
+    /**
+     * Busca de um produto aleatório pelo ID.
+     *
+     * @return Produto encontrado
+     */
+    @Benchmark
+    public Produto procurarProdutoID() {
+        return produtoDAO.ProcurarProdutoID(1 + ThreadLocalRandom.current().nextInt(produtos));
+    }
+
+    /**
+     * Busca parcial pelo nome de um produto aleatório.
+     *
+     * @return Produtos encontrados
+     * @throws SQLException Se ocorrer erro na consulta
+     */
+    @Benchmark
+    public List<Produto> buscarPorNome() throws SQLException {
+        return produtoDAO.buscarPorNome(String.format("%07d", 1 + ThreadLocalRandom.current().nextInt(produtos)));
+    }
+
+    /**
+     * Listagem completa do catálogo.
+     *
+     * @return Produtos do catálogo
+     */
+    @Benchmark
+    public List<Produto> getMinhaListaProdutos() {
+        return produtoDAO.getMinhaListaProdutos();
+    }
+}
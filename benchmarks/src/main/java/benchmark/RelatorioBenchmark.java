@@ -0,0 +1,154 @@
+package benchmark;
+
+import java.rmi.RemoteException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import modelo.Produto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import service.EstoqueServiceImpl;
+
+/**
+ * Benchmarks dos relatórios do RelatorioService, chamados diretamente na
+ * implementação do serviço (sem o transporte RMI).
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RelatorioBenchmark {
+
+    /**
+     * Quantidade de produtos do catálogo.
+     */
+    @Param({"1000", "100000", "1000000"})
+    public int produtos;
+
+    /**
+     * Serviço medido.
+     */
+    private EstoqueServiceImpl servico;
+
+    /**
+     * Inicia o banco embutido e o serviço.
+     *
+     * @throws Exception Se o banco ou o serviço não puderem ser iniciados
+     */
+    @Setup(Level.Trial)
+    public void iniciar() throws Exception {
+        BancoEmbutido.iniciar(produtos);
+        servico = new EstoqueServiceImpl();
+    }
+
+    /**
+     * Encerra o banco embutido.
+     */
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        BancoEmbutido.parar();
+    }
+
+    /**
+     * Mede {@code listarProdutosAbaixoMinimo}.
+     *
+     * @return Resultado do relatório
+     * @throws RemoteException Se o relatório falhar
+     */
+    @Benchmark
+    public List<Produto> listarProdutosAbaixoMinimo() throws RemoteException {
+        return servico.listarProdutosAbaixoMinimo();
+    }
+
+    /**
+     * Mede {@code listarQuantidadePorCategoria}.
+     *
+     * @return Resultado do relatório
+     * @throws RemoteException Se o relatório falhar
+     */
+    @Benchmark
+    public List<String[]> listarQuantidadePorCategoria() throws RemoteException {
+        return servico.listarQuantidadePorCategoria();
+    }
+
+    /**
+     * Mede {@code listarBalancoFisicoFinanceiro}.
+     *
+     * @return Resultado do relatório
+     * @throws RemoteException Se o relatório falhar
+     */
+    @Benchmark
+    public List<Object[]> listarBalancoFisicoFinanceiro() throws RemoteException {
+        return servico.listarBalancoFisicoFinanceiro();
+    }
+
+    /**
+     * Mede {@code calcularValorTotalEstoque}.
+     *
+     * @return Resultado do relatório
+     * @throws RemoteException Se o relatório falhar
+     */
+    @Benchmark
+    public double calcularValorTotalEstoque() throws RemoteException {
+        return servico.calcularValorTotalEstoque();
+    }
+
+    /**
+     * Mede {@code listarValorPorCategoria}.
+     *
+     * @return Resultado do relatório
+     * @throws RemoteException Se o relatório falhar
+     */
+    @Benchmark
+    public List<Object[]> listarValorPorCategoria() throws RemoteException {
+        return servico.listarValorPorCategoria();
+    }
+
+    /**
+     * Mede {@code produtoComMaisEntrada}.
+     *
+     * @return Resultado do relatório
+     * @throws RemoteException Se o relatório falhar
+     */
+    @Benchmark
+    public String[] produtoComMaisEntrada() throws RemoteException {
+        return servico.produtoComMaisEntrada();
+    }
+
+    /**
+     * Mede {@code produtoComMaisSaida}.
+     *
+     * @return Resultado do relatório
+     * @throws RemoteException Se o relatório falhar
+     */
+    @Benchmark
+    public String[] produtoComMaisSaida() throws RemoteException {
+        return servico.produtoComMaisSaida();
+    }
+
+    /**
+     * Mede {@code listarRankingMovimentacoes}.
+     *
+     * @return Resultado do relatório
+     * @throws RemoteException Se o relatório falhar
+     */
+    @Benchmark
+    public List<Object[]> listarRankingMovimentacoes() throws RemoteException {
+        return servico.listarRankingMovimentacoes("LIQUIDO", 7, 10);
+    }
+}
@@ -0,0 +1,87 @@
+package carga;
+
+import java.util.concurrent.atomic.LongAdder;
+import metricas.HistogramaLatencia;
+
+/**
+ * Resultados de uma operação no gerador de carga: chamadas, erros e
+ * histograma de latências vistas pelo cliente.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+public class EstatisticaOperacao {
+
+    /**
+     * Operação medida.
+     */
+    private final OperacaoCarga operacao;
+
+    /**
+     * Quantidade de chamadas com erro.
+     */
+    private final LongAdder erros = new LongAdder();
+
+    /**
+     * Latências das chamadas, incluindo as com erro.
+     */
+    private final HistogramaLatencia latencias = new HistogramaLatencia();
+
+    /**
+     * Construtor da estatística.
+     *
+     * @param operacao Operação medida
+     */
+    public EstatisticaOperacao(OperacaoCarga operacao) {
+        this.operacao = operacao;
+    }
+
+    /**
+     * Registra uma chamada concluída.
+     *
+     * @param nanos Latência em nanossegundos
+     * @param erro true se a chamada falhou
+     */
+    public void registrar(long nanos, boolean erro) {
+        latencias.registrar(nanos);
+        if (erro) {
+            erros.increment();
+        }
+    }
+
+    /**
+     * Retorna a operação medida.
+     *
+     * @return Operação
+     */
+    public OperacaoCarga getOperacao() {
+        return operacao;
+    }
+
+    /**
+     * Retorna a quantidade de chamadas.
+     *
+     * @return Chamadas
+     */
+    public long getChamadas() {
+        return latencias.getQuantidade();
+    }
+
+    /**
+     * Retorna a quantidade de chamadas com erro.
+     *
+     * @return Erros
+     */
+    public long getErros() {
+        return erros.sum();
+    }
+
+    /**
+     * Retorna o histograma de latências.
+     *
+     * @return Histograma
+     */
+    public HistogramaLatencia getLatencias() {
+        return latencias;
+    }
+}
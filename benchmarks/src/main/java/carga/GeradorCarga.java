@@ -0,0 +1,325 @@
+package carga;
+
+import benchmark.BancoEmbutido;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+import metricas.HistogramaLatencia;
+import server.ServidorRMI;
+import service.EstoqueService;
+
+/**
+ * Gerador de carga de ponta a ponta para o servidor RMI do estoque.
+ * Localiza o EstoqueService no registro RMI e executa, a partir de várias
+ * threads clientes, uma composição configurável de leituras, movimentações e
+ * relatórios, informando a vazão e os percentis de latência por operação.
+ *
+ * Modos de execução:
+ * <ul>
+ *   <li>fechado: cada thread envia a próxima chamada assim que a anterior termina;</li>
+ *   <li>aberto: as chamadas são enviadas a uma taxa fixa, e a latência é medida a
+ *       partir do instante agendado, de modo que a fila formada pela saturação
+ *       do servidor aparece nos percentis.</li>
+ * </ul>
+ *
+ * Opções (todas no formato --nome valor):
+ * --host, --porta, --threads, --duracao (s), --aquecimento (s), --modo (fechado|aberto),
+ * --taxa (chamadas/s no modo aberto), --mix (ex.: leitura=80,movimentacao=15,relatorio=5),
+ * --produtos (IDs sorteados; 0 descobre pelo servidor), --local (true inicia banco
+ * embutido e servidor neste processo) e --saida (arquivo JSON dos resultados).
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+public final class GeradorCarga {
+
+    /**
+     * Opções da execução.
+     */
+    private final Map<String, String> opcoes;
+
+    /**
+     * Operações e pesos acumulados usados no sorteio.
+     */
+    private final OperacaoCarga[] operacoes;
+    private final double[] pesosAcumulados;
+
+    /**
+     * Estatísticas da fase atual (aquecimento ou medição), por operação.
+     */
+    private volatile Map<OperacaoCarga, EstatisticaOperacao> estatisticas;
+
+    /**
+     * Construtor do gerador.
+     *
+     * @param opcoes Opções da execução
+     */
+    private GeradorCarga(Map<String, String> opcoes) {
+        this.opcoes = opcoes;
+        Map<OperacaoCarga.Classe, Double> pesoClasse = lerMix(opcoes.getOrDefault("mix", "leitura=80,movimentacao=15,relatorio=5"));
+        Map<OperacaoCarga.Classe, Integer> operacoesPorClasse = new EnumMap<>(OperacaoCarga.Classe.class);
+        for (OperacaoCarga op : OperacaoCarga.values()) {
+            operacoesPorClasse.merge(op.getClasse(), 1, Integer::sum);
+        }
+        this.operacoes = OperacaoCarga.values();
+        this.pesosAcumulados = new double[operacoes.length];
+        double acumulado = 0;
+        for (int i = 0; i < operacoes.length; i++) {
+            OperacaoCarga.Classe classe = operacoes[i].getClasse();
+            acumulado += pesoClasse.getOrDefault(classe, 0.0) / operacoesPorClasse.get(classe);
+            pesosAcumulados[i] = acumulado;
+        }
+        if (acumulado <= 0) {
+            throw new IllegalArgumentException("A composição da carga (--mix) não tem nenhum peso positivo");
+        }
+        this.estatisticas = novasEstatisticas();
+    }
+
+    /**
+     * Método principal do gerador de carga.
+     *
+     * @param args Opções no formato --nome valor
+     * @throws Exception Se o servidor não puder ser localizado ou iniciado
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opcoes = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Opção inválida: " + args[i]);
+            }
+            opcoes.put(args[i].substring(2), args[i + 1]);
+        }
+        new GeradorCarga(opcoes).executar();
+    }
+
+    /**
+     * Executa o aquecimento e a medição e apresenta os resultados.
+     *
+     * @throws Exception Se o servidor não puder ser localizado ou iniciado
+     */
+    private void executar() throws Exception {
+        String host = opcoes.getOrDefault("host", "localhost");
+        int porta = Integer.parseInt(opcoes.getOrDefault("porta", "1099"));
+        int threads = Integer.parseInt(opcoes.getOrDefault("threads", "8"));
+        long duracaoSeg = Long.parseLong(opcoes.getOrDefault("duracao", "60"));
+        long aquecimentoSeg = Long.parseLong(opcoes.getOrDefault("aquecimento", "10"));
+        boolean aberto = "aberto".equalsIgnoreCase(opcoes.getOrDefault("modo", "fechado"));
+        double taxa = Double.parseDouble(opcoes.getOrDefault("taxa", "1000"));
+        int produtos = Integer.parseInt(opcoes.getOrDefault("produtos", "0"));
+
+        if (Boolean.parseBoolean(opcoes.getOrDefault("local", "false"))) {
+            if (produtos <= 0) {
+                produtos = 100000;
+            }
+            BancoEmbutido.iniciar(produtos);
+            ServidorRMI.main(new String[0]);
+            host = "localhost";
+            porta = 1099;
+        }
+
+        Registry registro = LocateRegistry.getRegistry(host, porta);
+        EstoqueService servico = (EstoqueService) registro.lookup("EstoqueService");
+        if (produtos <= 0) {
+            produtos = contarProdutos(servico);
+        }
+        if (produtos <= 0) {
+            throw new IllegalStateException("O servidor não tem produtos cadastrados");
+        }
+
+        System.out.printf(Locale.ROOT, "Carga %s com %d threads%s em %s:%d (%d produtos)%n",
+                aberto ? "aberta" : "fechada", threads,
+                aberto ? String.format(Locale.ROOT, " a %.0f chamadas/s", taxa) : "", host, porta, produtos);
+
+        long inicio = System.nanoTime();
+        long fimAquecimento = inicio + aquecimentoSeg * 1_000_000_000L;
+        long fim = fimAquecimento + duracaoSeg * 1_000_000_000L;
+        long intervalo = aberto ? (long) (threads * 1e9 / taxa) : 0;
+
+        List<Thread> clientes = new ArrayList<>();
+        final int totalProdutos = produtos;
+        for (int i = 0; i < threads; i++) {
+            long primeiro = inicio + (intervalo * i) / threads;
+            Thread cliente = new Thread(() -> executarCliente(servico, totalProdutos, primeiro, intervalo, fim),
+                    "carga-" + i);
+            clientes.add(cliente);
+            cliente.start();
+        }
+
+        LockSupport.parkNanos(Math.max(0, fimAquecimento - System.nanoTime()));
+        estatisticas = novasEstatisticas();
+        long inicioMedicao = System.nanoTime();
+        for (Thread cliente : clientes) {
+            cliente.join();
+        }
+        double segundos = (System.nanoTime() - inicioMedicao) / 1e9;
+
+        String relatorio = gerarTabela(segundos);
+        System.out.print(relatorio);
+        String saida = opcoes.getOrDefault("saida", "resultados-carga.json");
+        gravarJson(saida, segundos, aberto, threads, taxa, produtos);
+        System.out.println("Resultados gravados em " + saida);
+        System.exit(0);
+    }
+
+    /**
+     * Laço de uma thread cliente.
+     *
+     * @param servico Serviço remoto
+     * @param produtos Quantidade de produtos
+     * @param primeiro Instante agendado da primeira chamada (modo aberto)
+     * @param intervalo Intervalo entre chamadas da thread, ou 0 no modo fechado
+     * @param fim Instante de término
+     */
+    private void executarCliente(EstoqueService servico, int produtos, long primeiro, long intervalo, long fim) {
+        long agendado = primeiro;
+        while (true) {
+            long inicioChamada;
+            if (intervalo > 0) {
+                long espera = agendado - System.nanoTime();
+                if (espera > 0) {
+                    LockSupport.parkNanos(espera);
+                }
+                inicioChamada = agendado;
+                agendado += intervalo;
+            } else {
+                inicioChamada = System.nanoTime();
+            }
+            if (inicioChamada >= fim) {
+                return;
+            }
+            OperacaoCarga operacao = sortearOperacao();
+            boolean erro = false;
+            try {
+                operacao.executar(servico, produtos);
+            } catch (Exception e) {
+                erro = true;
+            }
+            estatisticas.get(operacao).registrar(System.nanoTime() - inicioChamada, erro);
+        }
+    }
+
+    /**
+     * Sorteia a próxima operação conforme os pesos da composição.
+     *
+     * @return Operação sorteada
+     */
+    private OperacaoCarga sortearOperacao() {
+        double valor = ThreadLocalRandom.current().nextDouble(pesosAcumulados[pesosAcumulados.length - 1]);
+        for (int i = 0; i < pesosAcumulados.length; i++) {
+            if (valor < pesosAcumulados[i]) {
+                return operacoes[i];
+            }
+        }
+        return operacoes[operacoes.length - 1];
+    }
+
+    /**
+     * Cria as estatísticas vazias de todas as operações.
+     *
+     * @return Estatísticas por operação
+     */
+    private static Map<OperacaoCarga, EstatisticaOperacao> novasEstatisticas() {
+        Map<OperacaoCarga, EstatisticaOperacao> mapa = new EnumMap<>(OperacaoCarga.class);
+        for (OperacaoCarga op : OperacaoCarga.values()) {
+            mapa.put(op, new EstatisticaOperacao(op));
+        }
+        return mapa;
+    }
+
+    /**
+     * Lê a composição da carga no formato classe=peso separados por vírgula.
+     *
+     * @param mix Composição informada
+     * @return Peso de cada classe
+     */
+    private static Map<OperacaoCarga.Classe, Double> lerMix(String mix) {
+        Map<OperacaoCarga.Classe, Double> pesos = new EnumMap<>(OperacaoCarga.Classe.class);
+        for (String item : mix.split(",")) {
+            String[] partes = item.split("=");
+            if (partes.length != 2) {
+                throw new IllegalArgumentException("Item inválido em --mix: " + item);
+            }
+            pesos.put(OperacaoCarga.Classe.valueOf(partes[0].trim().toUpperCase(Locale.ROOT)),
+                    Double.parseDouble(partes[1].trim()));
+        }
+        return pesos;
+    }
+
+    /**
+     * Descobre a quantidade de produtos somando o relatório por categoria.
+     *
+     * @param servico Serviço remoto
+     * @return Quantidade de produtos
+     * @throws Exception Se a chamada falhar
+     */
+    private static int contarProdutos(EstoqueService servico) throws Exception {
+        int total = 0;
+        for (String[] linha : servico.listarQuantidadePorCategoria()) {
+            total += Integer.parseInt(linha[1]);
+        }
+        return total;
+    }
+
+    /**
+     * Monta a tabela de resultados da medição.
+     *
+     * @param segundos Duração da medição
+     * @return Tabela formatada
+     */
+    private String gerarTabela(double segundos) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "%-32s %10s %8s %10s %10s %10s %10s %10s%n",
+                "operacao", "chamadas", "erros", "chamadas/s", "p50 ms", "p99 ms", "p999 ms", "max ms"));
+        long total = 0;
+        for (EstatisticaOperacao e : estatisticas.values()) {
+            HistogramaLatencia h = e.getLatencias();
+            total += e.getChamadas();
+            sb.append(String.format(Locale.ROOT, "%-32s %10d %8d %10.1f %10.3f %10.3f %10.3f %10.3f%n",
+                    e.getOperacao(), e.getChamadas(), e.getErros(), e.getChamadas() / segundos,
+                    h.percentil(0.5) / 1e6, h.percentil(0.99) / 1e6, h.percentil(0.999) / 1e6, h.getMaximo() / 1e6));
+        }
+        sb.append(String.format(Locale.ROOT, "Total: %d chamadas em %.1f s (%.1f chamadas/s)%n", total, segundos, total / segundos));
+        return sb.toString();
+    }
+
+    /**
+     * Grava os resultados da medição em JSON.
+     *
+     * @param arquivo Caminho do arquivo
+     * @param segundos Duração da medição
+     * @param aberto true no modo aberto
+     * @param threads Quantidade de threads
+     * @param taxa Taxa configurada no modo aberto
+     * @param produtos Quantidade de produtos
+     * @throws IOException Se o arquivo não puder ser gravado
+     */
+    private void gravarJson(String arquivo, double segundos, boolean aberto, int threads, double taxa, int produtos) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT,
+                "{%n  \"modo\": \"%s\",%n  \"threads\": %d,%n  \"taxa\": %.1f,%n  \"produtos\": %d,%n  \"duracaoSeg\": %.3f,%n  \"operacoes\": [",
+                aberto ? "aberto" : "fechado", threads, aberto ? taxa : 0.0, produtos, segundos));
+        String separador = "";
+        for (EstatisticaOperacao e : estatisticas.values()) {
+            HistogramaLatencia h = e.getLatencias();
+            sb.append(separador).append(String.format(Locale.ROOT,
+                    "%n    {\"operacao\": \"%s\", \"chamadas\": %d, \"erros\": %d, \"vazao\": %.3f, "
+                    + "\"p50Ms\": %.3f, \"p99Ms\": %.3f, \"p999Ms\": %.3f, \"maxMs\": %.3f}",
+                    e.getOperacao(), e.getChamadas(), e.getErros(), e.getChamadas() / segundos,
+                    h.percentil(0.5) / 1e6, h.percentil(0.99) / 1e6, h.percentil(0.999) / 1e6, h.getMaximo() / 1e6));
+            separador = ",";
+        }
+        sb.append(String.format("%n  ]%n}%n"));
+        Files.write(Paths.get(arquivo), sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,151 @@
+package carga;
+
+import java.rmi.RemoteException;
+import java.util.concurrent.ThreadLocalRandom;
+import modelo.RegistroMovimentacao;
+import service.EstoqueService;
+
+/**
+ * Operações executadas pelo gerador de carga, agrupadas em três classes
+ * (leitura, movimentação e relatório) cujo peso na carga é configurável.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+public enum OperacaoCarga {
+
+    /**
+     * Busca de um produto aleatório pelo ID.
+     */
+    BUSCAR_PRODUTO_POR_ID(Classe.LEITURA) {
+        @Override
+        void executar(EstoqueService servico, int produtos) throws RemoteException {
+            servico.buscarProdutoPorId(produtoAleatorio(produtos));
+        }
+    },
+
+    /**
+     * Autocompletar pelo prefixo do nome de um produto aleatório.
+     */
+    BUSCAR_POR_PREFIXO(Classe.LEITURA) {
+        @Override
+        void executar(EstoqueService servico, int produtos) throws RemoteException {
+            String nome = String.format("Produto %07d", produtoAleatorio(produtos));
+            servico.buscarPorPrefixo(nome.substring(0, nome.length() - 2), 10);
+        }
+    },
+
+    /**
+     * Primeira página do histórico de movimentações de um produto aleatório.
+     */
+    LISTAR_MOVIMENTACOES_PRODUTO(Classe.LEITURA) {
+        @Override
+        void executar(EstoqueService servico, int produtos) throws RemoteException {
+            servico.listarMovimentacoesPorProdutoPaginado(produtoAleatorio(produtos), null, 20);
+        }
+    },
+
+    /**
+     * Entrada ou saída de uma unidade em um produto aleatório.
+     */
+    REGISTRAR_MOVIMENTACAO(Classe.MOVIMENTACAO) {
+        @Override
+        void executar(EstoqueService servico, int produtos) throws RemoteException {
+            RegistroMovimentacao registro = new RegistroMovimentacao();
+            registro.setProdutoId(produtoAleatorio(produtos));
+            registro.setTipoMovimentacao(ThreadLocalRandom.current().nextBoolean() ? "Entrada" : "Saída");
+            registro.setQuantidade(1);
+            registro.setObservacao("Gerador de carga");
+            servico.registrarMovimentacao(registro);
+        }
+    },
+
+    /**
+     * Valor total do estoque.
+     */
+    CALCULAR_VALOR_TOTAL(Classe.RELATORIO) {
+        @Override
+        void executar(EstoqueService servico, int produtos) throws RemoteException {
+            servico.calcularValorTotalEstoque();
+        }
+    },
+
+    /**
+     * Quantidade de produtos por categoria.
+     */
+    LISTAR_QUANTIDADE_POR_CATEGORIA(Classe.RELATORIO) {
+        @Override
+        void executar(EstoqueService servico, int produtos) throws RemoteException {
+            servico.listarQuantidadePorCategoria();
+        }
+    },
+
+    /**
+     * Produtos abaixo da quantidade mínima.
+     */
+    LISTAR_ABAIXO_MINIMO(Classe.RELATORIO) {
+        @Override
+        void executar(EstoqueService servico, int produtos) throws RemoteException {
+            servico.listarProdutosAbaixoMinimo();
+        }
+    },
+
+    /**
+     * Ranking dos produtos mais movimentados nos últimos 7 dias.
+     */
+    LISTAR_RANKING(Classe.RELATORIO) {
+        @Override
+        void executar(EstoqueService servico, int produtos) throws RemoteException {
+            servico.listarRankingMovimentacoes("LIQUIDO", 7, 10);
+        }
+    };
+
+    /**
+     * Classes de operação usadas na composição da carga.
+     */
+    public enum Classe {
+        LEITURA, MOVIMENTACAO, RELATORIO
+    }
+
+    /**
+     * Classe da operação.
+     */
+    private final Classe classe;
+
+    /**
+     * Construtor da operação.
+     *
+     * @param classe Classe da operação
+     */
+    OperacaoCarga(Classe classe) {
+        this.classe = classe;
+    }
+
+    /**
+     * Executa a operação no serviço remoto.
+     *
+     * @param servico Serviço de estoque
+     * @param produtos Quantidade de produtos (IDs de 1 a produtos)
+     * @throws RemoteException Se a chamada remota falhar
+     */
+    abstract void executar(EstoqueService servico, int produtos) throws RemoteException;
+
+    /**
+     * Retorna a classe da operação.
+     *
+     * @return Classe
+     */
+    public Classe getClasse() {
+        return classe;
+    }
+
+    /**
+     * Sorteia um ID de produto.
+     *
+     * @param produtos Quantidade de produtos
+     * @return ID entre 1 e produtos
+     */
+    private static int produtoAleatorio(int produtos) {
+        return 1 + ThreadLocalRandom.current().nextInt(produtos);
+    }
+}
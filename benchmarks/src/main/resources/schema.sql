@@ -0,0 +1,57 @@
+-- Esquema do banco db_produto usado pelos benchmarks e pelo gerador de carga.
+-- Reflete as tabelas e colunas acessadas pelos DAOs do backend.
+
+CREATE TABLE IF NOT EXISTS categoria (
+    idcategoria INT AUTO_INCREMENT PRIMARY KEY,
+    nome VARCHAR(100) NOT NULL,
+    tamanho VARCHAR(50),
+    embalagem VARCHAR(50)
+);
+
+CREATE TABLE IF NOT EXISTS produto (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    nome VARCHAR(150) NOT NULL,
+    unidade VARCHAR(20),
+    quantidade INT NOT NULL DEFAULT 0,
+    preco DOUBLE NOT NULL DEFAULT 0,
+    min INT NOT NULL DEFAULT 0,
+    max INT NOT NULL DEFAULT 0,
+    categoria VARCHAR(100),
+    versao INT NOT NULL DEFAULT 0,
+    INDEX idx_produto_nome (nome),
+    INDEX idx_produto_categoria (categoria)
+);
+
+CREATE TABLE IF NOT EXISTS registro_movimentacao (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    produto_id INT NOT NULL,
+    tipo_movimentacao VARCHAR(20) NOT NULL,
+    quantidade INT NOT NULL,
+    observacao VARCHAR(255),
+    data_movimentacao DATE NOT NULL,
+    INDEX idx_movimentacao_produto (produto_id, id),
+    INDEX idx_movimentacao_data (data_movimentacao),
+    CONSTRAINT fk_movimentacao_produto FOREIGN KEY (produto_id) REFERENCES produto (id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS eventos_checkpoint (
+    id INT PRIMARY KEY,
+    ultima_movimentacao BIGINT NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS journal_checkpoint (
+    id INT PRIMARY KEY,
+    ultima_sequencia BIGINT NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS journal_quarentena (
+    sequencia BIGINT PRIMARY KEY,
+    produto_id INT NOT NULL,
+    tipo_movimentacao VARCHAR(20) NOT NULL,
+    quantidade INT NOT NULL,
+    observacao TEXT,
+    data_movimentacao DATE NOT NULL,
+    atualiza_saldo BOOLEAN NOT NULL,
+    erro TEXT NOT NULL,
+    registrado_em TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
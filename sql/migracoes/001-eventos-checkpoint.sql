@@ -0,0 +1,9 @@
+-- Última movimentação incluída na quantidade da tabela produto pelo armazenamento
+-- eventos. Gravada na mesma transação da cópia dos saldos, permite reconstruir os
+-- saldos a partir do banco quando a fotografia em disco for perdida ou corrompida.
+-- Obrigatória para armazenamento.tipo=eventos.
+
+CREATE TABLE IF NOT EXISTS eventos_checkpoint (
+    id INT PRIMARY KEY,
+    ultima_movimentacao BIGINT NOT NULL
+);
@@ -0,0 +1,22 @@
+-- Tabelas do journal de movimentações. journal_checkpoint guarda a última
+-- sequência do journal gravada no banco, atualizada na mesma transação de cada
+-- descarga; journal_quarentena recebe as movimentações que o banco recusou por
+-- erro de dados, para correção manual.
+-- Obrigatória para journal.ativo=true.
+
+CREATE TABLE IF NOT EXISTS journal_checkpoint (
+    id INT PRIMARY KEY,
+    ultima_sequencia BIGINT NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS journal_quarentena (
+    sequencia BIGINT PRIMARY KEY,
+    produto_id INT NOT NULL,
+    tipo_movimentacao VARCHAR(20) NOT NULL,
+    quantidade INT NOT NULL,
+    observacao TEXT,
+    data_movimentacao DATE NOT NULL,
+    atualiza_saldo BOOLEAN NOT NULL,
+    erro TEXT NOT NULL,
+    registrado_em TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
@@ -0,0 +1,8 @@
+-- Índice da paginação por cursor (keyset) do histórico de um produto:
+-- WHERE produto_id = ? AND id < ? ORDER BY id DESC LIMIT ? percorre só as linhas
+-- da página. Sem ele a consulta ordena todo o histórico do produto a cada página.
+-- O índice criado automaticamente para a chave estrangeira produto_id passa a ser
+-- desnecessário e é descartado pelo próprio MySQL.
+-- Recomendado para todos os armazenamentos baseados em MySQL.
+
+CREATE INDEX idx_movimentacao_produto ON registro_movimentacao (produto_id, id);
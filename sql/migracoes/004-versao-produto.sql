@@ -0,0 +1,6 @@
+-- Versão de cada produto, incrementada a cada alteração gravada. As atualizações
+-- de produto só são aceitas com a versão atual (produto.versao.verificar), o que
+-- rejeita cópias lidas antes de outra alteração, como uma movimentação.
+-- Obrigatória para os armazenamentos jdbc e eventos.
+
+ALTER TABLE produto ADD COLUMN versao INT NOT NULL DEFAULT 0;
@@ -0,0 +1,247 @@
+package dao;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import modelo.Produto;
+
+/**
+ * Agregados do estoque mantidos de forma incremental: valor total, e valor e
+ * quantidade de produtos por categoria. Cada alteração de produto desconta a
+ * contribuição anterior (preço x quantidade) e soma a nova, de modo que o valor
+ * total é lido em O(1), sem percorrer a tabela de produtos. Assim como o
+ * GROUP BY do banco, as categorias são agrupadas pelo valor cadastrado, e os
+ * produtos sem categoria formam a categoria null, listada antes das demais.
+ *
+ * Como as somas usam ponto flutuante, pequenas diferenças podem se acumular;
+ * a reconciliação periódica recalcula os agregados a partir do banco e registra
+ * qualquer divergência encontrada.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+public class AgregadosEstoque implements OuvinteProdutos {
+
+    /**
+     * Diferença de valor a partir da qual a reconciliação considera que houve divergência.
+     */
+    private static final double TOLERANCIA = 0.005;
+
+    /**
+     * Contribuição de um produto para os agregados.
+     */
+    private static final class Contribuicao {
+        private final String categoria;
+        private final double valor;
+
+        private Contribuicao(String categoria, double valor) {
+            this.categoria = categoria;
+            this.valor = valor;
+        }
+    }
+
+    /**
+     * Totais de uma categoria.
+     */
+    private static final class TotalCategoria {
+        private int quantidadeProdutos;
+        private double valor;
+    }
+
+    /**
+     * Estado completo dos agregados, substituído por inteiro na carga e na reconciliação.
+     */
+    private static final class Estado {
+        private final Map<Integer, Contribuicao> contribuicoes = new HashMap<>();
+        private final TreeMap<String, TotalCategoria> categorias =
+                new TreeMap<>(Comparator.nullsFirst(Comparator.<String>naturalOrder()));
+        private double valorTotal;
+
+        private void somar(Produto produto) {
+            String categoria = produto.getCategoria();
+            double valor = produto.getPreco() * produto.getQuantidade();
+            contribuicoes.put(produto.getId(), new Contribuicao(categoria, valor));
+            TotalCategoria total = categorias.computeIfAbsent(categoria, c -> new TotalCategoria());
+            total.quantidadeProdutos++;
+            total.valor += valor;
+            valorTotal += valor;
+        }
+
+        private void subtrair(int id) {
+            Contribuicao anterior = contribuicoes.remove(id);
+            if (anterior == null) {
+                return;
+            }
+            TotalCategoria total = categorias.get(anterior.categoria);
+            total.quantidadeProdutos--;
+            total.valor -= anterior.valor;
+            if (total.quantidadeProdutos == 0) {
+                categorias.remove(anterior.categoria);
+            }
+            valorTotal -= anterior.valor;
+        }
+    }
+
+    /**
+     * Estado atual dos agregados.
+     */
+    private Estado estado = new Estado();
+
+    /**
+     * Valor total publicado para leitura sem trava.
+     */
+    private volatile double valorTotal;
+
+    /**
+     * Trava de leitura e escrita do estado.
+     */
+    private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+
+    /**
+     * Quantidade de reconciliações que encontraram divergência.
+     */
+    private final LongAdder divergencias = new LongAdder();
+
+    /**
+     * Monta um estado novo a partir da lista completa de produtos.
+     *
+     * @param produtos Todos os produtos cadastrados
+     * @return Estado calculado
+     */
+    private static Estado calcular(List<Produto> produtos) {
+        Estado novo = new Estado();
+        for (Produto produto : produtos) {
+            novo.somar(produto);
+        }
+        return novo;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void catalogoCarregado(List<Produto> produtos) {
+        Estado novo = calcular(produtos);
+        trava.writeLock().lock();
+        try {
+            estado = novo;
+            valorTotal = novo.valorTotal;
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void produtoAlterado(Produto produto) {
+        trava.writeLock().lock();
+        try {
+            estado.subtrair(produto.getId());
+            estado.somar(produto);
+            valorTotal = estado.valorTotal;
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void produtoRemovido(int id) {
+        trava.writeLock().lock();
+        try {
+            estado.subtrair(id);
+            valorTotal = estado.valorTotal;
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Compara os agregados mantidos com os recalculados a partir do banco e
+     * substitui o estado pelos valores recalculados. Deve ser chamado sem
+     * alterações concorrentes entre a leitura dos produtos e esta chamada.
+     *
+     * @param produtos Todos os produtos cadastrados, lidos do banco
+     * @return true se alguma divergência foi encontrada e corrigida
+     */
+    public boolean reconciliar(List<Produto> produtos) {
+        Estado novo = calcular(produtos);
+        trava.writeLock().lock();
+        try {
+            List<String> diferencas = new ArrayList<>();
+            if (Math.abs(estado.valorTotal - novo.valorTotal) > TOLERANCIA) {
+                diferencas.add("valor total " + estado.valorTotal + " -> " + novo.valorTotal);
+            }
+            for (Map.Entry<String, TotalCategoria> e : novo.categorias.entrySet()) {
+                TotalCategoria atual = estado.categorias.get(e.getKey());
+                TotalCategoria correto = e.getValue();
+                if (atual == null || atual.quantidadeProdutos != correto.quantidadeProdutos
+                        || Math.abs(atual.valor - correto.valor) > TOLERANCIA) {
+                    diferencas.add("categoria '" + e.getKey() + "'");
+                }
+            }
+            for (String categoria : estado.categorias.keySet()) {
+                if (!novo.categorias.containsKey(categoria)) {
+                    diferencas.add("categoria '" + categoria + "' inexistente");
+                }
+            }
+
+            estado = novo;
+            valorTotal = novo.valorTotal;
+            if (diferencas.isEmpty()) {
+                return false;
+            }
+            divergencias.increment();
+            System.out.println("Reconciliação dos agregados do estoque corrigiu divergências: " + diferencas);
+            return true;
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retorna o valor total do estoque (soma de preço x quantidade).
+     *
+     * @return Valor total do estoque
+     */
+    public double getValorTotal() {
+        return valorTotal;
+    }
+
+    /**
+     * Lista, por categoria, a quantidade de produtos e o valor em estoque.
+     *
+     * @return Lista de arrays contendo [categoria, quantidade de produtos, valor total], ordenada por categoria
+     */
+    public List<Object[]> listarPorCategoria() {
+        trava.readLock().lock();
+        try {
+            List<Object[]> lista = new ArrayList<>(estado.categorias.size());
+            for (Map.Entry<String, TotalCategoria> e : estado.categorias.entrySet()) {
+                TotalCategoria total = e.getValue();
+                lista.add(new Object[]{e.getKey(), total.quantidadeProdutos, total.valor});
+            }
+            return lista;
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retorna a quantidade de reconciliações que encontraram divergência.
+     *
+     * @return Divergências corrigidas
+     */
+    public long getDivergencias() {
+        return divergencias.sum();
+    }
+}
@@ -0,0 +1,371 @@
+package dao;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import modelo.Produto;
+
+/**
+ * Cache em memória de produtos indexado pelo ID.
+ * Usa uma tabela de endereçamento aberto com chaves int primitivas (sem
+ * conversão para Integer), capacidade limitada e remoção pelo algoritmo do
+ * relógio (CLOCK) quando cheia. Os produtos são copiados na entrada e na saída,
+ * de modo que alterações feitas pelo chamador não afetam o cache.
+ *
+ * Para evitar que uma leitura antiga do banco sobrescreva uma escrita mais
+ * recente, o cache mantém uma geração incrementada a cada invalidação: uma
+ * leitura só é guardada se nenhuma invalidação ocorreu desde o seu início.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+public class CacheProdutos {
+
+    /**
+     * Chave que marca uma posição vazia (IDs de produto começam em 1).
+     */
+    private static final int VAZIO = 0;
+
+    /**
+     * IDs armazenados em cada posição da tabela.
+     */
+    private final int[] chaves;
+
+    /**
+     * Produtos armazenados em cada posição da tabela.
+     */
+    private final Produto[] valores;
+
+    /**
+     * Bit de referência do algoritmo do relógio para cada posição.
+     */
+    private final boolean[] referenciados;
+
+    /**
+     * Máscara para cálculo da posição (tamanho da tabela - 1).
+     */
+    private final int mascara;
+
+    /**
+     * Quantidade máxima de produtos guardados.
+     */
+    private final int capacidade;
+
+    /**
+     * Quantidade de produtos guardados.
+     */
+    private int tamanho;
+
+    /**
+     * Posição atual do ponteiro do relógio.
+     */
+    private int ponteiroRelogio;
+
+    /**
+     * Geração do cache, incrementada a cada invalidação.
+     */
+    private long geracao;
+
+    /**
+     * Trava de leitura e escrita da tabela.
+     */
+    private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+
+    /**
+     * Contadores de acertos, falhas e remoções por falta de espaço.
+     */
+    private final LongAdder acertos = new LongAdder();
+    private final LongAdder falhas = new LongAdder();
+    private final LongAdder remocoesPorCapacidade = new LongAdder();
+
+    /**
+     * Construtor que cria o cache com a capacidade informada.
+     *
+     * @param capacidade Quantidade máxima de produtos guardados
+     */
+    public CacheProdutos(int capacidade) {
+        this.capacidade = Math.max(1, capacidade);
+        int tamanhoTabela = Integer.highestOneBit(this.capacidade * 2 - 1) << 1;
+        this.chaves = new int[tamanhoTabela];
+        this.valores = new Produto[tamanhoTabela];
+        this.referenciados = new boolean[tamanhoTabela];
+        this.mascara = tamanhoTabela - 1;
+    }
+
+    /**
+     * Calcula a posição inicial de um ID na tabela.
+     *
+     * @param id ID do produto
+     * @return Posição inicial
+     */
+    private int posicaoInicial(int id) {
+        int h = id * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mascara;
+    }
+
+    /**
+     * Procura a posição ocupada por um ID.
+     *
+     * @param id ID do produto
+     * @return Posição do ID ou -1 se não estiver no cache
+     */
+    private int localizar(int id) {
+        int i = posicaoInicial(id);
+        while (chaves[i] != VAZIO) {
+            if (chaves[i] == id) {
+                return i;
+            }
+            i = (i + 1) & mascara;
+        }
+        return -1;
+    }
+
+    /**
+     * Busca um produto no cache.
+     *
+     * @param id ID do produto
+     * @return Cópia do produto ou null se não estiver no cache
+     */
+    public Produto buscar(int id) {
+        trava.readLock().lock();
+        try {
+            int i = localizar(id);
+            if (i < 0) {
+                falhas.increment();
+                return null;
+            }
+            referenciados[i] = true;
+            acertos.increment();
+            return copiar(valores[i]);
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retorna a geração atual, a ser informada em {@link #preencher(Produto, long)}.
+     *
+     * @return Geração do cache
+     */
+    public long getGeracao() {
+        trava.readLock().lock();
+        try {
+            return geracao;
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * Guarda um produto lido do banco, desde que nenhuma invalidação tenha
+     * ocorrido desde a geração informada.
+     *
+     * @param produto Produto lido do banco
+     * @param geracaoLeitura Geração obtida antes da leitura
+     * @return true se o produto foi guardado
+     */
+    public boolean preencher(Produto produto, long geracaoLeitura) {
+        if (produto == null || produto.getId() == VAZIO) {
+            return false;
+        }
+        trava.writeLock().lock();
+        try {
+            if (geracaoLeitura != geracao) {
+                return false;
+            }
+            guardar(produto.getId(), copiar(produto));
+            return true;
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove um produto do cache após uma escrita e avança a geração.
+     *
+     * @param id ID do produto alterado
+     * @return Nova geração, a ser usada para guardar a leitura posterior à escrita
+     */
+    public long invalidar(int id) {
+        trava.writeLock().lock();
+        try {
+            geracao++;
+            int i = localizar(id);
+            if (i >= 0) {
+                remover(i);
+            }
+            return geracao;
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove todos os produtos do cache, usado após escritas em massa.
+     */
+    public void limpar() {
+        trava.writeLock().lock();
+        try {
+            geracao++;
+            Arrays.fill(chaves, VAZIO);
+            Arrays.fill(valores, null);
+            Arrays.fill(referenciados, false);
+            tamanho = 0;
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Insere ou substitui um produto; deve ser chamado com a trava de escrita.
+     *
+     * @param id ID do produto
+     * @param produto Produto a guardar
+     */
+    private void guardar(int id, Produto produto) {
+        int i = localizar(id);
+        if (i >= 0) {
+            valores[i] = produto;
+            referenciados[i] = true;
+            return;
+        }
+        if (tamanho >= capacidade) {
+            removerPeloRelogio();
+        }
+        i = posicaoInicial(id);
+        while (chaves[i] != VAZIO) {
+            i = (i + 1) & mascara;
+        }
+        chaves[i] = id;
+        valores[i] = produto;
+        referenciados[i] = false;
+        tamanho++;
+    }
+
+    /**
+     * Remove um produto escolhido pelo algoritmo do relógio: percorre a tabela
+     * dando uma segunda chance aos produtos acessados desde a última passagem.
+     */
+    private void removerPeloRelogio() {
+        while (true) {
+            int i = ponteiroRelogio;
+            ponteiroRelogio = (ponteiroRelogio + 1) & mascara;
+            if (chaves[i] == VAZIO) {
+                continue;
+            }
+            if (referenciados[i]) {
+                referenciados[i] = false;
+            } else {
+                remover(i);
+                remocoesPorCapacidade.increment();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Remove a posição informada, deslocando para trás as chaves seguintes do
+     * mesmo agrupamento para manter a sondagem linear correta.
+     *
+     * @param posicao Posição a esvaziar
+     */
+    private void remover(int posicao) {
+        int vazia = posicao;
+        int i = (posicao + 1) & mascara;
+        while (chaves[i] != VAZIO) {
+            int ideal = posicaoInicial(chaves[i]);
+            // a chave em i pode ocupar a posição vazia se a posição ideal dela
+            // não estiver entre a vazia (exclusive) e i (inclusive), circularmente
+            boolean podeMover = vazia <= i
+                    ? (ideal <= vazia || ideal > i)
+                    : (ideal <= vazia && ideal > i);
+            if (podeMover) {
+                chaves[vazia] = chaves[i];
+                valores[vazia] = valores[i];
+                referenciados[vazia] = referenciados[i];
+                vazia = i;
+            }
+            i = (i + 1) & mascara;
+        }
+        chaves[vazia] = VAZIO;
+        valores[vazia] = null;
+        referenciados[vazia] = false;
+        tamanho--;
+    }
+
+    /**
+     * Cria uma cópia independente de um produto.
+     *
+     * @param p Produto de origem
+     * @return Cópia do produto
+     */
+    private static Produto copiar(Produto p) {
+        return new Produto(p.getId(), p.getNome(), p.getUnidade(), p.getPreco(),
+                p.getQuantidade(), p.getMin(), p.getMax(), p.getCategoria(), p.getVersao());
+    }
+
+    /**
+     * Retorna a quantidade de produtos guardados.
+     *
+     * @return Tamanho do cache
+     */
+    public int getTamanho() {
+        trava.readLock().lock();
+        try {
+            return tamanho;
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retorna a capacidade máxima do cache.
+     *
+     * @return Capacidade
+     */
+    public int getCapacidade() {
+        return capacidade;
+    }
+
+    /**
+     * Retorna o total de buscas atendidas pelo cache.
+     *
+     * @return Acertos
+     */
+    public long getAcertos() {
+        return acertos.sum();
+    }
+
+    /**
+     * Retorna o total de buscas não atendidas pelo cache.
+     *
+     * @return Falhas
+     */
+    public long getFalhas() {
+        return falhas.sum();
+    }
+
+    /**
+     * Retorna o total de produtos removidos por falta de espaço.
+     *
+     * @return Remoções por capacidade
+     */
+    public long getRemocoesPorCapacidade() {
+        return remocoesPorCapacidade.sum();
+    }
+
+    /**
+     * Retorna um resumo textual das métricas do cache.
+     *
+     * @return Métricas do cache
+     */
+    @Override
+    public String toString() {
+        return "CacheProdutos{tamanho=" + getTamanho()
+                + ", capacidade=" + capacidade
+                + ", acertos=" + getAcertos()
+                + ", falhas=" + getFalhas()
+                + ", remocoes=" + getRemocoesPorCapacidade()
+                + '}';
+    }
+}
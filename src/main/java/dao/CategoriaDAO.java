@@ -3,7 +3,6 @@ package dao;
 import modelo.Categoria;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
-import java.sql.Statement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
@@ -16,27 +15,7 @@ import java.util.List;
  * @author bnsant
  * @version 1.0
  */
-public class CategoriaDAO {
-
-    /**
-     * Conexão com o banco de dados.
-     */
-    private Connection connection;
-
-    /**
-     * Construtor que inicializa a conexão com o banco de dados.
-     * Lança RuntimeException se não conseguir conectar.
-     * 
-     * @throws RuntimeException Se não conseguir estabelecer conexão com o banco
-     */
-    public CategoriaDAO() {
-        Conexao conexao = new Conexao();
-        this.connection = conexao.conectar();
-
-        if (this.connection == null) {
-            throw new RuntimeException("Erro ao conectar com o banco de dados");
-        }
-    }
+public class CategoriaDAO implements CategoriaRepositorio {
 
     /**
      * Salva uma nova categoria no banco de dados.
@@ -70,8 +49,9 @@ public class CategoriaDAO {
         String sql = "SELECT * FROM categoria";
 
         try (
-                Statement stmt = connection.createStatement();
-                ResultSet rs = stmt.executeQuery(sql)
+                Connection conn = new Conexao().conectar();
+                PreparedStatement stmt = conn.prepareStatement(sql);
+                ResultSet rs = stmt.executeQuery()
         ) {
             while (rs.next()) {
                 Categoria c = new Categoria(
@@ -97,7 +77,8 @@ public class CategoriaDAO {
         String sql = "UPDATE categoria SET nome = ?, tamanho = ?, embalagem = ? WHERE idcategoria = ?";
 
         try (
-                PreparedStatement stmt = connection.prepareStatement(sql)
+                Connection conn = new Conexao().conectar();
+                PreparedStatement stmt = conn.prepareStatement(sql)
         ) {
             stmt.setString(1, categoria.getNomeCategoria());
             stmt.setString(2, categoria.getTamanho());
@@ -117,7 +98,8 @@ public class CategoriaDAO {
         String sql = "DELETE FROM categoria WHERE idcategoria = ?";
 
         try (
-                PreparedStatement stmt = connection.prepareStatement(sql)
+                Connection conn = new Conexao().conectar();
+                PreparedStatement stmt = conn.prepareStatement(sql)
         ) {
             stmt.setInt(1, id);
             stmt.executeUpdate();
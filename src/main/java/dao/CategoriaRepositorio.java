@@ -0,0 +1,48 @@
+package dao;
+
+import java.sql.SQLException;
+import java.util.List;
+import modelo.Categoria;
+
+/**
+ * Repositório de categorias usado pela camada de serviço.
+ * Implementado sobre o MySQL ({@link CategoriaDAO}) e em memória
+ * ({@link CategoriaRepositorioMemoria}).
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+public interface CategoriaRepositorio {
+
+    /**
+     * Salva uma nova categoria.
+     *
+     * @param categoria Categoria a ser salva
+     * @throws SQLException Se ocorrer erro na operação de banco de dados
+     */
+    void salvar(Categoria categoria) throws SQLException;
+
+    /**
+     * Lista todas as categorias cadastradas.
+     *
+     * @return Lista de categorias
+     * @throws SQLException Se ocorrer erro na operação de banco de dados
+     */
+    List<Categoria> listarCategorias() throws SQLException;
+
+    /**
+     * Atualiza os dados de uma categoria existente.
+     *
+     * @param categoria Categoria com os dados atualizados
+     * @throws SQLException Se ocorrer erro na operação de banco de dados
+     */
+    void atualizar(Categoria categoria) throws SQLException;
+
+    /**
+     * Exclui uma categoria pelo ID.
+     *
+     * @param id ID da categoria a ser excluída
+     * @throws SQLException Se ocorrer erro na operação de banco de dados
+     */
+    void excluir(int id) throws SQLException;
+}
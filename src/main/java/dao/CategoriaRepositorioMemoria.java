@@ -0,0 +1,75 @@
+package dao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import modelo.Categoria;
+
+/**
+ * Repositório de categorias mantido em memória, sem banco de dados.
+ * As categorias são guardadas como cópias, ordenadas pelo ID.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+public class CategoriaRepositorioMemoria implements CategoriaRepositorio {
+
+    /**
+     * Categorias por ID.
+     */
+    private final ConcurrentSkipListMap<Integer, Categoria> categorias = new ConcurrentSkipListMap<>();
+
+    /**
+     * Gerador de IDs de categoria.
+     */
+    private final AtomicInteger proximoId = new AtomicInteger();
+
+    /**
+     * Cria uma cópia independente de uma categoria.
+     *
+     * @param c Categoria de origem
+     * @return Cópia da categoria
+     */
+    private static Categoria copiar(Categoria c) {
+        return new Categoria(c.getId(), c.getNomeCategoria(), c.getTamanho(), c.getEmbalagem());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void salvar(Categoria categoria) {
+        Categoria nova = copiar(categoria);
+        nova.setId(proximoId.incrementAndGet());
+        categorias.put(nova.getId(), nova);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Categoria> listarCategorias() {
+        List<Categoria> lista = new ArrayList<>();
+        for (Categoria categoria : categorias.values()) {
+            lista.add(copiar(categoria));
+        }
+        return lista;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void atualizar(Categoria categoria) {
+        categorias.replace(categoria.getId(), copiar(categoria));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void excluir(int id) {
+        categorias.remove(id);
+    }
+}
@@ -0,0 +1,599 @@
+package dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import metricas.MetricaOperacao;
+import metricas.RegistroMetricas;
+
+/**
+ * Conexão física mantida pelo pool de conexões.
+ * Cada empréstimo entrega ao DAO um proxy da conexão cujo close() devolve a
+ * conexão física ao pool em vez de fechá-la. A conexão mantém também um cache
+ * LRU de PreparedStatements indexado pelo texto SQL, preservado entre empréstimos.
+ * As execuções dos statements são medidas no {@link RegistroMetricas}, por texto SQL.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+class ConexaoPooled {
+
+    /**
+     * Indica se as execuções SQL são medidas, configurável em metricas.sql.
+     */
+    private static final boolean MEDIR_SQL = ConfiguracaoBanco.getInstancia().getBoolean("metricas.sql", true);
+
+    /**
+     * Tamanho máximo do texto SQL usado como nome da métrica.
+     */
+    private static final int TAMANHO_NOME_SQL = 200;
+
+    /**
+     * Pool dono desta conexão.
+     */
+    private final PoolConexoes pool;
+
+    /**
+     * Conexão física com o banco de dados.
+     */
+    private final Connection fisica;
+
+    /**
+     * Instante (ms) em que a conexão física foi aberta.
+     */
+    private final long criadaEm;
+
+    /**
+     * Instante (ms) da última devolução ao pool.
+     */
+    private volatile long ultimoUso;
+
+    /**
+     * Instante (ms) do empréstimo atual.
+     */
+    private volatile long emprestadaEm;
+
+    /**
+     * Pilha de chamadas do empréstimo atual, usada na detecção de vazamentos.
+     */
+    private volatile Throwable origemEmprestimo;
+
+    /**
+     * Indica se o vazamento do empréstimo atual já foi reportado.
+     */
+    private volatile boolean vazamentoReportado;
+
+    /**
+     * Indica se a conexão apresentou erro de comunicação e deve ser descartada.
+     */
+    private volatile boolean defeituosa;
+
+    /**
+     * Statements abertos durante o empréstimo atual, fechados na devolução.
+     */
+    private final List<Statement> statementsAbertos = new ArrayList<>();
+
+    /**
+     * Cache LRU de statements preparados, indexado pelo texto SQL.
+     */
+    private final Map<String, StatementCacheado> cacheStatements;
+
+    /**
+     * Construtor que associa a conexão física ao pool.
+     *
+     * @param pool Pool dono da conexão
+     * @param fisica Conexão física aberta
+     * @param tamanhoCache Quantidade máxima de statements em cache (0 desativa o cache)
+     */
+    ConexaoPooled(PoolConexoes pool, Connection fisica, int tamanhoCache) {
+        this.pool = pool;
+        this.fisica = fisica;
+        this.criadaEm = System.currentTimeMillis();
+        this.ultimoUso = criadaEm;
+        this.cacheStatements = tamanhoCache <= 0 ? null
+                : new LinkedHashMap<String, StatementCacheado>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, StatementCacheado> maisAntigo) {
+                        if (size() > tamanhoCache) {
+                            maisAntigo.getValue().remover();
+                            return true;
+                        }
+                        return false;
+                    }
+                };
+    }
+
+    /**
+     * Marca o início de um empréstimo e cria o proxy entregue ao DAO.
+     *
+     * @param registrarOrigem Se deve guardar a pilha de chamadas do empréstimo
+     * @return Proxy da conexão para este empréstimo
+     */
+    Connection emprestar(boolean registrarOrigem) {
+        this.emprestadaEm = System.currentTimeMillis();
+        this.origemEmprestimo = registrarOrigem ? new Throwable("Conexão emprestada aqui") : null;
+        this.vazamentoReportado = false;
+        return (Connection) Proxy.newProxyInstance(
+                ConexaoPooled.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new Emprestimo());
+    }
+
+    /**
+     * Restaura o estado padrão da conexão física antes de voltar ao pool.
+     *
+     * @return true se a conexão pode ser reutilizada, false se deve ser descartada
+     */
+    boolean restaurar() {
+        synchronized (statementsAbertos) {
+            for (Statement st : statementsAbertos) {
+                try {
+                    st.close();
+                } catch (SQLException e) {
+                    // statement já inutilizado; a conexão segue válida
+                }
+            }
+            statementsAbertos.clear();
+        }
+        if (cacheStatements != null) {
+            synchronized (cacheStatements) {
+                for (StatementCacheado st : cacheStatements.values()) {
+                    st.liberar();
+                }
+            }
+        }
+        if (defeituosa) {
+            return false;
+        }
+        try {
+            if (fisica.isClosed()) {
+                return false;
+            }
+            if (!fisica.getAutoCommit()) {
+                fisica.rollback();
+                fisica.setAutoCommit(true);
+            }
+            if (fisica.isReadOnly()) {
+                fisica.setReadOnly(false);
+            }
+            fisica.clearWarnings();
+            this.ultimoUso = System.currentTimeMillis();
+            this.origemEmprestimo = null;
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Verifica se a conexão física continua utilizável.
+     *
+     * @param timeoutSegundos Tempo máximo da verificação
+     * @return true se a conexão é válida
+     */
+    boolean validar(int timeoutSegundos) {
+        try {
+            return fisica.isValid(timeoutSegundos);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Fecha a conexão física.
+     */
+    void fecharFisica() {
+        try {
+            fisica.close();
+        } catch (SQLException e) {
+            System.err.println("Erro ao fechar conexão física: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Prepara um statement reaproveitando o do cache quando disponível.
+     * Se o statement em cache já estiver em uso neste empréstimo, prepara um
+     * statement avulso, fechado na devolução da conexão.
+     *
+     * @param conexaoEmprestada Proxy da conexão do empréstimo atual
+     * @param sql Texto SQL parametrizado
+     * @param chavesGeradas Constante de Statement para retorno de chaves geradas, ou null
+     * @return Statement preparado
+     * @throws SQLException Se ocorrer erro ao preparar o statement
+     */
+    private PreparedStatement prepararCacheado(Connection conexaoEmprestada, String sql, Integer chavesGeradas) throws SQLException {
+        String chave = chavesGeradas == null ? sql : chavesGeradas + "#" + sql;
+        synchronized (cacheStatements) {
+            StatementCacheado cacheado = cacheStatements.get(chave);
+            if (cacheado == null || cacheado.isFisicoFechado()) {
+                PreparedStatement fisico = chavesGeradas == null
+                        ? fisica.prepareStatement(sql)
+                        : fisica.prepareStatement(sql, chavesGeradas);
+                cacheado = new StatementCacheado(fisico, sql);
+                cacheStatements.put(chave, cacheado);
+                pool.registrarFalhaCacheStatement();
+            } else if (cacheado.isEmUso()) {
+                PreparedStatement avulso = chavesGeradas == null
+                        ? fisica.prepareStatement(sql)
+                        : fisica.prepareStatement(sql, chavesGeradas);
+                synchronized (statementsAbertos) {
+                    statementsAbertos.add(avulso);
+                }
+                return (PreparedStatement) medir(avulso, sql);
+            } else {
+                pool.registrarAcertoCacheStatement();
+            }
+            return cacheado.emprestar(conexaoEmprestada);
+        }
+    }
+
+    /**
+     * Envolve um statement não cacheado em um proxy que mede suas execuções.
+     *
+     * @param statement Statement criado na conexão física
+     * @param sql Texto SQL preparado, ou null para statements simples
+     * @return Statement medido, ou o próprio statement se a medição estiver desativada
+     */
+    private static Statement medir(Statement statement, String sql) {
+        if (!MEDIR_SQL) {
+            return statement;
+        }
+        Class<?> tipo = statement instanceof CallableStatement ? CallableStatement.class
+                : statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+        return (Statement) Proxy.newProxyInstance(
+                ConexaoPooled.class.getClassLoader(),
+                new Class<?>[]{tipo},
+                (proxy, metodo, args) -> executar(statement, metodo, args, sql));
+    }
+
+    /**
+     * Repassa uma chamada ao statement, medindo-a se for uma execução.
+     *
+     * @param statement Statement de destino
+     * @param metodo Método chamado
+     * @param args Argumentos da chamada
+     * @param sql Texto SQL preparado, ou null se vier nos argumentos
+     * @return Resultado da chamada
+     * @throws Throwable Exceção lançada pelo statement
+     */
+    private static Object executar(Statement statement, Method metodo, Object[] args, String sql) throws Throwable {
+        MetricaOperacao metrica = null;
+        if (MEDIR_SQL && metodo.getName().startsWith("execute")) {
+            String texto = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : sql;
+            metrica = RegistroMetricas.getInstancia().metrica(RegistroMetricas.SQL, nomeConsulta(texto));
+        }
+        long inicio = metrica != null ? metrica.iniciar() : 0;
+        boolean erro = true;
+        try {
+            Object resultado = metodo.invoke(statement, args);
+            erro = false;
+            return resultado;
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        } finally {
+            if (metrica != null) {
+                metrica.encerrar(inicio, erro);
+            }
+        }
+    }
+
+    /**
+     * Monta o nome da métrica de uma consulta: o texto SQL com os espaços
+     * normalizados, limitado a {@link #TAMANHO_NOME_SQL} caracteres.
+     *
+     * @param sql Texto SQL
+     * @return Nome da métrica
+     */
+    static String nomeConsulta(String sql) {
+        if (sql == null) {
+            return "(lote)";
+        }
+        String nome = sql.trim().replaceAll("\\s+", " ");
+        return nome.length() > TAMANHO_NOME_SQL ? nome.substring(0, TAMANHO_NOME_SQL) + "..." : nome;
+    }
+
+    /**
+     * Retorna a conexão física.
+     *
+     * @return Conexão física
+     */
+    Connection getFisica() {
+        return fisica;
+    }
+
+    /**
+     * Retorna o instante de criação da conexão física.
+     *
+     * @return Instante em milissegundos
+     */
+    long getCriadaEm() {
+        return criadaEm;
+    }
+
+    /**
+     * Retorna o instante da última devolução ao pool.
+     *
+     * @return Instante em milissegundos
+     */
+    long getUltimoUso() {
+        return ultimoUso;
+    }
+
+    /**
+     * Retorna o instante do empréstimo atual.
+     *
+     * @return Instante em milissegundos
+     */
+    long getEmprestadaEm() {
+        return emprestadaEm;
+    }
+
+    /**
+     * Retorna a pilha de chamadas do empréstimo atual, se registrada.
+     *
+     * @return Pilha de chamadas ou null
+     */
+    Throwable getOrigemEmprestimo() {
+        return origemEmprestimo;
+    }
+
+    /**
+     * Indica se o vazamento do empréstimo atual já foi reportado.
+     *
+     * @return true se já reportado
+     */
+    boolean isVazamentoReportado() {
+        return vazamentoReportado;
+    }
+
+    /**
+     * Marca o vazamento do empréstimo atual como reportado.
+     */
+    void marcarVazamentoReportado() {
+        this.vazamentoReportado = true;
+    }
+
+    /**
+     * Tratador das chamadas feitas pelo DAO durante um empréstimo.
+     * Intercepta close() e isClosed() e registra os statements criados.
+     */
+    private class Emprestimo implements InvocationHandler {
+
+        /**
+         * Indica se este empréstimo já foi encerrado.
+         */
+        private boolean devolvida;
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+            String nome = metodo.getName();
+            switch (nome) {
+                case "close":
+                    if (!devolvida) {
+                        devolvida = true;
+                        pool.devolver(ConexaoPooled.this);
+                    }
+                    return null;
+                case "isClosed":
+                    return devolvida || fisica.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "ConexaoPooled[" + fisica + "]";
+                default:
+                    break;
+            }
+            if (devolvida) {
+                throw new SQLException("Conexão já devolvida ao pool");
+            }
+            if (cacheStatements != null && "prepareStatement".equals(nome)
+                    && (args.length == 1 || (args.length == 2 && args[1] instanceof Integer))) {
+                return prepararCacheado((Connection) proxy, (String) args[0],
+                        args.length == 2 ? (Integer) args[1] : null);
+            }
+            try {
+                Object resultado = metodo.invoke(fisica, args);
+                if (resultado instanceof Statement) {
+                    synchronized (statementsAbertos) {
+                        statementsAbertos.add((Statement) resultado);
+                    }
+                    String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                    return medir((Statement) resultado, sql);
+                }
+                return resultado;
+            } catch (InvocationTargetException e) {
+                Throwable causa = e.getCause();
+                if (causa instanceof SQLException) {
+                    String estado = ((SQLException) causa).getSQLState();
+                    if (estado != null && estado.startsWith("08")) {
+                        defeituosa = true;
+                    }
+                }
+                throw causa;
+            }
+        }
+    }
+
+    /**
+     * Statement preparado mantido no cache da conexão.
+     * O DAO recebe um proxy cujo close() apenas limpa os parâmetros e libera o
+     * statement para o próximo uso, sem fechá-lo no servidor.
+     */
+    private static class StatementCacheado {
+
+        /**
+         * Statement físico preparado no banco.
+         */
+        private final PreparedStatement fisico;
+
+        /**
+         * Texto SQL preparado.
+         */
+        private final String sql;
+
+        /**
+         * Indica se o statement está emprestado a um DAO.
+         */
+        private boolean emUso;
+
+        /**
+         * Indica se o statement saiu do cache enquanto emprestado e deve ser
+         * fechado assim que for liberado.
+         */
+        private boolean removido;
+
+        /**
+         * Construtor que guarda o statement físico.
+         *
+         * @param fisico Statement preparado
+         * @param sql Texto SQL preparado
+         */
+        StatementCacheado(PreparedStatement fisico, String sql) {
+            this.fisico = fisico;
+            this.sql = sql;
+        }
+
+        /**
+         * Indica se o statement está emprestado.
+         *
+         * @return true se em uso
+         */
+        boolean isEmUso() {
+            return emUso;
+        }
+
+        /**
+         * Indica se o statement físico foi fechado (por exemplo, pelo driver).
+         *
+         * @return true se fechado
+         */
+        boolean isFisicoFechado() {
+            try {
+                return fisico.isClosed();
+            } catch (SQLException e) {
+                return true;
+            }
+        }
+
+        /**
+         * Empresta o statement ao DAO.
+         *
+         * @param conexaoEmprestada Proxy da conexão que o DAO está usando
+         * @return Proxy do statement
+         */
+        PreparedStatement emprestar(Connection conexaoEmprestada) {
+            emUso = true;
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    ConexaoPooled.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    new UsoStatement(conexaoEmprestada));
+        }
+
+        /**
+         * Limpa o estado do statement e o devolve ao cache.
+         */
+        void liberar() {
+            if (!emUso) {
+                return;
+            }
+            emUso = false;
+            if (removido) {
+                fecharFisico();
+                return;
+            }
+            try {
+                fisico.clearParameters();
+                fisico.clearBatch();
+            } catch (SQLException e) {
+                fecharFisico();
+            }
+        }
+
+        /**
+         * Remove o statement do cache, fechando-o agora ou, se emprestado,
+         * quando o DAO o liberar.
+         */
+        void remover() {
+            removido = true;
+            if (!emUso) {
+                fecharFisico();
+            }
+        }
+
+        /**
+         * Fecha o statement no servidor.
+         */
+        void fecharFisico() {
+            try {
+                fisico.close();
+            } catch (SQLException e) {
+                // statement já fechado
+            }
+        }
+
+        /**
+         * Tratador das chamadas feitas pelo DAO sobre o statement emprestado.
+         */
+        private class UsoStatement implements InvocationHandler {
+
+            /**
+             * Proxy da conexão que originou o statement.
+             */
+            private final Connection conexaoEmprestada;
+
+            /**
+             * Indica se o DAO já fechou este uso do statement.
+             */
+            private boolean fechado;
+
+            /**
+             * Construtor do tratador.
+             *
+             * @param conexaoEmprestada Proxy da conexão do empréstimo
+             */
+            UsoStatement(Connection conexaoEmprestada) {
+                this.conexaoEmprestada = conexaoEmprestada;
+            }
+
+            @Override
+            public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+                switch (metodo.getName()) {
+                    case "close":
+                        if (!fechado) {
+                            fechado = true;
+                            liberar();
+                        }
+                        return null;
+                    case "isClosed":
+                        return fechado || fisico.isClosed();
+                    case "getConnection":
+                        return conexaoEmprestada;
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "toString":
+                        return "StatementCacheado[" + fisico + "]";
+                    default:
+                        break;
+                }
+                if (fechado) {
+                    throw new SQLException("Statement já fechado");
+                }
+                return executar(fisico, metodo, args, sql);
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package dao;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Classe responsável por carregar as configurações externas do sistema.
+ * As configurações são lidas, nesta ordem de prioridade crescente, do arquivo
+ * db.properties presente no classpath, do arquivo indicado pela propriedade de
+ * sistema db.config e das próprias propriedades de sistema da JVM.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+public final class ConfiguracaoBanco {
+
+    /**
+     * Nome do arquivo de configuração padrão no classpath.
+     */
+    private static final String ARQUIVO_PADRAO = "/db.properties";
+
+    /**
+     * Propriedade de sistema que aponta para um arquivo de configuração externo.
+     */
+    private static final String PROPRIEDADE_ARQUIVO = "db.config";
+
+    /**
+     * Instância única carregada sob demanda.
+     */
+    private static volatile ConfiguracaoBanco instancia;
+
+    /**
+     * Propriedades carregadas.
+     */
+    private final Properties propriedades;
+
+    /**
+     * Construtor privado que carrega as propriedades de todas as fontes.
+     */
+    private ConfiguracaoBanco() {
+        this.propriedades = new Properties();
+
+        try (InputStream in = ConfiguracaoBanco.class.getResourceAsStream(ARQUIVO_PADRAO)) {
+            if (in != null) {
+                propriedades.load(in);
+            }
+        } catch (IOException e) {
+            System.err.println("Erro ao ler " + ARQUIVO_PADRAO + ": " + e.getMessage());
+        }
+
+        String arquivoExterno = System.getProperty(PROPRIEDADE_ARQUIVO);
+        if (arquivoExterno != null) {
+            try (InputStream in = new FileInputStream(arquivoExterno)) {
+                propriedades.load(in);
+            } catch (IOException e) {
+                System.err.println("Erro ao ler configuração externa " + arquivoExterno + ": " + e.getMessage());
+            }
+        }
+
+        for (String chave : System.getProperties().stringPropertyNames()) {
+            propriedades.setProperty(chave, System.getProperty(chave));
+        }
+    }
+
+    /**
+     * Construtor com propriedades fixas, sem ler o arquivo nem a JVM.
+     * Usado nos testes de componentes que recebem a configuração.
+     *
+     * @param propriedades Propriedades da configuração
+     */
+    ConfiguracaoBanco(Properties propriedades) {
+        this.propriedades = propriedades;
+    }
+
+    /**
+     * Retorna a configuração carregada, lendo as fontes na primeira chamada.
+     *
+     * @return Configuração do sistema
+     */
+    public static ConfiguracaoBanco getInstancia() {
+        ConfiguracaoBanco c = instancia;
+        if (c == null) {
+            synchronized (ConfiguracaoBanco.class) {
+                c = instancia;
+                if (c == null) {
+                    c = new ConfiguracaoBanco();
+                    instancia = c;
+                }
+            }
+        }
+        return c;
+    }
+
+    /**
+     * Retorna o valor textual de uma configuração.
+     *
+     * @param chave Nome da configuração
+     * @param padrao Valor usado quando a configuração não existe
+     * @return Valor configurado ou o padrão
+     */
+    public String getString(String chave, String padrao) {
+        String valor = propriedades.getProperty(chave);
+        return valor == null ? padrao : valor.trim();
+    }
+
+    /**
+     * Retorna o valor inteiro de uma configuração.
+     *
+     * @param chave Nome da configuração
+     * @param padrao Valor usado quando a configuração não existe ou é inválida
+     * @return Valor configurado ou o padrão
+     */
+    public int getInt(String chave, int padrao) {
+        String valor = propriedades.getProperty(chave);
+        if (valor == null) {
+            return padrao;
+        }
+        try {
+            return Integer.parseInt(valor.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Configuração inválida para " + chave + ": " + valor);
+            return padrao;
+        }
+    }
+
+    /**
+     * Retorna o valor longo de uma configuração.
+     *
+     * @param chave Nome da configuração
+     * @param padrao Valor usado quando a configuração não existe ou é inválida
+     * @return Valor configurado ou o padrão
+     */
+    public long getLong(String chave, long padrao) {
+        String valor = propriedades.getProperty(chave);
+        if (valor == null) {
+            return padrao;
+        }
+        try {
+            return Long.parseLong(valor.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Configuração inválida para " + chave + ": " + valor);
+            return padrao;
+        }
+    }
+
+    /**
+     * Retorna o valor booleano de uma configuração.
+     *
+     * @param chave Nome da configuração
+     * @param padrao Valor usado quando a configuração não existe
+     * @return Valor configurado ou o padrão
+     */
+    public boolean getBoolean(String chave, boolean padrao) {
+        String valor = propriedades.getProperty(chave);
+        return valor == null ? padrao : Boolean.parseBoolean(valor.trim());
+    }
+}
@@ -0,0 +1,157 @@
+package dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Consulta aberta no servidor cujos resultados são lidos em blocos.
+ * Mantém a conexão, o statement e o ResultSet abertos até o fim da leitura
+ * ou até ser fechada. O statement usa fetch size igual ao tamanho do bloco;
+ * com useCursorFetch habilitado na URL, o MySQL entrega as linhas por cursor
+ * no servidor, e a memória usada fica limitada ao tamanho do bloco.
+ *
+ * @param <T> Tipo dos objetos montados a partir de cada linha
+ * @author bnsant
+ * @version 1.0
+ */
+public class CursorConsulta<T> implements CursorDados<T> {
+
+    /**
+     * Converte a linha atual de um ResultSet em um objeto.
+     *
+     * @param <T> Tipo do objeto montado
+     */
+    @FunctionalInterface
+    public interface MapeadorLinha<T> {
+
+        /**
+         * Monta o objeto correspondente à linha atual.
+         *
+         * @param rs ResultSet posicionado em uma linha
+         * @return Objeto montado
+         * @throws SQLException Se ocorrer erro na leitura das colunas
+         */
+        T mapear(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * Conexão emprestada do pool durante a leitura.
+     */
+    private Connection conn;
+
+    /**
+     * Statement da consulta.
+     */
+    private PreparedStatement stmt;
+
+    /**
+     * Resultado da consulta.
+     */
+    private ResultSet rs;
+
+    /**
+     * Conversor das linhas em objetos.
+     */
+    private final MapeadorLinha<T> mapeador;
+
+    /**
+     * Indica se todas as linhas já foram lidas ou a consulta foi fechada.
+     */
+    private boolean fim;
+
+    /**
+     * Abre a consulta no banco de dados.
+     *
+     * @param sql Consulta SQL sem parâmetros
+     * @param tamanhoBloco Quantidade de linhas buscadas por vez no servidor
+     * @param mapeador Conversor das linhas em objetos
+     * @throws SQLException Se não for possível abrir a consulta
+     */
+    public CursorConsulta(String sql, int tamanhoBloco, MapeadorLinha<T> mapeador) throws SQLException {
+        this.mapeador = mapeador;
+        this.conn = new Conexao().conectar();
+        if (conn == null) {
+            throw new SQLException("Não foi possível obter conexão com o banco de dados");
+        }
+        try {
+            // statement fora do cache da conexão, pois altera o fetch size
+            this.stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(tamanhoBloco);
+            this.rs = stmt.executeQuery();
+        } catch (SQLException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Lê o próximo bloco de linhas. Ao chegar ao fim, libera a conexão.
+     *
+     * @param tamanho Quantidade máxima de linhas do bloco
+     * @return Objetos do bloco (vazio se a leitura terminou)
+     * @throws SQLException Se ocorrer erro na leitura
+     */
+    @Override
+    public List<T> lerBloco(int tamanho) throws SQLException {
+        List<T> bloco = new ArrayList<>(tamanho);
+        if (fim) {
+            return bloco;
+        }
+        try {
+            while (bloco.size() < tamanho) {
+                if (!rs.next()) {
+                    close();
+                    break;
+                }
+                bloco.add(mapeador.mapear(rs));
+            }
+        } catch (SQLException e) {
+            close();
+            throw e;
+        }
+        return bloco;
+    }
+
+    /**
+     * Indica se a leitura terminou.
+     *
+     * @return true se não há mais linhas
+     */
+    @Override
+    public boolean isFim() {
+        return fim;
+    }
+
+    /**
+     * Fecha a consulta e devolve a conexão ao pool.
+     */
+    @Override
+    public void close() {
+        fim = true;
+        try {
+            if (rs != null) {
+                rs.close();
+            }
+            if (stmt != null) {
+                stmt.close();
+            }
+        } catch (SQLException e) {
+            System.err.println("Erro ao fechar cursor: " + e.getMessage());
+        } finally {
+            rs = null;
+            stmt = null;
+            if (conn != null) {
+                try {
+                    conn.close();
+                } catch (SQLException e) {
+                    System.err.println("Erro ao fechar conexão: " + e.getMessage());
+                }
+                conn = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package dao;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Leitura em blocos de um resultado mantido aberto no servidor.
+ * Implementada sobre o banco de dados ({@link CursorConsulta}) ou sobre uma
+ * lista em memória ({@link CursorLista}).
+ *
+ * @param <T> Tipo dos itens lidos
+ * @author bnsant
+ * @version 1.0
+ */
+public interface CursorDados<T> extends AutoCloseable {
+
+    /**
+     * Lê o próximo bloco de itens. Ao chegar ao fim, o cursor é fechado.
+     *
+     * @param tamanho Quantidade máxima de itens do bloco
+     * @return Itens lidos (vazio se não houver mais itens)
+     * @throws SQLException Se ocorrer erro na leitura
+     */
+    List<T> lerBloco(int tamanho) throws SQLException;
+
+    /**
+     * Indica se todos os itens já foram lidos ou o cursor foi fechado.
+     *
+     * @return true se não há mais itens
+     */
+    boolean isFim();
+
+    /**
+     * Fecha o cursor, liberando os recursos associados.
+     */
+    @Override
+    void close();
+}
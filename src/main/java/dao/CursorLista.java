@@ -0,0 +1,67 @@
+package dao;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cursor sobre uma lista em memória, usado pelos repositórios em memória.
+ * A lista deve ser uma fotografia que não é alterada durante a leitura.
+ *
+ * @param <T> Tipo dos itens lidos
+ * @author bnsant
+ * @version 1.0
+ */
+public class CursorLista<T> implements CursorDados<T> {
+
+    /**
+     * Itens do cursor.
+     */
+    private List<T> itens;
+
+    /**
+     * Posição do próximo item a ler.
+     */
+    private int posicao;
+
+    /**
+     * Construtor do cursor.
+     *
+     * @param itens Fotografia dos itens
+     */
+    public CursorLista(List<T> itens) {
+        this.itens = itens;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<T> lerBloco(int tamanho) {
+        if (itens == null) {
+            return new ArrayList<>();
+        }
+        int fim = Math.min(itens.size(), posicao + Math.max(1, tamanho));
+        List<T> bloco = new ArrayList<>(itens.subList(posicao, fim));
+        posicao = fim;
+        if (posicao >= itens.size()) {
+            close();
+        }
+        return bloco;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isFim() {
+        return itens == null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() {
+        itens = null;
+    }
+}
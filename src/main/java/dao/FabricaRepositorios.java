@@ -0,0 +1,151 @@
+package dao;
+
+/**
+ * Cria os repositórios de produtos, categorias e movimentações de um mesmo
+ * armazenamento. O armazenamento é escolhido pela chave armazenamento.tipo:
+ * {@link #JDBC} usa o MySQL por meio dos DAOs, {@link #EVENTOS} mantém os saldos
+ * em memória a partir do histórico de movimentações no MySQL
+ * ({@link MotorEventosEstoque}) e {@link #MEMORIA} mantém todos os dados em
+ * memória, sem banco de dados (os dados são perdidos ao encerrar).
+ *
+ * No armazenamento {@link #JDBC}, a chave journal.ativo faz as movimentações
+ * serem confirmadas ao serem gravadas em um journal local e gravadas no MySQL
+ * em segundo plano ({@link MovimentacaoRepositorioJournal}); sem o journal, a
+ * chave grupoCommit.ativo reúne em uma só transação as movimentações registradas
+ * ao mesmo tempo ({@link GrupoCommitMovimentacoes}).
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+public class FabricaRepositorios {
+
+    /**
+     * Armazenamento no MySQL.
+     */
+    public static final String JDBC = "jdbc";
+
+    /**
+     * Saldos em memória reconstruídos do histórico de movimentações no MySQL.
+     */
+    public static final String EVENTOS = "eventos";
+
+    /**
+     * Armazenamento em memória.
+     */
+    public static final String MEMORIA = "memoria";
+
+    /**
+     * Tipo do armazenamento criado.
+     */
+    private final String tipo;
+
+    /**
+     * Repositório de produtos.
+     */
+    private final ProdutoRepositorio produtos;
+
+    /**
+     * Repositório de categorias.
+     */
+    private final CategoriaRepositorio categorias;
+
+    /**
+     * Repositório de movimentações.
+     */
+    private final MovimentacaoRepositorio movimentacoes;
+
+    /**
+     * Construtor privado; use {@link #criar(String)} ou {@link #criarConfigurado()}.
+     *
+     * @param tipo Tipo do armazenamento
+     * @param produtos Repositório de produtos
+     * @param categorias Repositório de categorias
+     * @param movimentacoes Repositório de movimentações
+     */
+    private FabricaRepositorios(String tipo, ProdutoRepositorio produtos,
+            CategoriaRepositorio categorias, MovimentacaoRepositorio movimentacoes) {
+        this.tipo = tipo;
+        this.produtos = produtos;
+        this.categorias = categorias;
+        this.movimentacoes = movimentacoes;
+    }
+
+    /**
+     * Cria os repositórios do armazenamento informado.
+     *
+     * @param tipo {@link #JDBC}, {@link #EVENTOS} ou {@link #MEMORIA}
+     * @return Repositórios criados
+     * @throws IllegalArgumentException Se o tipo for desconhecido
+     */
+    public static FabricaRepositorios criar(String tipo) {
+        if (JDBC.equalsIgnoreCase(tipo)) {
+            ProdutoDAO produtos = new ProdutoDAO();
+            ConfiguracaoBanco config = ConfiguracaoBanco.getInstancia();
+            MovimentacaoRepositorio movimentacoes;
+            if (config.getBoolean("journal.ativo", false)) {
+                movimentacoes = new MovimentacaoRepositorioJournal(produtos);
+            } else if (config.getBoolean("grupoCommit.ativo", false)) {
+                movimentacoes = new GrupoCommitMovimentacoes(new RegistroMovimentacaoDAO());
+            } else {
+                movimentacoes = new RegistroMovimentacaoDAO();
+            }
+            return new FabricaRepositorios(JDBC, produtos, new CategoriaDAO(), movimentacoes);
+        }
+        if (EVENTOS.equalsIgnoreCase(tipo)) {
+            MotorEventosEstoque motor = new MotorEventosEstoque();
+            return new FabricaRepositorios(EVENTOS, motor.getProdutos(), new CategoriaDAO(), motor);
+        }
+        if (MEMORIA.equalsIgnoreCase(tipo)) {
+            ProdutoRepositorioMemoria produtos = new ProdutoRepositorioMemoria();
+            return new FabricaRepositorios(MEMORIA, produtos, new CategoriaRepositorioMemoria(),
+                    new MovimentacaoRepositorioMemoria(produtos));
+        }
+        throw new IllegalArgumentException("Armazenamento desconhecido: " + tipo + " (use jdbc, eventos ou memoria)");
+    }
+
+    /**
+     * Cria os repositórios do armazenamento definido em armazenamento.tipo.
+     *
+     * @return Repositórios criados
+     * @throws IllegalArgumentException Se o tipo configurado for desconhecido
+     */
+    public static FabricaRepositorios criarConfigurado() {
+        return criar(ConfiguracaoBanco.getInstancia().getString("armazenamento.tipo", JDBC).trim());
+    }
+
+    /**
+     * Retorna o tipo do armazenamento.
+     *
+     * @return {@link #JDBC}, {@link #EVENTOS} ou {@link #MEMORIA}
+     */
+    public String getTipo() {
+        return tipo;
+    }
+
+    /**
+     * Retorna o repositório de produtos.
+     *
+     * @return Repositório de produtos
+     */
+    public ProdutoRepositorio getProdutos() {
+        return produtos;
+    }
+
+    /**
+     * Retorna o repositório de categorias.
+     *
+     * @return Repositório de categorias
+     */
+    public CategoriaRepositorio getCategorias() {
+        return categorias;
+    }
+
+    /**
+     * Retorna o repositório de movimentações.
+     *
+     * @return Repositório de movimentações
+     */
+    public MovimentacaoRepositorio getMovimentacoes() {
+        return movimentacoes;
+    }
+}
@@ -0,0 +1,439 @@
+package dao;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import metricas.HistogramaLatencia;
+import metricas.RegistroMetricas;
+import modelo.PaginaMovimentacoes;
+import modelo.RegistroMovimentacao;
+import modelo.ResultadoMovimentacao;
+
+/**
+ * Estágio de group commit à frente do {@link RegistroMovimentacaoDAO}.
+ * Movimentações registradas individualmente por várias threads ao mesmo tempo
+ * são reunidas por uma única thread de gravação e gravadas em uma só transação,
+ * dividindo entre elas o custo do commit no MySQL.
+ *
+ * Um lote é fechado quando atinge o tamanho máximo ou quando termina a janela
+ * de espera aberta pela primeira movimentação; enquanto um lote é gravado, as
+ * movimentações que chegam formam o próximo. Cada chamador recebe o seu próprio
+ * resultado: movimentações inválidas, de produtos inexistentes ou com estoque
+ * insuficiente são recusadas sem afetar as demais e, se o lote inteiro falhar, cada movimentação é gravada
+ * novamente em uma transação própria.
+ *
+ * O chamador espera o resultado por no máximo grupoCommit.timeoutMillis e recebe
+ * {@link ResultadoMovimentacao#ERRO} quando o prazo termina. Se a thread de
+ * gravação tiver terminado (por exemplo, por um {@link Error}), ela é recriada
+ * pela próxima espera e as movimentações que ficaram na fila são gravadas.
+ *
+ * O tamanho dos lotes é publicado na distribuição {@link #METRICA_TAMANHO_LOTE}
+ * do {@link RegistroMetricas}.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+public class GrupoCommitMovimentacoes implements MovimentacaoRepositorio {
+
+    /**
+     * Nome da distribuição do tamanho dos lotes no registro de métricas.
+     */
+    public static final String METRICA_TAMANHO_LOTE = "grupo_commit_movimentacoes";
+
+    /**
+     * Movimentação aguardando gravação.
+     */
+    private static class Pedido {
+
+        /**
+         * Movimentação a gravar.
+         */
+        final RegistroMovimentacao registro;
+
+        /**
+         * Repositório de produtos do chamador, ou null se a movimentação não altera o saldo.
+         */
+        final ProdutoRepositorio produtos;
+
+        /**
+         * Resultado entregue ao chamador.
+         */
+        final CompletableFuture<ResultadoMovimentacao> resultado = new CompletableFuture<>();
+
+        /**
+         * Construtor do pedido.
+         *
+         * @param registro Movimentação a gravar
+         * @param produtos Repositório de produtos, ou null se não altera o saldo
+         */
+        Pedido(RegistroMovimentacao registro, ProdutoRepositorio produtos) {
+            this.registro = registro;
+            this.produtos = produtos;
+        }
+    }
+
+    /**
+     * DAO que grava os lotes e atende às consultas.
+     */
+    private final RegistroMovimentacaoDAO dao;
+
+    /**
+     * Movimentações aguardando a thread de gravação.
+     */
+    private final LinkedBlockingQueue<Pedido> fila = new LinkedBlockingQueue<>();
+
+    /**
+     * Janela de espera (ns) aberta pela primeira movimentação do lote.
+     */
+    private final long janelaNanos;
+
+    /**
+     * Quantidade máxima de movimentações por lote.
+     */
+    private final int tamanhoMaximo;
+
+    /**
+     * Distribuição do tamanho dos lotes gravados.
+     */
+    private final HistogramaLatencia tamanhosLote;
+
+    /**
+     * Prazo máximo (ns) de espera do chamador pelo resultado.
+     */
+    private final long timeoutNanos;
+
+    /**
+     * Intervalo (ns) em que o chamador que espera confere se a thread de gravação continua viva.
+     */
+    private static final long INTERVALO_VERIFICACAO_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Thread de gravação atual; recriada por {@link #garantirGravacao()} se terminar.
+     */
+    private volatile Thread gravacao;
+
+    /**
+     * Construtor que usa a janela, o tamanho máximo e o prazo configurados
+     * (grupoCommit.janelaMicros, grupoCommit.tamanhoMaximo e grupoCommit.timeoutMillis).
+     *
+     * @param dao DAO de movimentações
+     */
+    public GrupoCommitMovimentacoes(RegistroMovimentacaoDAO dao) {
+        this(dao, ConfiguracaoBanco.getInstancia().getLong("grupoCommit.janelaMicros", 500),
+                ConfiguracaoBanco.getInstancia().getInt("grupoCommit.tamanhoMaximo", 256),
+                ConfiguracaoBanco.getInstancia().getLong("grupoCommit.timeoutMillis", 30000));
+    }
+
+    /**
+     * Construtor com janela, tamanho máximo e prazo informados.
+     *
+     * @param dao DAO de movimentações
+     * @param janelaMicros Janela de espera (µs) aberta pela primeira movimentação; 0 grava só o que já estiver na fila
+     * @param tamanhoMaximo Quantidade máxima de movimentações por lote
+     * @param timeoutMillis Prazo máximo (ms) de espera do chamador pelo resultado
+     */
+    public GrupoCommitMovimentacoes(RegistroMovimentacaoDAO dao, long janelaMicros, int tamanhoMaximo, long timeoutMillis) {
+        this.dao = dao;
+        this.janelaNanos = Math.max(0, janelaMicros) * 1000L;
+        this.tamanhoMaximo = Math.max(1, tamanhoMaximo);
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, timeoutMillis));
+        this.tamanhosLote = RegistroMetricas.getInstancia().distribuicao(METRICA_TAMANHO_LOTE);
+        garantirGravacao();
+    }
+
+    /**
+     * Inicia a thread de gravação se ela ainda não existir ou tiver terminado.
+     */
+    private void garantirGravacao() {
+        Thread atual = gravacao;
+        if (atual != null && atual.isAlive()) {
+            return;
+        }
+        synchronized (this) {
+            if (gravacao != null && gravacao.isAlive()) {
+                return;
+            }
+            if (gravacao != null) {
+                System.err.println("Thread de group commit de movimentações terminou; iniciando outra");
+            }
+            Thread nova = new Thread(this::executarGravacao, "grupo-commit-movimentacoes");
+            nova.setDaemon(true);
+            gravacao = nova;
+            nova.start();
+        }
+    }
+
+    /**
+     * Laço da thread de gravação: espera a primeira movimentação, reúne as que
+     * chegarem dentro da janela até o tamanho máximo e grava o lote. Movimentações
+     * cujo chamador já desistiu de esperar são descartadas antes da gravação.
+     * Um {@link Error} encerra a thread depois de responder ao lote em andamento;
+     * a próxima espera inicia outra.
+     */
+    private void executarGravacao() {
+        List<Pedido> lote = new ArrayList<>(tamanhoMaximo);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                lote.add(fila.take());
+                long limite = System.nanoTime() + janelaNanos;
+                fila.drainTo(lote, tamanhoMaximo - lote.size());
+                while (lote.size() < tamanhoMaximo) {
+                    long restante = limite - System.nanoTime();
+                    Pedido proximo = restante > 0 ? fila.poll(restante, TimeUnit.NANOSECONDS) : null;
+                    if (proximo == null) {
+                        break;
+                    }
+                    lote.add(proximo);
+                    fila.drainTo(lote, tamanhoMaximo - lote.size());
+                }
+                lote.removeIf(pedido -> pedido.resultado.isDone());
+                if (lote.isEmpty()) {
+                    continue;
+                }
+                tamanhosLote.registrar(lote.size());
+                gravarLote(lote);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                System.err.println("Erro inesperado no group commit de movimentações: " + e.getMessage());
+            } catch (Error e) {
+                System.err.println("Erro fatal no group commit de movimentações: " + e);
+                throw e;
+            } finally {
+                for (Pedido pedido : lote) {
+                    pedido.resultado.complete(new ResultadoMovimentacao(0, pedido.registro.getProdutoId(),
+                            ResultadoMovimentacao.ERRO, "Movimentação não gravada"));
+                }
+                lote.clear();
+            }
+        }
+    }
+
+    /**
+     * Grava um lote: as movimentações que alteram o saldo em uma transação por
+     * repositório de produtos (na prática, uma só) e as demais em outra.
+     *
+     * @param lote Movimentações do lote
+     */
+    private void gravarLote(List<Pedido> lote) {
+        Map<ProdutoRepositorio, List<Pedido>> comSaldo = new IdentityHashMap<>();
+        List<Pedido> semSaldo = new ArrayList<>();
+        for (Pedido pedido : lote) {
+            if (pedido.produtos == null) {
+                semSaldo.add(pedido);
+            } else {
+                comSaldo.computeIfAbsent(pedido.produtos, p -> new ArrayList<>()).add(pedido);
+            }
+        }
+        for (Map.Entry<ProdutoRepositorio, List<Pedido>> grupo : comSaldo.entrySet()) {
+            gravarComSaldo(grupo.getValue(), grupo.getKey());
+        }
+        if (!semSaldo.isEmpty()) {
+            gravarSemSaldo(semSaldo);
+        }
+    }
+
+    /**
+     * Grava movimentações que alteram o saldo com
+     * {@link RegistroMovimentacaoDAO#registrarMovimentacoesEmLote}. As que falharem
+     * por erro do lote são gravadas de novo, uma a uma.
+     *
+     * @param pedidos Movimentações a gravar
+     * @param produtos Repositório de produtos notificado
+     */
+    private void gravarComSaldo(List<Pedido> pedidos, ProdutoRepositorio produtos) {
+        List<RegistroMovimentacao> registros = new ArrayList<>(pedidos.size());
+        for (Pedido pedido : pedidos) {
+            registros.add(pedido.registro);
+        }
+        List<ResultadoMovimentacao> resultados = dao.registrarMovimentacoesEmLote(registros, produtos);
+        for (int i = 0; i < pedidos.size(); i++) {
+            Pedido pedido = pedidos.get(i);
+            ResultadoMovimentacao resultado = resultados.get(i);
+            if (ResultadoMovimentacao.ERRO.equals(resultado.getStatus()) && pedidos.size() > 1) {
+                pedido.resultado.complete(dao.registrarMovimentacaoEAtualizarSaldo(pedido.registro, produtos));
+            } else {
+                resultado.setIndice(0);
+                pedido.resultado.complete(resultado);
+            }
+        }
+    }
+
+    /**
+     * Grava movimentações que não alteram o saldo em um único INSERT em lote.
+     * Se o lote falhar, cada movimentação é gravada de novo, uma a uma.
+     *
+     * @param pedidos Movimentações a gravar
+     */
+    private void gravarSemSaldo(List<Pedido> pedidos) {
+        List<RegistroMovimentacao> registros = new ArrayList<>(pedidos.size());
+        for (Pedido pedido : pedidos) {
+            registros.add(pedido.registro);
+        }
+        LocalDate hoje = LocalDate.now();
+        try {
+            List<Long> ids = dao.anexarMovimentacoes(registros, hoje);
+            for (int i = 0; i < pedidos.size(); i++) {
+                dao.movimentacaoAnexada(registros.get(i), ids.get(i), hoje);
+                pedidos.get(i).resultado.complete(RegistroMovimentacaoDAO.resultado(0,
+                        registros.get(i).getProdutoId(), ResultadoMovimentacao.SUCESSO));
+            }
+        } catch (SQLException e) {
+            if (pedidos.size() == 1) {
+                System.err.println("Erro ao registrar movimentação: " + e.getMessage());
+                pedidos.get(0).resultado.complete(new ResultadoMovimentacao(0, pedidos.get(0).registro.getProdutoId(),
+                        ResultadoMovimentacao.ERRO, "Movimentação não gravada: " + e.getMessage()));
+                return;
+            }
+            for (Pedido pedido : pedidos) {
+                boolean gravado = dao.registrarMovimentacao(pedido.registro);
+                pedido.resultado.complete(gravado
+                        ? RegistroMovimentacaoDAO.resultado(0, pedido.registro.getProdutoId(), ResultadoMovimentacao.SUCESSO)
+                        : new ResultadoMovimentacao(0, pedido.registro.getProdutoId(), ResultadoMovimentacao.ERRO, "Movimentação não gravada"));
+            }
+        }
+    }
+
+    /**
+     * Entrega a movimentação à thread de gravação e espera o seu resultado pelo
+     * prazo configurado, conferindo periodicamente se a thread continua viva.
+     * Se o prazo terminar antes de a movimentação entrar em um lote, ela não é
+     * gravada; se já estiver sendo gravada, o resultado informa que a situação
+     * é indeterminada.
+     *
+     * @param registro Movimentação
+     * @param produtos Repositório de produtos, ou null se não altera o saldo
+     * @return Resultado da movimentação
+     */
+    private ResultadoMovimentacao aguardar(RegistroMovimentacao registro, ProdutoRepositorio produtos) {
+        if (registro == null) {
+            return new ResultadoMovimentacao(0, 0, ResultadoMovimentacao.DADOS_INVALIDOS, "Movimentação nula");
+        }
+        garantirGravacao();
+        Pedido pedido = new Pedido(registro, produtos);
+        fila.add(pedido);
+        long limite = System.nanoTime() + timeoutNanos;
+        try {
+            while (true) {
+                long restante = limite - System.nanoTime();
+                if (restante <= 0) {
+                    break;
+                }
+                try {
+                    return pedido.resultado.get(Math.min(restante, INTERVALO_VERIFICACAO_NANOS), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    garantirGravacao();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.err.println("Erro ao aguardar o group commit de movimentações: " + e.getCause());
+        }
+        boolean naFila = fila.remove(pedido);
+        ResultadoMovimentacao expirado = new ResultadoMovimentacao(0, registro.getProdutoId(), ResultadoMovimentacao.ERRO,
+                naFila ? "Movimentação não gravada: tempo de espera esgotado"
+                        : "Tempo de espera esgotado; a movimentação pode ter sido gravada");
+        return pedido.resultado.complete(expirado) ? expirado : pedido.resultado.join();
+    }
+
+    /**
+     * Registra a movimentação no próximo lote, sem alterar o saldo do produto.
+     *
+     * @param registro Registro de movimentação a ser salvo
+     * @return true se o registro foi bem-sucedido
+     */
+    @Override
+    public boolean registrarMovimentacao(RegistroMovimentacao registro) {
+        return aguardar(registro, null).isSucesso();
+    }
+
+    /**
+     * Registra a movimentação e atualiza o saldo do produto no próximo lote.
+     * Movimentações com tipo inválido ou quantidade não positiva são recusadas.
+     *
+     * @param registro Registro de movimentação a ser salvo
+     * @param produtoRepositorio Repositório de produtos notificado após a gravação
+     * @return Resultado da movimentação
+     */
+    @Override
+    public ResultadoMovimentacao registrarMovimentacaoEAtualizarSaldo(RegistroMovimentacao registro, ProdutoRepositorio produtoRepositorio) {
+        return aguardar(registro, produtoRepositorio);
+    }
+
+    /**
+     * Grava o lote diretamente, pois ele já ocupa uma única transação.
+     *
+     * @param registros Movimentações a serem registradas
+     * @param produtoRepositorio Repositório de produtos notificado após a gravação
+     * @return Resultado de cada movimentação, na mesma ordem da lista recebida
+     */
+    @Override
+    public List<ResultadoMovimentacao> registrarMovimentacoesEmLote(List<RegistroMovimentacao> registros, ProdutoRepositorio produtoRepositorio) {
+        return dao.registrarMovimentacoesEmLote(registros, produtoRepositorio);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<RegistroMovimentacao> listarTodasMovimentacoes() {
+        return dao.listarTodasMovimentacoes();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<RegistroMovimentacao> listarMovimentacoesPorProduto(int produtoId) {
+        return dao.listarMovimentacoesPorProduto(produtoId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PaginaMovimentacoes listarMovimentacoesPaginado(Integer produtoId, String cursor, int tamanhoPagina) {
+        return dao.listarMovimentacoesPaginado(produtoId, cursor, tamanhoPagina);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CursorDados<RegistroMovimentacao> abrirCursorMovimentacoes(int tamanhoBloco) throws SQLException {
+        return dao.abrirCursorMovimentacoes(tamanhoBloco);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String[] produtoComMaisEntrada(ProdutoRepositorio produtoRepositorio) {
+        return dao.produtoComMaisEntrada(produtoRepositorio);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String[] produtoComMaisSaida(ProdutoRepositorio produtoRepositorio) {
+        return dao.produtoComMaisSaida(produtoRepositorio);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Object[]> listarRankingMovimentacoes(String criterio, int dias, int n, ProdutoRepositorio produtoRepositorio) {
+        return dao.listarRankingMovimentacoes(criterio, dias, n, produtoRepositorio);
+    }
+}
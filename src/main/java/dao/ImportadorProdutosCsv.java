@@ -0,0 +1,467 @@
+package dao;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import modelo.Produto;
+import modelo.RelatorioImportacao;
+
+/**
+ * Importação em massa de produtos a partir de um arquivo CSV.
+ * O arquivo é lido registro a registro, de modo que a memória usada depende
+ * apenas do tamanho do lote e não do tamanho do arquivo. As linhas válidas são
+ * gravadas com INSERTs de várias linhas e confirmadas a cada intervalo de commit.
+ *
+ * Formato esperado (cabeçalho opcional, separador ";" ou ","):
+ * nome;unidade;quantidade;preco;min;max;categoria
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+public class ImportadorProdutosCsv {
+
+    /**
+     * Quantidade de colunas esperadas em cada linha.
+     */
+    private static final int COLUNAS = 7;
+
+    /**
+     * Maior lote permitido, limitado pela quantidade de parâmetros de um statement no MySQL.
+     */
+    private static final int LOTE_MAXIMO = 65535 / COLUNAS;
+
+    /**
+     * Quantidade de produtos por INSERT de várias linhas.
+     */
+    private final int tamanhoLote;
+
+    /**
+     * Quantidade de produtos gravados entre dois commits.
+     */
+    private final int intervaloCommit;
+
+    /**
+     * Construtor que lê o tamanho do lote e o intervalo de commit da configuração
+     * (importacao.tamanhoLote e importacao.intervaloCommit).
+     */
+    public ImportadorProdutosCsv() {
+        this(ConfiguracaoBanco.getInstancia().getInt("importacao.tamanhoLote", 500),
+                ConfiguracaoBanco.getInstancia().getInt("importacao.intervaloCommit", 5000));
+    }
+
+    /**
+     * Construtor com tamanho de lote e intervalo de commit explícitos.
+     *
+     * @param tamanhoLote Produtos por INSERT de várias linhas
+     * @param intervaloCommit Produtos gravados entre dois commits
+     */
+    public ImportadorProdutosCsv(int tamanhoLote, int intervaloCommit) {
+        this.tamanhoLote = Math.max(1, Math.min(LOTE_MAXIMO, tamanhoLote));
+        this.intervaloCommit = Math.max(this.tamanhoLote, intervaloCommit);
+    }
+
+    /**
+     * Importa os produtos lidos do CSV.
+     *
+     * @param leitor Fonte do conteúdo CSV
+     * @param produtoDAO DAO de produtos, notificado ao final da importação (pode ser null)
+     * @param ouvinteProgresso Recebe o relatório parcial a cada commit (pode ser null)
+     * @return Relatório final da importação
+     */
+    public RelatorioImportacao importar(Reader leitor, ProdutoDAO produtoDAO, Consumer<RelatorioImportacao> ouvinteProgresso) {
+        RelatorioImportacao relatorio = new RelatorioImportacao();
+        long inicio = System.currentTimeMillis();
+        LeitorCsv csv = new LeitorCsv(leitor);
+        List<Produto> lote = new ArrayList<>(tamanhoLote);
+        long pendentesCommit = 0;
+        Connection conn = null;
+
+        try {
+            conn = new Conexao().conectar();
+            if (conn == null) {
+                throw new SQLException("Não foi possível obter conexão com o banco de dados");
+            }
+            conn.setAutoCommit(false);
+
+            List<String> campos;
+            while ((campos = csv.proximoRegistro()) != null) {
+                if (ignorarRegistro(campos, csv)) {
+                    continue;
+                }
+                relatorio.setLinhasLidas(relatorio.getLinhasLidas() + 1);
+
+                Produto produto;
+                try {
+                    produto = validar(campos, csv.getSeparador());
+                } catch (IllegalArgumentException e) {
+                    relatorio.registrarRejeicao(csv.getLinhaInicioRegistro(), e.getMessage());
+                    continue;
+                }
+
+                lote.add(produto);
+                if (lote.size() == tamanhoLote) {
+                    inserirLote(conn, lote);
+                    pendentesCommit += lote.size();
+                    lote.clear();
+                }
+                if (pendentesCommit >= intervaloCommit) {
+                    conn.commit();
+                    relatorio.setImportadas(relatorio.getImportadas() + pendentesCommit);
+                    pendentesCommit = 0;
+                    informarProgresso(relatorio, inicio, ouvinteProgresso);
+                }
+            }
+
+            if (!lote.isEmpty()) {
+                inserirLote(conn, lote);
+                pendentesCommit += lote.size();
+                lote.clear();
+            }
+            conn.commit();
+            relatorio.setImportadas(relatorio.getImportadas() + pendentesCommit);
+            relatorio.setConcluida(true);
+
+        } catch (SQLException | IOException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackEx) {
+                    System.err.println("Erro ao fazer rollback: " + rollbackEx.getMessage());
+                }
+            }
+            relatorio.setErro("Importação interrompida na linha " + csv.getLinhaInicioRegistro() + ": " + e.getMessage());
+            System.err.println("Erro ao importar produtos: " + e.getMessage());
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    System.err.println("Erro ao fechar conexão: " + e.getMessage());
+                }
+            }
+            if (produtoDAO != null && relatorio.getImportadas() > 0) {
+                produtoDAO.notificarAlteracaoEmMassa();
+            }
+        }
+
+        relatorio.setDuracaoMs(System.currentTimeMillis() - inicio);
+        System.out.println("Importação finalizada: " + relatorio);
+        return relatorio;
+    }
+
+    /**
+     * Importa os produtos lidos do CSV cadastrando um a um no repositório
+     * informado. Usado pelos armazenamentos que não são o MySQL, nos quais
+     * não há INSERT de várias linhas nem commit a confirmar.
+     *
+     * @param leitor Fonte do conteúdo CSV
+     * @param destino Repositório que recebe os produtos
+     * @return Relatório final da importação
+     */
+    public RelatorioImportacao importar(Reader leitor, ProdutoRepositorio destino) {
+        RelatorioImportacao relatorio = new RelatorioImportacao();
+        long inicio = System.currentTimeMillis();
+        LeitorCsv csv = new LeitorCsv(leitor);
+        try {
+            List<String> campos;
+            while ((campos = csv.proximoRegistro()) != null) {
+                if (ignorarRegistro(campos, csv)) {
+                    continue;
+                }
+                relatorio.setLinhasLidas(relatorio.getLinhasLidas() + 1);
+                Produto produto;
+                try {
+                    produto = validar(campos, csv.getSeparador());
+                } catch (IllegalArgumentException e) {
+                    relatorio.registrarRejeicao(csv.getLinhaInicioRegistro(), e.getMessage());
+                    continue;
+                }
+                if (destino.CadastrarProduto(produto)) {
+                    relatorio.setImportadas(relatorio.getImportadas() + 1);
+                } else {
+                    relatorio.registrarRejeicao(csv.getLinhaInicioRegistro(), "produto não cadastrado");
+                }
+            }
+            relatorio.setConcluida(true);
+        } catch (IOException e) {
+            relatorio.setErro("Importação interrompida na linha " + csv.getLinhaInicioRegistro() + ": " + e.getMessage());
+            System.err.println("Erro ao importar produtos: " + e.getMessage());
+        }
+        relatorio.setDuracaoMs(System.currentTimeMillis() - inicio);
+        System.out.println("Importação finalizada: " + relatorio);
+        return relatorio;
+    }
+
+    /**
+     * Indica se um registro deve ser ignorado: o cabeçalho opcional na
+     * primeira linha ou uma linha em branco.
+     *
+     * @param campos Campos do registro
+     * @param csv Leitor do arquivo
+     * @return true se o registro não contém um produto
+     */
+    private boolean ignorarRegistro(List<String> campos, LeitorCsv csv) {
+        if (csv.getLinhaInicioRegistro() == 1 && !campos.isEmpty()
+                && "nome".equalsIgnoreCase(campos.get(0).trim())) {
+            return true;
+        }
+        return campos.size() == 1 && campos.get(0).trim().isEmpty();
+    }
+
+    /**
+     * Atualiza a duração do relatório e o repassa ao ouvinte de progresso.
+     *
+     * @param relatorio Relatório parcial
+     * @param inicio Instante de início da importação
+     * @param ouvinteProgresso Ouvinte de progresso (pode ser null)
+     */
+    private void informarProgresso(RelatorioImportacao relatorio, long inicio, Consumer<RelatorioImportacao> ouvinteProgresso) {
+        relatorio.setDuracaoMs(System.currentTimeMillis() - inicio);
+        System.out.println("Importação em andamento: " + relatorio);
+        if (ouvinteProgresso != null) {
+            ouvinteProgresso.accept(relatorio);
+        }
+    }
+
+    /**
+     * Grava um lote de produtos com um único INSERT de várias linhas.
+     * Lotes completos reutilizam sempre o mesmo texto SQL, aproveitando o cache de statements.
+     *
+     * @param conn Conexão da importação
+     * @param lote Produtos a gravar
+     * @throws SQLException Se ocorrer erro na gravação
+     */
+    private void inserirLote(Connection conn, List<Produto> lote) throws SQLException {
+        StringBuilder sql = new StringBuilder("INSERT INTO produto (nome, unidade, quantidade, preco, min, max, categoria) VALUES ");
+        for (int i = 0; i < lote.size(); i++) {
+            sql.append(i == 0 ? "(?, ?, ?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?, ?, ?)");
+        }
+        try (PreparedStatement st = conn.prepareStatement(sql.toString())) {
+            int p = 1;
+            for (Produto produto : lote) {
+                st.setString(p++, produto.getNome());
+                st.setString(p++, produto.getUnidade());
+                st.setInt(p++, produto.getQuantidade());
+                st.setDouble(p++, produto.getPreco());
+                st.setInt(p++, produto.getMin());
+                st.setInt(p++, produto.getMax());
+                st.setString(p++, produto.getCategoria());
+            }
+            st.executeUpdate();
+        }
+    }
+
+    /**
+     * Valida os campos de uma linha e monta o produto correspondente.
+     *
+     * @param campos Campos da linha
+     * @param separador Separador de campos do arquivo
+     * @return Produto validado
+     * @throws IllegalArgumentException Se a linha for inválida, com o motivo
+     */
+    private Produto validar(List<String> campos, char separador) {
+        if (campos.size() != COLUNAS) {
+            throw new IllegalArgumentException("esperadas " + COLUNAS + " colunas, encontradas " + campos.size());
+        }
+        String nome = campos.get(0).trim();
+        String unidade = campos.get(1).trim();
+        String categoria = campos.get(6).trim();
+        if (nome.isEmpty()) {
+            throw new IllegalArgumentException("nome vazio");
+        }
+        if (nome.length() > 255) {
+            throw new IllegalArgumentException("nome com mais de 255 caracteres");
+        }
+        if (unidade.isEmpty()) {
+            throw new IllegalArgumentException("unidade vazia");
+        }
+        if (categoria.isEmpty()) {
+            throw new IllegalArgumentException("categoria vazia");
+        }
+        int quantidade = lerInteiro(campos.get(2), "quantidade");
+        double preco = lerDecimal(campos.get(3), separador);
+        int min = lerInteiro(campos.get(4), "min");
+        int max = lerInteiro(campos.get(5), "max");
+        if (quantidade < 0 || min < 0 || max < 0) {
+            throw new IllegalArgumentException("quantidade, min e max não podem ser negativos");
+        }
+        if (preco < 0) {
+            throw new IllegalArgumentException("preço negativo");
+        }
+        if (min > max) {
+            throw new IllegalArgumentException("min maior que max");
+        }
+        return new Produto(0, nome, unidade, preco, quantidade, min, max, categoria);
+    }
+
+    /**
+     * Converte um campo inteiro. A mensagem de recusa não repete o conteúdo do
+     * campo, que volta ao cliente no relatório.
+     *
+     * @param valor Texto do campo
+     * @param campo Nome do campo, usado na mensagem de erro
+     * @return Valor inteiro
+     */
+    private int lerInteiro(String valor, String campo) {
+        try {
+            return Integer.parseInt(valor.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(campo + " não é um número inteiro");
+        }
+    }
+
+    /**
+     * Converte o campo de preço, aceitando vírgula decimal quando o separador é ";".
+     *
+     * @param valor Texto do campo
+     * @param separador Separador de campos do arquivo
+     * @return Preço
+     */
+    private double lerDecimal(String valor, char separador) {
+        String texto = valor.trim();
+        if (separador == ';' && texto.indexOf(',') >= 0) {
+            texto = texto.replace(".", "").replace(',', '.');
+        }
+        try {
+            return Double.parseDouble(texto);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("preço não é um número");
+        }
+    }
+
+    /**
+     * Leitor incremental de registros CSV com suporte a campos entre aspas,
+     * aspas duplicadas e quebras de linha dentro de aspas.
+     */
+    private static class LeitorCsv {
+
+        /**
+         * Fonte do conteúdo.
+         */
+        private final Reader leitor;
+
+        /**
+         * Separador de campos, detectado no primeiro registro.
+         */
+        private char separador;
+
+        /**
+         * Linha atual do arquivo.
+         */
+        private long linha = 1;
+
+        /**
+         * Linha em que começou o último registro lido.
+         */
+        private long linhaInicioRegistro = 1;
+
+        /**
+         * Caractere lido antecipadamente, ou -2 se não houver.
+         */
+        private int antecipado = -2;
+
+        /**
+         * Construtor do leitor.
+         *
+         * @param leitor Fonte do conteúdo
+         */
+        LeitorCsv(Reader leitor) {
+            this.leitor = leitor;
+        }
+
+        /**
+         * Lê o próximo caractere.
+         *
+         * @return Caractere lido ou -1 no fim do conteúdo
+         * @throws IOException Se ocorrer erro de leitura
+         */
+        private int ler() throws IOException {
+            if (antecipado != -2) {
+                int c = antecipado;
+                antecipado = -2;
+                return c;
+            }
+            return leitor.read();
+        }
+
+        /**
+         * Lê o próximo registro do arquivo.
+         *
+         * @return Campos do registro ou null no fim do arquivo
+         * @throws IOException Se ocorrer erro de leitura
+         */
+        List<String> proximoRegistro() throws IOException {
+            int c = ler();
+            if (c == -1) {
+                return null;
+            }
+            linhaInicioRegistro = linha;
+            List<String> campos = new ArrayList<>(COLUNAS);
+            StringBuilder campo = new StringBuilder();
+            boolean entreAspas = false;
+
+            while (c != -1) {
+                char ch = (char) c;
+                if (entreAspas) {
+                    if (ch == '"') {
+                        int proximo = ler();
+                        if (proximo == '"') {
+                            campo.append('"');
+                        } else {
+                            entreAspas = false;
+                            antecipado = proximo;
+                        }
+                    } else {
+                        if (ch == '\n') {
+                            linha++;
+                        }
+                        campo.append(ch);
+                    }
+                } else if (ch == '"' && campo.length() == 0) {
+                    entreAspas = true;
+                } else if (ch == '\r') {
+                    // ignorado; a quebra de linha é tratada no '\n'
+                } else if (ch == '\n') {
+                    linha++;
+                    break;
+                } else if (separador == 0 && (ch == ';' || ch == ',')) {
+                    separador = ch;
+                    campos.add(campo.toString());
+                    campo.setLength(0);
+                } else if (ch == separador) {
+                    campos.add(campo.toString());
+                    campo.setLength(0);
+                } else {
+                    campo.append(ch);
+                }
+                c = ler();
+            }
+            campos.add(campo.toString());
+            return campos;
+        }
+
+        /**
+         * Retorna o separador de campos detectado.
+         *
+         * @return Separador
+         */
+        char getSeparador() {
+            return separador;
+        }
+
+        /**
+         * Retorna a linha em que começou o último registro lido.
+         *
+         * @return Número da linha
+         */
+        long getLinhaInicioRegistro() {
+            return linhaInicioRegistro;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package dao;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import modelo.Produto;
+
+/**
+ * Índice secundário de produtos por categoria.
+ * Cada categoria guarda seus produtos ordenados por ID, de modo que a listagem
+ * de categorias, a contagem por categoria e a busca dos produtos de uma categoria
+ * custam apenas o tamanho do resultado. Assim como o GROUP BY do banco, as
+ * categorias são agrupadas pelo valor cadastrado, e os produtos sem categoria
+ * formam um grupo próprio, de nome null, listado antes dos demais. A busca por
+ * categoria, como a comparação com = no SQL, nunca encontra esse grupo.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+public class IndiceCategoriasProdutos implements OuvinteProdutos {
+
+    /**
+     * Produtos de cada categoria por ID, com as categorias em ordem alfabética
+     * e a categoria null em primeiro lugar.
+     */
+    private final TreeMap<String, TreeMap<Integer, Produto>> grupos =
+            new TreeMap<>(Comparator.nullsFirst(Comparator.<String>naturalOrder()));
+
+    /**
+     * Categoria atual de cada produto indexado (o valor pode ser null).
+     */
+    private final Map<Integer, String> categoriaPorId = new HashMap<>();
+
+    /**
+     * Trava de leitura e escrita do índice.
+     */
+    private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void catalogoCarregado(List<Produto> produtos) {
+        trava.writeLock().lock();
+        try {
+            grupos.clear();
+            categoriaPorId.clear();
+            for (Produto produto : produtos) {
+                inserir(produto);
+            }
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void produtoAlterado(Produto produto) {
+        trava.writeLock().lock();
+        try {
+            retirar(produto.getId());
+            inserir(produto);
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void produtoRemovido(int id) {
+        trava.writeLock().lock();
+        try {
+            retirar(id);
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Insere um produto no grupo da sua categoria; deve ser chamado com a trava de escrita.
+     *
+     * @param produto Produto a inserir
+     */
+    private void inserir(Produto produto) {
+        String categoria = produto.getCategoria();
+        grupos.computeIfAbsent(categoria, c -> new TreeMap<>()).put(produto.getId(), produto);
+        categoriaPorId.put(produto.getId(), categoria);
+    }
+
+    /**
+     * Retira um produto do grupo em que está, descartando o grupo se ficar vazio;
+     * deve ser chamado com a trava de escrita.
+     *
+     * @param id ID do produto
+     */
+    private void retirar(int id) {
+        if (!categoriaPorId.containsKey(id)) {
+            return;
+        }
+        String categoria = categoriaPorId.remove(id);
+        TreeMap<Integer, Produto> grupo = grupos.get(categoria);
+        grupo.remove(id);
+        if (grupo.isEmpty()) {
+            grupos.remove(categoria);
+        }
+    }
+
+    /**
+     * Busca os produtos de uma categoria.
+     *
+     * @param categoria Nome da categoria
+     * @return Cópias dos produtos da categoria, ordenados por ID
+     */
+    public List<Produto> buscarPorCategoria(String categoria) {
+        if (categoria == null) {
+            return new ArrayList<>();
+        }
+        trava.readLock().lock();
+        try {
+            TreeMap<Integer, Produto> grupo = grupos.get(categoria);
+            if (grupo == null) {
+                return new ArrayList<>();
+            }
+            List<Produto> lista = new ArrayList<>(grupo.size());
+            for (Produto p : grupo.values()) {
+                lista.add(new Produto(p.getId(), p.getNome(), p.getUnidade(), p.getPreco(),
+                        p.getQuantidade(), p.getMin(), p.getMax(), p.getCategoria(), p.getVersao()));
+            }
+            return lista;
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lista as categorias que possuem produtos, em ordem alfabética; null
+     * aparece primeiro se houver produtos sem categoria.
+     *
+     * @return Nomes das categorias
+     */
+    public ArrayList<String> listarCategorias() {
+        trava.readLock().lock();
+        try {
+            return new ArrayList<>(grupos.keySet());
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * Conta os produtos de cada categoria, em ordem alfabética, com os produtos
+     * sem categoria na categoria null.
+     *
+     * @return Lista de arrays contendo [categoria, quantidade]
+     */
+    public List<String[]> contarPorCategoria() {
+        trava.readLock().lock();
+        try {
+            List<String[]> lista = new ArrayList<>(grupos.size());
+            for (Map.Entry<String, TreeMap<Integer, Produto>> grupo : grupos.entrySet()) {
+                lista.add(new String[]{grupo.getKey(), String.valueOf(grupo.getValue().size())});
+            }
+            return lista;
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package dao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import modelo.Produto;
+
+/**
+ * Índice ordenado dos nomes de produtos para autocompletar.
+ * As entradas ficam em um mapa ordenado pela chave "nome normalizado + ID",
+ * de modo que os produtos cujo nome começa com um prefixo formam um intervalo
+ * contíguo e os primeiros k resultados são obtidos em O(log n + k), sem
+ * consultar o banco de dados. As leituras não usam travas.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+public class IndicePrefixoProdutos implements OuvinteProdutos {
+
+    /**
+     * Separador entre o nome e o ID na chave, menor que qualquer caractere de nome.
+     */
+    private static final char SEPARADOR = '\u0000';
+
+    /**
+     * Produtos indexados pela chave nome + ID.
+     */
+    private volatile ConcurrentSkipListMap<String, Produto> porNome = new ConcurrentSkipListMap<>();
+
+    /**
+     * Chave atual de cada produto, para remover a entrada antiga quando o nome muda.
+     */
+    private volatile Map<Integer, String> chavePorId = new ConcurrentHashMap<>();
+
+    /**
+     * Monta a chave de ordenação de um produto.
+     * 
+     * @param produto Produto
+     * @return Chave nome + ID
+     */
+    private static String chave(Produto produto) {
+        return NormalizadorTexto.normalizar(produto.getNome()) + SEPARADOR + produto.getId();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void catalogoCarregado(List<Produto> produtos) {
+        ConcurrentSkipListMap<String, Produto> novoPorNome = new ConcurrentSkipListMap<>();
+        Map<Integer, String> novaChavePorId = new ConcurrentHashMap<>();
+        for (Produto produto : produtos) {
+            String chave = chave(produto);
+            novoPorNome.put(chave, produto);
+            novaChavePorId.put(produto.getId(), chave);
+        }
+        this.porNome = novoPorNome;
+        this.chavePorId = novaChavePorId;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void produtoAlterado(Produto produto) {
+        String chave = chave(produto);
+        porNome.put(chave, produto);
+        String anterior = chavePorId.put(produto.getId(), chave);
+        if (anterior != null && !anterior.equals(chave)) {
+            porNome.remove(anterior);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void produtoRemovido(int id) {
+        String anterior = chavePorId.remove(id);
+        if (anterior != null) {
+            porNome.remove(anterior);
+        }
+    }
+
+    /**
+     * Busca os produtos cujo nome começa com o prefixo informado, em ordem alfabética.
+     * 
+     * @param prefixo Início do nome (sem diferenciar maiúsculas, minúsculas e acentos)
+     * @param limite Quantidade máxima de resultados
+     * @return Cópias dos produtos encontrados
+     */
+    public List<Produto> buscar(String prefixo, int limite) {
+        String inicio = NormalizadorTexto.normalizar(prefixo);
+        NavigableMap<String, Produto> intervalo = inicio.isEmpty()
+                ? porNome
+                : porNome.subMap(inicio, true, inicio + Character.MAX_VALUE, false);
+
+        List<Produto> resultado = new ArrayList<>(Math.min(limite, 64));
+        for (Produto p : intervalo.values()) {
+            if (resultado.size() >= limite) {
+                break;
+            }
+            resultado.add(new Produto(p.getId(), p.getNome(), p.getUnidade(), p.getPreco(),
+                    p.getQuantidade(), p.getMin(), p.getMax(), p.getCategoria(), p.getVersao()));
+        }
+        return resultado;
+    }
+
+    /**
+     * Retorna a quantidade de produtos indexados.
+     * 
+     * @return Tamanho do índice
+     */
+    public int getTamanho() {
+        return chavePorId.size();
+    }
+}
@@ -0,0 +1,322 @@
+package dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import modelo.Produto;
+
+/**
+ * Índice invertido de trigramas para busca aproximada de produtos.
+ * Nomes e categorias são normalizados (sem acentos e em minúsculas) e quebrados
+ * em trigramas, com cada palavra delimitada por espaços. Uma busca soma, para cada
+ * produto, os trigramas em comum com o termo e ordena os produtos pela pontuação,
+ * tolerando acentos omitidos e pequenos erros de digitação.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+public class IndiceTrigramasProdutos implements OuvinteProdutos {
+
+    /**
+     * Pontuação mínima para um produto aparecer no resultado.
+     */
+    private static final double PONTUACAO_MINIMA = 0.35;
+
+    /**
+     * Peso da semelhança com a categoria em relação à semelhança com o nome.
+     */
+    private static final double PESO_CATEGORIA = 0.9;
+
+    /**
+     * Dados indexados de um produto.
+     */
+    private static final class Entrada {
+        private final Produto produto;
+        private final String nome;
+        private final String categoria;
+        private final Set<String> gramasNome;
+        private final Set<String> gramasCategoria;
+
+        private Entrada(Produto produto) {
+            this.produto = produto;
+            this.nome = NormalizadorTexto.normalizar(produto.getNome());
+            this.categoria = NormalizadorTexto.normalizar(produto.getCategoria());
+            this.gramasNome = trigramas(nome);
+            this.gramasCategoria = trigramas(categoria);
+        }
+    }
+
+    /**
+     * Produto candidato de uma busca com sua pontuação.
+     */
+    private static final class Candidato {
+        private final Entrada entrada;
+        private final double pontuacao;
+
+        private Candidato(Entrada entrada, double pontuacao) {
+            this.entrada = entrada;
+            this.pontuacao = pontuacao;
+        }
+    }
+
+    /**
+     * Ordem do resultado: maior pontuação primeiro e, no empate, ordem alfabética.
+     */
+    private static final Comparator<Candidato> ORDEM = Comparator
+            .comparingDouble((Candidato c) -> -c.pontuacao)
+            .thenComparing(c -> c.entrada.nome)
+            .thenComparingInt(c -> c.entrada.produto.getId());
+
+    /**
+     * Produtos indexados por ID.
+     */
+    private final Map<Integer, Entrada> entradas = new HashMap<>();
+
+    /**
+     * Lista invertida dos nomes: trigrama para IDs dos produtos.
+     */
+    private final Map<String, Set<Integer>> postagensNome = new HashMap<>();
+
+    /**
+     * Lista invertida das categorias: trigrama para IDs dos produtos.
+     */
+    private final Map<String, Set<Integer>> postagensCategoria = new HashMap<>();
+
+    /**
+     * Trava de leitura e escrita do índice.
+     */
+    private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+
+    /**
+     * Quebra um texto normalizado em trigramas distintos. Cada palavra é
+     * delimitada por espaços, de modo que palavras de uma ou duas letras
+     * também geram trigramas.
+     *
+     * @param texto Texto normalizado
+     * @return Trigramas do texto, na ordem em que aparecem
+     */
+    private static Set<String> trigramas(String texto) {
+        Set<String> gramas = new LinkedHashSet<>();
+        if (texto.isEmpty()) {
+            return gramas;
+        }
+        for (String palavra : texto.split(" ")) {
+            String delimitada = " " + palavra + " ";
+            for (int i = 0; i + 3 <= delimitada.length(); i++) {
+                gramas.add(delimitada.substring(i, i + 3));
+            }
+        }
+        return gramas;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void catalogoCarregado(List<Produto> produtos) {
+        trava.writeLock().lock();
+        try {
+            entradas.clear();
+            postagensNome.clear();
+            postagensCategoria.clear();
+            for (Produto produto : produtos) {
+                inserir(new Entrada(produto));
+            }
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void produtoAlterado(Produto produto) {
+        Entrada nova = new Entrada(produto);
+        trava.writeLock().lock();
+        try {
+            retirar(produto.getId());
+            inserir(nova);
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void produtoRemovido(int id) {
+        trava.writeLock().lock();
+        try {
+            retirar(id);
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Insere uma entrada nas listas invertidas; deve ser chamado com a trava de escrita.
+     *
+     * @param entrada Entrada a inserir
+     */
+    private void inserir(Entrada entrada) {
+        int id = entrada.produto.getId();
+        entradas.put(id, entrada);
+        for (String grama : entrada.gramasNome) {
+            postagensNome.computeIfAbsent(grama, g -> new HashSet<>()).add(id);
+        }
+        for (String grama : entrada.gramasCategoria) {
+            postagensCategoria.computeIfAbsent(grama, g -> new HashSet<>()).add(id);
+        }
+    }
+
+    /**
+     * Retira um produto das listas invertidas; deve ser chamado com a trava de escrita.
+     *
+     * @param id ID do produto
+     */
+    private void retirar(int id) {
+        Entrada anterior = entradas.remove(id);
+        if (anterior == null) {
+            return;
+        }
+        retirarPostagens(postagensNome, anterior.gramasNome, id);
+        retirarPostagens(postagensCategoria, anterior.gramasCategoria, id);
+    }
+
+    /**
+     * Remove um ID das listas de cada trigrama, descartando as listas vazias.
+     *
+     * @param postagens Listas invertidas
+     * @param gramas Trigramas do produto
+     * @param id ID do produto
+     */
+    private static void retirarPostagens(Map<String, Set<Integer>> postagens, Set<String> gramas, int id) {
+        for (String grama : gramas) {
+            Set<Integer> ids = postagens.get(grama);
+            if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                postagens.remove(grama);
+            }
+        }
+    }
+
+    /**
+     * Busca os produtos mais parecidos com o termo informado.
+     * A pontuação combina a fração dos trigramas do termo presentes no nome com o
+     * coeficiente de Dice entre os dois conjuntos; nomes que contêm o termo inteiro
+     * ganham a pontuação máxima. A categoria também é comparada, com peso menor.
+     *
+     * @param termo Texto digitado pelo usuário
+     * @param categoria Categoria para filtrar, ou null/vazio para todas
+     * @param limite Quantidade máxima de resultados
+     * @return Cópias dos produtos encontrados, do mais ao menos parecido
+     */
+    public List<Produto> buscar(String termo, String categoria, int limite) {
+        String consulta = NormalizadorTexto.normalizar(termo);
+        String filtro = NormalizadorTexto.normalizar(categoria);
+        Set<String> gramasConsulta = trigramas(consulta);
+        if (gramasConsulta.isEmpty() || limite <= 0) {
+            return Collections.emptyList();
+        }
+
+        PriorityQueue<Candidato> melhores = new PriorityQueue<>(ORDEM.reversed());
+        trava.readLock().lock();
+        try {
+            Map<Integer, Integer> comunsNome = contarComuns(postagensNome, gramasConsulta);
+            Map<Integer, Integer> comunsCategoria = contarComuns(postagensCategoria, gramasConsulta);
+
+            Set<Integer> candidatos = new HashSet<>(comunsNome.keySet());
+            candidatos.addAll(comunsCategoria.keySet());
+            for (int id : candidatos) {
+                Entrada entrada = entradas.get(id);
+                if (!filtro.isEmpty() && !filtro.equals(entrada.categoria)) {
+                    continue;
+                }
+                double pontuacao = entrada.nome.contains(consulta) ? 1.0
+                        : semelhanca(comunsNome.getOrDefault(id, 0), gramasConsulta.size(), entrada.gramasNome.size());
+                double pontuacaoCategoria = PESO_CATEGORIA
+                        * semelhanca(comunsCategoria.getOrDefault(id, 0), gramasConsulta.size(), entrada.gramasCategoria.size());
+                pontuacao = Math.max(pontuacao, pontuacaoCategoria);
+                if (pontuacao < PONTUACAO_MINIMA) {
+                    continue;
+                }
+                melhores.add(new Candidato(entrada, pontuacao));
+                if (melhores.size() > limite) {
+                    melhores.poll();
+                }
+            }
+        } finally {
+            trava.readLock().unlock();
+        }
+
+        List<Candidato> ordenados = new ArrayList<>(melhores);
+        ordenados.sort(ORDEM);
+        List<Produto> resultado = new ArrayList<>(ordenados.size());
+        for (Candidato c : ordenados) {
+            Produto p = c.entrada.produto;
+            resultado.add(new Produto(p.getId(), p.getNome(), p.getUnidade(), p.getPreco(),
+                    p.getQuantidade(), p.getMin(), p.getMax(), p.getCategoria(), p.getVersao()));
+        }
+        return resultado;
+    }
+
+    /**
+     * Conta, para cada produto, quantos trigramas do termo aparecem no texto indexado.
+     *
+     * @param postagens Listas invertidas a consultar
+     * @param gramasConsulta Trigramas do termo
+     * @return Quantidade de trigramas em comum por ID de produto
+     */
+    private static Map<Integer, Integer> contarComuns(Map<String, Set<Integer>> postagens, Set<String> gramasConsulta) {
+        Map<Integer, Integer> comuns = new HashMap<>();
+        for (String grama : gramasConsulta) {
+            Set<Integer> ids = postagens.get(grama);
+            if (ids != null) {
+                for (int id : ids) {
+                    comuns.merge(id, 1, Integer::sum);
+                }
+            }
+        }
+        return comuns;
+    }
+
+    /**
+     * Calcula a semelhança entre o termo e um texto indexado.
+     *
+     * @param comuns Trigramas em comum
+     * @param totalConsulta Trigramas do termo
+     * @param totalTexto Trigramas do texto
+     * @return Semelhança entre 0 e 1
+     */
+    private static double semelhanca(int comuns, int totalConsulta, int totalTexto) {
+        if (comuns == 0) {
+            return 0.0;
+        }
+        double cobertura = (double) comuns / totalConsulta;
+        double dice = 2.0 * comuns / (totalConsulta + totalTexto);
+        return 0.7 * cobertura + 0.3 * dice;
+    }
+
+    /**
+     * Retorna a quantidade de produtos indexados.
+     *
+     * @return Tamanho do índice
+     */
+    public int getTamanho() {
+        trava.readLock().lock();
+        try {
+            return entradas.size();
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,588 @@
+package dao;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import modelo.RegistroMovimentacao;
+
+/**
+ * Journal local de movimentações, somente de acréscimo, gravado em arquivos de
+ * segmento mapeados em memória. Cada movimentação recebe uma sequência crescente
+ * e fica pendente até ser confirmada no banco; os segmentos cujas movimentações
+ * já foram todas confirmadas são apagados.
+ *
+ * Cada entrada é gravada como [tamanho][CRC32][dados]; um tamanho zero marca o
+ * fim dos dados do segmento (os arquivos novos são preenchidos com zeros). Na
+ * recuperação, uma entrada incompleta ou com CRC inválido encerra a leitura do
+ * segmento, descartando a gravação interrompida.
+ *
+ * A política de fsync define quando as páginas mapeadas são forçadas para o disco:
+ * {@link #FSYNC_SEMPRE} a cada gravação, {@link #FSYNC_INTERVALO} periodicamente
+ * e {@link #FSYNC_NUNCA} apenas pelo sistema operacional. Como os dados ficam no
+ * cache de páginas do sistema, uma queda do processo não perde movimentações em
+ * nenhuma política; só uma queda do sistema pode perder as não forçadas.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+public class JournalMovimentacoes {
+
+    /**
+     * Força o segmento para o disco a cada gravação.
+     */
+    public static final String FSYNC_SEMPRE = "sempre";
+
+    /**
+     * Força o segmento para o disco periodicamente.
+     */
+    public static final String FSYNC_INTERVALO = "intervalo";
+
+    /**
+     * Deixa a gravação em disco a cargo do sistema operacional.
+     */
+    public static final String FSYNC_NUNCA = "nunca";
+
+    /**
+     * Bytes do cabeçalho de cada entrada (tamanho e CRC).
+     */
+    private static final int CABECALHO = 8;
+
+    /**
+     * Tamanho gravado no lugar de um texto null.
+     */
+    private static final int TEXTO_NULO = -1;
+
+    /**
+     * Movimentação guardada no journal, com a sua sequência.
+     */
+    public static class Entrada {
+
+        /**
+         * Sequência da entrada no journal.
+         */
+        private final long sequencia;
+
+        /**
+         * Movimentação registrada.
+         */
+        private final RegistroMovimentacao registro;
+
+        /**
+         * Data da movimentação.
+         */
+        private final LocalDate data;
+
+        /**
+         * Indica se a movimentação altera o saldo do produto.
+         */
+        private final boolean atualizaSaldo;
+
+        /**
+         * Construtor da entrada.
+         *
+         * @param sequencia Sequência no journal
+         * @param registro Movimentação
+         * @param data Data da movimentação
+         * @param atualizaSaldo Se a movimentação altera o saldo
+         */
+        Entrada(long sequencia, RegistroMovimentacao registro, LocalDate data, boolean atualizaSaldo) {
+            this.sequencia = sequencia;
+            this.registro = registro;
+            this.data = data;
+            this.atualizaSaldo = atualizaSaldo;
+        }
+
+        /**
+         * Retorna a sequência da entrada.
+         *
+         * @return Sequência
+         */
+        public long getSequencia() {
+            return sequencia;
+        }
+
+        /**
+         * Retorna a movimentação.
+         *
+         * @return Registro de movimentação
+         */
+        public RegistroMovimentacao getRegistro() {
+            return registro;
+        }
+
+        /**
+         * Retorna a data da movimentação.
+         *
+         * @return Data
+         */
+        public LocalDate getData() {
+            return data;
+        }
+
+        /**
+         * Indica se a movimentação altera o saldo do produto.
+         *
+         * @return true se altera o saldo
+         */
+        public boolean isAtualizaSaldo() {
+            return atualizaSaldo;
+        }
+    }
+
+    /**
+     * Pasta dos segmentos.
+     */
+    private final Path diretorio;
+
+    /**
+     * Tamanho de cada segmento, em bytes.
+     */
+    private final int tamanhoSegmento;
+
+    /**
+     * Política de fsync.
+     */
+    private final String politicaFsync;
+
+    /**
+     * Quantidade máxima de entradas pendentes antes de recusar novas gravações.
+     */
+    private final int maximoPendentes;
+
+    /**
+     * Segmentos existentes, pela primeira sequência de cada um.
+     */
+    private final TreeMap<Long, Path> segmentos = new TreeMap<>();
+
+    /**
+     * Entradas gravadas e ainda não confirmadas no banco, em ordem de sequência.
+     */
+    private final ConcurrentLinkedQueue<Entrada> pendentes = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Quantidade de entradas pendentes.
+     */
+    private int quantidadePendentes;
+
+    /**
+     * Segmento atual, mapeado para escrita.
+     */
+    private MappedByteBuffer segmentoAtual;
+
+    /**
+     * Primeira sequência do segmento atual.
+     */
+    private long inicioSegmentoAtual = -1;
+
+    /**
+     * Próxima sequência a ser atribuída.
+     */
+    private long proximaSequencia = 1;
+
+    /**
+     * Indica se há gravações ainda não forçadas para o disco.
+     */
+    private boolean sujo;
+
+    /**
+     * Construtor que abre o journal na pasta informada. As entradas existentes só
+     * são lidas em {@link #recuperar(long)}, que deve ser chamado antes de gravar.
+     *
+     * @param diretorio Pasta dos segmentos
+     * @param tamanhoSegmento Tamanho de cada segmento, em bytes
+     * @param politicaFsync {@link #FSYNC_SEMPRE}, {@link #FSYNC_INTERVALO} ou {@link #FSYNC_NUNCA}
+     * @param intervaloFsyncMs Intervalo entre os fsync da política {@link #FSYNC_INTERVALO}
+     * @param maximoPendentes Entradas pendentes a partir das quais novas gravações são recusadas
+     * @throws IOException Se a pasta não puder ser criada
+     * @throws IllegalArgumentException Se a política de fsync for desconhecida
+     */
+    public JournalMovimentacoes(Path diretorio, int tamanhoSegmento, String politicaFsync,
+            long intervaloFsyncMs, int maximoPendentes) throws IOException {
+        if (!FSYNC_SEMPRE.equals(politicaFsync) && !FSYNC_INTERVALO.equals(politicaFsync) && !FSYNC_NUNCA.equals(politicaFsync)) {
+            throw new IllegalArgumentException("Política de fsync desconhecida: " + politicaFsync + " (use sempre, intervalo ou nunca)");
+        }
+        this.diretorio = diretorio;
+        this.tamanhoSegmento = Math.max(4096, tamanhoSegmento);
+        this.politicaFsync = politicaFsync;
+        this.maximoPendentes = Math.max(1, maximoPendentes);
+        Files.createDirectories(diretorio);
+
+        if (FSYNC_INTERVALO.equals(politicaFsync) && intervaloFsyncMs > 0) {
+            ScheduledExecutorService agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "journal-movimentacoes-fsync");
+                t.setDaemon(true);
+                return t;
+            });
+            agendador.scheduleWithFixedDelay(this::forcar, intervaloFsyncMs, intervaloFsyncMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Lê todos os segmentos e coloca como pendentes as entradas posteriores à
+     * última sequência confirmada no banco. As novas gravações vão para um novo segmento.
+     *
+     * @param ultimaConfirmada Última sequência confirmada no banco
+     * @return Quantidade de entradas pendentes recuperadas
+     * @throws IOException Se um segmento não puder ser lido
+     */
+    public synchronized int recuperar(long ultimaConfirmada) throws IOException {
+        segmentos.clear();
+        pendentes.clear();
+        quantidadePendentes = 0;
+        try (DirectoryStream<Path> arquivos = Files.newDirectoryStream(diretorio, "journal-*.seg")) {
+            for (Path arquivo : arquivos) {
+                String nome = arquivo.getFileName().toString();
+                segmentos.put(Long.parseLong(nome.substring(8, nome.length() - 4)), arquivo);
+            }
+        }
+
+        long maior = ultimaConfirmada;
+        for (Path arquivo : segmentos.values()) {
+            try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+                ByteBuffer dados = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+                Entrada entrada;
+                while ((entrada = lerEntrada(dados)) != null) {
+                    maior = Math.max(maior, entrada.getSequencia());
+                    if (entrada.getSequencia() > ultimaConfirmada) {
+                        pendentes.add(entrada);
+                        quantidadePendentes++;
+                    }
+                }
+            }
+        }
+        proximaSequencia = maior + 1;
+        segmentoAtual = null;
+        confirmar(ultimaConfirmada);
+        return quantidadePendentes;
+    }
+
+    /**
+     * Grava movimentações no journal e as coloca como pendentes.
+     * Com a política {@link #FSYNC_SEMPRE}, só retorna depois de forçar o segmento para o disco.
+     * A gravação é tudo ou nada: todas as entradas são codificadas e verificadas
+     * antes da primeira escrita e, se a escrita falhar no meio, as entradas já
+     * escritas são apagadas do segmento e as sequências, devolvidas, de modo que
+     * a recuperação nunca reaplica uma movimentação recusada ao chamador.
+     *
+     * @param registros Movimentações a gravar
+     * @param data Data das movimentações
+     * @param atualizaSaldo Se as movimentações alteram o saldo dos produtos
+     * @throws IOException Se o journal estiver cheio ou não puder ser gravado; nada é gravado
+     */
+    public synchronized void anexar(List<RegistroMovimentacao> registros, LocalDate data, boolean atualizaSaldo) throws IOException {
+        if (quantidadePendentes + registros.size() > maximoPendentes) {
+            throw new IOException("journal cheio: " + quantidadePendentes + " movimentações aguardando o banco");
+        }
+        List<Entrada> gravadas = new ArrayList<>(registros.size());
+        List<byte[]> codificadas = new ArrayList<>(registros.size());
+        long sequencia = proximaSequencia;
+        for (RegistroMovimentacao registro : registros) {
+            Entrada entrada = new Entrada(sequencia++, registro, data, atualizaSaldo);
+            byte[] dados = codificar(entrada);
+            if (dados.length + CABECALHO * 2 > tamanhoSegmento) {
+                throw new IOException("movimentação grande demais para o segmento do journal");
+            }
+            gravadas.add(entrada);
+            codificadas.add(dados);
+        }
+
+        MappedByteBuffer segmentoInicial = segmentoAtual;
+        int posicaoInicial = segmentoInicial == null ? 0 : segmentoInicial.position();
+        long inicioInicial = inicioSegmentoAtual;
+        long sequenciaInicial = proximaSequencia;
+        try {
+            for (byte[] dados : codificadas) {
+                if (segmentoAtual == null || segmentoAtual.remaining() < dados.length + CABECALHO * 2) {
+                    abrirSegmento();
+                }
+                CRC32 crc = new CRC32();
+                crc.update(dados);
+                sujo = true;
+                segmentoAtual.putInt(dados.length);
+                segmentoAtual.putInt((int) crc.getValue());
+                segmentoAtual.put(dados);
+                proximaSequencia++;
+            }
+            if (FSYNC_SEMPRE.equals(politicaFsync)) {
+                segmentoAtual.force();
+                sujo = false;
+            }
+        } catch (IOException | RuntimeException e) {
+            desfazer(segmentoInicial, posicaoInicial, inicioInicial, sequenciaInicial);
+            throw e;
+        }
+        pendentes.addAll(gravadas);
+        quantidadePendentes += gravadas.size();
+    }
+
+    /**
+     * Desfaz uma gravação interrompida: zera os bytes escritos no segmento que
+     * era o atual, apaga os segmentos criados durante a gravação e devolve as
+     * sequências atribuídas.
+     *
+     * @param segmentoInicial Segmento atual antes da gravação (pode ser null)
+     * @param posicaoInicial Posição de escrita do segmento antes da gravação
+     * @param inicioInicial Primeira sequência do segmento antes da gravação
+     * @param sequenciaInicial Próxima sequência antes da gravação
+     */
+    private void desfazer(MappedByteBuffer segmentoInicial, int posicaoInicial, long inicioInicial, long sequenciaInicial) {
+        if (segmentoAtual != null && segmentoAtual != segmentoInicial) {
+            zerar(segmentoAtual, 0);
+        }
+        Iterator<Map.Entry<Long, Path>> it = segmentos.tailMap(sequenciaInicial, true).entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, Path> segmento = it.next();
+            if (segmento.getKey() == inicioInicial) {
+                continue;
+            }
+            try {
+                Files.deleteIfExists(segmento.getValue());
+                it.remove();
+            } catch (IOException e) {
+                System.err.println("Erro ao apagar segmento do journal: " + e.getMessage());
+            }
+        }
+        if (segmentoInicial != null) {
+            zerar(segmentoInicial, posicaoInicial);
+        }
+        segmentoAtual = segmentoInicial;
+        inicioSegmentoAtual = inicioInicial;
+        proximaSequencia = sequenciaInicial;
+    }
+
+    /**
+     * Zera os bytes de um segmento entre a posição informada e a posição de
+     * escrita atual, volta a escrita para aquela posição e força o segmento para o disco.
+     *
+     * @param segmento Segmento mapeado
+     * @param desde Posição a partir da qual os bytes são zerados
+     */
+    private static void zerar(MappedByteBuffer segmento, int desde) {
+        int ate = segmento.position();
+        for (int i = desde; i < ate; i++) {
+            segmento.put(i, (byte) 0);
+        }
+        segmento.position(desde);
+        try {
+            segmento.force();
+        } catch (RuntimeException e) {
+            System.err.println("Erro ao forçar segmento do journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Fecha o segmento atual e cria um novo, começando na próxima sequência.
+     *
+     * @throws IOException Se o arquivo não puder ser criado
+     */
+    private void abrirSegmento() throws IOException {
+        if (segmentoAtual != null) {
+            segmentoAtual.force();
+        }
+        Path arquivo = diretorio.resolve(String.format("journal-%020d.seg", proximaSequencia));
+        // um arquivo com o mesmo nome só pode ter sobrado sem entradas válidas
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            segmentoAtual = canal.map(FileChannel.MapMode.READ_WRITE, 0, tamanhoSegmento);
+        }
+        inicioSegmentoAtual = proximaSequencia;
+        segmentos.put(proximaSequencia, arquivo);
+    }
+
+    /**
+     * Força o segmento atual para o disco, se houver gravações pendentes.
+     */
+    public synchronized void forcar() {
+        if (sujo && segmentoAtual != null) {
+            segmentoAtual.force();
+            sujo = false;
+        }
+    }
+
+    /**
+     * Retorna as primeiras entradas pendentes, em ordem de sequência, sem removê-las.
+     *
+     * @param maximo Quantidade máxima de entradas
+     * @return Entradas pendentes
+     */
+    public List<Entrada> lerPendentes(int maximo) {
+        List<Entrada> lote = new ArrayList<>(Math.min(maximo, 1024));
+        Iterator<Entrada> it = pendentes.iterator();
+        while (it.hasNext() && lote.size() < maximo) {
+            lote.add(it.next());
+        }
+        return lote;
+    }
+
+    /**
+     * Remove das pendentes as entradas confirmadas no banco e apaga os segmentos
+     * que só contêm entradas confirmadas. O segmento atual nunca é apagado.
+     *
+     * @param ultimaConfirmada Última sequência confirmada no banco
+     */
+    public synchronized void confirmar(long ultimaConfirmada) {
+        Entrada primeira;
+        while ((primeira = pendentes.peek()) != null && primeira.getSequencia() <= ultimaConfirmada) {
+            pendentes.poll();
+            quantidadePendentes--;
+        }
+        Iterator<Map.Entry<Long, Path>> it = segmentos.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, Path> segmento = it.next();
+            Long proximoInicio = segmentos.higherKey(segmento.getKey());
+            if (segmento.getKey() == inicioSegmentoAtual || proximoInicio == null || proximoInicio - 1 > ultimaConfirmada) {
+                break;
+            }
+            try {
+                Files.deleteIfExists(segmento.getValue());
+                it.remove();
+            } catch (IOException e) {
+                System.err.println("Erro ao apagar segmento do journal: " + e.getMessage());
+                break;
+            }
+        }
+    }
+
+    /**
+     * Retorna a quantidade de entradas aguardando o banco.
+     *
+     * @return Entradas pendentes
+     */
+    public synchronized int getQuantidadePendentes() {
+        return quantidadePendentes;
+    }
+
+    /**
+     * Retorna a quantidade de segmentos em disco.
+     *
+     * @return Segmentos
+     */
+    public synchronized int getQuantidadeSegmentos() {
+        return segmentos.size();
+    }
+
+    /**
+     * Codifica uma entrada: sequência, produto, quantidade, data, se altera o
+     * saldo, tipo e observação.
+     *
+     * @param entrada Entrada a codificar
+     * @return Bytes da entrada
+     */
+    private static byte[] codificar(Entrada entrada) {
+        RegistroMovimentacao r = entrada.getRegistro();
+        byte[] tipo = bytes(r.getTipoMovimentacao());
+        byte[] observacao = bytes(r.getObservacao());
+        ByteBuffer dados = ByteBuffer.allocate(8 + 4 + 4 + 8 + 1 + 4 + tamanho(tipo) + 4 + tamanho(observacao));
+        dados.putLong(entrada.getSequencia());
+        dados.putInt(r.getProdutoId());
+        dados.putInt(r.getQuantidade());
+        dados.putLong(entrada.getData().toEpochDay());
+        dados.put((byte) (entrada.isAtualizaSaldo() ? 1 : 0));
+        colocarTexto(dados, tipo);
+        colocarTexto(dados, observacao);
+        return dados.array();
+    }
+
+    /**
+     * Lê a próxima entrada do segmento.
+     *
+     * @param segmento Segmento posicionado no início de uma entrada
+     * @return Entrada lida, ou null no fim dos dados válidos
+     */
+    private static Entrada lerEntrada(ByteBuffer segmento) {
+        if (segmento.remaining() < CABECALHO) {
+            return null;
+        }
+        int tamanho = segmento.getInt();
+        int crcGravado = segmento.getInt();
+        if (tamanho <= 0 || tamanho > segmento.remaining()) {
+            return null;
+        }
+        byte[] bytes = new byte[tamanho];
+        segmento.get(bytes);
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        if ((int) crc.getValue() != crcGravado) {
+            return null;
+        }
+        ByteBuffer dados = ByteBuffer.wrap(bytes);
+        long sequencia = dados.getLong();
+        int produtoId = dados.getInt();
+        int quantidade = dados.getInt();
+        LocalDate data = LocalDate.ofEpochDay(dados.getLong());
+        boolean atualizaSaldo = dados.get() == 1;
+        String tipo = lerTexto(dados);
+        String observacao = lerTexto(dados);
+        RegistroMovimentacao registro = new RegistroMovimentacao(0, produtoId, tipo, quantidade, observacao, data.toString());
+        return new Entrada(sequencia, registro, data, atualizaSaldo);
+    }
+
+    /**
+     * Converte um texto em UTF-8.
+     *
+     * @param texto Texto, ou null
+     * @return Bytes do texto, ou null se o texto for null
+     */
+    private static byte[] bytes(String texto) {
+        return texto == null ? null : texto.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Retorna quantos bytes um texto ocupa depois do seu tamanho.
+     *
+     * @param texto Bytes do texto, ou null
+     * @return Tamanho dos bytes (0 para null)
+     */
+    private static int tamanho(byte[] texto) {
+        return texto == null ? 0 : texto.length;
+    }
+
+    /**
+     * Grava um texto precedido do seu tamanho; um texto null é gravado com tamanho
+     * {@link #TEXTO_NULO}, para que volte como null e não como texto vazio.
+     *
+     * @param dados Destino
+     * @param texto Bytes do texto, ou null
+     */
+    private static void colocarTexto(ByteBuffer dados, byte[] texto) {
+        if (texto == null) {
+            dados.putInt(TEXTO_NULO);
+            return;
+        }
+        dados.putInt(texto.length);
+        dados.put(texto);
+    }
+
+    /**
+     * Lê um texto precedido do seu tamanho.
+     *
+     * @param dados Origem
+     * @return Texto lido, ou null se foi gravado null
+     */
+    private static String lerTexto(ByteBuffer dados) {
+        int tamanho = dados.getInt();
+        if (tamanho < 0) {
+            return null;
+        }
+        byte[] texto = new byte[tamanho];
+        dados.get(texto);
+        return new String(texto, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,291 @@
+package dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import modelo.AlertaEstoque;
+import modelo.Produto;
+
+/**
+ * Conjunto vigiado dos produtos fora dos limites de estoque.
+ * Guarda a situação de cada produto (normal, próximo do mínimo, abaixo do mínimo
+ * ou acima do máximo) e a atualiza em O(1) a cada alteração de quantidade, mínimo
+ * ou máximo. Quando a situação muda, um {@link AlertaEstoque} é entregue aos
+ * observadores no momento da alteração, sem depender de consultas periódicas ao
+ * relatório. É a única origem dos alertas de estoque.
+ *
+ * As alterações de saldo por movimentações chegam por {@link #saldoAlterado(Produto)},
+ * chamado pela thread consumidora do {@link PipelineMovimentacoes}; como podem
+ * chegar depois de alterações mais novas do mesmo produto, as mais antigas que a
+ * versão já aplicada são ignoradas.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+public class MonitorEstoque implements OuvinteProdutos {
+
+    /**
+     * Ordem alfabética usada nas listagens.
+     */
+    private static final Comparator<Produto> POR_NOME = Comparator
+            .comparing(Produto::getNome, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER))
+            .thenComparingInt(Produto::getId);
+
+    /**
+     * Situação atual de cada produto.
+     */
+    private final Map<Integer, String> situacaoPorId = new HashMap<>();
+
+    /**
+     * Versão aplicada de cada produto vigiado.
+     */
+    private final Map<Integer, Integer> versaoPorId = new HashMap<>();
+
+    /**
+     * Produtos abaixo do mínimo.
+     */
+    private final Map<Integer, Produto> abaixoMinimo = new HashMap<>();
+
+    /**
+     * Produtos acima do máximo.
+     */
+    private final Map<Integer, Produto> acimaMaximo = new HashMap<>();
+
+    /**
+     * Observadores notificados quando um produto muda de situação.
+     */
+    private final List<Consumer<AlertaEstoque>> observadores = new CopyOnWriteArrayList<>();
+
+    /**
+     * Trava de leitura e escrita do conjunto vigiado.
+     */
+    private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+
+    /**
+     * Margem, em percentual do mínimo, da situação próximo do mínimo (0 desativa).
+     */
+    private final double margemMinimoPercentual;
+
+    /**
+     * Construtor que lê a margem de alerta próximo do mínimo em alertas.margemMinimoPercentual.
+     */
+    public MonitorEstoque() {
+        this(ConfiguracaoBanco.getInstancia().getInt("alertas.margemMinimoPercentual", 10));
+    }
+
+    /**
+     * Construtor com a margem de alerta próximo do mínimo.
+     *
+     * @param margemMinimoPercentual Margem, em percentual do mínimo (0 desativa)
+     */
+    public MonitorEstoque(double margemMinimoPercentual) {
+        this.margemMinimoPercentual = Math.max(0, margemMinimoPercentual);
+    }
+
+    /**
+     * Calcula a situação de um produto em relação aos seus limites.
+     *
+     * @param produto Produto
+     * @return Uma das situações de {@link AlertaEstoque}
+     */
+    public String situacao(Produto produto) {
+        if (produto.getQuantidade() < produto.getMin()) {
+            return AlertaEstoque.ABAIXO_MINIMO;
+        }
+        if (produto.getQuantidade() > produto.getMax()) {
+            return AlertaEstoque.ACIMA_MAXIMO;
+        }
+        if (margemMinimoPercentual > 0 && produto.getMin() > 0
+                && produto.getQuantidade() <= produto.getMin() * (1 + margemMinimoPercentual / 100.0)) {
+            return AlertaEstoque.PROXIMO_MINIMO;
+        }
+        return AlertaEstoque.NORMAL;
+    }
+
+    /**
+     * Registra um observador dos alertas. O observador é chamado na thread que
+     * registrou a alteração, ou na consumidora do {@link PipelineMovimentacoes}
+     * para as movimentações, e não deve bloquear.
+     *
+     * @param observador Observador a registrar
+     */
+    public void adicionarObservador(Consumer<AlertaEstoque> observador) {
+        observadores.add(observador);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Na carga não são gerados alertas, apenas o conjunto vigiado é refeito.
+     */
+    @Override
+    public void catalogoCarregado(List<Produto> produtos) {
+        trava.writeLock().lock();
+        try {
+            situacaoPorId.clear();
+            versaoPorId.clear();
+            abaixoMinimo.clear();
+            acimaMaximo.clear();
+            for (Produto produto : produtos) {
+                aplicar(produto);
+            }
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void produtoAlterado(Produto produto) {
+        String anterior;
+        String atual;
+        trava.writeLock().lock();
+        try {
+            anterior = situacaoPorId.getOrDefault(produto.getId(), AlertaEstoque.NORMAL);
+            atual = aplicar(produto);
+        } finally {
+            trava.writeLock().unlock();
+        }
+        notificar(produto, anterior, atual);
+    }
+
+    /**
+     * Aplica o saldo de um produto alterado por uma movimentação, se o produto
+     * estiver vigiado e a versão for mais nova que a aplicada; produtos ainda
+     * não carregados ou já excluídos são ignorados.
+     *
+     * @param produto Produto com o saldo gravado pela movimentação
+     */
+    public void saldoAlterado(Produto produto) {
+        String anterior;
+        String atual;
+        trava.writeLock().lock();
+        try {
+            anterior = situacaoPorId.get(produto.getId());
+            Integer versao = versaoPorId.get(produto.getId());
+            if (anterior == null || (versao != null && versao >= produto.getVersao())) {
+                return;
+            }
+            atual = aplicar(produto);
+        } finally {
+            trava.writeLock().unlock();
+        }
+        notificar(produto, anterior, atual);
+    }
+
+    /**
+     * Entrega um alerta aos observadores, se a situação do produto mudou.
+     *
+     * @param produto Produto alterado
+     * @param anterior Situação anterior
+     * @param atual Situação atual
+     */
+    private void notificar(Produto produto, String anterior, String atual) {
+        if (anterior.equals(atual)) {
+            return;
+        }
+        AlertaEstoque alerta = new AlertaEstoque(produto, anterior, atual);
+        for (Consumer<AlertaEstoque> observador : observadores) {
+            try {
+                observador.accept(alerta);
+            } catch (RuntimeException e) {
+                System.err.println("Erro ao notificar alerta de estoque: " + e);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void produtoRemovido(int id) {
+        trava.writeLock().lock();
+        try {
+            situacaoPorId.remove(id);
+            versaoPorId.remove(id);
+            abaixoMinimo.remove(id);
+            acimaMaximo.remove(id);
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Atualiza a situação de um produto no conjunto vigiado; deve ser chamado com a trava de escrita.
+     *
+     * @param produto Produto alterado
+     * @return Situação atual do produto
+     */
+    private String aplicar(Produto produto) {
+        int id = produto.getId();
+        String atual = situacao(produto);
+        situacaoPorId.put(id, atual);
+        versaoPorId.put(id, produto.getVersao());
+        abaixoMinimo.remove(id);
+        acimaMaximo.remove(id);
+        if (AlertaEstoque.ABAIXO_MINIMO.equals(atual)) {
+            abaixoMinimo.put(id, produto);
+        } else if (AlertaEstoque.ACIMA_MAXIMO.equals(atual)) {
+            acimaMaximo.put(id, produto);
+        }
+        return atual;
+    }
+
+    /**
+     * Lista os produtos abaixo do mínimo, em ordem alfabética.
+     *
+     * @return Cópias dos produtos abaixo do mínimo
+     */
+    public List<Produto> listarAbaixoMinimo() {
+        trava.readLock().lock();
+        try {
+            return copiarOrdenado(abaixoMinimo.values(), null);
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lista os produtos abaixo do mínimo ou acima do máximo, em ordem alfabética.
+     *
+     * @return Cópias dos produtos fora dos limites
+     */
+    public List<Produto> listarForaDosLimites() {
+        trava.readLock().lock();
+        try {
+            return copiarOrdenado(abaixoMinimo.values(), acimaMaximo.values());
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copia e ordena por nome os produtos das coleções informadas.
+     *
+     * @param primeira Primeira coleção
+     * @param segunda Segunda coleção (pode ser null)
+     * @return Lista ordenada de cópias
+     */
+    private static List<Produto> copiarOrdenado(Collection<Produto> primeira, Collection<Produto> segunda) {
+        List<Produto> lista = new ArrayList<>(primeira.size() + (segunda == null ? 0 : segunda.size()));
+        for (Produto p : primeira) {
+            lista.add(new Produto(p.getId(), p.getNome(), p.getUnidade(), p.getPreco(),
+                    p.getQuantidade(), p.getMin(), p.getMax(), p.getCategoria(), p.getVersao()));
+        }
+        if (segunda != null) {
+            for (Produto p : segunda) {
+                lista.add(new Produto(p.getId(), p.getNome(), p.getUnidade(), p.getPreco(),
+                        p.getQuantidade(), p.getMin(), p.getMax(), p.getCategoria(), p.getVersao()));
+            }
+        }
+        lista.sort(POR_NOME);
+        return lista;
+    }
+}
@@ -0,0 +1,590 @@
+package dao;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import modelo.PaginaMovimentacoes;
+import modelo.Produto;
+import modelo.RegistroMovimentacao;
+import modelo.ResultadoMovimentacao;
+
+/**
+ * Motor de estoque orientado a eventos: o histórico registro_movimentacao é a
+ * fonte da verdade dos saldos, que ficam em memória. Registrar uma movimentação
+ * custa um único INSERT no histórico; a quantidade da tabela produto não é
+ * alterada a cada movimentação.
+ *
+ * Na inicialização os saldos são reconstruídos a partir da última fotografia
+ * binária ({@link SnapshotSaldos}) mais as movimentações posteriores a ela. Uma
+ * nova fotografia é gravada periodicamente e, logo depois, os saldos são
+ * copiados para a tabela produto junto com a última movimentação incluída na
+ * cópia (tabela eventos_checkpoint), de modo que o banco acompanha o estoque
+ * com o atraso de um intervalo. Sem fotografia válida, os saldos partem da
+ * tabela produto e das movimentações posteriores a essa cópia; na primeira
+ * execução, sem cópia, a quantidade da tabela produto é tomada como o saldo até
+ * a última movimentação existente.
+ *
+ * Ao trocar para o armazenamento jdbc e voltar, o arquivo de fotografia deve
+ * ser apagado e a linha de eventos_checkpoint removida, pois alterações de
+ * quantidade feitas fora do histórico não são vistas pela reconstrução.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+public class MotorEventosEstoque implements MovimentacaoRepositorio {
+
+    /**
+     * Observação das movimentações geradas por alterações diretas da quantidade.
+     */
+    static final String OBSERVACAO_AJUSTE = "Ajuste de saldo na atualização do produto";
+
+    /**
+     * Saldos e catálogo em memória.
+     */
+    private final ProdutoRepositorioMemoria memoria = new ProdutoRepositorioMemoria();
+
+    /**
+     * Histórico de movimentações no banco, com o ranking e a fila de auditoria.
+     */
+    private final RegistroMovimentacaoDAO historico = new RegistroMovimentacaoDAO();
+
+    /**
+     * Repositório de produtos exposto ao serviço.
+     */
+    private final ProdutoRepositorioEventos produtos;
+
+    /**
+     * Trava dos saldos: as movimentações e as atualizações de produto usam a
+     * trava de leitura, junto com a trava do produto, do INSERT até a aplicação
+     * em memória; a fotografia usa a de escrita para ver um estado em que todas
+     * as movimentações gravadas já foram aplicadas.
+     */
+    private final ReentrantReadWriteLock travaSaldos = new ReentrantReadWriteLock();
+
+    /**
+     * Se as atualizações completas e cadastrais exigem a versão atual do produto
+     * (produto.versao.verificar); desligada, a versão informada é ignorada.
+     */
+    private final boolean verificarVersao = ConfiguracaoBanco.getInstancia().getBoolean("produto.versao.verificar", true);
+
+    /**
+     * Maior ID de movimentação aplicado aos saldos.
+     */
+    private final AtomicLong ultimaAplicada = new AtomicLong();
+
+    /**
+     * Arquivo da fotografia dos saldos.
+     */
+    private final Path arquivoSnapshot;
+
+    /**
+     * Saldos gravados na tabela produto na última cópia, para gravar só as diferenças.
+     */
+    private Map<Integer, Integer> saldosNoBanco = new HashMap<>();
+
+    /**
+     * Construtor que reconstrói os saldos e agenda as fotografias periódicas
+     * (eventos.snapshot.arquivo e eventos.snapshot.intervaloSeg).
+     *
+     * @throws IllegalStateException Se os saldos não puderem ser reconstruídos
+     */
+    public MotorEventosEstoque() {
+        ConfiguracaoBanco config = ConfiguracaoBanco.getInstancia();
+        this.arquivoSnapshot = Paths.get(config.getString("eventos.snapshot.arquivo", "estoque-saldos.snap"));
+        this.produtos = new ProdutoRepositorioEventos(this, memoria);
+
+        try {
+            reconstruir();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Não foi possível reconstruir os saldos do estoque: " + e.getMessage(), e);
+        }
+        gravarSnapshot();
+
+        long intervalo = config.getLong("eventos.snapshot.intervaloSeg", 60);
+        if (intervalo > 0) {
+            ScheduledExecutorService agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "eventos-estoque-snapshot");
+                t.setDaemon(true);
+                return t;
+            });
+            agendador.scheduleWithFixedDelay(this::gravarSnapshot, intervalo, intervalo, TimeUnit.SECONDS);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(this::gravarSnapshot, "eventos-estoque-encerramento"));
+    }
+
+    /**
+     * Lê o catálogo do banco, aplica a fotografia e as movimentações posteriores
+     * a ela e carrega o resultado em memória. Se a fotografia não existir, não
+     * puder ser lida ou for mais antiga que a última cópia para o banco, os
+     * saldos partem da tabela produto e as movimentações são reaplicadas a
+     * partir da última movimentação incluída nessa cópia (tabela eventos_checkpoint).
+     *
+     * @throws SQLException Se ocorrer erro na operação de banco de dados
+     */
+    private void reconstruir() throws SQLException {
+        long inicio = System.currentTimeMillis();
+        Map<Integer, Produto> catalogo = new HashMap<>();
+        SnapshotSaldos snapshot = null;
+        try {
+            snapshot = SnapshotSaldos.ler(arquivoSnapshot);
+        } catch (IOException e) {
+            System.err.println("Fotografia de saldos ignorada (" + arquivoSnapshot + "): " + e.getMessage());
+        }
+
+        long ultima;
+        String origem;
+        long replay = 0;
+        try (Connection conn = new Conexao().conectar()) {
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT * FROM produto");
+                    ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Produto produto = ProdutoDAO.mapearProduto(rs);
+                    catalogo.put(produto.getId(), produto);
+                    saldosNoBanco.put(produto.getId(), produto.getQuantidade());
+                }
+            }
+
+            long copiadaNoBanco = lerUltimaCopiada(conn);
+            if (snapshot != null && snapshot.getUltimaMovimentacao() >= copiadaNoBanco) {
+                ultima = snapshot.getUltimaMovimentacao();
+                origem = "fotografia até a movimentação " + ultima;
+                for (Map.Entry<Integer, Integer> saldo : snapshot.getSaldos().entrySet()) {
+                    Produto produto = catalogo.get(saldo.getKey());
+                    if (produto != null) {
+                        produto.setQuantidade(saldo.getValue());
+                    }
+                }
+            } else if (copiadaNoBanco >= 0) {
+                // a quantidade da tabela produto é o saldo até a última movimentação copiada
+                ultima = copiadaNoBanco;
+                origem = "tabela produto até a movimentação " + ultima;
+            } else {
+                // primeira execução: a quantidade da tabela produto já inclui todo o histórico
+                try (PreparedStatement stmt = conn.prepareStatement("SELECT COALESCE(MAX(id), 0) AS ultimo FROM registro_movimentacao");
+                        ResultSet rs = stmt.executeQuery()) {
+                    rs.next();
+                    ultima = rs.getLong("ultimo");
+                }
+                origem = "tabela produto, primeira execução";
+            }
+
+            String sql = "SELECT id, produto_id, tipo_movimentacao, quantidade FROM registro_movimentacao WHERE id > ? ORDER BY id";
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setFetchSize(1000);
+                stmt.setLong(1, ultima);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        Produto produto = catalogo.get(rs.getInt("produto_id"));
+                        if (produto != null) {
+                            produto.setQuantidade(produto.getQuantidade()
+                                    + variacaoSaldo(rs.getString("tipo_movimentacao"), rs.getInt("quantidade")));
+                        }
+                        ultima = rs.getLong("id");
+                        replay++;
+                    }
+                }
+            }
+        }
+
+        memoria.carregar(new ArrayList<>(catalogo.values()));
+        ultimaAplicada.set(ultima);
+        System.out.println("Saldos reconstruídos: " + catalogo.size() + " produtos, " + origem
+                + ", " + replay + " movimentações reaplicadas em " + (System.currentTimeMillis() - inicio) + " ms");
+    }
+
+    /**
+     * Lê a última movimentação incluída na quantidade da tabela produto.
+     *
+     * @param conn Conexão aberta
+     * @return ID da movimentação, ou -1 se os saldos nunca foram copiados
+     * @throws SQLException Se a tabela eventos_checkpoint não existir ou não puder ser lida
+     */
+    private static long lerUltimaCopiada(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT ultima_movimentacao FROM eventos_checkpoint WHERE id = 1");
+                ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : -1;
+        }
+    }
+
+    /**
+     * Grava a fotografia dos saldos e copia para a tabela produto os saldos
+     * alterados desde a última cópia. A fotografia é gravada antes do banco, de
+     * modo que uma falha entre as duas etapas não faz reaplicar movimentações
+     * sobre uma quantidade que já as inclui. A cópia e a última movimentação
+     * incluída nela são gravadas na mesma transação, para que a reconstrução
+     * possa partir do banco quando a fotografia for perdida.
+     */
+    public synchronized void gravarSnapshot() {
+        long ultima;
+        Map<Integer, Integer> saldos;
+        travaSaldos.writeLock().lock();
+        try {
+            ultima = ultimaAplicada.get();
+            saldos = memoria.copiarSaldos();
+        } finally {
+            travaSaldos.writeLock().unlock();
+        }
+
+        try {
+            new SnapshotSaldos(ultima, saldos).gravar(arquivoSnapshot);
+        } catch (IOException e) {
+            System.err.println("Erro ao gravar fotografia de saldos: " + e.getMessage());
+            return;
+        }
+
+        String sql = "UPDATE produto SET quantidade = ? WHERE id = ?";
+        String sqlCheckpoint = "INSERT INTO eventos_checkpoint (id, ultima_movimentacao) VALUES (1, ?) "
+                + "ON DUPLICATE KEY UPDATE ultima_movimentacao = VALUES(ultima_movimentacao)";
+        try (Connection conn = new Conexao().conectar()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql);
+                    PreparedStatement stCheckpoint = conn.prepareStatement(sqlCheckpoint)) {
+                int alterados = 0;
+                for (Map.Entry<Integer, Integer> saldo : saldos.entrySet()) {
+                    if (!saldo.getValue().equals(saldosNoBanco.get(saldo.getKey()))) {
+                        stmt.setInt(1, saldo.getValue());
+                        stmt.setInt(2, saldo.getKey());
+                        stmt.addBatch();
+                        alterados++;
+                    }
+                }
+                if (alterados > 0) {
+                    stmt.executeBatch();
+                }
+                stCheckpoint.setLong(1, ultima);
+                stCheckpoint.executeUpdate();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+            saldosNoBanco = saldos;
+        } catch (SQLException e) {
+            System.err.println("Erro ao copiar saldos para a tabela produto: " + e.getMessage());
+        } catch (RuntimeException e) {
+            // não deixa a falha cancelar as próximas execuções agendadas
+            System.err.println("Erro ao copiar saldos para a tabela produto: " + e);
+        }
+    }
+
+    /**
+     * Retorna a variação de saldo de uma movimentação: positiva para entradas e
+     * negativa para qualquer outro tipo, como no registro com atualização de saldo.
+     *
+     * @param tipoMovimentacao Tipo da movimentação
+     * @param quantidade Quantidade movimentada
+     * @return Variação do saldo
+     */
+    private static int variacaoSaldo(String tipoMovimentacao, int quantidade) {
+        return "Entrada".equalsIgnoreCase(tipoMovimentacao) ? quantidade : -quantidade;
+    }
+
+    /**
+     * Valida a movimentação, acrescenta-a ao histórico e aplica a variação ao
+     * saldo em memória. Movimentações inválidas nunca chegam ao histórico, que é
+     * reaplicado a cada reconstrução. O saldo do produto fica travado da verificação até a aplicação,
+     * de modo que saídas concorrentes do mesmo produto nunca deixam o saldo
+     * negativo; movimentações de outros produtos seguem em paralelo.
+     *
+     * @param registro Movimentação a registrar
+     * @param data Data da movimentação
+     * @return Resultado da movimentação
+     */
+    private ResultadoMovimentacao anexar(RegistroMovimentacao registro, LocalDate data) {
+        ResultadoMovimentacao invalido = RegistroMovimentacaoDAO.validar(0, registro);
+        if (invalido != null) {
+            return invalido;
+        }
+        int produtoId = registro.getProdutoId();
+        int delta = RegistroMovimentacaoDAO.sinalMovimentacao(registro.getTipoMovimentacao()) * registro.getQuantidade();
+        long id;
+        travaSaldos.readLock().lock();
+        memoria.travarSaldo(produtoId);
+        try {
+            Integer saldo = memoria.saldo(produtoId);
+            if (saldo == null) {
+                return RegistroMovimentacaoDAO.resultado(0, produtoId, ResultadoMovimentacao.PRODUTO_INEXISTENTE);
+            }
+            if (saldo + delta < 0) {
+                return RegistroMovimentacaoDAO.resultado(0, produtoId, ResultadoMovimentacao.ESTOQUE_INSUFICIENTE);
+            }
+            id = historico.anexarMovimentacao(registro, data);
+            memoria.ajustarQuantidade(produtoId, delta);
+            ultimaAplicada.accumulateAndGet(id, Math::max);
+        } catch (SQLException e) {
+            System.err.println("Erro ao registrar movimentação: " + e.getMessage());
+            return new ResultadoMovimentacao(0, produtoId, ResultadoMovimentacao.ERRO, "Movimentação não gravada: " + e.getMessage());
+        } finally {
+            memoria.destravarSaldo(produtoId);
+            travaSaldos.readLock().unlock();
+        }
+        historico.movimentacaoAnexada(registro, id, data);
+        return RegistroMovimentacaoDAO.resultado(0, produtoId, ResultadoMovimentacao.SUCESSO);
+    }
+
+    /**
+     * Atualiza um produto se a versão informada for a versão atual em memória,
+     * que é incrementada a cada movimentação. Os dados cadastrais são gravados
+     * no banco com a nova versão; se a quantidade também for atualizada, a
+     * diferença para o saldo atual é registrada no histórico como uma
+     * movimentação de ajuste, na mesma transação. A memória só é alterada
+     * depois do commit. Durante a transação só o produto atualizado fica
+     * travado; movimentações e atualizações dos demais produtos seguem em paralelo.
+     *
+     * @param produto Produto com os dados atualizados e a versão lida
+     * @param comQuantidade Se a quantidade informada substitui o saldo atual
+     * @return true se o produto existe, estava na versão informada e foi atualizado
+     */
+    boolean atualizarComVersao(Produto produto, boolean comQuantidade) {
+        int produtoId = produto.getId();
+        travaSaldos.readLock().lock();
+        memoria.travarSaldo(produtoId);
+        try {
+            Produto atual = memoria.ProcurarProdutoID(produto.getId());
+            if (atual.getId() == 0 || (verificarVersao && atual.getVersao() != produto.getVersao())) {
+                System.out.println("Produto não atualizado: inexistente ou alterado desde a leitura.");
+                return false;
+            }
+            int diferenca = comQuantidade ? produto.getQuantidade() - atual.getQuantidade() : 0;
+            RegistroMovimentacao ajuste = null;
+            long idAjuste = 0;
+            LocalDate hoje = LocalDate.now();
+            String sql = "UPDATE produto SET nome=?, unidade=?, preco=?, min=?, max=?, categoria=?, versao=? WHERE id=?";
+            try (Connection conn = new Conexao().conectar()) {
+                conn.setAutoCommit(false);
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    stmt.setString(1, produto.getNome());
+                    stmt.setString(2, produto.getUnidade());
+                    stmt.setDouble(3, produto.getPreco());
+                    stmt.setInt(4, produto.getMin());
+                    stmt.setInt(5, produto.getMax());
+                    stmt.setString(6, produto.getCategoria());
+                    stmt.setInt(7, atual.getVersao() + 1);
+                    stmt.setInt(8, produto.getId());
+                    if (stmt.executeUpdate() == 0) {
+                        conn.rollback();
+                        System.out.println("Produto não atualizado: inexistente no banco.");
+                        return false;
+                    }
+                    if (diferenca != 0) {
+                        ajuste = new RegistroMovimentacao(0, produto.getId(),
+                                diferenca > 0 ? "Entrada" : "Saída", Math.abs(diferenca), OBSERVACAO_AJUSTE, null);
+                        idAjuste = historico.anexarMovimentacao(conn, ajuste, hoje);
+                    }
+                    conn.commit();
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            }
+            if (!comQuantidade) {
+                return memoria.atualizarDadosCadastrais(produto);
+            }
+            if (ajuste != null) {
+                ultimaAplicada.accumulateAndGet(idAjuste, Math::max);
+                historico.movimentacaoAnexada(ajuste, idAjuste, hoje);
+            }
+            return memoria.AtualizarProduto(produto);
+        } catch (SQLException e) {
+            System.out.println("Erro ao atualizar produto: " + e.getMessage());
+            return false;
+        } finally {
+            memoria.destravarSaldo(produtoId);
+            travaSaldos.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retorna o repositório de produtos cujos saldos são mantidos por este motor.
+     *
+     * @return Repositório de produtos
+     */
+    public ProdutoRepositorio getProdutos() {
+        return produtos;
+    }
+
+    /**
+     * No histórico de eventos toda movimentação altera o saldo; equivale a
+     * {@link #registrarMovimentacaoEAtualizarSaldo}.
+     *
+     * @param registro Registro de movimentação a ser salvo
+     * @return true se o registro foi bem-sucedido
+     */
+    @Override
+    public boolean registrarMovimentacao(RegistroMovimentacao registro) {
+        return anexar(registro, LocalDate.now()).isSucesso();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ResultadoMovimentacao registrarMovimentacaoEAtualizarSaldo(RegistroMovimentacao registro, ProdutoRepositorio produtoRepositorio) {
+        return anexar(registro, LocalDate.now());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<ResultadoMovimentacao> registrarMovimentacoesEmLote(List<RegistroMovimentacao> registros, ProdutoRepositorio produtoRepositorio) {
+        List<ResultadoMovimentacao> resultados = new ArrayList<>(registros.size());
+        List<RegistroMovimentacao> aceitos = new ArrayList<>();
+        Set<Integer> envolvidos = new HashSet<>();
+
+        for (int i = 0; i < registros.size(); i++) {
+            RegistroMovimentacao registro = registros.get(i);
+            ResultadoMovimentacao invalido = RegistroMovimentacaoDAO.validar(i, registro);
+            if (invalido != null) {
+                resultados.add(invalido);
+            } else {
+                resultados.add(RegistroMovimentacaoDAO.resultado(i, registro.getProdutoId(), ResultadoMovimentacao.SUCESSO));
+                envolvidos.add(registro.getProdutoId());
+            }
+        }
+        if (envolvidos.isEmpty()) {
+            return resultados;
+        }
+
+        LocalDate hoje = LocalDate.now();
+        List<Long> ids;
+        travaSaldos.readLock().lock();
+        Collection<Integer> travadas = memoria.travarSaldos(envolvidos);
+        try {
+            // aplica as movimentações na ordem da lista sobre os saldos travados
+            Map<Integer, Integer> saldos = new HashMap<>();
+            for (ResultadoMovimentacao resultado : resultados) {
+                if (!resultado.isSucesso()) {
+                    continue;
+                }
+                RegistroMovimentacao registro = registros.get(resultado.getIndice());
+                Integer saldo = saldos.containsKey(registro.getProdutoId())
+                        ? saldos.get(registro.getProdutoId()) : memoria.saldo(registro.getProdutoId());
+                int delta = variacaoSaldo(registro.getTipoMovimentacao(), registro.getQuantidade());
+                if (saldo == null) {
+                    resultados.set(resultado.getIndice(), RegistroMovimentacaoDAO.resultado(resultado.getIndice(),
+                            registro.getProdutoId(), ResultadoMovimentacao.PRODUTO_INEXISTENTE));
+                } else if (saldo + delta < 0) {
+                    resultados.set(resultado.getIndice(), RegistroMovimentacaoDAO.resultado(resultado.getIndice(),
+                            registro.getProdutoId(), ResultadoMovimentacao.ESTOQUE_INSUFICIENTE));
+                } else {
+                    saldos.put(registro.getProdutoId(), saldo + delta);
+                    aceitos.add(registro);
+                }
+            }
+            if (aceitos.isEmpty()) {
+                return resultados;
+            }
+            ids = historico.anexarMovimentacoes(aceitos, hoje);
+            for (RegistroMovimentacao registro : aceitos) {
+                memoria.ajustarQuantidade(registro.getProdutoId(), variacaoSaldo(registro.getTipoMovimentacao(), registro.getQuantidade()));
+            }
+            for (long id : ids) {
+                ultimaAplicada.accumulateAndGet(id, Math::max);
+            }
+        } catch (SQLException e) {
+            System.err.println("Erro ao registrar lote de movimentações: " + e.getMessage());
+            for (ResultadoMovimentacao resultado : resultados) {
+                if (resultado.isSucesso()) {
+                    resultado.setStatus(ResultadoMovimentacao.ERRO);
+                    resultado.setMensagem("Lote não gravado: " + e.getMessage());
+                }
+            }
+            return resultados;
+        } finally {
+            memoria.destravarSaldos(travadas);
+            travaSaldos.readLock().unlock();
+        }
+
+        for (int i = 0; i < aceitos.size(); i++) {
+            historico.movimentacaoAnexada(aceitos.get(i), ids.get(i), hoje);
+        }
+        return resultados;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<RegistroMovimentacao> listarTodasMovimentacoes() {
+        return historico.listarTodasMovimentacoes();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<RegistroMovimentacao> listarMovimentacoesPorProduto(int produtoId) {
+        return historico.listarMovimentacoesPorProduto(produtoId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PaginaMovimentacoes listarMovimentacoesPaginado(Integer produtoId, String cursor, int tamanhoPagina) {
+        return historico.listarMovimentacoesPaginado(produtoId, cursor, tamanhoPagina);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CursorDados<RegistroMovimentacao> abrirCursorMovimentacoes(int tamanhoBloco) throws SQLException {
+        return historico.abrirCursorMovimentacoes(tamanhoBloco);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String[] produtoComMaisEntrada(ProdutoRepositorio produtoRepositorio) {
+        return historico.produtoComMaisEntrada(produtoRepositorio);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String[] produtoComMaisSaida(ProdutoRepositorio produtoRepositorio) {
+        return historico.produtoComMaisSaida(produtoRepositorio);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Object[]> listarRankingMovimentacoes(String criterio, int dias, int n, ProdutoRepositorio produtoRepositorio) {
+        return historico.listarRankingMovimentacoes(criterio, dias, n, produtoRepositorio);
+    }
+
+    /**
+     * Retorna o maior ID de movimentação já aplicado aos saldos.
+     *
+     * @return ID da movimentação
+     */
+    public long getUltimaAplicada() {
+        return ultimaAplicada.get();
+    }
+}
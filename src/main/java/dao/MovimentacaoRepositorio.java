@@ -0,0 +1,114 @@
+package dao;
+
+import java.sql.SQLException;
+import java.util.List;
+import modelo.PaginaMovimentacoes;
+import modelo.RegistroMovimentacao;
+import modelo.ResultadoMovimentacao;
+
+/**
+ * Repositório de movimentações de estoque usado pela camada de serviço.
+ * Implementado sobre o MySQL ({@link RegistroMovimentacaoDAO}) e em memória
+ * ({@link MovimentacaoRepositorioMemoria}). As operações que alteram saldos
+ * recebem o repositório de produtos do mesmo armazenamento.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+public interface MovimentacaoRepositorio {
+
+    /**
+     * Registra uma movimentação sem alterar o saldo do produto.
+     *
+     * @param registro Registro de movimentação a ser salvo
+     * @return true se o registro foi bem-sucedido, false caso contrário
+     */
+    boolean registrarMovimentacao(RegistroMovimentacao registro);
+
+    /**
+     * Registra uma movimentação e atualiza o saldo do produto na mesma operação.
+     * Saídas maiores que o saldo do produto são recusadas com
+     * {@link ResultadoMovimentacao#ESTOQUE_INSUFICIENTE}, sem alterar o estoque;
+     * tipos desconhecidos e quantidades menores ou iguais a zero são recusados
+     * com {@link ResultadoMovimentacao#DADOS_INVALIDOS}.
+     *
+     * @param registro Registro de movimentação a ser salvo
+     * @param produtos Repositório de produtos
+     * @return Resultado da movimentação
+     */
+    ResultadoMovimentacao registrarMovimentacaoEAtualizarSaldo(RegistroMovimentacao registro, ProdutoRepositorio produtos);
+
+    /**
+     * Registra várias movimentações e atualiza os saldos em uma única operação.
+     * As movimentações são aplicadas na ordem da lista; uma saída maior que o
+     * saldo naquele ponto é recusada com {@link ResultadoMovimentacao#ESTOQUE_INSUFICIENTE}.
+     *
+     * @param registros Movimentações a serem registradas
+     * @param produtos Repositório de produtos
+     * @return Resultado de cada movimentação, na mesma ordem da lista recebida
+     */
+    List<ResultadoMovimentacao> registrarMovimentacoesEmLote(List<RegistroMovimentacao> registros, ProdutoRepositorio produtos);
+
+    /**
+     * Lista todas as movimentações, da mais recente para a mais antiga.
+     *
+     * @return Registros de movimentação
+     */
+    List<RegistroMovimentacao> listarTodasMovimentacoes();
+
+    /**
+     * Lista as movimentações de um produto, da mais recente para a mais antiga.
+     *
+     * @param produtoId ID do produto
+     * @return Registros de movimentação do produto
+     */
+    List<RegistroMovimentacao> listarMovimentacoesPorProduto(int produtoId);
+
+    /**
+     * Lista uma página do histórico de movimentações.
+     *
+     * @param produtoId ID do produto para filtrar, ou null para todas as movimentações
+     * @param cursor Cursor recebido na página anterior, ou null para a primeira página
+     * @param tamanhoPagina Quantidade de registros por página
+     * @return Página com os registros e o cursor da próxima página
+     * @throws IllegalArgumentException Se o cursor for inválido ou de outra consulta
+     */
+    PaginaMovimentacoes listarMovimentacoesPaginado(Integer produtoId, String cursor, int tamanhoPagina);
+
+    /**
+     * Abre a leitura em blocos de todas as movimentações, da mais recente para a mais antiga.
+     *
+     * @param tamanhoBloco Quantidade de itens buscados por vez
+     * @return Cursor da leitura
+     * @throws SQLException Se não for possível abrir a leitura
+     */
+    CursorDados<RegistroMovimentacao> abrirCursorMovimentacoes(int tamanhoBloco) throws SQLException;
+
+    /**
+     * Identifica o produto que teve mais entradas no estoque.
+     *
+     * @param produtos Repositório de produtos, usado para obter os nomes
+     * @return Array com [nome do produto, total de entradas] ou ["Nenhum", "0"]
+     */
+    String[] produtoComMaisEntrada(ProdutoRepositorio produtos);
+
+    /**
+     * Identifica o produto que teve mais saídas do estoque.
+     *
+     * @param produtos Repositório de produtos, usado para obter os nomes
+     * @return Array com [nome do produto, total de saídas] ou ["Nenhum", "0"]
+     */
+    String[] produtoComMaisSaida(ProdutoRepositorio produtos);
+
+    /**
+     * Lista os N produtos mais movimentados segundo um critério.
+     *
+     * @param criterio ENTRADA, SAIDA ou LIQUIDO (entradas menos saídas)
+     * @param dias Janela em dias até hoje, ou 0 para desde o início
+     * @param n Quantidade de produtos
+     * @param produtos Repositório de produtos, usado para obter os nomes
+     * @return Lista de arrays contendo [id, nome, total], do maior para o menor total
+     * @throws IllegalArgumentException Se o critério ou a janela forem inválidos
+     */
+    List<Object[]> listarRankingMovimentacoes(String criterio, int dias, int n, ProdutoRepositorio produtos);
+}
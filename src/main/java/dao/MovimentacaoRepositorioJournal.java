@@ -0,0 +1,628 @@
+package dao;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.LockSupport;
+import modelo.PaginaMovimentacoes;
+import modelo.Produto;
+import modelo.RegistroMovimentacao;
+import modelo.ResultadoMovimentacao;
+
+/**
+ * Repositório de movimentações com gravação adiada no MySQL: cada movimentação
+ * é confirmada ao cliente assim que é gravada no {@link JournalMovimentacoes}
+ * local, e uma thread de descarga aplica as pendentes em registro_movimentacao e
+ * produto em lotes grandes.
+ *
+ * Cada lote é gravado em uma única transação junto com a última sequência do
+ * journal que ele contém (tabela journal_checkpoint). Após uma queda, as entradas
+ * do journal posteriores a essa sequência são aplicadas novamente, de modo que
+ * cada movimentação chega ao banco exatamente uma vez.
+ *
+ * As consultas são feitas no banco e, portanto, só veem as movimentações já
+ * descarregadas; o atraso é de no máximo um intervalo de descarga enquanto o
+ * banco estiver disponível. Movimentações de produtos excluídos antes da
+ * descarga são descartadas.
+ *
+ * As saídas são verificadas na confirmação, contra o saldo do produto somado
+ * às variações ainda pendentes no journal, e recusadas se o saldo não for
+ * suficiente. Como uma movimentação confirmada não pode mais ser recusada, a
+ * descarga aplica as variações sem nova verificação.
+ *
+ * Uma movimentação que o banco recusa por erro de dados mesmo gravada sozinha
+ * (por exemplo, violação de restrição) é retirada do journal e registrada na
+ * tabela journal_quarentena, na mesma transação que avança o checkpoint, para
+ * correção manual; sem isso ela travaria a descarga de todas as seguintes.
+ * As tabelas journal_checkpoint e journal_quarentena são criadas pelo script
+ * sql/migracoes/002-journal.sql.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+public class MovimentacaoRepositorioJournal implements MovimentacaoRepositorio {
+
+    /**
+     * Histórico de movimentações no banco, com o ranking e a fila de auditoria.
+     */
+    private final RegistroMovimentacaoDAO historico = new RegistroMovimentacaoDAO();
+
+    /**
+     * Repositório de produtos, usado na validação e notificado após cada descarga.
+     */
+    private final ProdutoRepositorio produtos;
+
+    /**
+     * Journal local das movimentações ainda não descarregadas.
+     */
+    private final JournalMovimentacoes journal;
+
+    /**
+     * Quantidade máxima de movimentações por descarga.
+     */
+    private final int tamanhoLote;
+
+    /**
+     * Intervalo (ms) entre as descargas quando não há um lote completo.
+     */
+    private final long intervaloDescargaMs;
+
+    /**
+     * Variação de saldo ainda não descarregada, por produto.
+     */
+    private final ConcurrentHashMap<Integer, Integer> pendentePorProduto = new ConcurrentHashMap<>();
+
+    /**
+     * Travas por produto: ordenam a verificação de saldo das saídas e a
+     * atualização do saldo pendente após cada descarga.
+     */
+    private final TravasProdutos travas = new TravasProdutos(64);
+
+    /**
+     * Thread de descarga.
+     */
+    private final Thread descarga;
+
+    /**
+     * Construtor que recupera as entradas pendentes do journal e inicia a descarga
+     * (journal.diretorio, journal.tamanhoSegmentoMb, journal.fsync,
+     * journal.fsyncIntervaloMs, journal.maximoPendentes, journal.tamanhoLote e
+     * journal.intervaloDescargaMs).
+     *
+     * @param produtos Repositório de produtos
+     * @throws IllegalStateException Se o journal não puder ser aberto ou a última
+     * sequência descarregada não puder ser lida do banco
+     */
+    public MovimentacaoRepositorioJournal(ProdutoRepositorio produtos) {
+        this.produtos = produtos;
+        ConfiguracaoBanco config = ConfiguracaoBanco.getInstancia();
+        this.tamanhoLote = Math.max(1, config.getInt("journal.tamanhoLote", 5000));
+        this.intervaloDescargaMs = Math.max(1, config.getLong("journal.intervaloDescargaMs", 200));
+
+        try {
+            this.journal = new JournalMovimentacoes(
+                    Paths.get(config.getString("journal.diretorio", "journal")),
+                    config.getInt("journal.tamanhoSegmentoMb", 64) * 1024 * 1024,
+                    config.getString("journal.fsync", JournalMovimentacoes.FSYNC_INTERVALO).trim().toLowerCase(),
+                    config.getLong("journal.fsyncIntervaloMs", 100),
+                    config.getInt("journal.maximoPendentes", 1000000));
+            int recuperadas = journal.recuperar(lerCheckpoint());
+            for (JournalMovimentacoes.Entrada entrada : journal.lerPendentes(recuperadas)) {
+                RegistroMovimentacao registro = entrada.getRegistro();
+                if (entrada.isAtualizaSaldo()) {
+                    pendentePorProduto.merge(registro.getProdutoId(),
+                            RegistroMovimentacaoDAO.sinalMovimentacao(registro.getTipoMovimentacao()) * registro.getQuantidade(), Integer::sum);
+                }
+            }
+            if (recuperadas > 0) {
+                System.out.println("Journal de movimentações: " + recuperadas + " movimentações pendentes serão gravadas no banco.");
+            }
+        } catch (IOException | SQLException e) {
+            throw new IllegalStateException("Não foi possível abrir o journal de movimentações: " + e.getMessage(), e);
+        }
+
+        descarga = new Thread(this::executarDescarga, "journal-movimentacoes-descarga");
+        descarga.setDaemon(true);
+        descarga.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::encerrar, "journal-movimentacoes-encerramento"));
+    }
+
+    /**
+     * Lê a última sequência do journal já gravada no banco, criando a linha de
+     * journal_checkpoint na primeira execução.
+     *
+     * @return Última sequência descarregada
+     * @throws SQLException Se ocorrer erro na operação de banco de dados
+     */
+    private long lerCheckpoint() throws SQLException {
+        try (Connection conn = new Conexao().conectar(); Statement stmt = conn.createStatement()) {
+            stmt.execute("INSERT IGNORE INTO journal_checkpoint (id, ultima_sequencia) VALUES (1, 0)");
+            try (ResultSet rs = stmt.executeQuery("SELECT ultima_sequencia FROM journal_checkpoint WHERE id = 1")) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Laço da thread de descarga: grava um lote sempre que houver pendentes e
+     * espera o intervalo de descarga quando o lote não estiver completo ou o
+     * banco falhar. Se o lote for recusado por erro de dados, ele é gravado uma
+     * movimentação por vez para isolar as que devem ir para a quarentena.
+     */
+    private void executarDescarga() {
+        while (!Thread.currentThread().isInterrupted()) {
+            int gravadas;
+            try {
+                gravadas = descarregar();
+            } catch (SQLException e) {
+                System.err.println("Erro ao descarregar journal de movimentações: " + e.getMessage());
+                gravadas = 0;
+                if (erroDeDados(e)) {
+                    try {
+                        gravadas = descarregarIndividualmente();
+                    } catch (SQLException ex) {
+                        System.err.println("Erro ao descarregar journal de movimentações: " + ex.getMessage());
+                    }
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Erro inesperado na descarga do journal: " + e.getMessage());
+                gravadas = 0;
+            }
+            if (gravadas < tamanhoLote) {
+                LockSupport.parkNanos(intervaloDescargaMs * 1_000_000L);
+            }
+        }
+    }
+
+    /**
+     * Indica se o banco recusou a gravação pelos dados (SQLState das classes 22,
+     * dados inválidos, ou 23, violação de restrição), caso em que repetir a mesma
+     * gravação não adianta.
+     *
+     * @param e Erro do banco
+     * @return true se o erro for de dados
+     */
+    static boolean erroDeDados(SQLException e) {
+        String estado = e.getSQLState();
+        return estado != null && (estado.startsWith("22") || estado.startsWith("23"));
+    }
+
+    /**
+     * Grava no banco o próximo lote de movimentações pendentes.
+     *
+     * @return Quantidade de entradas do journal processadas
+     * @throws SQLException Se o lote não puder ser gravado; as entradas continuam pendentes
+     */
+    synchronized int descarregar() throws SQLException {
+        return descarregar(journal.lerPendentes(tamanhoLote));
+    }
+
+    /**
+     * Grava no banco, uma por transação, as movimentações do próximo lote. As que
+     * forem recusadas por erro de dados vão para a quarentena; qualquer outro
+     * erro interrompe a descarga e deixa o restante pendente.
+     *
+     * @return Quantidade de entradas do journal processadas
+     * @throws SQLException Se uma movimentação não puder ser gravada nem posta em quarentena
+     */
+    synchronized int descarregarIndividualmente() throws SQLException {
+        List<JournalMovimentacoes.Entrada> lote = journal.lerPendentes(tamanhoLote);
+        for (JournalMovimentacoes.Entrada entrada : lote) {
+            try {
+                descarregar(Collections.singletonList(entrada));
+            } catch (SQLException e) {
+                if (!erroDeDados(e)) {
+                    throw e;
+                }
+                colocarEmQuarentena(entrada, e);
+            }
+        }
+        return lote.size();
+    }
+
+    /**
+     * Retira do journal uma movimentação que o banco recusa: ela é gravada em
+     * journal_quarentena na mesma transação que avança o checkpoint, e sua
+     * variação deixa de contar no saldo pendente do produto.
+     *
+     * @param entrada Entrada recusada
+     * @param erro Erro do banco ao gravá-la
+     * @throws SQLException Se a quarentena não puder ser gravada; a entrada continua pendente
+     */
+    private void colocarEmQuarentena(JournalMovimentacoes.Entrada entrada, SQLException erro) throws SQLException {
+        RegistroMovimentacao registro = entrada.getRegistro();
+        try (Connection conn = new Conexao().conectar()) {
+            conn.setAutoCommit(false);
+            try {
+                String sql = "INSERT INTO journal_quarentena (sequencia, produto_id, tipo_movimentacao, quantidade, observacao, data_movimentacao, atualiza_saldo, erro) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    stmt.setLong(1, entrada.getSequencia());
+                    stmt.setInt(2, registro.getProdutoId());
+                    stmt.setString(3, registro.getTipoMovimentacao());
+                    stmt.setInt(4, registro.getQuantidade());
+                    stmt.setString(5, registro.getObservacao());
+                    stmt.setDate(6, java.sql.Date.valueOf(entrada.getData()));
+                    stmt.setBoolean(7, entrada.isAtualizaSaldo());
+                    stmt.setString(8, erro.getSQLState() + " " + erro.getMessage());
+                    stmt.executeUpdate();
+                }
+                try (PreparedStatement stCheckpoint = conn.prepareStatement("UPDATE journal_checkpoint SET ultima_sequencia = ? WHERE id = 1")) {
+                    stCheckpoint.setLong(1, entrada.getSequencia());
+                    stCheckpoint.executeUpdate();
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+
+        journal.confirmar(entrada.getSequencia());
+        System.err.println("Movimentação " + entrada.getSequencia() + " do journal em quarentena: " + erro.getMessage());
+        if (entrada.isAtualizaSaldo()) {
+            int delta = RegistroMovimentacaoDAO.sinalMovimentacao(registro.getTipoMovimentacao()) * registro.getQuantidade();
+            travas.travar(registro.getProdutoId());
+            try {
+                pendentePorProduto.computeIfPresent(registro.getProdutoId(), (id, pendente) -> {
+                    int restante = pendente - delta;
+                    return restante == 0 ? null : restante;
+                });
+            } finally {
+                travas.destravar(registro.getProdutoId());
+            }
+        }
+    }
+
+    /**
+     * Grava no banco um lote de movimentações pendentes, em uma única
+     * transação: os saldos (somados por produto, em ordem de ID), as movimentações
+     * e a última sequência do lote. Depois do commit, as entradas são retiradas do
+     * journal e os produtos alterados (lidos na própria transação), o ranking e a
+     * fila de auditoria são notificados.
+     *
+     * As travas dos produtos do lote são tomadas antes do commit e só liberadas
+     * depois que o saldo pendente é reduzido: assim, quem verifica uma saída nunca
+     * vê a variação ao mesmo tempo no saldo do banco e no pendente.
+     *
+     * @param lote Entradas do journal, em ordem de sequência, a partir da primeira pendente
+     * @return Quantidade de entradas do journal processadas
+     * @throws SQLException Se o lote não puder ser gravado; as entradas continuam pendentes
+     */
+    private int descarregar(List<JournalMovimentacoes.Entrada> lote) throws SQLException {
+        if (lote.isEmpty()) {
+            return 0;
+        }
+        long ultimaSequencia = lote.get(lote.size() - 1).getSequencia();
+
+        // produtos com variação zero também são atualizados, sem mudar a versão, para confirmar que existem
+        Map<Integer, Integer> deltaPorProduto = new TreeMap<>();
+        for (JournalMovimentacoes.Entrada entrada : lote) {
+            RegistroMovimentacao registro = entrada.getRegistro();
+            int delta = entrada.isAtualizaSaldo()
+                    ? RegistroMovimentacaoDAO.sinalMovimentacao(registro.getTipoMovimentacao()) * registro.getQuantidade()
+                    : 0;
+            deltaPorProduto.merge(registro.getProdutoId(), delta, Integer::sum);
+        }
+
+        Set<Integer> produtosInexistentes = new HashSet<>();
+        List<JournalMovimentacoes.Entrada> gravadas = new ArrayList<>(lote.size());
+        List<Long> idsGerados = new ArrayList<>(lote.size());
+        List<Produto> gravados;
+        Collection<Integer> travadas = null;
+        try {
+            try (Connection conn = new Conexao().conectar()) {
+                conn.setAutoCommit(false);
+                try {
+                    try (PreparedStatement stUpdate = conn.prepareStatement("UPDATE produto SET quantidade = quantidade + ?, versao = versao + IF(? = 0, 0, 1) WHERE id = ?")) {
+                        for (Map.Entry<Integer, Integer> delta : deltaPorProduto.entrySet()) {
+                            stUpdate.setInt(1, delta.getValue());
+                            stUpdate.setInt(2, delta.getValue());
+                            stUpdate.setInt(3, delta.getKey());
+                            stUpdate.addBatch();
+                        }
+                        int[] linhasAfetadas = stUpdate.executeBatch();
+                        int i = 0;
+                        for (Integer produtoId : deltaPorProduto.keySet()) {
+                            if (linhasAfetadas[i++] == 0) {
+                                produtosInexistentes.add(produtoId);
+                            }
+                        }
+                    }
+
+                    // os produtos atualizados ficam travados até o commit: a leitura traz os valores gravados
+                    Set<Integer> alterados = new TreeSet<>(deltaPorProduto.keySet());
+                    alterados.removeAll(produtosInexistentes);
+                    gravados = ProdutoDAO.lerProdutos(conn, alterados);
+
+                    String sqlMovimentacao = "INSERT INTO registro_movimentacao (produto_id, tipo_movimentacao, quantidade, observacao, data_movimentacao) VALUES (?, ?, ?, ?, ?)";
+                    try (PreparedStatement stMov = conn.prepareStatement(sqlMovimentacao, Statement.RETURN_GENERATED_KEYS)) {
+                        for (JournalMovimentacoes.Entrada entrada : lote) {
+                            RegistroMovimentacao registro = entrada.getRegistro();
+                            if (produtosInexistentes.contains(registro.getProdutoId())) {
+                                continue;
+                            }
+                            stMov.setInt(1, registro.getProdutoId());
+                            stMov.setString(2, registro.getTipoMovimentacao());
+                            stMov.setInt(3, registro.getQuantidade());
+                            stMov.setString(4, registro.getObservacao());
+                            stMov.setDate(5, java.sql.Date.valueOf(entrada.getData()));
+                            stMov.addBatch();
+                            gravadas.add(entrada);
+                        }
+                        if (!gravadas.isEmpty()) {
+                            stMov.executeBatch();
+                            idsGerados.addAll(RegistroMovimentacaoDAO.lerChavesGeradas(stMov, gravadas.size()));
+                        }
+                    }
+
+                    try (PreparedStatement stCheckpoint = conn.prepareStatement("UPDATE journal_checkpoint SET ultima_sequencia = ? WHERE id = 1")) {
+                        stCheckpoint.setLong(1, ultimaSequencia);
+                        stCheckpoint.executeUpdate();
+                    }
+                    travadas = travas.travar(deltaPorProduto.keySet());
+                    conn.commit();
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            }
+
+            journal.confirmar(ultimaSequencia);
+            for (Integer produtoId : produtosInexistentes) {
+                System.err.println("Movimentações do journal descartadas: produto " + produtoId + " não existe mais.");
+            }
+            produtos.notificarGravados(gravados);
+            for (Map.Entry<Integer, Integer> delta : deltaPorProduto.entrySet()) {
+                pendentePorProduto.computeIfPresent(delta.getKey(), (id, pendente) -> {
+                    int restante = pendente - delta.getValue();
+                    return restante == 0 ? null : restante;
+                });
+            }
+        } finally {
+            if (travadas != null) {
+                travas.destravar(travadas);
+            }
+        }
+        for (int i = 0; i < gravadas.size(); i++) {
+            JournalMovimentacoes.Entrada entrada = gravadas.get(i);
+            historico.movimentacaoAnexada(entrada.getRegistro(), idsGerados.get(i), entrada.getData());
+        }
+        return lote.size();
+    }
+
+    /**
+     * Força o journal para o disco e tenta gravar no banco o que estiver
+     * pendente; o que não for gravado é recuperado na próxima inicialização.
+     */
+    private void encerrar() {
+        descarga.interrupt();
+        journal.forcar();
+        try {
+            while (journal.getQuantidadePendentes() > 0 && descarregar() > 0) {
+                // descarrega até esvaziar ou falhar
+            }
+        } catch (SQLException e) {
+            System.err.println("Journal de movimentações não descarregado no encerramento: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Valida uma movimentação antes de gravá-la no journal, inclusive os limites
+     * das colunas do banco, já que erros de dados não podem ser informados ao
+     * cliente depois da confirmação.
+     *
+     * @param indice Posição da movimentação na requisição
+     * @param registro Movimentação
+     * @return Resultado da validação: {@link ResultadoMovimentacao#SUCESSO} se pode ser gravada
+     */
+    private ResultadoMovimentacao validar(int indice, RegistroMovimentacao registro) {
+        ResultadoMovimentacao invalido = RegistroMovimentacaoDAO.validar(indice, registro);
+        if (invalido != null) {
+            return invalido;
+        }
+        if (produtos.ProcurarProdutoID(registro.getProdutoId()).getId() == 0) {
+            return new ResultadoMovimentacao(indice, registro.getProdutoId(), ResultadoMovimentacao.PRODUTO_INEXISTENTE,
+                    "Produto não encontrado: " + registro.getProdutoId());
+        }
+        return new ResultadoMovimentacao(indice, registro.getProdutoId(), ResultadoMovimentacao.SUCESSO,
+                "Movimentação registrada");
+    }
+
+    /**
+     * Grava no journal as movimentações válidas, com um único fsync. As saídas
+     * são verificadas com as travas dos produtos contra o saldo do banco somado
+     * às movimentações ainda pendentes e recusadas se o saldo não for suficiente.
+     *
+     * @param registros Movimentações a gravar
+     * @param atualizaSaldo Se as movimentações alteram o saldo dos produtos
+     * @return Resultado de cada movimentação, na mesma ordem da lista recebida
+     */
+    private List<ResultadoMovimentacao> gravar(List<RegistroMovimentacao> registros, boolean atualizaSaldo) {
+        List<ResultadoMovimentacao> resultados = new ArrayList<>(registros.size());
+        Set<Integer> envolvidos = new HashSet<>();
+        for (int i = 0; i < registros.size(); i++) {
+            ResultadoMovimentacao resultado = validar(i, registros.get(i));
+            resultados.add(resultado);
+            if (resultado.isSucesso()) {
+                envolvidos.add(resultado.getProdutoId());
+            }
+        }
+        if (envolvidos.isEmpty()) {
+            return resultados;
+        }
+
+        Collection<Integer> travadas = travas.travar(envolvidos);
+        try {
+            List<RegistroMovimentacao> aceitos = new ArrayList<>();
+            Map<Integer, Integer> saldos = new HashMap<>();
+            Map<Integer, Integer> deltaPorProduto = new HashMap<>();
+            for (ResultadoMovimentacao resultado : resultados) {
+                if (!resultado.isSucesso()) {
+                    continue;
+                }
+                RegistroMovimentacao registro = registros.get(resultado.getIndice());
+                if (atualizaSaldo) {
+                    int produtoId = registro.getProdutoId();
+                    int delta = RegistroMovimentacaoDAO.sinalMovimentacao(registro.getTipoMovimentacao()) * registro.getQuantidade();
+                    int saldo = saldos.computeIfAbsent(produtoId,
+                            id -> produtos.ProcurarProdutoID(id).getQuantidade() + pendentePorProduto.getOrDefault(id, 0));
+                    if (saldo + delta < 0) {
+                        resultados.set(resultado.getIndice(), RegistroMovimentacaoDAO.resultado(resultado.getIndice(),
+                                produtoId, ResultadoMovimentacao.ESTOQUE_INSUFICIENTE));
+                        continue;
+                    }
+                    saldos.put(produtoId, saldo + delta);
+                    deltaPorProduto.merge(produtoId, delta, Integer::sum);
+                }
+                aceitos.add(registro);
+            }
+            if (aceitos.isEmpty()) {
+                return resultados;
+            }
+
+            try {
+                journal.anexar(aceitos, LocalDate.now(), atualizaSaldo);
+            } catch (IOException e) {
+                System.err.println("Erro ao gravar movimentações no journal: " + e.getMessage());
+                for (ResultadoMovimentacao resultado : resultados) {
+                    if (resultado.isSucesso()) {
+                        resultado.setStatus(ResultadoMovimentacao.ERRO);
+                        resultado.setMensagem("Movimentação não gravada: " + e.getMessage());
+                    }
+                }
+                return resultados;
+            }
+            for (Map.Entry<Integer, Integer> delta : deltaPorProduto.entrySet()) {
+                pendentePorProduto.merge(delta.getKey(), delta.getValue(), Integer::sum);
+            }
+            return resultados;
+        } finally {
+            travas.destravar(travadas);
+        }
+    }
+
+    /**
+     * Grava a movimentação no journal sem alterar o saldo do produto.
+     *
+     * @param registro Registro de movimentação a ser salvo
+     * @return true se a movimentação foi gravada no journal
+     */
+    @Override
+    public boolean registrarMovimentacao(RegistroMovimentacao registro) {
+        ResultadoMovimentacao resultado = gravar(Collections.singletonList(registro), false).get(0);
+        if (!resultado.isSucesso()) {
+            System.err.println("Movimentação recusada: " + resultado.getMensagem());
+        }
+        return resultado.isSucesso();
+    }
+
+    /**
+     * Grava a movimentação no journal; o saldo do produto é atualizado na próxima descarga.
+     *
+     * @param registro Registro de movimentação a ser salvo
+     * @param produtoRepositorio Repositório de produtos (os produtos notificados são os do construtor)
+     * @return Resultado da movimentação
+     */
+    @Override
+    public ResultadoMovimentacao registrarMovimentacaoEAtualizarSaldo(RegistroMovimentacao registro, ProdutoRepositorio produtoRepositorio) {
+        return gravar(Collections.singletonList(registro), true).get(0);
+    }
+
+    /**
+     * Grava as movimentações válidas no journal com um único fsync; os saldos
+     * são atualizados na próxima descarga.
+     *
+     * @param registros Movimentações a serem registradas
+     * @param produtoRepositorio Repositório de produtos (os produtos notificados são os do construtor)
+     * @return Resultado de cada movimentação, na mesma ordem da lista recebida
+     */
+    @Override
+    public List<ResultadoMovimentacao> registrarMovimentacoesEmLote(List<RegistroMovimentacao> registros, ProdutoRepositorio produtoRepositorio) {
+        return gravar(registros, true);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<RegistroMovimentacao> listarTodasMovimentacoes() {
+        return historico.listarTodasMovimentacoes();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<RegistroMovimentacao> listarMovimentacoesPorProduto(int produtoId) {
+        return historico.listarMovimentacoesPorProduto(produtoId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PaginaMovimentacoes listarMovimentacoesPaginado(Integer produtoId, String cursor, int tamanhoPagina) {
+        return historico.listarMovimentacoesPaginado(produtoId, cursor, tamanhoPagina);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CursorDados<RegistroMovimentacao> abrirCursorMovimentacoes(int tamanhoBloco) throws SQLException {
+        return historico.abrirCursorMovimentacoes(tamanhoBloco);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String[] produtoComMaisEntrada(ProdutoRepositorio produtoRepositorio) {
+        return historico.produtoComMaisEntrada(produtoRepositorio);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String[] produtoComMaisSaida(ProdutoRepositorio produtoRepositorio) {
+        return historico.produtoComMaisSaida(produtoRepositorio);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Object[]> listarRankingMovimentacoes(String criterio, int dias, int n, ProdutoRepositorio produtoRepositorio) {
+        return historico.listarRankingMovimentacoes(criterio, dias, n, produtoRepositorio);
+    }
+
+    /**
+     * Retorna a quantidade de movimentações gravadas no journal e ainda não no banco.
+     *
+     * @return Movimentações pendentes
+     */
+    public int getPendentes() {
+        return journal.getQuantidadePendentes();
+    }
+}
@@ -0,0 +1,362 @@
+package dao;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import modelo.PaginaMovimentacoes;
+import modelo.Produto;
+import modelo.RegistroMovimentacao;
+import modelo.ResultadoMovimentacao;
+
+/**
+ * Repositório de movimentações mantido em memória, sem banco de dados.
+ * O histórico fica em um mapa concorrente ordenado pelo ID, com um segundo
+ * mapa por produto para as consultas filtradas, e os saldos são alterados no
+ * {@link ProdutoRepositorioMemoria} informado na construção. A exclusão de um
+ * produto remove também as suas movimentações, como o ON DELETE CASCADE do banco.
+ *
+ * O ranking de produtos mais movimentados e a fila de auditoria são
+ * os mesmos usados pelo {@link RegistroMovimentacaoDAO}.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+public class MovimentacaoRepositorioMemoria implements MovimentacaoRepositorio {
+
+    /**
+     * Tamanho de página usado quando o cliente não informa um tamanho válido.
+     */
+    private static final int TAMANHO_PAGINA_PADRAO = 50;
+
+    /**
+     * Maior tamanho de página aceito, configurável em paginacao.tamanhoMaximo.
+     */
+    private final int tamanhoPaginaMaximo = ConfiguracaoBanco.getInstancia().getInt("paginacao.tamanhoMaximo", 500);
+
+    /**
+     * Repositório de produtos cujos saldos são alterados pelas movimentações.
+     */
+    private final ProdutoRepositorioMemoria produtos;
+
+    /**
+     * Todas as movimentações por ID. As instâncias guardadas não são alteradas.
+     */
+    private final ConcurrentSkipListMap<Integer, RegistroMovimentacao> registros = new ConcurrentSkipListMap<>();
+
+    /**
+     * Movimentações de cada produto por ID.
+     */
+    private final Map<Integer, ConcurrentSkipListMap<Integer, RegistroMovimentacao>> registrosPorProduto = new ConcurrentHashMap<>();
+
+    /**
+     * Trava que serializa a geração de IDs e a gravação no histórico.
+     */
+    private final Object travaHistorico = new Object();
+
+    /**
+     * Último ID de movimentação gerado.
+     */
+    private int ultimoId;
+
+    /**
+     * Ranking dos produtos mais movimentados, iniciado vazio.
+     */
+    private final RankingMovimentacoes ranking = new RankingMovimentacoes(
+            ConfiguracaoBanco.getInstancia().getInt("ranking.janelaMaximaDias", 30));
+
+    /**
+     * Fila assíncrona de auditoria das movimentações registradas.
+     */
+    private final PipelineMovimentacoes pipeline = new PipelineMovimentacoes();
+
+    /**
+     * Construtor que vincula o histórico ao repositório de produtos em memória.
+     *
+     * @param produtos Repositório de produtos em memória
+     */
+    public MovimentacaoRepositorioMemoria(ProdutoRepositorioMemoria produtos) {
+        this.produtos = produtos;
+        ranking.iniciarVazio();
+        produtos.adicionarOuvinte(new OuvinteProdutos() {
+            @Override
+            public void catalogoCarregado(List<Produto> carga) {
+            }
+
+            @Override
+            public void produtoAlterado(Produto produto) {
+            }
+
+            @Override
+            public void produtoRemovido(int id) {
+                removerMovimentacoesDoProduto(id);
+            }
+        });
+    }
+
+    /**
+     * Cria uma cópia independente de um registro de movimentação.
+     *
+     * @param r Registro de origem
+     * @return Cópia do registro
+     */
+    private static RegistroMovimentacao copiar(RegistroMovimentacao r) {
+        return new RegistroMovimentacao(r.getId(), r.getProdutoId(), r.getTipoMovimentacao(),
+                r.getQuantidade(), r.getObservacao(), r.getDataMovimentacao());
+    }
+
+    /**
+     * Grava uma movimentação no histórico e a registra no ranking e na fila de auditoria.
+     * Se o produto foi excluído desde a validação, a movimentação é descartada.
+     *
+     * @param registro Movimentação recebida
+     * @param hoje Data da movimentação
+     * @return ID gerado, ou 0 se o produto não existe mais
+     */
+    private int gravar(RegistroMovimentacao registro, LocalDate hoje) {
+        RegistroMovimentacao gravado;
+        synchronized (travaHistorico) {
+            if (!produtos.existe(registro.getProdutoId())) {
+                return 0;
+            }
+            gravado = new RegistroMovimentacao(++ultimoId, registro.getProdutoId(), registro.getTipoMovimentacao(),
+                    registro.getQuantidade(), registro.getObservacao(), hoje.toString());
+            registros.put(gravado.getId(), gravado);
+            registrosPorProduto.computeIfAbsent(gravado.getProdutoId(), id -> new ConcurrentSkipListMap<>())
+                    .put(gravado.getId(), gravado);
+        }
+        ranking.registrar(gravado.getId(), registro.getProdutoId(),
+                RegistroMovimentacaoDAO.sinalMovimentacao(registro.getTipoMovimentacao()), registro.getQuantidade(), hoje);
+        pipeline.publicar(registro, gravado.getId());
+        return gravado.getId();
+    }
+
+    /**
+     * Remove todas as movimentações de um produto excluído.
+     *
+     * @param produtoId ID do produto excluído
+     */
+    private void removerMovimentacoesDoProduto(int produtoId) {
+        synchronized (travaHistorico) {
+            Map<Integer, RegistroMovimentacao> doProduto = registrosPorProduto.remove(produtoId);
+            if (doProduto != null) {
+                registros.keySet().removeAll(doProduto.keySet());
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean registrarMovimentacao(RegistroMovimentacao registro) {
+        if (gravar(registro, LocalDate.now()) == 0) {
+            System.err.println("Erro ao registrar movimentação: produto não encontrado: " + registro.getProdutoId());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Valida a movimentação, ajusta o saldo com a trava do produto, recusando
+     * saídas maiores que o saldo, e grava a movimentação no histórico.
+     *
+     * @param registro Registro de movimentação a ser salvo
+     * @param produtoRepositorio Repositório de produtos
+     * @return Resultado da movimentação
+     */
+    @Override
+    public ResultadoMovimentacao registrarMovimentacaoEAtualizarSaldo(RegistroMovimentacao registro, ProdutoRepositorio produtoRepositorio) {
+        ResultadoMovimentacao invalido = RegistroMovimentacaoDAO.validar(0, registro);
+        if (invalido != null) {
+            return invalido;
+        }
+        int delta = RegistroMovimentacaoDAO.sinalMovimentacao(registro.getTipoMovimentacao()) * registro.getQuantidade();
+        String status = produtos.ajustarQuantidadeSeSuficiente(registro.getProdutoId(), delta);
+        if (ResultadoMovimentacao.SUCESSO.equals(status) && gravar(registro, LocalDate.now()) == 0) {
+            status = ResultadoMovimentacao.PRODUTO_INEXISTENTE;
+        }
+        return RegistroMovimentacaoDAO.resultado(0, registro.getProdutoId(), status);
+    }
+
+    /**
+     * Valida as movimentações e ajusta os saldos uma a uma, na ordem da lista, com
+     * a trava de cada produto; movimentações de produtos diferentes de outros
+     * lotes correm em paralelo.
+     *
+     * @param lote Movimentações a serem registradas
+     * @param produtoRepositorio Repositório de produtos
+     * @return Resultado de cada movimentação, na mesma ordem da lista recebida
+     */
+    @Override
+    public List<ResultadoMovimentacao> registrarMovimentacoesEmLote(List<RegistroMovimentacao> lote, ProdutoRepositorio produtoRepositorio) {
+        List<ResultadoMovimentacao> resultados = new ArrayList<>(lote.size());
+
+        for (int i = 0; i < lote.size(); i++) {
+            RegistroMovimentacao registro = lote.get(i);
+            ResultadoMovimentacao invalido = RegistroMovimentacaoDAO.validar(i, registro);
+            if (invalido != null) {
+                resultados.add(invalido);
+            } else if (!produtos.existe(registro.getProdutoId())) {
+                resultados.add(new ResultadoMovimentacao(i, registro.getProdutoId(), ResultadoMovimentacao.PRODUTO_INEXISTENTE,
+                        "Produto não encontrado: " + registro.getProdutoId()));
+            } else {
+                int sinal = RegistroMovimentacaoDAO.sinalMovimentacao(registro.getTipoMovimentacao());
+                String status = produtos.ajustarQuantidadeSeSuficiente(registro.getProdutoId(), sinal * registro.getQuantidade());
+                resultados.add(RegistroMovimentacaoDAO.resultado(i, registro.getProdutoId(), status));
+            }
+        }
+
+        LocalDate hoje = LocalDate.now();
+        for (ResultadoMovimentacao resultado : resultados) {
+            if (resultado.isSucesso() && gravar(lote.get(resultado.getIndice()), hoje) == 0) {
+                marcarInexistente(resultados, resultado.getProdutoId());
+            }
+        }
+        return resultados;
+    }
+
+    /**
+     * Marca como recusadas as movimentações aceitas de um produto excluído durante o lote.
+     *
+     * @param resultados Resultados do lote
+     * @param produtoId ID do produto excluído
+     */
+    private static void marcarInexistente(List<ResultadoMovimentacao> resultados, int produtoId) {
+        for (ResultadoMovimentacao resultado : resultados) {
+            if (resultado.isSucesso() && resultado.getProdutoId() == produtoId) {
+                resultado.setStatus(ResultadoMovimentacao.PRODUTO_INEXISTENTE);
+                resultado.setMensagem("Produto não encontrado: " + produtoId);
+            }
+        }
+    }
+
+    /**
+     * Copia os registros informados, do mais recente para o mais antigo.
+     *
+     * @param origem Registros ordenados por ID crescente
+     * @param limite Quantidade máxima de registros copiados
+     * @return Cópias dos registros
+     */
+    private static List<RegistroMovimentacao> copiarDecrescente(NavigableMap<Integer, RegistroMovimentacao> origem, int limite) {
+        List<RegistroMovimentacao> lista = new ArrayList<>();
+        for (RegistroMovimentacao registro : origem.descendingMap().values()) {
+            if (lista.size() >= limite) {
+                break;
+            }
+            lista.add(copiar(registro));
+        }
+        return lista;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<RegistroMovimentacao> listarTodasMovimentacoes() {
+        return copiarDecrescente(registros, Integer.MAX_VALUE);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<RegistroMovimentacao> listarMovimentacoesPorProduto(int produtoId) {
+        ConcurrentSkipListMap<Integer, RegistroMovimentacao> doProduto = registrosPorProduto.get(produtoId);
+        return doProduto == null ? new ArrayList<>() : copiarDecrescente(doProduto, Integer.MAX_VALUE);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PaginaMovimentacoes listarMovimentacoesPaginado(Integer produtoId, String cursor, int tamanhoPagina) {
+        int limite = tamanhoPagina <= 0 ? TAMANHO_PAGINA_PADRAO : Math.min(tamanhoPagina, tamanhoPaginaMaximo);
+        int ultimoIdPagina = cursor == null ? Integer.MAX_VALUE : RegistroMovimentacaoDAO.decodificarCursor(cursor, produtoId);
+
+        ConcurrentSkipListMap<Integer, RegistroMovimentacao> fonte = produtoId == null
+                ? registros : registrosPorProduto.get(produtoId);
+        List<RegistroMovimentacao> itens = fonte == null
+                ? new ArrayList<>() : copiarDecrescente(fonte.headMap(ultimoIdPagina, false), limite + 1);
+
+        String proximoCursor = null;
+        if (itens.size() > limite) {
+            itens.remove(limite);
+            proximoCursor = RegistroMovimentacaoDAO.codificarCursor(produtoId, itens.get(limite - 1).getId());
+        }
+        return new PaginaMovimentacoes(itens, proximoCursor);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CursorDados<RegistroMovimentacao> abrirCursorMovimentacoes(int tamanhoBloco) {
+        return new CursorLista<>(listarTodasMovimentacoes());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String[] produtoComMaisEntrada(ProdutoRepositorio produtoRepositorio) {
+        return primeiroDoRanking(RankingMovimentacoes.ENTRADA, produtoRepositorio);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String[] produtoComMaisSaida(ProdutoRepositorio produtoRepositorio) {
+        return primeiroDoRanking(RankingMovimentacoes.SAIDA, produtoRepositorio);
+    }
+
+    /**
+     * Retorna o primeiro colocado do ranking desde o início.
+     *
+     * @param criterio Critério do ranking
+     * @param produtoRepositorio Repositório de produtos, usado para obter os nomes
+     * @return Array com [nome do produto, total], ou ["Nenhum", "0"] se não houver movimentações
+     */
+    private String[] primeiroDoRanking(String criterio, ProdutoRepositorio produtoRepositorio) {
+        List<Object[]> primeiro = listarRankingMovimentacoes(criterio, 0, 1, produtoRepositorio);
+        if (primeiro.isEmpty()) {
+            return new String[]{"Nenhum", "0"};
+        }
+        return new String[]{(String) primeiro.get(0)[1], String.valueOf(primeiro.get(0)[2])};
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Object[]> listarRankingMovimentacoes(String criterio, int dias, int n, ProdutoRepositorio produtoRepositorio) {
+        List<Object[]> lista = new ArrayList<>();
+        for (long[] item : ranking.listar(criterio, dias, n, id -> produtoRepositorio.ProcurarProdutoID(id).getId() != 0)) {
+            Produto produto = produtoRepositorio.ProcurarProdutoID((int) item[0]);
+            lista.add(new Object[]{produto.getId(), produto.getNome(), item[1]});
+        }
+        return lista;
+    }
+
+    /**
+     * Retorna a quantidade de movimentações guardadas.
+     *
+     * @return Tamanho do histórico
+     */
+    public int getQuantidadeRegistros() {
+        return registros.size();
+    }
+
+    /**
+     * Retorna a fila assíncrona de auditoria das movimentações.
+     *
+     * @return Pipeline de movimentações
+     */
+    public PipelineMovimentacoes getPipeline() {
+        return pipeline;
+    }
+}
@@ -0,0 +1,47 @@
+package dao;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Utilitário de normalização de textos para as buscas em memória.
+ * Remove acentos (decompondo os caracteres e descartando as marcas combinantes),
+ * converte para minúsculas e reduz pontuação e espaços repetidos a um único espaço,
+ * de modo que "Açúcar  Refinado" e "acucar refinado" sejam equivalentes.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+public final class NormalizadorTexto {
+
+    /**
+     * Marcas combinantes (acentos) resultantes da decomposição.
+     */
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+
+    /**
+     * Sequências de caracteres que não são letras nem dígitos.
+     */
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    /**
+     * Construtor privado: classe utilitária.
+     */
+    private NormalizadorTexto() {
+    }
+
+    /**
+     * Normaliza um texto para comparação.
+     *
+     * @param texto Texto original (pode ser null)
+     * @return Texto sem acentos, em minúsculas e com palavras separadas por um espaço
+     */
+    public static String normalizar(String texto) {
+        if (texto == null || texto.isEmpty()) {
+            return "";
+        }
+        String semAcentos = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARADORES.matcher(semAcentos.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+}
@@ -0,0 +1,38 @@
+package dao;
+
+import java.util.List;
+import modelo.Produto;
+
+/**
+ * Interface para estruturas em memória que acompanham as alterações de produtos.
+ * O {@link ProdutoDAO} chama estes métodos depois que cada escrita é confirmada
+ * no banco, sempre com o estado relido do banco e nunca de forma concorrente,
+ * de modo que as implementações podem manter índices sem travas próprias de escrita.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+public interface OuvinteProdutos {
+
+    /**
+     * Substitui todo o conteúdo da estrutura pelo catálogo informado.
+     * Chamado na carga inicial e após escritas em massa.
+     * 
+     * @param produtos Todos os produtos cadastrados
+     */
+    void catalogoCarregado(List<Produto> produtos);
+
+    /**
+     * Informa que um produto foi criado ou alterado.
+     * 
+     * @param produto Estado atual do produto
+     */
+    void produtoAlterado(Produto produto);
+
+    /**
+     * Informa que um produto foi excluído.
+     * 
+     * @param id ID do produto excluído
+     */
+    void produtoRemovido(int id);
+}
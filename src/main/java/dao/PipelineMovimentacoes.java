@@ -0,0 +1,333 @@
+package dao;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import modelo.Produto;
+import modelo.RegistroMovimentacao;
+
+/**
+ * Fila assíncrona de auditoria e alertas das movimentações registradas.
+ * As threads que atendem os clientes apenas publicam a movimentação confirmada
+ * em um buffer circular de tamanho fixo e retornam; uma única thread consumidora
+ * grava a linha de auditoria no arquivo configurado em auditoria.arquivo, fora da
+ * transação e do caminho da requisição. As gravações são agrupadas e o arquivo é
+ * descarregado sempre que a fila esvazia.
+ *
+ * Quando a movimentação alterou o saldo, o evento leva também o produto gravado
+ * e o {@link MonitorEstoque} do repositório: a thread consumidora avalia nele os
+ * limites de estoque (abaixo do mínimo, próximo do mínimo e acima do máximo),
+ * e os alertas gerados são entregues aos clientes inscritos.
+ *
+ * O buffer aceita vários produtores e um único consumidor: cada produtor reserva
+ * uma posição com compare-and-set e a marca como pronta ao terminar de preenchê-la.
+ * Com o buffer cheio, o evento é descartado e contado, sem bloquear o produtor.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+public class PipelineMovimentacoes {
+
+    /**
+     * Posição do buffer circular.
+     */
+    private static final class Posicao {
+        /**
+         * Sequência + 1 do evento pronto nesta posição; igual à sequência
+         * esperada + 1 quando o consumidor pode lê-la.
+         */
+        private volatile long pronta;
+        private RegistroMovimentacao registro;
+        private long idMovimentacao;
+        private Produto produto;
+        private MonitorEstoque monitor;
+    }
+
+    /**
+     * Posições do buffer circular.
+     */
+    private final Posicao[] posicoes;
+
+    /**
+     * Máscara para cálculo da posição (capacidade - 1).
+     */
+    private final int mascara;
+
+    /**
+     * Próxima sequência a ser reservada pelos produtores.
+     */
+    private final AtomicLong proximaSequencia = new AtomicLong();
+
+    /**
+     * Próxima sequência a ser lida pelo consumidor.
+     */
+    private volatile long sequenciaLida;
+
+    /**
+     * Indica que o consumidor está parado aguardando eventos.
+     */
+    private volatile boolean consumidorAguardando;
+
+    /**
+     * Thread consumidora.
+     */
+    private final Thread consumidor;
+
+    /**
+     * Destino das linhas de auditoria, ou null se a auditoria estiver desativada.
+     * Usado apenas pela thread consumidora.
+     */
+    private final Writer auditoria;
+
+    /**
+     * Indica se há linhas de auditoria ainda não descarregadas no arquivo.
+     */
+    private boolean auditoriaPendente;
+
+    /**
+     * Contadores de eventos publicados, descartados por buffer cheio e processados.
+     */
+    private final LongAdder publicados = new LongAdder();
+    private final LongAdder descartados = new LongAdder();
+    private final LongAdder processados = new LongAdder();
+
+    /**
+     * Contador de falhas de gravação da auditoria.
+     */
+    private final LongAdder falhasAuditoria = new LongAdder();
+
+    /**
+     * Construtor que lê a configuração (pipeline.capacidade, auditoria.movimentacoes
+     * e auditoria.arquivo), abre o arquivo de auditoria e inicia a thread consumidora.
+     */
+    public PipelineMovimentacoes() {
+        this(ConfiguracaoBanco.getInstancia().getInt("pipeline.capacidade", 4096), abrirAuditoria());
+    }
+
+    /**
+     * Construtor que inicia a thread consumidora com o destino de auditoria informado.
+     *
+     * @param capacidade Capacidade do buffer, arredondada para a potência de 2 seguinte
+     * @param auditoria Destino das linhas de auditoria, ou null para não auditar
+     */
+    PipelineMovimentacoes(int capacidade, Writer auditoria) {
+        int tamanho = Integer.highestOneBit(Math.max(2, capacidade) * 2 - 1);
+        this.posicoes = new Posicao[tamanho];
+        for (int i = 0; i < tamanho; i++) {
+            posicoes[i] = new Posicao();
+        }
+        this.mascara = tamanho - 1;
+        this.auditoria = auditoria;
+
+        this.consumidor = new Thread(this::consumir, "pipeline-movimentacoes");
+        consumidor.setDaemon(true);
+        consumidor.start();
+    }
+
+    /**
+     * Abre, para acréscimo, o arquivo de auditoria configurado.
+     *
+     * @return Destino das linhas de auditoria, ou null se a auditoria estiver
+     * desativada ou o arquivo não puder ser aberto
+     */
+    private static Writer abrirAuditoria() {
+        ConfiguracaoBanco config = ConfiguracaoBanco.getInstancia();
+        if (!config.getBoolean("auditoria.movimentacoes", true)) {
+            return null;
+        }
+        Path arquivo = Paths.get(config.getString("auditoria.arquivo", "auditoria/movimentacoes.log"));
+        try {
+            if (arquivo.getParent() != null) {
+                Files.createDirectories(arquivo.getParent());
+            }
+            return Files.newBufferedWriter(arquivo, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("Erro ao abrir arquivo de auditoria " + arquivo + ": " + e.getMessage()
+                    + "; as movimentações não serão auditadas.");
+            return null;
+        }
+    }
+
+    /**
+     * Publica uma movimentação confirmada no banco. Não bloqueia: se o buffer
+     * estiver cheio, o evento é descartado.
+     *
+     * @param registro Movimentação registrada
+     * @param idMovimentacao ID gerado para a movimentação (0 se desconhecido)
+     * @return true se o evento foi aceito
+     */
+    public boolean publicar(RegistroMovimentacao registro, long idMovimentacao) {
+        return publicar(registro, idMovimentacao, null, null);
+    }
+
+    /**
+     * Publica uma movimentação confirmada no banco junto com o produto gravado,
+     * para que a thread consumidora avalie os limites de estoque no monitor
+     * informado. Não bloqueia: se o buffer estiver cheio, o evento é descartado
+     * e cabe a quem publicou avaliar os limites.
+     *
+     * @param registro Movimentação registrada
+     * @param idMovimentacao ID gerado para a movimentação (0 se desconhecido)
+     * @param produto Produto com o saldo gravado, ou null se o saldo não mudou
+     * @param monitor Monitor que recebe o produto, ou null
+     * @return true se o evento foi aceito
+     */
+    public boolean publicar(RegistroMovimentacao registro, long idMovimentacao, Produto produto, MonitorEstoque monitor) {
+        long sequencia;
+        do {
+            sequencia = proximaSequencia.get();
+            if (sequencia - sequenciaLida >= posicoes.length) {
+                descartados.increment();
+                return false;
+            }
+        } while (!proximaSequencia.compareAndSet(sequencia, sequencia + 1));
+
+        Posicao posicao = posicoes[(int) sequencia & mascara];
+        posicao.registro = registro;
+        posicao.idMovimentacao = idMovimentacao;
+        posicao.produto = produto;
+        posicao.monitor = monitor;
+        posicao.pronta = sequencia + 1;
+        publicados.increment();
+
+        if (consumidorAguardando) {
+            LockSupport.unpark(consumidor);
+        }
+        return true;
+    }
+
+    /**
+     * Laço da thread consumidora: lê os eventos em ordem de sequência e os processa.
+     */
+    private void consumir() {
+        long sequencia = 0;
+        while (true) {
+            Posicao posicao = posicoes[(int) sequencia & mascara];
+            if (posicao.pronta != sequencia + 1) {
+                descarregarAuditoria();
+                consumidorAguardando = true;
+                if (posicao.pronta != sequencia + 1) {
+                    // o tempo limite cobre o caso de o produtor não ter visto o aviso
+                    LockSupport.parkNanos(10_000_000L);
+                }
+                consumidorAguardando = false;
+                continue;
+            }
+
+            RegistroMovimentacao registro = posicao.registro;
+            long idMovimentacao = posicao.idMovimentacao;
+            Produto produto = posicao.produto;
+            MonitorEstoque monitor = posicao.monitor;
+            posicao.registro = null;
+            posicao.produto = null;
+            posicao.monitor = null;
+            sequencia++;
+            sequenciaLida = sequencia;
+
+            try {
+                processar(registro, idMovimentacao);
+                if (produto != null && monitor != null) {
+                    monitor.saldoAlterado(produto);
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Erro ao processar movimentação " + idMovimentacao + ": " + e);
+            }
+            processados.increment();
+        }
+    }
+
+    /**
+     * Grava a linha de auditoria de uma movimentação: instante, ID, produto,
+     * tipo, quantidade e observação, separados por ponto e vírgula.
+     *
+     * @param registro Movimentação registrada
+     * @param idMovimentacao ID da movimentação
+     */
+    private void processar(RegistroMovimentacao registro, long idMovimentacao) {
+        if (auditoria == null) {
+            return;
+        }
+        String observacao = registro.getObservacao() == null ? ""
+                : registro.getObservacao().replaceAll("[;\\r\\n]", " ");
+        try {
+            auditoria.write(Instant.now() + ";" + idMovimentacao + ";" + registro.getProdutoId() + ";"
+                    + registro.getTipoMovimentacao() + ";" + registro.getQuantidade() + ";" + observacao
+                    + System.lineSeparator());
+            auditoriaPendente = true;
+        } catch (IOException e) {
+            falhasAuditoria.increment();
+            System.err.println("Erro ao gravar auditoria da movimentação " + idMovimentacao + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Descarrega no arquivo as linhas de auditoria pendentes; chamado pela
+     * thread consumidora quando a fila esvazia.
+     */
+    private void descarregarAuditoria() {
+        if (!auditoriaPendente) {
+            return;
+        }
+        auditoriaPendente = false;
+        try {
+            auditoria.flush();
+        } catch (IOException e) {
+            falhasAuditoria.increment();
+            System.err.println("Erro ao gravar arquivo de auditoria: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Retorna o total de eventos publicados.
+     *
+     * @return Eventos publicados
+     */
+    public long getPublicados() {
+        return publicados.sum();
+    }
+
+    /**
+     * Retorna o total de eventos descartados por buffer cheio.
+     *
+     * @return Eventos descartados
+     */
+    public long getDescartados() {
+        return descartados.sum();
+    }
+
+    /**
+     * Retorna o total de eventos processados pela thread consumidora.
+     *
+     * @return Eventos processados
+     */
+    public long getProcessados() {
+        return processados.sum();
+    }
+
+    /**
+     * Retorna o total de falhas de gravação da auditoria.
+     *
+     * @return Falhas de gravação
+     */
+    public long getFalhasAuditoria() {
+        return falhasAuditoria.sum();
+    }
+
+    /**
+     * Retorna a quantidade de eventos aguardando processamento.
+     *
+     * @return Eventos pendentes
+     */
+    public long getPendentes() {
+        return proximaSequencia.get() - sequenciaLida;
+    }
+}
@@ -0,0 +1,493 @@
+package dao;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool limitado de conexões com o banco de dados MySQL.
+ * Mantém entre um mínimo e um máximo de conexões físicas abertas, valida as
+ * conexões ociosas antes do empréstimo, limita o tempo de espera por uma conexão
+ * livre, fecha conexões ociosas há muito tempo e reporta conexões que não foram
+ * devolvidas (vazamentos). Os parâmetros são lidos de {@link ConfiguracaoBanco}.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+public final class PoolConexoes {
+
+    /**
+     * Instância única do pool, criada sob demanda.
+     */
+    private static volatile PoolConexoes instancia;
+
+    /**
+     * URL de conexão ao banco de dados.
+     */
+    private final String url;
+
+    /**
+     * Usuário para autenticação no banco de dados.
+     */
+    private final String usuario;
+
+    /**
+     * Senha para autenticação no banco de dados.
+     */
+    private final String senha;
+
+    /**
+     * Quantidade mínima de conexões mantidas abertas.
+     */
+    private final int minimo;
+
+    /**
+     * Quantidade máxima de conexões abertas.
+     */
+    private final int maximo;
+
+    /**
+     * Tempo máximo de espera por uma conexão livre, em milissegundos.
+     */
+    private final long timeoutAquisicaoMs;
+
+    /**
+     * Tempo máximo que uma conexão pode ficar ociosa, em milissegundos.
+     */
+    private final long ociosoMaximoMs;
+
+    /**
+     * Tempo ocioso a partir do qual a conexão é validada no empréstimo, em milissegundos.
+     */
+    private final long validacaoAposOciosoMs;
+
+    /**
+     * Tempo máximo da validação, em segundos.
+     */
+    private final int validacaoTimeoutSeg;
+
+    /**
+     * Tempo de empréstimo a partir do qual a conexão é reportada como vazamento.
+     */
+    private final long vazamentoLimiteMs;
+
+    /**
+     * Se cada empréstimo guarda a pilha de chamadas, mostrada quando o vazamento
+     * é reportado. Desligado por padrão, pois capturar a pilha custa em toda chamada.
+     */
+    private final boolean rastrearPilhaVazamento;
+
+    /**
+     * Quantidade máxima de statements preparados em cache por conexão.
+     */
+    private final int tamanhoCacheStatements;
+
+    /**
+     * Conexões livres; a mais recentemente usada fica no início.
+     */
+    private final LinkedBlockingDeque<ConexaoPooled> ociosas = new LinkedBlockingDeque<>();
+
+    /**
+     * Conexões emprestadas no momento.
+     */
+    private final Set<ConexaoPooled> emUso = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Permissões de empréstimo, uma por conexão possível.
+     */
+    private final Semaphore permissoes;
+
+    /**
+     * Quantidade de conexões físicas abertas.
+     */
+    private final AtomicInteger total = new AtomicInteger();
+
+    /**
+     * Quantidade de threads aguardando uma conexão.
+     */
+    private final AtomicInteger aguardando = new AtomicInteger();
+
+    /**
+     * Contadores acumulados do pool.
+     */
+    private final AtomicLong criadas = new AtomicLong();
+    private final AtomicLong descartadas = new AtomicLong();
+    private final AtomicLong emprestimos = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong vazamentos = new AtomicLong();
+    private final AtomicLong esperaTotalNanos = new AtomicLong();
+    private final AtomicLong acertosCacheStatements = new AtomicLong();
+    private final AtomicLong falhasCacheStatements = new AtomicLong();
+
+    /**
+     * Executor da rotina periódica de manutenção.
+     */
+    private final ScheduledExecutorService manutencao;
+
+    /**
+     * Construtor que lê a configuração e abre as conexões mínimas. Fora dos
+     * testes, o pool é obtido por {@link #getInstancia()}.
+     *
+     * @param config Configuração do sistema
+     */
+    PoolConexoes(ConfiguracaoBanco config) {
+        String driver = config.getString("db.driver", "com.mysql.cj.jdbc.Driver");
+        this.url = config.getString("db.url", "jdbc:mysql://localhost:3306/db_produto?useTimezone=true&serverTimezone=UTC");
+        this.usuario = config.getString("db.usuario", "root");
+        this.senha = config.getString("db.senha", "");
+        this.maximo = Math.max(1, config.getInt("pool.maximo", 20));
+        this.minimo = Math.min(maximo, Math.max(0, config.getInt("pool.minimo", 2)));
+        this.timeoutAquisicaoMs = config.getLong("pool.timeoutAquisicaoMs", 5000);
+        this.ociosoMaximoMs = config.getLong("pool.ociosoMaximoMs", 300000);
+        this.validacaoAposOciosoMs = config.getLong("pool.validacaoAposOciosoMs", 5000);
+        this.validacaoTimeoutSeg = config.getInt("pool.validacaoTimeoutSeg", 2);
+        this.vazamentoLimiteMs = config.getLong("pool.vazamentoLimiteMs", 60000);
+        this.rastrearPilhaVazamento = vazamentoLimiteMs > 0 && config.getBoolean("pool.vazamentoRastrearPilha", false);
+        this.tamanhoCacheStatements = config.getInt("pool.cacheStatements", 64);
+        long intervaloManutencao = Math.max(1000, config.getLong("pool.manutencaoIntervaloMs", 30000));
+        this.permissoes = new Semaphore(maximo, true);
+
+        try {
+            Class.forName(driver);
+        } catch (ClassNotFoundException e) {
+            System.err.println("Erro: Driver JDBC não encontrado: " + e.getMessage());
+        }
+
+        completarMinimo();
+
+        this.manutencao = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "pool-conexoes-manutencao");
+            t.setDaemon(true);
+            return t;
+        });
+        manutencao.scheduleWithFixedDelay(this::executarManutencao,
+                intervaloManutencao, intervaloManutencao, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Retorna o pool de conexões, criando-o na primeira chamada.
+     *
+     * @return Pool de conexões do sistema
+     */
+    public static PoolConexoes getInstancia() {
+        PoolConexoes p = instancia;
+        if (p == null) {
+            synchronized (PoolConexoes.class) {
+                p = instancia;
+                if (p == null) {
+                    p = new PoolConexoes(ConfiguracaoBanco.getInstancia());
+                    instancia = p;
+                }
+            }
+        }
+        return p;
+    }
+
+    /**
+     * Empresta uma conexão do pool. A conexão deve ser fechada pelo chamador,
+     * o que a devolve ao pool.
+     *
+     * @return Conexão emprestada
+     * @throws SQLException Se não houver conexão livre dentro do tempo limite
+     *         ou se não for possível abrir uma nova conexão
+     */
+    public Connection obterConexao() throws SQLException {
+        long inicio = System.nanoTime();
+        aguardando.incrementAndGet();
+        boolean obteve;
+        try {
+            obteve = permissoes.tryAcquire(timeoutAquisicaoMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrompido aguardando conexão do pool", e);
+        } finally {
+            aguardando.decrementAndGet();
+        }
+        if (!obteve) {
+            timeouts.incrementAndGet();
+            throw new SQLTimeoutException("Tempo esgotado aguardando conexão do pool ("
+                    + timeoutAquisicaoMs + " ms, " + maximo + " conexões em uso)");
+        }
+
+        try {
+            ConexaoPooled conexao = obterOciosaValida();
+            if (conexao == null) {
+                conexao = criar();
+            }
+            emUso.add(conexao);
+            emprestimos.incrementAndGet();
+            esperaTotalNanos.addAndGet(System.nanoTime() - inicio);
+            return conexao.emprestar(rastrearPilhaVazamento);
+        } catch (SQLException | RuntimeException e) {
+            permissoes.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Retira uma conexão ociosa do pool, validando-a se estiver parada há muito tempo.
+     *
+     * @return Conexão válida ou null se não houver conexões ociosas
+     */
+    private ConexaoPooled obterOciosaValida() {
+        ConexaoPooled conexao;
+        while ((conexao = ociosas.pollFirst()) != null) {
+            long ocioso = System.currentTimeMillis() - conexao.getUltimoUso();
+            if (ocioso < validacaoAposOciosoMs || conexao.validar(validacaoTimeoutSeg)) {
+                return conexao;
+            }
+            descartar(conexao);
+        }
+        return null;
+    }
+
+    /**
+     * Abre uma nova conexão física.
+     *
+     * @return Conexão criada
+     * @throws SQLException Se não for possível conectar
+     */
+    private ConexaoPooled criar() throws SQLException {
+        Connection fisica = DriverManager.getConnection(url, usuario, senha);
+        total.incrementAndGet();
+        criadas.incrementAndGet();
+        return new ConexaoPooled(this, fisica, tamanhoCacheStatements);
+    }
+
+    /**
+     * Fecha e remove uma conexão do pool.
+     *
+     * @param conexao Conexão a ser descartada
+     */
+    private void descartar(ConexaoPooled conexao) {
+        conexao.fecharFisica();
+        total.decrementAndGet();
+        descartadas.incrementAndGet();
+    }
+
+    /**
+     * Recebe de volta uma conexão emprestada.
+     *
+     * @param conexao Conexão devolvida
+     */
+    void devolver(ConexaoPooled conexao) {
+        emUso.remove(conexao);
+        try {
+            if (conexao.restaurar()) {
+                ociosas.offerFirst(conexao);
+            } else {
+                descartar(conexao);
+            }
+        } finally {
+            permissoes.release();
+        }
+    }
+
+    /**
+     * Contabiliza um statement reaproveitado do cache de uma conexão.
+     */
+    void registrarAcertoCacheStatement() {
+        acertosCacheStatements.incrementAndGet();
+    }
+
+    /**
+     * Contabiliza um statement preparado por não estar no cache de uma conexão.
+     */
+    void registrarFalhaCacheStatement() {
+        falhasCacheStatements.incrementAndGet();
+    }
+
+    /**
+     * Abre conexões até atingir o mínimo configurado.
+     */
+    private void completarMinimo() {
+        while (total.get() < minimo) {
+            try {
+                ociosas.offerLast(criar());
+            } catch (SQLException e) {
+                System.err.println("Erro ao conectar ao banco de dados: " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Rotina periódica: fecha conexões ociosas além do mínimo, repõe o mínimo
+     * e reporta conexões emprestadas há mais tempo que o limite de vazamento.
+     */
+    private void executarManutencao() {
+        try {
+            long agora = System.currentTimeMillis();
+
+            Iterator<ConexaoPooled> it = ociosas.descendingIterator();
+            while (it.hasNext() && total.get() > minimo) {
+                ConexaoPooled conexao = it.next();
+                if (agora - conexao.getUltimoUso() > ociosoMaximoMs && ociosas.remove(conexao)) {
+                    descartar(conexao);
+                }
+            }
+
+            completarMinimo();
+
+            if (vazamentoLimiteMs > 0) {
+                for (ConexaoPooled conexao : emUso) {
+                    if (!conexao.isVazamentoReportado() && agora - conexao.getEmprestadaEm() > vazamentoLimiteMs) {
+                        conexao.marcarVazamentoReportado();
+                        vazamentos.incrementAndGet();
+                        System.err.println("⚠️ AVISO: possível vazamento de conexão, emprestada há "
+                                + (agora - conexao.getEmprestadaEm()) + " ms");
+                        Throwable origem = conexao.getOrigemEmprestimo();
+                        if (origem != null) {
+                            origem.printStackTrace();
+                        } else {
+                            System.err.println("   (ative pool.vazamentoRastrearPilha para ver onde foi emprestada)");
+                        }
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Erro na manutenção do pool de conexões: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Retorna a quantidade de conexões físicas abertas.
+     *
+     * @return Total de conexões
+     */
+    public int getTotalConexoes() {
+        return total.get();
+    }
+
+    /**
+     * Retorna a quantidade de conexões emprestadas no momento.
+     *
+     * @return Conexões em uso
+     */
+    public int getConexoesEmUso() {
+        return emUso.size();
+    }
+
+    /**
+     * Retorna a quantidade de conexões livres no momento.
+     *
+     * @return Conexões ociosas
+     */
+    public int getConexoesOciosas() {
+        return ociosas.size();
+    }
+
+    /**
+     * Retorna a quantidade de threads aguardando uma conexão.
+     *
+     * @return Threads aguardando
+     */
+    public int getThreadsAguardando() {
+        return aguardando.get();
+    }
+
+    /**
+     * Retorna o total de conexões físicas abertas desde o início.
+     *
+     * @return Conexões criadas
+     */
+    public long getTotalCriadas() {
+        return criadas.get();
+    }
+
+    /**
+     * Retorna o total de conexões físicas fechadas desde o início.
+     *
+     * @return Conexões descartadas
+     */
+    public long getTotalDescartadas() {
+        return descartadas.get();
+    }
+
+    /**
+     * Retorna o total de empréstimos realizados.
+     *
+     * @return Empréstimos
+     */
+    public long getTotalEmprestimos() {
+        return emprestimos.get();
+    }
+
+    /**
+     * Retorna o total de pedidos que esgotaram o tempo de espera.
+     *
+     * @return Timeouts de aquisição
+     */
+    public long getTotalTimeouts() {
+        return timeouts.get();
+    }
+
+    /**
+     * Retorna o total de vazamentos reportados.
+     *
+     * @return Vazamentos detectados
+     */
+    public long getTotalVazamentos() {
+        return vazamentos.get();
+    }
+
+    /**
+     * Retorna o tempo médio de espera por uma conexão, em milissegundos.
+     *
+     * @return Tempo médio de aquisição
+     */
+    public double getTempoMedioAquisicaoMs() {
+        long n = emprestimos.get();
+        return n == 0 ? 0.0 : esperaTotalNanos.get() / 1_000_000.0 / n;
+    }
+
+    /**
+     * Retorna o total de statements reaproveitados dos caches das conexões.
+     *
+     * @return Acertos do cache de statements
+     */
+    public long getAcertosCacheStatements() {
+        return acertosCacheStatements.get();
+    }
+
+    /**
+     * Retorna o total de statements que precisaram ser preparados no banco.
+     *
+     * @return Falhas do cache de statements
+     */
+    public long getFalhasCacheStatements() {
+        return falhasCacheStatements.get();
+    }
+
+    /**
+     * Retorna um resumo textual das métricas do pool.
+     *
+     * @return Métricas do pool
+     */
+    @Override
+    public String toString() {
+        return "PoolConexoes{total=" + getTotalConexoes()
+                + ", emUso=" + getConexoesEmUso()
+                + ", ociosas=" + getConexoesOciosas()
+                + ", aguardando=" + getThreadsAguardando()
+                + ", criadas=" + getTotalCriadas()
+                + ", descartadas=" + getTotalDescartadas()
+                + ", emprestimos=" + getTotalEmprestimos()
+                + ", timeouts=" + getTotalTimeouts()
+                + ", vazamentos=" + getTotalVazamentos()
+                + ", cacheStatements=" + getAcertosCacheStatements() + "/" + (getAcertosCacheStatements() + getFalhasCacheStatements())
+                + ", esperaMediaMs=" + String.format("%.3f", getTempoMedioAquisicaoMs())
+                + '}';
+    }
+}
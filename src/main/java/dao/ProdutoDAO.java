@@ -1,13 +1,30 @@
 package dao;
 
 import modelo.Produto;
+import modelo.RelatorioImportacao;
+import modelo.ResultadoMovimentacao;
+import java.io.Reader;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
-import java.sql.Statement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Classe de acesso a dados (DAO) para operações relacionadas a produtos.
@@ -16,13 +33,151 @@ import java.util.List;
  * @author bnsant
  * @version 1.0
  */
-public class ProdutoDAO {
+public class ProdutoDAO implements ProdutoRepositorio {
     
     /**
-     * Lista interna de produtos para cache.
+     * Fotografia imutável do catálogo, em ordem de ID, compartilhada por todas as
+     * consultas. Recebe a carga completa dos ouvintes e, a cada entrega, é
+     * substituída por uma cópia em que só os produtos entregues mudam.
+     * Substituída apenas com {@link #travaOuvintes}.
      */
-    ArrayList<Produto>minhaLista = new ArrayList();
-    
+    private final AtomicReference<List<Produto>> catalogo = new AtomicReference<>();
+
+    /**
+     * Ordem dos produtos na fotografia do catálogo.
+     */
+    private static final Comparator<Produto> POR_ID = Comparator.comparingInt(Produto::getId);
+
+    /**
+     * Se as atualizações completas e cadastrais exigem a versão atual do produto
+     * (produto.versao.verificar); desligada, a versão informada é ignorada.
+     */
+    private final boolean verificarVersao = ConfiguracaoBanco.getInstancia().getBoolean("produto.versao.verificar", true);
+
+    /**
+     * Cache de produtos por ID, atualizado com os valores gravados por todas as
+     * escritas deste DAO e pelas notificações de {@link #notificarGravados(Collection)}
+     * e {@link #notificarAlteracao(int)}.
+     */
+    private final CacheProdutos cache = new CacheProdutos(
+            ConfiguracaoBanco.getInstancia().getInt("cache.produtos.capacidade", 10000));
+
+    /**
+     * Estruturas em memória notificadas a cada escrita confirmada em produtos.
+     */
+    private final List<OuvinteProdutos> ouvintes = new CopyOnWriteArrayList<>();
+
+    /**
+     * Trava que serializa a entrega de produtos aos ouvintes e ao cache. As
+     * gravações e leituras do banco são feitas fora dela; a ordem entre entregas
+     * concorrentes é dada pela coluna versao (veja {@link #versoesEntregues}).
+     */
+    private final Object travaOuvintes = new Object();
+
+    /**
+     * Versão de cada produto existente já entregue aos ouvintes, de modo que uma
+     * leitura antiga nunca sobrescreva uma mais nova. Protegido por {@link #travaOuvintes}.
+     */
+    private final Map<Integer, Integer> versoesEntregues = new HashMap<>();
+
+    /**
+     * Produtos excluídos recentemente e o instante da exclusão (System.nanoTime),
+     * em ordem de exclusão: uma leitura feita antes da exclusão e entregue depois
+     * dela não recria o produto. As entradas expiram após {@link #RETENCAO_REMOVIDOS_MS}
+     * e são retiradas quando o ID volta a ser cadastrado. Protegido por {@link #travaOuvintes}.
+     */
+    private final LinkedHashMap<Integer, Long> removidosRecentes = new LinkedHashMap<>();
+
+    /**
+     * Tempo durante o qual um produto excluído recusa leituras atrasadas, em milissegundos.
+     */
+    private static final long RETENCAO_REMOVIDOS_MS = 60000;
+
+    /**
+     * Quantidade de leituras do catálogo completo antes de ler com a trava dos ouvintes.
+     */
+    private static final int TENTATIVAS_CARGA = 3;
+
+    /**
+     * Quantidade de entregas feitas aos ouvintes, usada para descartar cargas
+     * completas lidas enquanto outras alterações eram entregues.
+     */
+    private volatile long entregasOuvintes;
+
+    /**
+     * Indica se os ouvintes já receberam a carga completa do catálogo.
+     */
+    private volatile boolean ouvintesCarregados;
+
+    /**
+     * Índice de nomes usado no autocompletar.
+     */
+    private final IndicePrefixoProdutos indicePrefixo = new IndicePrefixoProdutos();
+
+    /**
+     * Índice de trigramas usado na busca aproximada.
+     */
+    private final IndiceTrigramasProdutos indiceTrigramas = new IndiceTrigramasProdutos();
+
+    /**
+     * Índice secundário de produtos por categoria.
+     */
+    private final IndiceCategoriasProdutos indiceCategorias = new IndiceCategoriasProdutos();
+
+    /**
+     * Valor total e totais por categoria mantidos de forma incremental.
+     */
+    private final AgregadosEstoque agregados = new AgregadosEstoque();
+
+    /**
+     * Conjunto vigiado dos produtos fora dos limites de estoque.
+     */
+    private final MonitorEstoque monitorEstoque = new MonitorEstoque();
+
+    /**
+     * Construtor que registra os índices em memória mantidos por este DAO e
+     * agenda a reconciliação periódica dos agregados do estoque.
+     * Os índices são carregados do banco na primeira consulta.
+     */
+    public ProdutoDAO() {
+        adicionarOuvinte(indicePrefixo);
+        adicionarOuvinte(indiceTrigramas);
+        adicionarOuvinte(indiceCategorias);
+        adicionarOuvinte(agregados);
+        adicionarOuvinte(monitorEstoque);
+
+        long intervalo = ConfiguracaoBanco.getInstancia().getLong("agregados.reconciliacaoIntervaloMs", 300000);
+        if (intervalo > 0) {
+            ScheduledExecutorService reconciliacao = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "agregados-estoque-reconciliacao");
+                t.setDaemon(true);
+                return t;
+            });
+            reconciliacao.scheduleWithFixedDelay(this::reconciliarAgregados, intervalo, intervalo, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Monta um produto a partir da linha atual do ResultSet.
+     * 
+     * @param rs ResultSet posicionado em uma linha da tabela produto
+     * @return Produto com os dados da linha
+     * @throws SQLException Se ocorrer erro na leitura das colunas
+     */
+    static Produto mapearProduto(ResultSet rs) throws SQLException {
+        return new Produto(
+                rs.getInt("id"),
+                rs.getString("nome"),
+                rs.getString("unidade"),
+                rs.getDouble("preco"),
+                rs.getInt("quantidade"),
+                rs.getInt("min"),
+                rs.getInt("max"),
+                rs.getString("categoria"),
+                rs.getInt("versao")
+        );
+    }
+
     /**
      * Cadastra um novo produto no banco de dados.
      * 
@@ -31,10 +186,9 @@ public class ProdutoDAO {
      */
     public boolean CadastrarProduto(Produto produto) {
         Conexao conexao = new Conexao();
-        try (Connection conn = conexao.conectar()) {
-            String sql = "INSERT INTO produto (nome, unidade,quantidade, preco, min, max, categoria) VALUES (?, ?, ?, ?, ?, ?, ?)";
-            PreparedStatement st = conn.prepareStatement(sql);
-
+        String sql = "INSERT INTO produto (nome, unidade,quantidade, preco, min, max, categoria) VALUES (?, ?, ?, ?, ?, ?, ?)";
+        int idGerado = 0;
+        try (Connection conn = conexao.conectar(); PreparedStatement st = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             st.setString(1, produto.getNome());
             st.setString(2, produto.getUnidade());
             st.setInt(3,produto.getQuantidade());
@@ -44,14 +198,29 @@ public class ProdutoDAO {
             st.setString(7, produto.getCategoria());
 
             st.execute();
-            st.close();
-
-            System.out.println("Produto cadastrado com sucesso!");
-            return true;
+            try (ResultSet chaves = st.getGeneratedKeys()) {
+                if (chaves.next()) {
+                    idGerado = chaves.getInt(1);
+                }
+            }
         } catch (SQLException e) {
             System.out.println("Erro ao cadastrar produto: " + e.getMessage());
             return false;
         }
+        // a linha inserida é conhecida: só a versão inicial vem do valor padrão da coluna
+        if (idGerado > 0) {
+            synchronized (travaOuvintes) {
+                // o ID pode ter sido reaproveitado de um produto excluído
+                removidosRecentes.remove(idGerado);
+            }
+            notificarGravados(Collections.singletonList(new Produto(idGerado, produto.getNome(), produto.getUnidade(),
+                    produto.getPreco(), produto.getQuantidade(), produto.getMin(), produto.getMax(),
+                    produto.getCategoria(), 0)));
+        } else {
+            notificarAlteracaoEmMassa();
+        }
+        System.out.println("Produto cadastrado com sucesso!");
+        return true;
     }
     /**
      * Busca um produto no banco de dados pelo ID.
@@ -60,31 +229,453 @@ public class ProdutoDAO {
      * @return Produto encontrado ou produto vazio se não encontrado
      */
     public Produto ProcurarProdutoID(int id) {
-        Conexao conexao = new Conexao();
-        Produto produto = new Produto();
-        try (Connection conn = conexao.conectar()) {
-            Statement stmt = conn.createStatement();
-            ResultSet res = stmt.executeQuery("SELECT * FROM produto WHERE id = " + id);
-
-            if (res.next()) {
-                produto.setId(res.getInt("id"));
-                produto.setNome(res.getString("nome"));
-                produto.setUnidade(res.getString("unidade"));
-                produto.setQuantidade(res.getInt("quantidade"));
-                produto.setPreco(res.getDouble("preco"));
-                produto.setMin(res.getInt("min"));
-                produto.setMax(res.getInt("max"));
-                produto.setCategoria(res.getString("categoria"));
-            }
-
-            res.close();
-            stmt.close();
+        Produto produto = cache.buscar(id);
+        if (produto != null) {
+            return produto;
+        }
+
+        long geracao = cache.getGeracao();
+        try {
+            produto = lerProdutoDoBanco(id);
         } catch (SQLException erro) {
             System.out.println("Erro: " + erro.getMessage());
         }
-
+        if (produto == null) {
+            return new Produto();
+        }
+        cache.preencher(produto, geracao);
         return produto;
     }
+
+    /**
+     * Lê um produto diretamente do banco de dados, sem passar pelo cache.
+     * 
+     * @param id ID do produto
+     * @return Produto encontrado ou null se não existir
+     * @throws SQLException Se ocorrer erro na operação de banco de dados
+     */
+    private Produto lerProdutoDoBanco(int id) throws SQLException {
+        try (Connection conn = new Conexao().conectar()) {
+            List<Produto> lidos = lerProdutos(conn, Collections.singletonList(id));
+            return lidos.isEmpty() ? null : lidos.get(0);
+        }
+    }
+
+    /**
+     * Lê produtos pelo ID em uma conexão já aberta, por exemplo dentro da
+     * transação que acabou de alterá-los, de modo que os valores lidos são os
+     * gravados por ela.
+     * 
+     * @param conn Conexão a usar
+     * @param ids IDs dos produtos
+     * @return Produtos encontrados, em ordem de ID
+     * @throws SQLException Se ocorrer erro na operação de banco de dados
+     */
+    static List<Produto> lerProdutos(Connection conn, Collection<Integer> ids) throws SQLException {
+        List<Produto> lidos = new ArrayList<>(ids.size());
+        if (ids.isEmpty()) {
+            return lidos;
+        }
+        StringBuilder sql = new StringBuilder("SELECT * FROM produto WHERE id ");
+        if (ids.size() == 1) {
+            sql.append("= ?");
+        } else {
+            sql.append("IN (");
+            for (int i = 0; i < ids.size(); i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+            }
+            sql.append(") ORDER BY id");
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            int p = 1;
+            for (int id : ids) {
+                stmt.setInt(p++, id);
+            }
+            try (ResultSet res = stmt.executeQuery()) {
+                while (res.next()) {
+                    lidos.add(mapearProduto(res));
+                }
+            }
+        }
+        return lidos;
+    }
+
+    /**
+     * Informa que um produto foi alterado fora deste DAO sem que os valores
+     * gravados sejam conhecidos. Invalida o produto no cache e o recarrega do
+     * banco; quem conhece os valores gravados
+     * deve usar {@link #notificarGravados(Collection)}.
+     * 
+     * @param id ID do produto alterado
+     */
+    public void notificarAlteracao(int id) {
+        notificarAlteracoes(Collections.singletonList(id));
+    }
+
+    /**
+     * Informa que vários produtos foram alterados sem que os valores gravados
+     * sejam conhecidos, recarregando-os do banco com uma única consulta.
+     * 
+     * @param ids IDs dos produtos alterados
+     */
+    public void notificarAlteracoes(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        for (int id : ids) {
+            cache.invalidar(id);
+        }
+
+        List<Produto> lidos;
+        try (Connection conn = new Conexao().conectar()) {
+            lidos = lerProdutos(conn, ids);
+        } catch (SQLException erro) {
+            System.out.println("Erro ao recarregar produtos alterados: " + erro.getMessage());
+            // os índices podem ter ficado desatualizados: recarrega tudo na próxima consulta
+            ouvintesCarregados = false;
+            return;
+        }
+
+        Set<Integer> encontrados = new HashSet<>();
+        for (Produto produto : lidos) {
+            encontrados.add(produto.getId());
+        }
+        synchronized (travaOuvintes) {
+            List<Produto> entregues = entregarGravados(lidos, true);
+            List<Integer> removidos = new ArrayList<>();
+            for (int id : ids) {
+                if (!encontrados.contains(id)) {
+                    entregarRemocao(id);
+                    removidos.add(id);
+                }
+            }
+            atualizarCatalogo(entregues, removidos);
+            entregasOuvintes++;
+        }
+    }
+
+    /**
+     * Informa produtos gravados fora deste DAO com os valores já confirmados
+     * no banco, sem relê-los: o cache e os ouvintes recebem os próprios produtos
+     * informados, exceto os que forem mais antigos que a versão já entregue.
+     * 
+     * @param produtos Produtos gravados, com a versão resultante da gravação
+     */
+    @Override
+    public void notificarGravados(Collection<Produto> produtos) {
+        if (produtos.isEmpty()) {
+            return;
+        }
+        synchronized (travaOuvintes) {
+            atualizarCatalogo(entregarGravados(produtos, true), Collections.emptyList());
+            entregasOuvintes++;
+        }
+    }
+
+    /**
+     * Informa produtos cujo saldo foi alterado por movimentações, com os valores
+     * já confirmados no banco. O cache, o catálogo e os índices são atualizados
+     * como em {@link #notificarGravados(Collection)}; o {@link MonitorEstoque}
+     * recebe os produtos pela thread consumidora do {@link PipelineMovimentacoes}.
+     * 
+     * @param produtos Produtos movimentados, com a versão resultante da gravação
+     */
+    @Override
+    public void notificarMovimentados(Collection<Produto> produtos) {
+        if (produtos.isEmpty()) {
+            return;
+        }
+        synchronized (travaOuvintes) {
+            atualizarCatalogo(entregarGravados(produtos, false), Collections.emptyList());
+            entregasOuvintes++;
+        }
+    }
+
+    /**
+     * Guarda no cache e entrega aos ouvintes os produtos mais novos que a
+     * versão já entregue. Deve ser chamado com {@link #travaOuvintes}.
+     *
+     * @param produtos Produtos lidos ou gravados
+     * @param comMonitor Se o {@link MonitorEstoque} também recebe os produtos
+     * @return Produtos entregues
+     */
+    private List<Produto> entregarGravados(Collection<Produto> produtos, boolean comMonitor) {
+        List<Produto> entregues = new ArrayList<>(produtos.size());
+        for (Produto produto : produtos) {
+            if (registrarVersaoEntregue(produto.getId(), produto.getVersao())) {
+                cache.preencher(produto, cache.invalidar(produto.getId()));
+                for (OuvinteProdutos ouvinte : ouvintes) {
+                    if (comMonitor || ouvinte != monitorEstoque) {
+                        ouvinte.produtoAlterado(produto);
+                    }
+                }
+                entregues.add(produto);
+            }
+        }
+        return entregues;
+    }
+
+    /**
+     * Publica uma nova fotografia do catálogo a partir da atual, substituindo ou
+     * inserindo os produtos entregues e retirando os excluídos; os demais
+     * produtos são compartilhados com a fotografia anterior. Não faz nada
+     * enquanto o catálogo não foi carregado. Deve ser chamado com {@link #travaOuvintes}.
+     *
+     * @param entregues Produtos entregues aos ouvintes
+     * @param removidos IDs dos produtos excluídos
+     */
+    private void atualizarCatalogo(List<Produto> entregues, List<Integer> removidos) {
+        List<Produto> atual = catalogo.get();
+        if (atual == null || (entregues.isEmpty() && removidos.isEmpty())) {
+            return;
+        }
+        List<Produto> proximo = new ArrayList<>(atual.size() + entregues.size());
+        proximo.addAll(atual);
+        for (Produto produto : entregues) {
+            // cópia própria: o chamador pode continuar usando o objeto entregue
+            Produto copia = new Produto(produto.getId(), produto.getNome(), produto.getUnidade(), produto.getPreco(),
+                    produto.getQuantidade(), produto.getMin(), produto.getMax(), produto.getCategoria(),
+                    produto.getVersao());
+            int posicao = Collections.binarySearch(proximo, copia, POR_ID);
+            if (posicao >= 0) {
+                proximo.set(posicao, copia);
+            } else {
+                proximo.add(-posicao - 1, copia);
+            }
+        }
+        Produto chave = new Produto();
+        for (int id : removidos) {
+            chave.setId(id);
+            int posicao = Collections.binarySearch(proximo, chave, POR_ID);
+            if (posicao >= 0) {
+                proximo.remove(posicao);
+            }
+        }
+        catalogo.set(Collections.unmodifiableList(proximo));
+    }
+
+    /**
+     * Entrega a exclusão de um produto aos ouvintes e a registra por
+     * {@link #RETENCAO_REMOVIDOS_MS}, para recusar leituras atrasadas do produto.
+     * Deve ser chamado com {@link #travaOuvintes}.
+     *
+     * @param id ID do produto excluído
+     */
+    private void entregarRemocao(int id) {
+        boolean conhecido = versoesEntregues.remove(id) != null;
+        Long removidoEm = removidosRecentes.remove(id);
+        removidosRecentes.put(id, System.nanoTime());
+        if (conhecido || removidoEm == null) {
+            for (OuvinteProdutos ouvinte : ouvintes) {
+                ouvinte.produtoRemovido(id);
+            }
+        }
+    }
+
+    /**
+     * Descarta os registros de exclusão mais antigos que {@link #RETENCAO_REMOVIDOS_MS}.
+     * Deve ser chamado com {@link #travaOuvintes}.
+     */
+    private void descartarRemovidosExpirados() {
+        long limite = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(RETENCAO_REMOVIDOS_MS);
+        Iterator<Long> it = removidosRecentes.values().iterator();
+        while (it.hasNext() && it.next() - limite < 0) {
+            it.remove();
+        }
+    }
+
+    /**
+     * Registra a versão de um produto a ser entregue aos ouvintes, se for mais
+     * nova que a última entregue. Deve ser chamado com {@link #travaOuvintes}.
+     *
+     * @param id ID do produto
+     * @param versao Versão lida
+     * @return true se a versão deve ser entregue; false se uma leitura mais nova
+     * já foi entregue ou se o produto foi excluído depois da leitura
+     */
+    private boolean registrarVersaoEntregue(int id, int versao) {
+        descartarRemovidosExpirados();
+        if (removidosRecentes.containsKey(id)) {
+            return false;
+        }
+        Integer entregue = versoesEntregues.get(id);
+        if (entregue != null && entregue >= versao) {
+            return false;
+        }
+        versoesEntregues.put(id, versao);
+        return true;
+    }
+
+    /**
+     * Informa que uma escrita em massa alterou um número indeterminado de
+     * produtos. Descarta o cache e recarrega o catálogo e os índices em memória.
+     */
+    public void notificarAlteracaoEmMassa() {
+        cache.limpar();
+        if (ouvintesCarregados) {
+            recarregarOuvintes();
+        }
+    }
+
+    /**
+     * Registra uma estrutura em memória para receber as alterações de produtos.
+     * A estrutura recebe a carga completa do catálogo na próxima consulta.
+     * 
+     * @param ouvinte Ouvinte a registrar
+     */
+    public void adicionarOuvinte(OuvinteProdutos ouvinte) {
+        ouvintes.add(ouvinte);
+        ouvintesCarregados = false;
+    }
+
+    /**
+     * Carrega os índices em memória, se ainda não foram carregados.
+     * Usado quando um recurso precisa acompanhar as alterações desde já, como
+     * os alertas de estoque, em vez de esperar pela primeira consulta.
+     * 
+     * @return true se os índices em memória estão carregados
+     */
+    public boolean carregarIndices() {
+        return garantirOuvintesCarregados();
+    }
+
+    /**
+     * Garante que os ouvintes receberam a carga completa do catálogo.
+     * 
+     * @return true se os índices em memória estão carregados
+     */
+    private boolean garantirOuvintesCarregados() {
+        if (!ouvintesCarregados) {
+            recarregarOuvintes();
+        }
+        return ouvintesCarregados;
+    }
+
+    /**
+     * Lê todos os produtos do banco e entrega a lista completa aos ouvintes.
+     * Os produtos entregues são compartilhados entre os ouvintes e não devem ser alterados.
+     * A leitura é feita fora de {@link #travaOuvintes}; se outras alterações forem
+     * entregues durante a leitura, ela é repetida, e só a última tentativa lê
+     * com a trava, para não entregar uma carga mais antiga que elas.
+     */
+    private void recarregarOuvintes() {
+        for (int tentativa = 1; tentativa < TENTATIVAS_CARGA; tentativa++) {
+            long entregasAntes = entregasOuvintes;
+            List<Produto> carga;
+            try {
+                carga = lerTodosProdutos();
+            } catch (SQLException erro) {
+                System.out.println("Erro ao carregar índices de produtos: " + erro.getMessage());
+                return;
+            }
+            synchronized (travaOuvintes) {
+                if (entregasOuvintes == entregasAntes) {
+                    entregarCarga(carga);
+                    return;
+                }
+            }
+        }
+        synchronized (travaOuvintes) {
+            try {
+                entregarCarga(lerTodosProdutos());
+            } catch (SQLException erro) {
+                System.out.println("Erro ao carregar índices de produtos: " + erro.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Entrega a carga completa do catálogo aos ouvintes, publica-a como a
+     * fotografia do catálogo e registra as versões entregues. Deve ser chamado com {@link #travaOuvintes}.
+     *
+     * @param carga Todos os produtos
+     */
+    private void entregarCarga(List<Produto> carga) {
+        for (OuvinteProdutos ouvinte : ouvintes) {
+            ouvinte.catalogoCarregado(carga);
+        }
+        catalogo.set(carga);
+        versoesEntregues.clear();
+        descartarRemovidosExpirados();
+        for (Produto produto : carga) {
+            versoesEntregues.put(produto.getId(), produto.getVersao());
+            removidosRecentes.remove(produto.getId());
+        }
+        entregasOuvintes++;
+        ouvintesCarregados = true;
+    }
+
+    /**
+     * Recalcula os agregados do estoque a partir do banco e corrige qualquer
+     * divergência em relação aos valores mantidos de forma incremental.
+     * Executado periodicamente; não faz nada enquanto os índices não forem carregados.
+     * A leitura é feita fora de {@link #travaOuvintes}, e a reconciliação é
+     * adiada para a próxima execução se alguma alteração for entregue durante a leitura.
+     */
+    public void reconciliarAgregados() {
+        if (!ouvintesCarregados) {
+            return;
+        }
+        try {
+            long entregasAntes = entregasOuvintes;
+            List<Produto> produtos = lerTodosProdutos();
+            synchronized (travaOuvintes) {
+                if (entregasOuvintes == entregasAntes) {
+                    agregados.reconciliar(produtos);
+                }
+            }
+        } catch (SQLException erro) {
+            System.out.println("Erro ao reconciliar agregados do estoque: " + erro.getMessage());
+        } catch (RuntimeException erro) {
+            // não deixa a falha cancelar as próximas execuções agendadas
+            System.out.println("Erro ao reconciliar agregados do estoque: " + erro);
+        }
+    }
+
+    /**
+     * Lê todos os produtos do banco, sem passar pelo catálogo nem pelo cache.
+     * 
+     * @return Lista imutável de produtos, em ordem de ID
+     * @throws SQLException Se ocorrer erro na operação de banco de dados
+     */
+    private List<Produto> lerTodosProdutos() throws SQLException {
+        List<Produto> produtos = new ArrayList<>();
+        try (Connection conn = new Conexao().conectar();
+                PreparedStatement stmt = conn.prepareStatement("SELECT * FROM produto ORDER BY id");
+                ResultSet res = stmt.executeQuery()) {
+            while (res.next()) {
+                produtos.add(mapearProduto(res));
+            }
+        }
+        return Collections.unmodifiableList(produtos);
+    }
+
+    /**
+     * Retorna os agregados do estoque, para consulta de métricas.
+     * 
+     * @return Agregados do estoque
+     */
+    public AgregadosEstoque getAgregados() {
+        return agregados;
+    }
+
+    /**
+     * Retorna o monitor de limites de estoque, para inscrição de observadores de alertas.
+     * 
+     * @return Monitor de estoque
+     */
+    public MonitorEstoque getMonitorEstoque() {
+        return monitorEstoque;
+    }
+
+    /**
+     * Retorna o cache de produtos, para consulta de métricas.
+     * 
+     * @return Cache de produtos por ID
+     */
+    public CacheProdutos getCache() {
+        return cache;
+    }
     /**
      * Busca um produto no banco de dados pelo nome.
      * 
@@ -94,26 +685,14 @@ public class ProdutoDAO {
     public Produto ProcurarProdutoNome(String nome) {
         Conexao conexao = new Conexao();
         Produto produto = new Produto();
-        try (Connection conn = conexao.conectar()) {
-            String sql = "SELECT * FROM produto WHERE nome = ?";
-            PreparedStatement stmt = conn.prepareStatement(sql);
+        String sql = "SELECT * FROM produto WHERE nome = ?";
+        try (Connection conn = conexao.conectar(); PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, nome);
-
-            ResultSet res = stmt.executeQuery();
-
-            if (res.next()) {
-                produto.setId(res.getInt("id"));
-                produto.setNome(res.getString("nome"));
-                produto.setUnidade(res.getString("unidade"));
-                produto.setQuantidade(res.getInt("quantidade"));
-                produto.setPreco(res.getDouble("preco"));
-                produto.setMin(res.getInt("min"));
-                produto.setMax(res.getInt("max"));
-                produto.setCategoria(res.getString("categoria"));
+            try (ResultSet res = stmt.executeQuery()) {
+                if (res.next()) {
+                    produto = mapearProduto(res);
+                }
             }
-
-            res.close();
-            stmt.close();
         } catch (SQLException erro) {
             System.out.println("Erro: " + erro.getMessage());
         }
@@ -121,94 +700,161 @@ public class ProdutoDAO {
         return produto;
     }
     /**
-     * Atualiza os dados de um produto existente no banco de dados.
+     * Atualiza os dados de um produto existente no banco de dados, inclusive a
+     * quantidade, somente se a versão informada ainda for a versão gravada.
+     * A comparação faz parte do próprio UPDATE, sem travas entre a leitura e a gravação.
      * 
-     * @param produto Produto com os dados atualizados
-     * @return true se a atualização foi bem-sucedida, false caso contrário
+     * @param produto Produto com os dados atualizados e a versão lida
+     * @return true se a atualização foi bem-sucedida, false se o produto não
+     * existir, tiver sido alterado desde a leitura ou ocorrer erro
      */
     public boolean AtualizarProduto(Produto produto) {
-    String sql = "UPDATE produto SET nome=?, unidade=?, quantidade=?, preco=?, min=?, max=?, categoria=? WHERE id=?";
-    Conexao conexao = new Conexao();
-
-    try (Connection conn = conexao.conectar()) {
-        PreparedStatement stmt = conn.prepareStatement(sql);
-        stmt.setString(1, produto.getNome());
-        stmt.setString(2, produto.getUnidade());
-        stmt.setInt(3, produto.getQuantidade());
-        stmt.setDouble(4, produto.getPreco());
-        stmt.setInt(5, produto.getMin());
-        stmt.setInt(6, produto.getMax());
-        stmt.setString(7, produto.getCategoria());
-        stmt.setInt(8, produto.getId());
-        stmt.executeUpdate();
-        stmt.close();
+        return atualizarComVersao(produto, true);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean atualizarDadosCadastrais(Produto produto) {
+        return atualizarComVersao(produto, false);
+    }
 
+    /**
+     * Grava os dados do produto com a comparação da versão, se habilitada, e incrementa a versão.
+     * 
+     * @param produto Produto com os dados atualizados e a versão lida
+     * @param comQuantidade Se a quantidade também deve ser gravada
+     * @return true se a linha foi atualizada
+     */
+    private boolean atualizarComVersao(Produto produto, boolean comQuantidade) {
+        String sql = "UPDATE produto SET nome=?, unidade=?, preco=?, min=?, max=?, categoria=?"
+                + (comQuantidade ? ", quantidade=?" : "") + ", versao=versao+1 WHERE id=?"
+                + (verificarVersao ? " AND versao=?" : "");
+        Conexao conexao = new Conexao();
+        Produto gravado;
+
+        try (Connection conn = conexao.conectar()) {
+            conn.setAutoCommit(false);
+            try {
+                gravado = gravarComVersao(conn, sql, produto, comQuantidade);
+                if (gravado == null) {
+                    conn.rollback();
+                    System.out.println("Produto não atualizado: inexistente ou alterado desde a leitura.");
+                    return false;
+                }
+                conn.commit();
+            } catch (SQLException erro) {
+                conn.rollback();
+                throw erro;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException erro) {
+            System.out.println("Erro ao atualizar produto: " + erro.getMessage());
+            return false;
+        }
+        notificarGravados(Collections.singletonList(gravado));
         System.out.println("Produto atualizado com sucesso!");
         return true;
-    } catch (SQLException erro) {
-        System.out.println("Erro ao atualizar produto: " + erro.getMessage());
-        return false;
     }
-}   
+
+    /**
+     * Executa a atualização com versão e obtém o produto gravado. Com a
+     * comparação da versão e a quantidade informada, todas as colunas são
+     * conhecidas; nos demais casos a linha é relida na mesma transação.
+     * 
+     * @param conn Conexão com a transação aberta
+     * @param sql Comando de atualização
+     * @param produto Produto com os dados atualizados e a versão lida
+     * @param comQuantidade Se a quantidade também é gravada
+     * @return Produto gravado, ou null se nenhuma linha foi atualizada
+     * @throws SQLException Se ocorrer erro na operação de banco de dados
+     */
+    private Produto gravarComVersao(Connection conn, String sql, Produto produto, boolean comQuantidade) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int i = 1;
+            stmt.setString(i++, produto.getNome());
+            stmt.setString(i++, produto.getUnidade());
+            stmt.setDouble(i++, produto.getPreco());
+            stmt.setInt(i++, produto.getMin());
+            stmt.setInt(i++, produto.getMax());
+            stmt.setString(i++, produto.getCategoria());
+            if (comQuantidade) {
+                stmt.setInt(i++, produto.getQuantidade());
+            }
+            stmt.setInt(i++, produto.getId());
+            if (verificarVersao) {
+                stmt.setInt(i, produto.getVersao());
+            }
+            if (stmt.executeUpdate() == 0) {
+                return null;
+            }
+        }
+        if (verificarVersao && comQuantidade) {
+            return new Produto(produto.getId(), produto.getNome(), produto.getUnidade(), produto.getPreco(),
+                    produto.getQuantidade(), produto.getMin(), produto.getMax(), produto.getCategoria(),
+                    produto.getVersao() + 1);
+        }
+        List<Produto> lidos = lerProdutos(conn, Collections.singletonList(produto.getId()));
+        return lidos.isEmpty() ? null : lidos.get(0);
+    }
+
     /**
-     * Exclui um produto do banco de dados pelo ID.
+     * Exclui um produto do banco de dados pelo ID. Os ouvintes só são
+     * notificados se a linha existia.
      * 
      * @param id ID do produto a ser excluído
      * @return true se a exclusão foi bem-sucedida, false caso contrário
      */
     public boolean DeletarProdutoID(int id) {
         Conexao conexao = new Conexao();
+        String sql = "DELETE FROM produto WHERE id = ?";
+        int removidas;
 
-        try (Connection conn = conexao.conectar()) {
-            Statement stmt = conn.createStatement();
-            stmt.executeUpdate("DELETE FROM produto WHERE id = " + id);
-            stmt.close();
-
-            System.out.println("Produto deletado com sucesso!");
-            return true;
+        try (Connection conn = conexao.conectar(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, id);
+            removidas = stmt.executeUpdate();
         } catch (SQLException erro) {
             System.out.println("Erro: " + erro.getMessage());
             return false;
         }
+        if (removidas > 0) {
+            cache.invalidar(id);
+            synchronized (travaOuvintes) {
+                entregarRemocao(id);
+                atualizarCatalogo(Collections.emptyList(), Collections.singletonList(id));
+                entregasOuvintes++;
+            }
+        }
+        System.out.println("Produto deletado com sucesso!");
+        return true;
     }
 
     /**
      * Retorna uma lista com todos os produtos cadastrados no banco de dados.
+     * A lista é uma fotografia imutável compartilhada entre chamadas concorrentes,
+     * carregada junto com os índices em memória e mantida pelas entregas aos
+     * ouvintes, sem reler o banco após as escritas. Se os índices não puderem
+     * ser carregados, lê o banco diretamente.
+     * Os produtos da lista não devem ser alterados pelo chamador.
      * 
-     * @return Lista de produtos
+     * @return Lista imutável de produtos, em ordem de ID
      */
-    public ArrayList<Produto>getMinhaListaProdutos() {
-        
-        minhaLista.clear();
-        Conexao conexao = new Conexao();
-        
-        try(Connection conn = conexao.conectar()){
-            Statement stmt = conn.createStatement();          
-            ResultSet res = stmt.executeQuery("SELECT * FROM produto");
-            
-            while(res.next()){
-                int id = res.getInt("id");
-                String nome = res.getString("nome");
-                String unidade = res.getString("unidade");
-                int quantidade = res.getInt("quantidade");
-                double preco = res.getDouble("preco");
-                int min = res.getInt("min");
-                int max = res.getInt("max");
-                String categoria = res.getString("categoria");
-                
-                Produto produto = new Produto(id,nome,unidade,preco,quantidade,min,max,categoria);
-                minhaLista.add(produto);
-}
-                
-                res.close();
-                stmt.close();
-
-            }catch(SQLException ex){
-                    System.out.println("Erro: "+ex);
-                    }
-            return minhaLista;
+    public List<Produto> getMinhaListaProdutos() {
+        if (garantirOuvintesCarregados()) {
+            List<Produto> atual = catalogo.get();
+            if (atual != null) {
+                return atual;
+            }
+        }
+        try {
+            return lerTodosProdutos();
+        } catch (SQLException ex) {
+            System.out.println("Erro: " + ex);
+            return Collections.emptyList();
+        }
     }
- 
 
     /**
      * Retorna o maior ID de produto cadastrado no banco de dados.
@@ -219,13 +865,11 @@ public class ProdutoDAO {
        Conexao conexao = new Conexao();
         int MaiorID = 0;
         
-        try(Connection conn = conexao.conectar()){
-            Statement stmt = conn.createStatement();
-            ResultSet res = stmt.executeQuery("SELECT MAX(id) id from produto");
+        try(Connection conn = conexao.conectar();
+                PreparedStatement stmt = conn.prepareStatement("SELECT MAX(id) id from produto");
+                ResultSet res = stmt.executeQuery()){
             res.next();
             MaiorID = res.getInt("id");
-            stmt.close();
-                
         
     }catch(SQLException ex){
         System.out.println("Erro: "+ex);
@@ -234,10 +878,15 @@ public class ProdutoDAO {
     }
     /**
      * Busca todas as categorias distintas de produtos cadastrados.
+     * A consulta é atendida pelo índice de categorias em memória; o banco só é
+     * consultado se o índice não puder ser carregado.
      * 
      * @return Lista de nomes de categorias únicas, ordenadas alfabeticamente
      */
     public ArrayList<String> buscarCategorias() {
+        if (garantirOuvintesCarregados()) {
+            return indiceCategorias.listarCategorias();
+        }
         ArrayList<String> lista = new ArrayList<>();
         Conexao conexao = new Conexao();
 
@@ -257,32 +906,27 @@ public class ProdutoDAO {
     }
     /**
      * Busca produtos filtrados por categoria.
+     * A consulta é atendida pelo índice de categorias em memória; o banco só é
+     * consultado se o índice não puder ser carregado.
      * 
      * @param categoria Nome da categoria para filtrar
      * @return Lista de produtos da categoria especificada
      * @throws SQLException Se ocorrer erro na operação de banco de dados
      */
     public List<Produto> buscarPorCategoria(String categoria) throws SQLException {
+    if (garantirOuvintesCarregados()) {
+        return indiceCategorias.buscarPorCategoria(categoria);
+    }
     List<Produto> lista = new ArrayList<>();
     String sql = "SELECT * FROM produto WHERE categoria = ?";
 
     try (
             Connection conn = new Conexao().conectar(); PreparedStatement stmt = conn.prepareStatement(sql)) {
         stmt.setString(1, categoria);
-        ResultSet rs = stmt.executeQuery();
-
-        while (rs.next()) {
-        Produto p = new Produto(
-          rs.getInt("id"),
-          rs.getString("nome"),
-          rs.getString("unidade"),
-          rs.getDouble("preco"),
-          rs.getInt("quantidade"),
-          rs.getInt("min"),
-          rs.getInt("max"),
-          rs.getString("categoria")             
-      );
-            lista.add(p);
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                lista.add(mapearProduto(rs));
+            }
         }
     }
     return lista;
@@ -299,23 +943,41 @@ public class ProdutoDAO {
         String sql = "SELECT * FROM produto WHERE nome LIKE ?";
         try (Connection conn = new Conexao().conectar(); PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, "%" + nome + "%");
-            ResultSet rs = stmt.executeQuery();
-            while (rs.next()) {
-                Produto p = new Produto(
-                        rs.getInt("id"),
-                        rs.getString("nome"),
-                        rs.getString("unidade"),
-                        rs.getDouble("preco"),
-                        rs.getInt("quantidade"),
-                        rs.getInt("min"),
-                        rs.getInt("max"),
-                        rs.getString("categoria")
-                );
-                lista.add(p);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    lista.add(mapearProduto(rs));
+                }
             }
         }
         return lista;
     }
+    /**
+     * Busca produtos cujo nome começa com o prefixo informado, para autocompletar.
+     * A consulta é atendida pelo índice em memória, sem acessar o banco.
+     * 
+     * @param prefixo Início do nome (sem diferenciar maiúsculas, minúsculas e acentos)
+     * @param limite Quantidade máxima de resultados
+     * @return Produtos encontrados, em ordem alfabética
+     */
+    public List<Produto> buscarPorPrefixo(String prefixo, int limite) {
+        garantirOuvintesCarregados();
+        return indicePrefixo.buscar(prefixo, limite);
+    }
+
+    /**
+     * Busca aproximada de produtos pelo nome ou pela categoria, tolerante a
+     * acentos e pequenos erros de digitação. A consulta é atendida pelo índice
+     * de trigramas em memória, sem acessar o banco.
+     * 
+     * @param termo Texto digitado pelo usuário
+     * @param categoria Categoria para filtrar, ou null para todas
+     * @param limite Quantidade máxima de resultados
+     * @return Produtos encontrados, do mais ao menos parecido
+     */
+    public List<Produto> buscarAproximado(String termo, String categoria, int limite) {
+        garantirOuvintesCarregados();
+        return indiceTrigramas.buscar(termo, categoria, limite);
+    }
     /**
      * Busca produtos filtrados por nome e categoria simultaneamente.
      * 
@@ -330,19 +992,10 @@ public class ProdutoDAO {
         try (Connection conn = new Conexao().conectar(); PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, "%" + nome + "%");
             stmt.setString(2, categoria);
-            ResultSet rs = stmt.executeQuery();
-            while (rs.next()) {
-                Produto p = new Produto(
-                        rs.getInt("id"),
-                        rs.getString("nome"),
-                        rs.getString("unidade"),
-                        rs.getDouble("preco"),
-                        rs.getInt("quantidade"),
-                        rs.getInt("min"),
-                        rs.getInt("max"),
-                        rs.getString("categoria")
-                );
-                lista.add(p);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    lista.add(mapearProduto(rs));
+                }
             }
         }
         return lista;
@@ -351,85 +1004,84 @@ public class ProdutoDAO {
      * Registra uma entrada de produto no estoque, incrementando a quantidade.
      * 
      * @param produtoId ID do produto
-     * @param quantidadeEntrada Quantidade a ser adicionada ao estoque
+     * @param quantidadeEntrada Quantidade a ser adicionada ao estoque, maior que zero
      * @param observacao Observação sobre a entrada
-     * @return true se a entrada foi registrada com sucesso, false caso contrário
-     */
-    public boolean RegistrarEntradaProduto(int produtoId, int quantidadeEntrada, String observacao){
-           Conexao conexao = new Conexao();
-           Produto produto = ProcurarProdutoID(produtoId);
-           
-           if(produto.getId() == 0){
-               return false;
-           }
-           
-           try(Connection conn = conexao.conectar()){
-               conn.setAutoCommit(false);
-               
-               String sqlUpdateProduto = "UPDATE produto SET quantidade = quantidade + ? WHERE id = ?";
-               try(PreparedStatement stmtUpdate = conn.prepareStatement(sqlUpdateProduto)){
-                   stmtUpdate.setInt(1, quantidadeEntrada);
-                   stmtUpdate.setInt(2, produtoId);
-                   int linhasAfetadas = stmtUpdate.executeUpdate();
-                   
-                   if(linhasAfetadas == 0){
-                       conn.rollback();
-                       return false;
-                   }
-               }conn.commit();
-               return true;
-               
-                    
-           }catch (SQLException e){
-               System.out.println("erro: "+e);
-           }return false;
-           
-           
-       }
+     * @return Resultado da entrada: {@link ResultadoMovimentacao#DADOS_INVALIDOS} se a
+     * quantidade não for positiva ou {@link ResultadoMovimentacao#PRODUTO_INEXISTENTE}
+     */
+    public ResultadoMovimentacao RegistrarEntradaProduto(int produtoId, int quantidadeEntrada, String observacao) {
+        return alterarSaldo(produtoId, quantidadeEntrada, 1);
+    }
+
     /**
      * Registra uma saída de produto do estoque, decrementando a quantidade.
-     * Verifica se há quantidade suficiente antes de realizar a saída.
+     * A verificação de quantidade suficiente faz parte do próprio UPDATE, de modo
+     * que saídas concorrentes do mesmo produto nunca deixam o saldo negativo.
      * 
      * @param produtoId ID do produto
-     * @param quantidadeSaida Quantidade a ser removida do estoque
+     * @param quantidadeSaida Quantidade a ser removida do estoque, maior que zero
      * @param observacao Observação sobre a saída
-     * @return true se a saída foi registrada com sucesso, false caso contrário
-     */
-    public boolean RegistrarSaidaProduto(int produtoId, int quantidadeSaida,String observacao){
-           Conexao conexao = new Conexao();
-           Produto produto = ProcurarProdutoID(produtoId);
-           
-           if(produto.getId() == 0){
-               return false;
-           }
-           if(produto.getQuantidade() < quantidadeSaida)
-               if (produto.getQuantidade() < quantidadeSaida) {
-                   System.out.println("Quantidade insuficiente.");
-                   return false;
-               }
-           
-           try(Connection conn = conexao.conectar()){
-               conn.setAutoCommit(false);
-               
-               String sqlUpdateProduto = "UPDATE produto SET quantidade = quantidade - ? WHERE id = ?";
-               try(PreparedStatement stmtUpdate = conn.prepareStatement(sqlUpdateProduto)){
-                   stmtUpdate.setInt(1, quantidadeSaida);
-                   stmtUpdate.setInt(2, produtoId);
-                   int linhasAfetadas = stmtUpdate.executeUpdate();
-                   
-                   if(linhasAfetadas == 0){
-                       conn.rollback();
-                       return false;
-                   }
-               }conn.commit();
-               return true;
-               
-                    
-           }catch (SQLException e){
-               System.out.println("erro: "+e);
-           }return false;
-           
-       }
+     * @return Resultado da saída: {@link ResultadoMovimentacao#DADOS_INVALIDOS} se a
+     * quantidade não for positiva, {@link ResultadoMovimentacao#PRODUTO_INEXISTENTE}
+     * ou {@link ResultadoMovimentacao#ESTOQUE_INSUFICIENTE}
+     */
+    public ResultadoMovimentacao RegistrarSaidaProduto(int produtoId, int quantidadeSaida, String observacao) {
+        return alterarSaldo(produtoId, quantidadeSaida, -1);
+    }
+
+    /**
+     * Soma ou subtrai uma quantidade positiva do saldo de um produto; a
+     * subtração só é aplicada se o saldo for suficiente.
+     * 
+     * @param produtoId ID do produto
+     * @param quantidade Quantidade movimentada
+     * @param sinal 1 para entradas, -1 para saídas
+     * @return Resultado da alteração
+     */
+    private ResultadoMovimentacao alterarSaldo(int produtoId, int quantidade, int sinal) {
+        if (quantidade <= 0) {
+            return new ResultadoMovimentacao(0, produtoId, ResultadoMovimentacao.DADOS_INVALIDOS,
+                    "Quantidade deve ser maior que zero");
+        }
+        String sql = sinal > 0
+                ? "UPDATE produto SET quantidade = quantidade + ?, versao = versao + 1 WHERE id = ?"
+                : "UPDATE produto SET quantidade = quantidade - ?, versao = versao + 1 WHERE id = ? AND quantidade >= ?";
+        String status;
+        List<Produto> gravados = Collections.emptyList();
+        try (Connection conn = new Conexao().conectar()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setInt(1, quantidade);
+                stmt.setInt(2, produtoId);
+                if (sinal < 0) {
+                    stmt.setInt(3, quantidade);
+                }
+                if (stmt.executeUpdate() > 0) {
+                    status = ResultadoMovimentacao.SUCESSO;
+                    // relida na mesma transação: a linha ainda está travada pelo UPDATE
+                    gravados = lerProdutos(conn, Collections.singletonList(produtoId));
+                } else {
+                    try (PreparedStatement existe = conn.prepareStatement("SELECT 1 FROM produto WHERE id = ?")) {
+                        existe.setInt(1, produtoId);
+                        try (ResultSet rs = existe.executeQuery()) {
+                            status = rs.next() ? ResultadoMovimentacao.ESTOQUE_INSUFICIENTE : ResultadoMovimentacao.PRODUTO_INEXISTENTE;
+                        }
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            System.out.println("Erro ao alterar saldo do produto: " + e.getMessage());
+            return new ResultadoMovimentacao(0, produtoId, ResultadoMovimentacao.ERRO, "Saldo não alterado: " + e.getMessage());
+        }
+        notificarGravados(gravados);
+        return RegistroMovimentacaoDAO.resultado(0, produtoId, status);
+    }
        
     /**
      * Atualiza o preço de um produto específico.
@@ -439,13 +1091,25 @@ public class ProdutoDAO {
      * @throws SQLException Se ocorrer erro na operação de banco de dados
      */
     public void atualizarPreco(int idProduto, double novoPreco) throws SQLException {
-        String sql = "UPDATE produto SET preco = ? WHERE id = ?";
-        try (
-                Connection conn = new Conexao().conectar(); PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setDouble(1, novoPreco);
-            stmt.setInt(2, idProduto);
-            stmt.executeUpdate();
+        String sql = "UPDATE produto SET preco = ?, versao = versao + 1 WHERE id = ?";
+        List<Produto> gravados = Collections.emptyList();
+        try (Connection conn = new Conexao().conectar()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setDouble(1, novoPreco);
+                stmt.setInt(2, idProduto);
+                if (stmt.executeUpdate() > 0) {
+                    gravados = lerProdutos(conn, Collections.singletonList(idProduto));
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
         }
+        notificarGravados(gravados);
     }
     /**
      * Lista todos os produtos ordenados alfabeticamente por nome.
@@ -462,19 +1126,7 @@ public class ProdutoDAO {
                  ResultSet rs = stmt.executeQuery()){
              
              while (rs.next()){
-                 
-                 int id = rs.getInt("id");
-                 String nome = rs.getString("nome");
-                 String unidade = rs.getString("unidade");
-                 double preco = rs.getDouble("preco");
-                 int quantidade = rs.getInt("quantidade");
-                 int min = rs.getInt("min");
-                 int max = rs.getInt("max");
-                 String categoria = rs.getString("categoria");
-                 
-                 Produto produto = new Produto(id, nome, unidade, preco, quantidade, min, max, categoria);
-                 
-                 listaDeProdutos.add(produto);
+                 listaDeProdutos.add(mapearProduto(rs));
              }
              
          }catch (SQLException e){
@@ -485,27 +1137,22 @@ public class ProdutoDAO {
      
     /**
      * Lista produtos que estão abaixo da quantidade mínima ou acima da quantidade máxima.
+     * A consulta é atendida pelo conjunto vigiado em memória; o banco só é
+     * consultado se ele não puder ser carregado.
      * 
      * @return Lista de produtos fora dos limites permitidos
      */
     public List<Produto> listarProdutosAbaixoMinMax() {
+        if (garantirOuvintesCarregados()) {
+            return monitorEstoque.listarForaDosLimites();
+        }
         List<Produto> lista = new ArrayList<>();
         String sql = "SELECT * FROM produto WHERE quantidade < min OR quantidade > max";
 
         try (Connection conn = new Conexao().conectar(); PreparedStatement stmt = conn.prepareStatement(sql); ResultSet rs = stmt.executeQuery()) {
 
             while (rs.next()) {
-                Produto produto = new Produto(
-                        rs.getInt("id"),
-                        rs.getString("nome"),
-                        rs.getString("unidade"),
-                        rs.getDouble("preco"),
-                        rs.getInt("quantidade"),
-                        rs.getInt("min"),
-                        rs.getInt("max"),
-                        rs.getString("categoria")
-                );
-                lista.add(produto);
+                lista.add(mapearProduto(rs));
             }
 
         } catch (SQLException e) {
@@ -516,10 +1163,15 @@ public class ProdutoDAO {
     }
     /**
      * Lista a quantidade de produtos agrupados por categoria.
+     * A consulta é atendida pelo índice de categorias em memória; o banco só é
+     * consultado se o índice não puder ser carregado.
      * 
      * @return Lista de arrays contendo [categoria, quantidade] para cada categoria
      */
     public List<String[]> listarQuantidadePorCategoria() {
+        if (garantirOuvintesCarregados()) {
+            return indiceCategorias.contarPorCategoria();
+        }
         List<String[]> lista = new ArrayList<>();
         String sql = "SELECT categoria, COUNT(*) AS total FROM produto GROUP BY categoria ORDER BY categoria";
 
@@ -546,22 +1198,39 @@ public class ProdutoDAO {
      * @throws SQLException Se ocorrer erro na operação de banco de dados
      */
     public boolean reajustarPrecosPercentual(double percentual) throws SQLException {
-        String sql = "UPDATE produto SET preco = preco * (1 + ? / 100)";
+        String sql = "UPDATE produto SET preco = preco * (1 + ? / 100), versao = versao + 1";
+        int linhasAfetadas;
         try (Connection conn = new Conexao().conectar(); 
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setDouble(1, percentual);
-            int linhasAfetadas = stmt.executeUpdate();
-            System.out.println("Preços reajustados em " + percentual + "% para " + linhasAfetadas + " produtos.");
-            return linhasAfetadas > 0;
+            linhasAfetadas = stmt.executeUpdate();
         }
+        notificarAlteracaoEmMassa();
+        System.out.println("Preços reajustados em " + percentual + "% para " + linhasAfetadas + " produtos.");
+        return linhasAfetadas > 0;
     }
     
+    /**
+     * Importa produtos de um conteúdo CSV com INSERTs de várias linhas.
+     * 
+     * @param leitor Fonte do conteúdo CSV
+     * @return Relatório da importação
+     */
+    public RelatorioImportacao importarProdutosCsv(Reader leitor) {
+        return new ImportadorProdutosCsv().importar(leitor, this, null);
+    }
+
     /**
      * Lista produtos que estão abaixo da quantidade mínima permitida.
+     * A consulta é atendida pelo conjunto vigiado em memória; o banco só é
+     * consultado se ele não puder ser carregado.
      * 
      * @return Lista de produtos abaixo do mínimo, ordenados por nome
      */
     public List<Produto> listarProdutosAbaixoMinimo() {
+        if (garantirOuvintesCarregados()) {
+            return monitorEstoque.listarAbaixoMinimo();
+        }
         List<Produto> lista = new ArrayList<>();
         String sql = "SELECT * FROM produto WHERE quantidade < min ORDER BY nome ASC";
 
@@ -570,17 +1239,7 @@ public class ProdutoDAO {
              ResultSet rs = stmt.executeQuery()) {
 
             while (rs.next()) {
-                Produto produto = new Produto(
-                        rs.getInt("id"),
-                        rs.getString("nome"),
-                        rs.getString("unidade"),
-                        rs.getDouble("preco"),
-                        rs.getInt("quantidade"),
-                        rs.getInt("min"),
-                        rs.getInt("max"),
-                        rs.getString("categoria")
-                );
-                lista.add(produto);
+                lista.add(mapearProduto(rs));
             }
 
         } catch (SQLException e) {
@@ -623,12 +1282,80 @@ public class ProdutoDAO {
         return lista;
     }
     
+    /**
+     * Abre uma consulta de todos os produtos para leitura em blocos.
+     * O chamador deve fechar o cursor ao terminar.
+     * 
+     * @param tamanhoBloco Quantidade de linhas buscadas por vez no servidor
+     * @return Cursor da consulta, ordenado por ID
+     * @throws SQLException Se não for possível abrir a consulta
+     */
+    public CursorDados<Produto> abrirCursorProdutos(int tamanhoBloco) throws SQLException {
+        return new CursorConsulta<>("SELECT * FROM produto ORDER BY id", tamanhoBloco, ProdutoDAO::mapearProduto);
+    }
+
+    /**
+     * Abre uma consulta do balanço físico e financeiro para leitura em blocos.
+     * Cada linha tem o mesmo formato de {@link #listarBalancoFisicoFinanceiro()}.
+     * O chamador deve fechar o cursor ao terminar.
+     * 
+     * @param tamanhoBloco Quantidade de linhas buscadas por vez no servidor
+     * @return Cursor da consulta, ordenado por nome
+     * @throws SQLException Se não for possível abrir a consulta
+     */
+    public CursorDados<Object[]> abrirCursorBalancoFisicoFinanceiro(int tamanhoBloco) throws SQLException {
+        String sql = "SELECT id, nome, unidade, categoria, preco, quantidade, (preco * quantidade) as valor_total FROM produto ORDER BY nome ASC";
+        return new CursorConsulta<>(sql, tamanhoBloco, rs -> new Object[]{
+                rs.getInt("id"),
+                rs.getString("nome"),
+                rs.getString("unidade"),
+                rs.getString("categoria"),
+                rs.getDouble("preco"),
+                rs.getInt("quantidade"),
+                rs.getDouble("valor_total")
+        });
+    }
+    
+    /**
+     * Lista, por categoria, a quantidade de produtos e o valor em estoque.
+     * A consulta é atendida pelos agregados em memória; o banco só é
+     * consultado se eles não puderem ser carregados.
+     * 
+     * @return Lista de arrays contendo [categoria, quantidade de produtos, valor total]
+     */
+    public List<Object[]> listarValorPorCategoria() {
+        if (garantirOuvintesCarregados()) {
+            return agregados.listarPorCategoria();
+        }
+        List<Object[]> lista = new ArrayList<>();
+        String sql = "SELECT categoria, COUNT(*) AS total, SUM(preco * quantidade) AS valor FROM produto GROUP BY categoria ORDER BY categoria";
+
+        try (Connection conn = new Conexao().conectar(); 
+             PreparedStatement stmt = conn.prepareStatement(sql); 
+             ResultSet rs = stmt.executeQuery()) {
+
+            while (rs.next()) {
+                lista.add(new Object[]{rs.getString("categoria"), rs.getInt("total"), rs.getDouble("valor")});
+            }
+
+        } catch (SQLException e) {
+            System.out.println("Erro ao calcular valor por categoria: " + e.getMessage());
+        }
+
+        return lista;
+    }
+
     /**
      * Calcula o valor total do estoque (soma de preço * quantidade de todos os produtos).
+     * O valor é mantido de forma incremental em memória; o banco só é
+     * consultado se os agregados não puderem ser carregados.
      * 
      * @return Valor total do estoque
      */
     public double calcularValorTotalEstoque() {
+        if (garantirOuvintesCarregados()) {
+            return agregados.getValorTotal();
+        }
         double valorTotal = 0.0;
         String sql = "SELECT SUM(preco * quantidade) as total FROM produto";
 
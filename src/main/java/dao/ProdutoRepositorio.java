@@ -0,0 +1,268 @@
+package dao;
+
+import java.io.Reader;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import modelo.Produto;
+import modelo.RelatorioImportacao;
+
+/**
+ * Repositório de produtos usado pela camada de serviço.
+ * Implementado sobre o MySQL ({@link ProdutoDAO}) e em memória
+ * ({@link ProdutoRepositorioMemoria}); a implementação é escolhida pela
+ * {@link FabricaRepositorios}.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+public interface ProdutoRepositorio {
+
+    /**
+     * Cadastra um novo produto.
+     *
+     * @param produto Produto a ser cadastrado
+     * @return true se o cadastro foi bem-sucedido, false caso contrário
+     */
+    boolean CadastrarProduto(Produto produto);
+
+    /**
+     * Busca um produto pelo ID.
+     *
+     * @param id ID do produto a ser buscado
+     * @return Produto encontrado ou produto vazio se não encontrado
+     */
+    Produto ProcurarProdutoID(int id);
+
+    /**
+     * Busca um produto pelo nome exato.
+     *
+     * @param nome Nome do produto a ser buscado
+     * @return Produto encontrado ou produto vazio se não encontrado
+     */
+    Produto ProcurarProdutoNome(String nome);
+
+    /**
+     * Atualiza todos os dados de um produto existente, inclusive a quantidade.
+     * A atualização só é aceita se a versão do produto informado for a versão
+     * atual; em seguida a versão é incrementada. Uma cópia lida antes de outra
+     * alteração, como uma movimentação, é rejeitada. Com produto.versao.verificar=false
+     * a versão informada é ignorada e vale a última gravação.
+     *
+     * @param produto Produto com os dados atualizados e a versão lida
+     * @return true se a atualização foi bem-sucedida, false se o produto não
+     * existir, estiver desatualizado ou ocorrer erro
+     */
+    boolean AtualizarProduto(Produto produto);
+
+    /**
+     * Atualiza nome, unidade, preço, limites e categoria de um produto, sem
+     * alterar a quantidade em estoque. Assim como em {@link #AtualizarProduto(Produto)},
+     * a atualização só é aceita se a versão informada for a versão atual.
+     *
+     * @param produto Produto com os dados atualizados e a versão lida
+     * @return true se a atualização foi bem-sucedida, false se o produto não
+     * existir, estiver desatualizado ou ocorrer erro
+     */
+    boolean atualizarDadosCadastrais(Produto produto);
+
+    /**
+     * Exclui um produto pelo ID.
+     *
+     * @param id ID do produto a ser excluído
+     * @return true se a exclusão foi bem-sucedida, false caso contrário
+     */
+    boolean DeletarProdutoID(int id);
+
+    /**
+     * Retorna todos os produtos cadastrados.
+     *
+     * @return Lista imutável de produtos, que não deve ser alterada pelo chamador
+     */
+    List<Produto> getMinhaListaProdutos();
+
+    /**
+     * Lista os nomes distintos das categorias dos produtos.
+     *
+     * @return Lista de categorias em ordem alfabética
+     */
+    ArrayList<String> buscarCategorias();
+
+    /**
+     * Lista os produtos de uma categoria.
+     *
+     * @param categoria Nome da categoria
+     * @return Produtos da categoria
+     * @throws SQLException Se ocorrer erro na operação de banco de dados
+     */
+    List<Produto> buscarPorCategoria(String categoria) throws SQLException;
+
+    /**
+     * Busca produtos cujo nome contém o texto especificado.
+     *
+     * @param nome Texto a ser buscado no nome do produto
+     * @return Produtos encontrados
+     * @throws SQLException Se ocorrer erro na operação de banco de dados
+     */
+    List<Produto> buscarPorNome(String nome) throws SQLException;
+
+    /**
+     * Busca produtos cujo nome começa com o prefixo informado.
+     *
+     * @param prefixo Início do nome
+     * @param limite Quantidade máxima de produtos retornados
+     * @return Produtos encontrados, em ordem alfabética
+     */
+    List<Produto> buscarPorPrefixo(String prefixo, int limite);
+
+    /**
+     * Busca aproximada por nome, tolerante a acentos e erros de digitação.
+     *
+     * @param termo Texto buscado
+     * @param categoria Categoria para filtrar, ou null
+     * @param limite Quantidade máxima de produtos retornados
+     * @return Produtos encontrados, do mais para o menos semelhante
+     */
+    List<Produto> buscarAproximado(String termo, String categoria, int limite);
+
+    /**
+     * Lista todos os produtos ordenados por nome.
+     *
+     * @return Produtos ordenados por nome
+     */
+    List<Produto> listarProdutoOrdenadoPorNome();
+
+    /**
+     * Lista os produtos abaixo da quantidade mínima.
+     *
+     * @return Produtos abaixo do mínimo, ordenados por nome
+     */
+    List<Produto> listarProdutosAbaixoMinimo();
+
+    /**
+     * Lista os produtos abaixo da quantidade mínima ou acima da máxima.
+     *
+     * @return Produtos fora dos limites
+     */
+    List<Produto> listarProdutosAbaixoMinMax();
+
+    /**
+     * Lista a quantidade de produtos por categoria.
+     *
+     * @return Lista de arrays contendo [categoria, quantidade]
+     */
+    List<String[]> listarQuantidadePorCategoria();
+
+    /**
+     * Lista o balanço físico e financeiro de todos os produtos.
+     *
+     * @return Lista de arrays contendo [id, nome, unidade, categoria, preco, quantidade, valor_total]
+     */
+    List<Object[]> listarBalancoFisicoFinanceiro();
+
+    /**
+     * Abre a leitura em blocos de todos os produtos, ordenados por ID.
+     *
+     * @param tamanhoBloco Quantidade de itens buscados por vez
+     * @return Cursor da leitura
+     * @throws SQLException Se não for possível abrir a leitura
+     */
+    CursorDados<Produto> abrirCursorProdutos(int tamanhoBloco) throws SQLException;
+
+    /**
+     * Abre a leitura em blocos do balanço físico e financeiro, ordenado por nome.
+     *
+     * @param tamanhoBloco Quantidade de itens buscados por vez
+     * @return Cursor da leitura
+     * @throws SQLException Se não for possível abrir a leitura
+     */
+    CursorDados<Object[]> abrirCursorBalancoFisicoFinanceiro(int tamanhoBloco) throws SQLException;
+
+    /**
+     * Lista, por categoria, a quantidade de produtos e o valor em estoque.
+     *
+     * @return Lista de arrays contendo [categoria, quantidade de produtos, valor total]
+     */
+    List<Object[]> listarValorPorCategoria();
+
+    /**
+     * Calcula o valor total do estoque.
+     *
+     * @return Soma de preço * quantidade de todos os produtos
+     */
+    double calcularValorTotalEstoque();
+
+    /**
+     * Reajusta os preços de todos os produtos.
+     *
+     * @param percentual Percentual de reajuste
+     * @return true se algum produto foi reajustado
+     * @throws SQLException Se ocorrer erro na operação de banco de dados
+     */
+    boolean reajustarPrecosPercentual(double percentual) throws SQLException;
+
+    /**
+     * Importa produtos de um conteúdo CSV.
+     *
+     * @param leitor Fonte do conteúdo CSV
+     * @return Relatório da importação
+     */
+    RelatorioImportacao importarProdutosCsv(Reader leitor);
+
+    /**
+     * Informa que um produto foi alterado fora deste repositório (por exemplo,
+     * o saldo atualizado no registro de uma movimentação).
+     *
+     * @param id ID do produto alterado
+     */
+    void notificarAlteracao(int id);
+
+    /**
+     * Informa que vários produtos foram alterados fora deste repositório.
+     *
+     * @param ids IDs dos produtos alterados
+     */
+    void notificarAlteracoes(Collection<Integer> ids);
+
+    /**
+     * Informa produtos gravados fora deste repositório com os valores já
+     * confirmados no banco (por exemplo, lidos na própria transação que os
+     * alterou), dispensando uma nova leitura.
+     *
+     * @param produtos Produtos gravados, com a versão resultante da gravação
+     */
+    void notificarGravados(Collection<Produto> produtos);
+
+    /**
+     * Informa produtos cujo saldo foi alterado por movimentações, com os valores
+     * já confirmados no banco. Como em {@link #notificarGravados(Collection)},
+     * mas sem avaliar as regras do {@link MonitorEstoque}: quem registrou as
+     * movimentações publica os produtos no {@link PipelineMovimentacoes}, cuja
+     * thread consumidora atualiza o monitor fora da requisição.
+     *
+     * @param produtos Produtos movimentados, com a versão resultante da gravação
+     */
+    void notificarMovimentados(Collection<Produto> produtos);
+
+    /**
+     * Registra um ouvinte das alterações de produtos.
+     *
+     * @param ouvinte Ouvinte a registrar
+     */
+    void adicionarOuvinte(OuvinteProdutos ouvinte);
+
+    /**
+     * Garante que os índices e os ouvintes foram carregados com o catálogo.
+     *
+     * @return true se estão carregados
+     */
+    boolean carregarIndices();
+
+    /**
+     * Retorna o monitor dos produtos fora dos limites de estoque.
+     *
+     * @return Monitor de estoque
+     */
+    MonitorEstoque getMonitorEstoque();
+}
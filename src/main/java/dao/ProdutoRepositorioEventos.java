@@ -0,0 +1,380 @@
+package dao;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import modelo.Produto;
+import modelo.RelatorioImportacao;
+
+/**
+ * Repositório de produtos do {@link MotorEventosEstoque}.
+ * As consultas são atendidas pelo catálogo em memória, onde estão os saldos
+ * atuais. Os dados cadastrais são gravados no banco antes de serem aplicados em
+ * memória; a quantidade só muda por movimentações no histórico, e uma
+ * atualização que altera a quantidade registra a diferença como um ajuste.
+ * A versão comparada nas atualizações é a mantida em memória, incrementada
+ * também a cada movimentação.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+public class ProdutoRepositorioEventos implements ProdutoRepositorio {
+
+    /**
+     * Motor que mantém os saldos e o histórico.
+     */
+    private final MotorEventosEstoque motor;
+
+    /**
+     * Catálogo e saldos em memória.
+     */
+    private final ProdutoRepositorioMemoria memoria;
+
+    /**
+     * Construtor do repositório.
+     *
+     * @param motor Motor que mantém os saldos e o histórico
+     * @param memoria Catálogo e saldos em memória
+     */
+    ProdutoRepositorioEventos(MotorEventosEstoque motor, ProdutoRepositorioMemoria memoria) {
+        this.motor = motor;
+        this.memoria = memoria;
+    }
+
+    /**
+     * Relê todos os produtos do banco e os aplica em memória, preservando os
+     * saldos atuais. Usado após escritas em massa feitas diretamente no banco.
+     *
+     * @throws SQLException Se ocorrer erro na operação de banco de dados
+     */
+    private void recarregarCatalogo() throws SQLException {
+        List<Produto> lidos = new ArrayList<>();
+        try (Connection conn = new Conexao().conectar();
+                PreparedStatement stmt = conn.prepareStatement("SELECT * FROM produto");
+                ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                lidos.add(ProdutoDAO.mapearProduto(rs));
+            }
+        }
+        memoria.recarregarCatalogo(lidos);
+    }
+
+    /**
+     * Cadastra o produto no banco com a quantidade inicial e o guarda em memória.
+     *
+     * @param produto Produto a ser cadastrado
+     * @return true se o cadastro foi bem-sucedido, false caso contrário
+     */
+    @Override
+    public boolean CadastrarProduto(Produto produto) {
+        String sql = "INSERT INTO produto (nome, unidade,quantidade, preco, min, max, categoria) VALUES (?, ?, ?, ?, ?, ?, ?)";
+        try (Connection conn = new Conexao().conectar(); PreparedStatement st = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            st.setString(1, produto.getNome());
+            st.setString(2, produto.getUnidade());
+            st.setInt(3, produto.getQuantidade());
+            st.setDouble(4, produto.getPreco());
+            st.setInt(5, produto.getMin());
+            st.setInt(6, produto.getMax());
+            st.setString(7, produto.getCategoria());
+            st.execute();
+            try (ResultSet chaves = st.getGeneratedKeys()) {
+                if (chaves.next()) {
+                    Produto novo = new Produto(chaves.getInt(1), produto.getNome(), produto.getUnidade(), produto.getPreco(),
+                            produto.getQuantidade(), produto.getMin(), produto.getMax(), produto.getCategoria());
+                    memoria.guardar(novo);
+                } else {
+                    recarregarCatalogo();
+                }
+            }
+            System.out.println("Produto cadastrado com sucesso!");
+            return true;
+        } catch (SQLException e) {
+            System.out.println("Erro ao cadastrar produto: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Produto ProcurarProdutoID(int id) {
+        return memoria.ProcurarProdutoID(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Produto ProcurarProdutoNome(String nome) {
+        return memoria.ProcurarProdutoNome(nome);
+    }
+
+    /**
+     * Atualiza o produto se a versão informada for a atual e, se a quantidade
+     * informada for diferente do saldo atual, registra a diferença como uma
+     * movimentação de ajuste.
+     *
+     * @param produto Produto com os dados atualizados e a versão lida
+     * @return true se a atualização foi bem-sucedida, false caso contrário
+     */
+    @Override
+    public boolean AtualizarProduto(Produto produto) {
+        return motor.atualizarComVersao(produto, true);
+    }
+
+    /**
+     * Grava os dados cadastrais no banco e em memória se a versão informada
+     * for a atual, preservando o saldo.
+     *
+     * @param produto Produto com os dados atualizados e a versão lida
+     * @return true se a atualização foi bem-sucedida, false caso contrário
+     */
+    @Override
+    public boolean atualizarDadosCadastrais(Produto produto) {
+        return motor.atualizarComVersao(produto, false);
+    }
+
+    /**
+     * Exclui o produto do banco, com as suas movimentações, e da memória.
+     *
+     * @param id ID do produto a ser excluído
+     * @return true se a exclusão foi bem-sucedida, false caso contrário
+     */
+    @Override
+    public boolean DeletarProdutoID(int id) {
+        try (Connection conn = new Conexao().conectar(); PreparedStatement stmt = conn.prepareStatement("DELETE FROM produto WHERE id = ?")) {
+            stmt.setInt(1, id);
+            stmt.executeUpdate();
+        } catch (SQLException erro) {
+            System.out.println("Erro: " + erro.getMessage());
+            return false;
+        }
+        return memoria.DeletarProdutoID(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Produto> getMinhaListaProdutos() {
+        return memoria.getMinhaListaProdutos();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ArrayList<String> buscarCategorias() {
+        return memoria.buscarCategorias();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Produto> buscarPorCategoria(String categoria) {
+        return memoria.buscarPorCategoria(categoria);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Produto> buscarPorNome(String nome) {
+        return memoria.buscarPorNome(nome);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Produto> buscarPorPrefixo(String prefixo, int limite) {
+        return memoria.buscarPorPrefixo(prefixo, limite);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Produto> buscarAproximado(String termo, String categoria, int limite) {
+        return memoria.buscarAproximado(termo, categoria, limite);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Produto> listarProdutoOrdenadoPorNome() {
+        return memoria.listarProdutoOrdenadoPorNome();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Produto> listarProdutosAbaixoMinimo() {
+        return memoria.listarProdutosAbaixoMinimo();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Produto> listarProdutosAbaixoMinMax() {
+        return memoria.listarProdutosAbaixoMinMax();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String[]> listarQuantidadePorCategoria() {
+        return memoria.listarQuantidadePorCategoria();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Object[]> listarBalancoFisicoFinanceiro() {
+        return memoria.listarBalancoFisicoFinanceiro();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CursorDados<Produto> abrirCursorProdutos(int tamanhoBloco) {
+        return memoria.abrirCursorProdutos(tamanhoBloco);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CursorDados<Object[]> abrirCursorBalancoFisicoFinanceiro(int tamanhoBloco) {
+        return memoria.abrirCursorBalancoFisicoFinanceiro(tamanhoBloco);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Object[]> listarValorPorCategoria() {
+        return memoria.listarValorPorCategoria();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double calcularValorTotalEstoque() {
+        return memoria.calcularValorTotalEstoque();
+    }
+
+    /**
+     * Reajusta os preços no banco e relê o catálogo, preservando os saldos.
+     *
+     * @param percentual Percentual de reajuste
+     * @return true se algum produto foi reajustado
+     * @throws SQLException Se ocorrer erro na operação de banco de dados
+     */
+    @Override
+    public boolean reajustarPrecosPercentual(double percentual) throws SQLException {
+        int linhasAfetadas;
+        try (Connection conn = new Conexao().conectar();
+             PreparedStatement stmt = conn.prepareStatement("UPDATE produto SET preco = preco * (1 + ? / 100)")) {
+            stmt.setDouble(1, percentual);
+            linhasAfetadas = stmt.executeUpdate();
+        }
+        recarregarCatalogo();
+        System.out.println("Preços reajustados em " + percentual + "% para " + linhasAfetadas + " produtos.");
+        return linhasAfetadas > 0;
+    }
+
+    /**
+     * Importa os produtos com INSERTs de várias linhas e relê o catálogo.
+     *
+     * @param leitor Fonte do conteúdo CSV
+     * @return Relatório da importação
+     */
+    @Override
+    public RelatorioImportacao importarProdutosCsv(Reader leitor) {
+        RelatorioImportacao relatorio = new ImportadorProdutosCsv().importar(leitor, null, null);
+        if (relatorio.getImportadas() > 0) {
+            try {
+                recarregarCatalogo();
+            } catch (SQLException e) {
+                System.err.println("Erro ao carregar produtos importados: " + e.getMessage());
+            }
+        }
+        return relatorio;
+    }
+
+    /**
+     * Não faz nada: os saldos só mudam pelo motor de eventos.
+     *
+     * @param id ID do produto alterado
+     */
+    @Override
+    public void notificarAlteracao(int id) {
+    }
+
+    /**
+     * Não faz nada: os saldos só mudam pelo motor de eventos.
+     *
+     * @param ids IDs dos produtos alterados
+     */
+    @Override
+    public void notificarAlteracoes(Collection<Integer> ids) {
+    }
+
+    /**
+     * Não faz nada: os saldos só mudam pelo motor de eventos.
+     *
+     * @param produtos Produtos gravados
+     */
+    @Override
+    public void notificarGravados(Collection<Produto> produtos) {
+    }
+
+    /**
+     * Não faz nada: os saldos só mudam pelo motor de eventos.
+     *
+     * @param produtos Produtos movimentados
+     */
+    @Override
+    public void notificarMovimentados(Collection<Produto> produtos) {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void adicionarOuvinte(OuvinteProdutos ouvinte) {
+        memoria.adicionarOuvinte(ouvinte);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean carregarIndices() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MonitorEstoque getMonitorEstoque() {
+        return memoria.getMonitorEstoque();
+    }
+}
@@ -0,0 +1,699 @@
+package dao;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import modelo.Produto;
+import modelo.RelatorioImportacao;
+import modelo.ResultadoMovimentacao;
+
+/**
+ * Repositório de produtos mantido inteiramente em memória, sem banco de dados.
+ * Os produtos ficam em um mapa concorrente ordenado pelo ID e nunca são
+ * alterados depois de guardados: cada escrita substitui o produto por uma nova
+ * instância, com a versão seguinte, de modo que as leituras não precisam de
+ * trava e uma atualização feita sobre uma cópia antiga é rejeitada. As escritas de
+ * cadastro são serializadas por uma única trava, que também ordena a
+ * notificação dos ouvintes, com a mesma garantia dada pelo {@link ProdutoDAO};
+ * os ajustes de saldo só serializam as movimentações do mesmo produto.
+ *
+ * As consultas de categorias, limites e valores são atendidas pelos mesmos
+ * índices em memória usados pelo {@link ProdutoDAO}.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+public class ProdutoRepositorioMemoria implements ProdutoRepositorio {
+
+    /**
+     * Produtos por ID. As instâncias guardadas não são alteradas.
+     */
+    private final ConcurrentSkipListMap<Integer, Produto> produtos = new ConcurrentSkipListMap<>();
+
+    /**
+     * Gerador de IDs de produto.
+     */
+    private final AtomicInteger proximoId = new AtomicInteger();
+
+    /**
+     * Se as atualizações completas e cadastrais exigem a versão atual do produto
+     * (produto.versao.verificar); desligada, a versão informada é ignorada.
+     */
+    private final boolean verificarVersao = ConfiguracaoBanco.getInstancia().getBoolean("produto.versao.verificar", true);
+
+    /**
+     * Fotografia imutável do catálogo, descartada a cada escrita.
+     */
+    private final AtomicReference<List<Produto>> catalogo = new AtomicReference<>();
+
+    /**
+     * Trava do catálogo: a inclusão e a exclusão de produtos usam a trava de
+     * escrita, que também ordena a notificação dos ouvintes; as atualizações e
+     * os ajustes de saldo usam a de leitura junto com a trava do produto, que
+     * ordena as notificações de cada produto, e correm em paralelo entre produtos.
+     */
+    private final ReentrantReadWriteLock travaCatalogo = new ReentrantReadWriteLock();
+
+    /**
+     * Travas por produto dos ajustes de saldo.
+     */
+    private final TravasProdutos travasSaldo = new TravasProdutos(64);
+
+    /**
+     * Estruturas em memória notificadas a cada escrita.
+     */
+    private final List<OuvinteProdutos> ouvintes = new CopyOnWriteArrayList<>();
+
+    /**
+     * Índice de nomes usado no autocompletar.
+     */
+    private final IndicePrefixoProdutos indicePrefixo = new IndicePrefixoProdutos();
+
+    /**
+     * Índice de trigramas usado na busca aproximada.
+     */
+    private final IndiceTrigramasProdutos indiceTrigramas = new IndiceTrigramasProdutos();
+
+    /**
+     * Índice secundário de produtos por categoria.
+     */
+    private final IndiceCategoriasProdutos indiceCategorias = new IndiceCategoriasProdutos();
+
+    /**
+     * Valor total e totais por categoria mantidos de forma incremental.
+     */
+    private final AgregadosEstoque agregados = new AgregadosEstoque();
+
+    /**
+     * Conjunto vigiado dos produtos fora dos limites de estoque.
+     */
+    private final MonitorEstoque monitorEstoque = new MonitorEstoque();
+
+    /**
+     * Construtor que registra os índices em memória, carregados com o catálogo vazio.
+     */
+    public ProdutoRepositorioMemoria() {
+        adicionarOuvinte(indicePrefixo);
+        adicionarOuvinte(indiceTrigramas);
+        adicionarOuvinte(indiceCategorias);
+        adicionarOuvinte(agregados);
+        adicionarOuvinte(monitorEstoque);
+    }
+
+    /**
+     * Cria uma cópia independente de um produto.
+     *
+     * @param p Produto de origem
+     * @return Cópia do produto
+     */
+    private static Produto copiar(Produto p) {
+        return new Produto(p.getId(), p.getNome(), p.getUnidade(), p.getPreco(),
+                p.getQuantidade(), p.getMin(), p.getMax(), p.getCategoria(), p.getVersao());
+    }
+
+    /**
+     * Guarda um produto e notifica os ouvintes; deve ser chamado com a trava de
+     * escrita do catálogo ou com a trava do saldo do produto.
+     *
+     * @param produto Nova instância do produto, que não será mais alterada
+     */
+    private void publicar(Produto produto) {
+        produtos.put(produto.getId(), produto);
+        catalogo.set(null);
+        for (OuvinteProdutos ouvinte : ouvintes) {
+            ouvinte.produtoAlterado(produto);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean CadastrarProduto(Produto produto) {
+        travaCatalogo.writeLock().lock();
+        try {
+            Produto novo = copiar(produto);
+            novo.setId(proximoId.incrementAndGet());
+            novo.setVersao(0);
+            publicar(novo);
+        } finally {
+            travaCatalogo.writeLock().unlock();
+        }
+        System.out.println("Produto cadastrado com sucesso!");
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Produto ProcurarProdutoID(int id) {
+        Produto produto = produtos.get(id);
+        return produto == null ? new Produto() : copiar(produto);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Produto ProcurarProdutoNome(String nome) {
+        for (Produto produto : produtos.values()) {
+            if (produto.getNome() != null && produto.getNome().equalsIgnoreCase(nome)) {
+                return copiar(produto);
+            }
+        }
+        return new Produto();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean AtualizarProduto(Produto produto) {
+        return atualizarComVersao(produto, true);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean atualizarDadosCadastrais(Produto produto) {
+        return atualizarComVersao(produto, false);
+    }
+
+    /**
+     * Substitui o produto guardado se a versão informada for a atual,
+     * incrementando a versão.
+     *
+     * @param produto Produto com os dados atualizados e a versão lida
+     * @param comQuantidade Se a quantidade informada substitui o saldo atual
+     * @return true se o produto foi atualizado
+     */
+    private boolean atualizarComVersao(Produto produto, boolean comQuantidade) {
+        travarSaldo(produto.getId());
+        try {
+            Produto atual = produtos.get(produto.getId());
+            if (atual == null || (verificarVersao && atual.getVersao() != produto.getVersao())) {
+                System.out.println("Produto não atualizado: inexistente ou alterado desde a leitura.");
+                return false;
+            }
+            Produto novo = copiar(produto);
+            if (!comQuantidade) {
+                novo.setQuantidade(atual.getQuantidade());
+            }
+            novo.setVersao(atual.getVersao() + 1);
+            publicar(novo);
+        } finally {
+            destravarSaldo(produto.getId());
+        }
+        System.out.println("Produto atualizado com sucesso!");
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean DeletarProdutoID(int id) {
+        travaCatalogo.writeLock().lock();
+        try {
+            if (produtos.remove(id) != null) {
+                catalogo.set(null);
+                for (OuvinteProdutos ouvinte : ouvintes) {
+                    ouvinte.produtoRemovido(id);
+                }
+            }
+        } finally {
+            travaCatalogo.writeLock().unlock();
+        }
+        System.out.println("Produto deletado com sucesso!");
+        return true;
+    }
+
+    /**
+     * Soma uma variação ao saldo de um produto, sem verificar se o saldo é suficiente.
+     *
+     * @param id ID do produto
+     * @param delta Variação do saldo (negativa para saídas)
+     * @return Estado atualizado do produto, ou null se o produto não existir
+     */
+    public Produto ajustarQuantidade(int id, int delta) {
+        travarSaldo(id);
+        try {
+            Produto atual = produtos.get(id);
+            if (atual == null) {
+                return null;
+            }
+            Produto novo = copiar(atual);
+            novo.setQuantidade(atual.getQuantidade() + delta);
+            novo.setVersao(atual.getVersao() + 1);
+            publicar(novo);
+            return copiar(novo);
+        } finally {
+            destravarSaldo(id);
+        }
+    }
+
+    /**
+     * Soma uma variação ao saldo de um produto somente se o saldo resultante não
+     * ficar negativo. A verificação e o ajuste são atômicos em relação às demais
+     * movimentações do produto.
+     *
+     * @param id ID do produto
+     * @param delta Variação do saldo (negativa para saídas)
+     * @return {@link ResultadoMovimentacao#SUCESSO}, {@link ResultadoMovimentacao#PRODUTO_INEXISTENTE}
+     * ou {@link ResultadoMovimentacao#ESTOQUE_INSUFICIENTE}
+     */
+    public String ajustarQuantidadeSeSuficiente(int id, int delta) {
+        travarSaldo(id);
+        try {
+            Produto atual = produtos.get(id);
+            if (atual == null) {
+                return ResultadoMovimentacao.PRODUTO_INEXISTENTE;
+            }
+            if (atual.getQuantidade() + delta < 0) {
+                return ResultadoMovimentacao.ESTOQUE_INSUFICIENTE;
+            }
+            Produto novo = copiar(atual);
+            novo.setQuantidade(atual.getQuantidade() + delta);
+            novo.setVersao(atual.getVersao() + 1);
+            publicar(novo);
+            return ResultadoMovimentacao.SUCESSO;
+        } finally {
+            destravarSaldo(id);
+        }
+    }
+
+    /**
+     * Trava o saldo de um produto: nenhuma outra movimentação do produto nem
+     * escrita de cadastro ocorre até {@link #destravarSaldo(int)}. A trava é
+     * reentrante, e os ajustes feitos pela mesma thread são permitidos.
+     *
+     * @param id ID do produto
+     */
+    void travarSaldo(int id) {
+        travaCatalogo.readLock().lock();
+        travasSaldo.travar(id);
+    }
+
+    /**
+     * Libera a trava obtida em {@link #travarSaldo(int)}.
+     *
+     * @param id ID do produto
+     */
+    void destravarSaldo(int id) {
+        travasSaldo.destravar(id);
+        travaCatalogo.readLock().unlock();
+    }
+
+    /**
+     * Trava os saldos de vários produtos, como {@link #travarSaldo(int)}.
+     *
+     * @param ids IDs dos produtos
+     * @return Travas obtidas, a serem informadas em {@link #destravarSaldos(Collection)}
+     */
+    Collection<Integer> travarSaldos(Collection<Integer> ids) {
+        travaCatalogo.readLock().lock();
+        return travasSaldo.travar(ids);
+    }
+
+    /**
+     * Libera as travas obtidas em {@link #travarSaldos(Collection)}.
+     *
+     * @param travadas Travas obtidas
+     */
+    void destravarSaldos(Collection<Integer> travadas) {
+        travasSaldo.destravar(travadas);
+        travaCatalogo.readLock().unlock();
+    }
+
+    /**
+     * Retorna o saldo atual de um produto.
+     *
+     * @param id ID do produto
+     * @return Saldo, ou null se o produto não existir
+     */
+    Integer saldo(int id) {
+        Produto atual = produtos.get(id);
+        return atual == null ? null : atual.getQuantidade();
+    }
+
+    /**
+     * Substitui todos os produtos pelos informados, mantendo os IDs, e entrega
+     * o novo catálogo aos ouvintes. Usado na carga do catálogo a partir do banco.
+     *
+     * @param carga Produtos a guardar
+     */
+    void carregar(List<Produto> carga) {
+        travaCatalogo.writeLock().lock();
+        try {
+            produtos.clear();
+            for (Produto produto : carga) {
+                produtos.put(produto.getId(), copiar(produto));
+                proximoId.accumulateAndGet(produto.getId(), Math::max);
+            }
+            entregarCatalogo();
+        } finally {
+            travaCatalogo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Recarrega o catálogo a partir do banco preservando os saldos em memória:
+     * os produtos já guardados mantêm a quantidade atual e passam à versão
+     * seguinte, e os novos usam a quantidade lida. Usado após escritas em massa feitas diretamente no banco.
+     *
+     * @param doBanco Produtos lidos do banco
+     */
+    void recarregarCatalogo(List<Produto> doBanco) {
+        travaCatalogo.writeLock().lock();
+        try {
+            Map<Integer, Produto> novos = new HashMap<>();
+            for (Produto lido : doBanco) {
+                Produto novo = copiar(lido);
+                Produto atual = produtos.get(novo.getId());
+                if (atual != null) {
+                    novo.setQuantidade(atual.getQuantidade());
+                    novo.setVersao(atual.getVersao() + 1);
+                }
+                novos.put(novo.getId(), novo);
+                proximoId.accumulateAndGet(novo.getId(), Math::max);
+            }
+            produtos.keySet().retainAll(novos.keySet());
+            produtos.putAll(novos);
+            entregarCatalogo();
+        } finally {
+            travaCatalogo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Guarda um produto já gravado em outro lugar, mantendo o ID informado.
+     *
+     * @param produto Produto com o ID definitivo
+     */
+    void guardar(Produto produto) {
+        travaCatalogo.writeLock().lock();
+        try {
+            proximoId.accumulateAndGet(produto.getId(), Math::max);
+            publicar(copiar(produto));
+        } finally {
+            travaCatalogo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Copia o saldo atual de todos os produtos.
+     *
+     * @return Quantidade em estoque por ID do produto
+     */
+    Map<Integer, Integer> copiarSaldos() {
+        Map<Integer, Integer> saldos = new HashMap<>(produtos.size() * 2);
+        for (Produto produto : produtos.values()) {
+            saldos.put(produto.getId(), produto.getQuantidade());
+        }
+        return saldos;
+    }
+
+    /**
+     * Descarta a fotografia do catálogo e entrega o catálogo completo aos
+     * ouvintes; deve ser chamado com a trava de escrita.
+     */
+    private void entregarCatalogo() {
+        catalogo.set(null);
+        List<Produto> carga = getMinhaListaProdutos();
+        for (OuvinteProdutos ouvinte : ouvintes) {
+            ouvinte.catalogoCarregado(carga);
+        }
+    }
+
+    /**
+     * Indica se um produto existe.
+     *
+     * @param id ID do produto
+     * @return true se o produto está cadastrado
+     */
+    public boolean existe(int id) {
+        return produtos.containsKey(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Produto> getMinhaListaProdutos() {
+        List<Produto> atual = catalogo.get();
+        if (atual == null) {
+            atual = Collections.unmodifiableList(new ArrayList<>(produtos.values()));
+            catalogo.compareAndSet(null, atual);
+        }
+        return atual;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ArrayList<String> buscarCategorias() {
+        return indiceCategorias.listarCategorias();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Produto> buscarPorCategoria(String categoria) {
+        return indiceCategorias.buscarPorCategoria(categoria);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Produto> buscarPorNome(String nome) {
+        String termo = nome.toLowerCase(Locale.ROOT);
+        List<Produto> lista = new ArrayList<>();
+        for (Produto produto : produtos.values()) {
+            if (produto.getNome() != null && produto.getNome().toLowerCase(Locale.ROOT).contains(termo)) {
+                lista.add(copiar(produto));
+            }
+        }
+        return lista;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Produto> buscarPorPrefixo(String prefixo, int limite) {
+        return indicePrefixo.buscar(prefixo, limite);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Produto> buscarAproximado(String termo, String categoria, int limite) {
+        return indiceTrigramas.buscar(termo, categoria, limite);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Produto> listarProdutoOrdenadoPorNome() {
+        List<Produto> lista = new ArrayList<>(getMinhaListaProdutos());
+        lista.sort(Comparator.comparing(Produto::getNome, String.CASE_INSENSITIVE_ORDER));
+        return lista;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Produto> listarProdutosAbaixoMinimo() {
+        return monitorEstoque.listarAbaixoMinimo();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Produto> listarProdutosAbaixoMinMax() {
+        return monitorEstoque.listarForaDosLimites();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String[]> listarQuantidadePorCategoria() {
+        return indiceCategorias.contarPorCategoria();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Object[]> listarBalancoFisicoFinanceiro() {
+        List<Object[]> lista = new ArrayList<>();
+        for (Produto p : listarProdutoOrdenadoPorNome()) {
+            lista.add(new Object[]{p.getId(), p.getNome(), p.getUnidade(), p.getCategoria(),
+                p.getPreco(), p.getQuantidade(), p.getPreco() * p.getQuantidade()});
+        }
+        return lista;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CursorDados<Produto> abrirCursorProdutos(int tamanhoBloco) {
+        return new CursorLista<>(getMinhaListaProdutos());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CursorDados<Object[]> abrirCursorBalancoFisicoFinanceiro(int tamanhoBloco) {
+        return new CursorLista<>(listarBalancoFisicoFinanceiro());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Object[]> listarValorPorCategoria() {
+        return agregados.listarPorCategoria();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double calcularValorTotalEstoque() {
+        return agregados.getValorTotal();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean reajustarPrecosPercentual(double percentual) {
+        int reajustados;
+        travaCatalogo.writeLock().lock();
+        try {
+            for (Produto atual : produtos.values()) {
+                Produto novo = copiar(atual);
+                novo.setPreco(atual.getPreco() * (1 + percentual / 100));
+                novo.setVersao(atual.getVersao() + 1);
+                produtos.put(novo.getId(), novo);
+            }
+            entregarCatalogo();
+            reajustados = produtos.size();
+        } finally {
+            travaCatalogo.writeLock().unlock();
+        }
+        System.out.println("Preços reajustados em " + percentual + "% para " + reajustados + " produtos.");
+        return reajustados > 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RelatorioImportacao importarProdutosCsv(Reader leitor) {
+        return new ImportadorProdutosCsv().importar(leitor, this);
+    }
+
+    /**
+     * Não faz nada: todas as escritas passam por este repositório.
+     *
+     * @param id ID do produto alterado
+     */
+    @Override
+    public void notificarAlteracao(int id) {
+    }
+
+    /**
+     * Não faz nada: todas as escritas passam por este repositório.
+     *
+     * @param ids IDs dos produtos alterados
+     */
+    @Override
+    public void notificarAlteracoes(Collection<Integer> ids) {
+    }
+
+    /**
+     * Não faz nada: todas as escritas passam por este repositório.
+     *
+     * @param produtos Produtos gravados
+     */
+    @Override
+    public void notificarGravados(Collection<Produto> produtos) {
+    }
+
+    /**
+     * Não faz nada: todas as escritas passam por este repositório.
+     *
+     * @param produtos Produtos movimentados
+     */
+    @Override
+    public void notificarMovimentados(Collection<Produto> produtos) {
+    }
+
+    /**
+     * Registra um ouvinte e entrega a ele o catálogo atual.
+     *
+     * @param ouvinte Ouvinte a registrar
+     */
+    @Override
+    public void adicionarOuvinte(OuvinteProdutos ouvinte) {
+        travaCatalogo.writeLock().lock();
+        try {
+            ouvintes.add(ouvinte);
+            ouvinte.catalogoCarregado(getMinhaListaProdutos());
+        } finally {
+            travaCatalogo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Os índices em memória estão sempre carregados neste repositório.
+     *
+     * @return true
+     */
+    @Override
+    public boolean carregarIndices() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MonitorEstoque getMonitorEstoque() {
+        return monitorEstoque;
+    }
+
+    /**
+     * Retorna os agregados do estoque, para consulta de métricas.
+     *
+     * @return Agregados do estoque
+     */
+    public AgregadosEstoque getAgregados() {
+        return agregados;
+    }
+}
@@ -0,0 +1,655 @@
+package dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+
+/**
+ * Ranking dos produtos mais movimentados, atualizado a cada movimentação registrada.
+ * Mantém os totais de entradas e saídas de cada produto desde o início e em
+ * baldes diários dos últimos dias, de modo que os N primeiros de qualquer janela
+ * até o limite configurado são obtidos sem reler o histórico de movimentações.
+ * Para cada critério consultado, os produtos ficam em um índice ordenado pelo
+ * total, mantido a cada movimentação, e a consulta percorre só o início dele;
+ * as janelas consultadas são somadas uma vez por dia e também mantidas a cada
+ * movimentação.
+ *
+ * Os totais são carregados do banco na primeira consulta, em uma única
+ * transação de leitura consistente e sem bloquear os registros: movimentações
+ * registradas durante a carga são guardadas e, ao fim, somadas aos totais se
+ * não estavam na fotografia lida. Uma movimentação é reconhecida como incluída
+ * na carga pelo ID: os IDs maiores que o último lido nunca estão incluídos, e os
+ * dos últimos {@link #JANELA_IDS_CARGA} IDs são comparados com os IDs que a
+ * fotografia continha, para não perder transações com ID menor confirmadas
+ * depois da leitura.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+public class RankingMovimentacoes {
+
+    /**
+     * Ordena pelo total de entradas.
+     */
+    public static final String ENTRADA = "ENTRADA";
+
+    /**
+     * Ordena pelo total de saídas.
+     */
+    public static final String SAIDA = "SAIDA";
+
+    /**
+     * Ordena pela movimentação líquida (entradas menos saídas).
+     */
+    public static final String LIQUIDO = "LIQUIDO";
+
+    /**
+     * Quantidade dos últimos IDs da carga cuja presença na fotografia é guardada
+     * para reconhecer movimentações confirmadas depois da leitura.
+     */
+    static final int JANELA_IDS_CARGA = 10000;
+
+    /**
+     * Quantidade de janelas somadas mantidas ao mesmo tempo.
+     */
+    private static final int MAXIMO_JANELAS = 8;
+
+    /**
+     * Maior janela, em dias, mantida nos baldes diários.
+     */
+    private final int janelaMaximaDias;
+
+    /**
+     * Totais desde o início.
+     */
+    private Totais totais = new Totais();
+
+    /**
+     * Baldes diários: dia (epoch day) para os totais do dia por produto.
+     */
+    private final TreeMap<Long, Map<Integer, long[]>> baldes = new TreeMap<>();
+
+    /**
+     * Janelas já consultadas no dia {@link #diaJanelas}: dias para os totais da janela.
+     */
+    private final Map<Integer, Totais> janelas = new HashMap<>();
+
+    /**
+     * Dia (epoch day) em que as janelas foram somadas.
+     */
+    private long diaJanelas;
+
+    /**
+     * Maior ID de movimentação incluído na carga inicial.
+     */
+    private long ultimoIdCarregado;
+
+    /**
+     * IDs presentes na carga entre {@link #inicioIdsCarregados} (exclusive) e
+     * {@link #ultimoIdCarregado}, em ordem crescente.
+     */
+    private long[] idsCarregados = new long[0];
+
+    /**
+     * Limite inferior (exclusive) dos IDs guardados em {@link #idsCarregados}.
+     */
+    private long inicioIdsCarregados;
+
+    /**
+     * Movimentações registradas durante a carga, como [ID, produto, sinal,
+     * quantidade, dia]; null quando não há carga em andamento.
+     */
+    private List<long[]> registradasNaCarga;
+
+    /**
+     * Indica se os totais já foram carregados do banco.
+     */
+    private volatile boolean carregado;
+
+    /**
+     * Trava de leitura e escrita dos totais.
+     */
+    private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+
+    /**
+     * Trava que impede duas cargas simultâneas.
+     */
+    private final Object travaCarga = new Object();
+
+    /**
+     * Totais de entradas e saídas por produto, com um índice ordenado por
+     * critério criado na primeira consulta do critério e mantido a cada soma.
+     */
+    private static final class Totais {
+
+        /**
+         * ID do produto para [entradas, saídas].
+         */
+        private final Map<Integer, long[]> porProduto = new HashMap<>();
+
+        /**
+         * Índices por coluna (0 entradas, 1 saídas, 2 líquido), com os pares
+         * [ID do produto, total] do maior para o menor total; null até a primeira consulta.
+         */
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private final TreeSet<long[]>[] ordens = new TreeSet[3];
+
+        /**
+         * Soma uma quantidade ao total de entradas ou de saídas de um produto,
+         * atualizando os índices já criados.
+         *
+         * @param produtoId ID do produto
+         * @param sinal 1 para entrada, -1 para saída (0 é ignorado)
+         * @param quantidade Quantidade movimentada
+         */
+        void somar(int produtoId, int sinal, long quantidade) {
+            if (sinal == 0) {
+                return;
+            }
+            long[] t = porProduto.computeIfAbsent(produtoId, id -> new long[2]);
+            for (int coluna = 0; coluna < ordens.length; coluna++) {
+                if (ordens[coluna] != null) {
+                    ordens[coluna].remove(new long[]{produtoId, valor(t, coluna)});
+                }
+            }
+            t[sinal > 0 ? 0 : 1] += quantidade;
+            for (int coluna = 0; coluna < ordens.length; coluna++) {
+                if (ordens[coluna] != null) {
+                    indexar(ordens[coluna], produtoId, t, coluna);
+                }
+            }
+        }
+
+        /**
+         * Retorna o índice ordenado de uma coluna, criando-o se necessário.
+         *
+         * @param coluna 0 para entradas, 1 para saídas, 2 para líquido
+         * @return Índice ordenado do maior para o menor total
+         */
+        TreeSet<long[]> ordem(int coluna) {
+            if (ordens[coluna] == null) {
+                TreeSet<long[]> ordem = new TreeSet<>(ORDEM_RANKING);
+                for (Map.Entry<Integer, long[]> e : porProduto.entrySet()) {
+                    indexar(ordem, e.getKey(), e.getValue(), coluna);
+                }
+                ordens[coluna] = ordem;
+            }
+            return ordens[coluna];
+        }
+
+        /**
+         * Inclui um produto no índice de uma coluna, exceto se não tiver nenhuma
+         * movimentação do tipo da coluna.
+         */
+        private static void indexar(TreeSet<long[]> ordem, int produtoId, long[] t, int coluna) {
+            long valor = valor(t, coluna);
+            if (coluna != 2 && valor == 0) {
+                return;
+            }
+            ordem.add(new long[]{produtoId, valor});
+        }
+
+        /**
+         * Retorna o total de um produto na coluna informada.
+         */
+        private static long valor(long[] t, int coluna) {
+            return coluna == 2 ? t[0] - t[1] : t[coluna];
+        }
+    }
+
+    /**
+     * Ordem do ranking: maior total primeiro e, no empate, menor ID.
+     */
+    private static final Comparator<long[]> ORDEM_RANKING = (a, b) -> a[1] != b[1]
+            ? Long.compare(b[1], a[1]) : Long.compare(a[0], b[0]);
+
+    /**
+     * Construtor que define a maior janela consultável.
+     *
+     * @param janelaMaximaDias Maior janela, em dias, mantida nos baldes diários
+     */
+    public RankingMovimentacoes(int janelaMaximaDias) {
+        this.janelaMaximaDias = Math.max(1, janelaMaximaDias);
+    }
+
+    /**
+     * Carrega os totais do banco se ainda não foram carregados. A leitura não
+     * bloqueia os registros: as movimentações registradas durante ela são
+     * guardadas e somadas ao fim, se não estavam na fotografia lida.
+     *
+     * @return true se os totais estão carregados
+     */
+    public boolean garantirCarregado() {
+        if (carregado) {
+            return true;
+        }
+        synchronized (travaCarga) {
+            if (carregado) {
+                return true;
+            }
+            trava.writeLock().lock();
+            try {
+                registradasNaCarga = new ArrayList<>();
+            } finally {
+                trava.writeLock().unlock();
+            }
+
+            Carga carga;
+            try {
+                carga = carregarDoBanco();
+            } catch (SQLException e) {
+                System.err.println("Erro ao carregar ranking de movimentações: " + e.getMessage());
+                trava.writeLock().lock();
+                try {
+                    registradasNaCarga = null;
+                } finally {
+                    trava.writeLock().unlock();
+                }
+                return false;
+            }
+
+            trava.writeLock().lock();
+            try {
+                totais = carga.totais;
+                baldes.clear();
+                baldes.putAll(carga.baldes);
+                janelas.clear();
+                ultimoIdCarregado = carga.ultimoId;
+                inicioIdsCarregados = carga.inicioIds;
+                idsCarregados = carga.ids;
+                for (long[] m : registradasNaCarga) {
+                    aplicar(m[0], (int) m[1], (int) m[2], m[3], m[4]);
+                }
+                registradasNaCarga = null;
+                carregado = true;
+                return true;
+            } finally {
+                trava.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Marca os totais como carregados a partir de um histórico vazio, sem
+     * consultar o banco. Usado pelo armazenamento em memória, no qual todas as
+     * movimentações são registradas por {@link #registrar}.
+     */
+    public void iniciarVazio() {
+        trava.writeLock().lock();
+        try {
+            totais = new Totais();
+            baldes.clear();
+            janelas.clear();
+            ultimoIdCarregado = 0;
+            inicioIdsCarregados = 0;
+            idsCarregados = new long[0];
+            carregado = true;
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Resultado de uma carga do banco.
+     */
+    private static final class Carga {
+
+        /**
+         * Totais desde o início.
+         */
+        private final Totais totais = new Totais();
+
+        /**
+         * Totais por dia na janela máxima.
+         */
+        private final Map<Long, Map<Integer, long[]>> baldes = new HashMap<>();
+
+        /**
+         * Maior ID lido.
+         */
+        private long ultimoId;
+
+        /**
+         * Limite inferior (exclusive) dos IDs em {@link #ids}.
+         */
+        private long inicioIds;
+
+        /**
+         * IDs presentes na fotografia acima de {@link #inicioIds}, em ordem crescente.
+         */
+        private long[] ids;
+    }
+
+    /**
+     * Lê, em uma única transação de leitura consistente, os totais por produto
+     * desde o início, os totais por dia na janela máxima e os últimos IDs presentes.
+     *
+     * @return Totais lidos
+     * @throws SQLException Se ocorrer erro na operação de banco de dados
+     */
+    private Carga carregarDoBanco() throws SQLException {
+        Carga carga = new Carga();
+        LocalDate inicioJanela = LocalDate.now().minusDays(janelaMaximaDias - 1);
+
+        try (Connection conn = new Conexao().conectar()) {
+            int isolamento = conn.getTransactionIsolation();
+            conn.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement stmt = conn.prepareStatement("SELECT COALESCE(MAX(id), 0) AS ultimo FROM registro_movimentacao");
+                        ResultSet rs = stmt.executeQuery()) {
+                    rs.next();
+                    carga.ultimoId = rs.getLong("ultimo");
+                }
+
+                String sqlTotais = "SELECT produto_id, tipo_movimentacao, SUM(quantidade) AS total "
+                        + "FROM registro_movimentacao WHERE id <= ? GROUP BY produto_id, tipo_movimentacao";
+                try (PreparedStatement stmt = conn.prepareStatement(sqlTotais)) {
+                    stmt.setLong(1, carga.ultimoId);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            carga.totais.somar(rs.getInt("produto_id"),
+                                    RegistroMovimentacaoDAO.sinalMovimentacao(rs.getString("tipo_movimentacao")), rs.getLong("total"));
+                        }
+                    }
+                }
+
+                String sqlDiarios = "SELECT produto_id, tipo_movimentacao, data_movimentacao, SUM(quantidade) AS total "
+                        + "FROM registro_movimentacao WHERE id <= ? AND data_movimentacao >= ? "
+                        + "GROUP BY produto_id, tipo_movimentacao, data_movimentacao";
+                try (PreparedStatement stmt = conn.prepareStatement(sqlDiarios)) {
+                    stmt.setLong(1, carga.ultimoId);
+                    stmt.setDate(2, java.sql.Date.valueOf(inicioJanela));
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            long dia = rs.getDate("data_movimentacao").toLocalDate().toEpochDay();
+                            somar(carga.baldes.computeIfAbsent(dia, d -> new HashMap<>()), rs.getInt("produto_id"),
+                                    RegistroMovimentacaoDAO.sinalMovimentacao(rs.getString("tipo_movimentacao")), rs.getLong("total"));
+                        }
+                    }
+                }
+
+                carga.inicioIds = Math.max(0, carga.ultimoId - JANELA_IDS_CARGA);
+                List<Long> ids = new ArrayList<>();
+                try (PreparedStatement stmt = conn.prepareStatement("SELECT id FROM registro_movimentacao WHERE id > ? AND id <= ? ORDER BY id")) {
+                    stmt.setLong(1, carga.inicioIds);
+                    stmt.setLong(2, carga.ultimoId);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            ids.add(rs.getLong(1));
+                        }
+                    }
+                }
+                carga.ids = new long[ids.size()];
+                for (int i = 0; i < carga.ids.length; i++) {
+                    carga.ids[i] = ids.get(i);
+                }
+                conn.commit();
+            } finally {
+                conn.setAutoCommit(true);
+                conn.setTransactionIsolation(isolamento);
+            }
+        }
+        return carga;
+    }
+
+    /**
+     * Soma uma quantidade ao total de entradas ou de saídas de um produto.
+     *
+     * @param mapa Totais por produto
+     * @param produtoId ID do produto
+     * @param sinal 1 para entrada, -1 para saída (0 é ignorado)
+     * @param quantidade Quantidade movimentada
+     */
+    private static void somar(Map<Integer, long[]> mapa, int produtoId, int sinal, long quantidade) {
+        if (sinal == 0) {
+            return;
+        }
+        mapa.computeIfAbsent(produtoId, id -> new long[2])[sinal > 0 ? 0 : 1] += quantidade;
+    }
+
+    /**
+     * Registra uma movimentação confirmada no banco.
+     *
+     * @param idMovimentacao ID gerado para a movimentação
+     * @param produtoId ID do produto
+     * @param sinal 1 para entrada, -1 para saída
+     * @param quantidade Quantidade movimentada
+     * @param data Data da movimentação
+     */
+    public void registrar(long idMovimentacao, int produtoId, int sinal, int quantidade, LocalDate data) {
+        trava.writeLock().lock();
+        try {
+            if (registradasNaCarga != null) {
+                registradasNaCarga.add(new long[]{idMovimentacao, produtoId, sinal, quantidade, data.toEpochDay()});
+                return;
+            }
+            // antes da carga a movimentação é ignorada, pois a carga a lerá do banco
+            if (!carregado) {
+                return;
+            }
+            aplicar(idMovimentacao, produtoId, sinal, quantidade, data.toEpochDay());
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Soma uma movimentação aos totais, aos baldes e às janelas, se ela não
+     * estava na carga; deve ser chamado com a trava de escrita.
+     */
+    private void aplicar(long idMovimentacao, int produtoId, int sinal, long quantidade, long dia) {
+        if (incluidaNaCarga(idMovimentacao)) {
+            return;
+        }
+        totais.somar(produtoId, sinal, quantidade);
+        somar(baldes.computeIfAbsent(dia, d -> new HashMap<>()), produtoId, sinal, quantidade);
+        descartarBaldesAntigos();
+        long hoje = LocalDate.now().toEpochDay();
+        if (diaJanelas != hoje) {
+            janelas.clear();
+        }
+        for (Map.Entry<Integer, Totais> janela : janelas.entrySet()) {
+            if (dia > hoje - janela.getKey() && dia <= hoje) {
+                janela.getValue().somar(produtoId, sinal, quantidade);
+            }
+        }
+    }
+
+    /**
+     * Indica se uma movimentação já estava na fotografia lida pela carga.
+     *
+     * @param idMovimentacao ID da movimentação
+     * @return true se a carga já a incluiu
+     */
+    private boolean incluidaNaCarga(long idMovimentacao) {
+        if (idMovimentacao > ultimoIdCarregado) {
+            return false;
+        }
+        if (idMovimentacao <= inicioIdsCarregados) {
+            return true;
+        }
+        return Arrays.binarySearch(idsCarregados, idMovimentacao) >= 0;
+    }
+
+    /**
+     * Descarta os baldes que saíram da janela máxima; deve ser chamado com a trava de escrita.
+     */
+    private void descartarBaldesAntigos() {
+        long primeiroDia = LocalDate.now().toEpochDay() - janelaMaximaDias + 1;
+        baldes.headMap(primeiroDia, false).clear();
+    }
+
+    /**
+     * Retorna os N produtos com maior total no critério e na janela informados.
+     * Os candidatos são copiados do índice ordenado do critério com a trava e
+     * filtrados depois de liberá-la, de modo que o filtro pode consultar o
+     * banco sem bloquear o registro de movimentações; se os candidatos copiados
+     * não bastarem, o índice é percorrido de novo a partir do último copiado.
+     *
+     * @param criterio {@link #ENTRADA}, {@link #SAIDA} ou {@link #LIQUIDO}
+     * @param dias Janela em dias até hoje (inclusive), ou 0 para desde o início
+     * @param n Quantidade de produtos
+     * @param aceito Filtro aplicado apenas aos produtos que entrariam no ranking
+     *               (por exemplo, para ignorar produtos excluídos), chamado sem a trava
+     * @return Lista de arrays [ID do produto, total], do maior para o menor total
+     * @throws IllegalArgumentException Se o critério ou a janela forem inválidos
+     */
+    public List<long[]> listar(String criterio, int dias, int n, IntPredicate aceito) {
+        int coluna = colunaCriterio(criterio);
+        if (dias < 0 || dias > janelaMaximaDias) {
+            throw new IllegalArgumentException("Janela deve estar entre 0 (desde o início) e " + janelaMaximaDias + " dias");
+        }
+        List<long[]> resultado = new ArrayList<>(Math.max(0, n));
+        if (n <= 0) {
+            return resultado;
+        }
+
+        // um produto cujo total mudou entre duas cópias pode aparecer de novo mais abaixo
+        Set<Long> vistos = new HashSet<>();
+        long[] ultimo = null;
+        int lote = n;
+        while (true) {
+            List<long[]> candidatos = candidatos(coluna, dias, ultimo, lote);
+            for (long[] item : candidatos) {
+                if (vistos.add(item[0]) && aceito.test((int) item[0])) {
+                    resultado.add(item);
+                    if (resultado.size() >= n) {
+                        return resultado;
+                    }
+                }
+            }
+            if (candidatos.size() < lote) {
+                return resultado;
+            }
+            ultimo = candidatos.get(candidatos.size() - 1);
+            lote = Math.min(lote * 2, Math.max(n, 1024));
+        }
+    }
+
+    /**
+     * Copia os próximos candidatos do índice ordenado de um critério e janela,
+     * criando o índice ou a janela com a trava de escrita se ainda não existirem.
+     *
+     * @param coluna 0 para entradas, 1 para saídas, 2 para líquido
+     * @param dias Janela em dias até hoje (inclusive), ou 0 para desde o início
+     * @param depoisDe Último candidato já copiado, ou null para começar do início
+     * @param quantidade Quantidade máxima de candidatos
+     * @return Cópias dos pares [ID do produto, total], do maior para o menor total
+     */
+    private List<long[]> candidatos(int coluna, int dias, long[] depoisDe, int quantidade) {
+        trava.readLock().lock();
+        try {
+            Totais fonte = dias == 0 ? totais
+                    : diaJanelas == LocalDate.now().toEpochDay() ? janelas.get(dias) : null;
+            if (fonte != null && fonte.ordens[coluna] != null) {
+                return copiar(fonte.ordens[coluna], depoisDe, quantidade);
+            }
+        } finally {
+            trava.readLock().unlock();
+        }
+
+        // o índice ou a janela ainda não existem: são criados com a trava de escrita
+        trava.writeLock().lock();
+        try {
+            Totais fonte = dias == 0 ? totais : janela(dias);
+            return copiar(fonte.ordem(coluna), depoisDe, quantidade);
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retorna os totais de uma janela, somando os baldes se ainda não foram
+     * somados hoje; deve ser chamado com a trava de escrita.
+     *
+     * @param dias Janela em dias até hoje (inclusive)
+     * @return Totais da janela
+     */
+    private Totais janela(int dias) {
+        long hoje = LocalDate.now().toEpochDay();
+        if (diaJanelas != hoje) {
+            janelas.clear();
+            descartarBaldesAntigos();
+            diaJanelas = hoje;
+        }
+        Totais janela = janelas.get(dias);
+        if (janela == null) {
+            if (janelas.size() >= MAXIMO_JANELAS) {
+                janelas.clear();
+            }
+            janela = new Totais();
+            for (Map<Integer, long[]> balde : baldes.tailMap(hoje - dias + 1, true).values()) {
+                for (Map.Entry<Integer, long[]> e : balde.entrySet()) {
+                    janela.somar(e.getKey(), 1, e.getValue()[0]);
+                    janela.somar(e.getKey(), -1, e.getValue()[1]);
+                }
+            }
+            janelas.put(dias, janela);
+        }
+        return janela;
+    }
+
+    /**
+     * Copia os primeiros itens de um índice ordenado posteriores a um item;
+     * deve ser chamado com a trava.
+     *
+     * @param ordem Índice do maior para o menor total
+     * @param depoisDe Item a partir do qual copiar (exclusive), ou null para o início
+     * @param quantidade Quantidade máxima de itens
+     * @return Cópias dos pares [ID do produto, total]
+     */
+    private static List<long[]> copiar(TreeSet<long[]> ordem, long[] depoisDe, int quantidade) {
+        List<long[]> copia = new ArrayList<>(Math.min(quantidade, ordem.size()));
+        for (long[] item : depoisDe == null ? ordem : ordem.tailSet(depoisDe, false)) {
+            if (copia.size() >= quantidade) {
+                break;
+            }
+            copia.add(new long[]{item[0], item[1]});
+        }
+        return copia;
+    }
+
+    /**
+     * Converte o critério na coluna de totais usada na ordenação.
+     *
+     * @param criterio Critério do ranking
+     * @return 0 para entradas, 1 para saídas, 2 para líquido
+     * @throws IllegalArgumentException Se o critério for inválido
+     */
+    static int colunaCriterio(String criterio) {
+        if (ENTRADA.equalsIgnoreCase(criterio)) {
+            return 0;
+        }
+        if (SAIDA.equalsIgnoreCase(criterio)) {
+            return 1;
+        }
+        if (LIQUIDO.equalsIgnoreCase(criterio)) {
+            return 2;
+        }
+        throw new IllegalArgumentException("Critério inválido: " + criterio + " (use ENTRADA, SAIDA ou LIQUIDO)");
+    }
+
+    /**
+     * Retorna a maior janela consultável, em dias.
+     *
+     * @return Janela máxima
+     */
+    public int getJanelaMaximaDias() {
+        return janelaMaximaDias;
+    }
+}
@@ -1,15 +1,25 @@
 package dao;
 
 import modelo.RegistroMovimentacao;
+import modelo.PaginaMovimentacoes;
 import modelo.Produto;
+import modelo.ResultadoMovimentacao;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 /**
  * Classe de acesso a dados (DAO) para operações relacionadas a registros de movimentação.
@@ -18,7 +28,33 @@ import java.util.List;
  * @author bnsant
  * @version 1.0
  */
-public class RegistroMovimentacaoDAO {
+public class RegistroMovimentacaoDAO implements MovimentacaoRepositorio {
+
+    /**
+     * Tamanho de página usado quando o cliente não informa um tamanho válido.
+     */
+    private static final int TAMANHO_PAGINA_PADRAO = 50;
+
+    /**
+     * Tamanho da coluna observacao de registro_movimentacao.
+     */
+    static final int TAMANHO_MAXIMO_OBSERVACAO = 255;
+
+    /**
+     * Maior tamanho de página aceito, configurável em paginacao.tamanhoMaximo.
+     */
+    private final int tamanhoPaginaMaximo = ConfiguracaoBanco.getInstancia().getInt("paginacao.tamanhoMaximo", 500);
+
+    /**
+     * Ranking dos produtos mais movimentados, atualizado a cada movimentação registrada.
+     */
+    private final RankingMovimentacoes ranking = new RankingMovimentacoes(
+            ConfiguracaoBanco.getInstancia().getInt("ranking.janelaMaximaDias", 30));
+
+    /**
+     * Fila assíncrona de auditoria das movimentações registradas.
+     */
+    private final PipelineMovimentacoes pipeline = new PipelineMovimentacoes();
 
     /**
      * Registra uma nova movimentação no banco de dados.
@@ -27,33 +63,140 @@ public class RegistroMovimentacaoDAO {
      * @return true se o registro foi bem-sucedido, false caso contrário
      */
     public boolean registrarMovimentacao(RegistroMovimentacao registro) {
-        Conexao conexao = new Conexao();
-        String sql = "INSERT INTO registro_movimentacao (produto_id, tipo_movimentacao, quantidade, observacao, data_movimentacao) VALUES (?, ?, ?, ?, ?)";
+        LocalDate hoje = LocalDate.now();
+        try {
+            long idMovimentacao = anexarMovimentacao(registro, hoje);
+            if (idMovimentacao > 0) {
+                movimentacaoAnexada(registro, idMovimentacao, hoje);
+            }
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Erro ao registrar movimentação no banco de dados: " + e.getMessage());
+            return false;
+        }
+    }
 
-        try (Connection conn = conexao.conectar();
-             PreparedStatement st = conn.prepareStatement(sql)) {
-            
-            System.out.println("Inserindo movimentação no banco...");
-            System.out.println("Produto ID: " + registro.getProdutoId());
-            System.out.println("Tipo: " + registro.getTipoMovimentacao());
-            System.out.println("Quantidade: " + registro.getQuantidade());
-            System.out.println("Data: " + registro.getDataMovimentacao());
+    /**
+     * Acrescenta uma movimentação ao histórico com um único INSERT, sem alterar
+     * o saldo do produto nem atualizar o ranking.
+     * 
+     * @param registro Registro de movimentação a ser salvo
+     * @param data Data da movimentação
+     * @return ID gerado
+     * @throws SQLException Se ocorrer erro na operação de banco de dados ou o
+     * banco não informar o ID; nada é gravado
+     */
+    long anexarMovimentacao(RegistroMovimentacao registro, LocalDate data) throws SQLException {
+        try (Connection conn = new Conexao().conectar()) {
+            conn.setAutoCommit(false);
+            try {
+                long id = anexarMovimentacao(conn, registro, data);
+                conn.commit();
+                return id;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
 
+    /**
+     * Acrescenta uma movimentação ao histórico usando a conexão informada, dentro
+     * da transação em andamento do chamador.
+     * 
+     * @param conn Conexão aberta
+     * @param registro Movimentação a ser salva
+     * @param data Data da movimentação
+     * @return ID gerado
+     * @throws SQLException Se ocorrer erro na operação de banco de dados ou o banco não informar o ID
+     */
+    long anexarMovimentacao(Connection conn, RegistroMovimentacao registro, LocalDate data) throws SQLException {
+        String sql = "INSERT INTO registro_movimentacao (produto_id, tipo_movimentacao, quantidade, observacao, data_movimentacao) VALUES (?, ?, ?, ?, ?)";
+        try (PreparedStatement st = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             st.setInt(1, registro.getProdutoId());
             st.setString(2, registro.getTipoMovimentacao());
             st.setInt(3, registro.getQuantidade());
             st.setString(4, registro.getObservacao());
-            st.setDate(5, java.sql.Date.valueOf(LocalDate.now()));
-
+            st.setDate(5, java.sql.Date.valueOf(data));
             st.execute();
-            return true;
-        } catch (SQLException e) {
-            System.err.println("Erro ao registrar movimentação no banco de dados: " + e.getMessage());
-            return false;
-            
-   
+            return lerChavesGeradas(st, 1).get(0);
+        }
+    }
+
+    /**
+     * Acrescenta várias movimentações ao histórico com um INSERT em lote, em
+     * uma única transação, sem alterar os saldos nem atualizar o ranking.
+     * 
+     * @param registros Movimentações a serem salvas
+     * @param data Data das movimentações
+     * @return IDs gerados, na ordem das movimentações
+     * @throws SQLException Se ocorrer erro na operação de banco de dados ou o banco
+     * não informar um ID para cada movimentação; nada é gravado
+     */
+    List<Long> anexarMovimentacoes(List<RegistroMovimentacao> registros, LocalDate data) throws SQLException {
+        String sql = "INSERT INTO registro_movimentacao (produto_id, tipo_movimentacao, quantidade, observacao, data_movimentacao) VALUES (?, ?, ?, ?, ?)";
+        List<Long> ids = new ArrayList<>(registros.size());
+        try (Connection conn = new Conexao().conectar()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement st = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                for (RegistroMovimentacao registro : registros) {
+                    st.setInt(1, registro.getProdutoId());
+                    st.setString(2, registro.getTipoMovimentacao());
+                    st.setInt(3, registro.getQuantidade());
+                    st.setString(4, registro.getObservacao());
+                    st.setDate(5, java.sql.Date.valueOf(data));
+                    st.addBatch();
+                }
+                st.executeBatch();
+                ids.addAll(lerChavesGeradas(st, registros.size()));
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Atualiza o ranking e publica na fila de auditoria uma movimentação já
+     * gravada no histórico.
+     * 
+     * @param registro Movimentação gravada
+     * @param idMovimentacao ID gerado para a movimentação
+     * @param data Data da movimentação
+     */
+    void movimentacaoAnexada(RegistroMovimentacao registro, long idMovimentacao, LocalDate data) {
+        ranking.registrar(idMovimentacao, registro.getProdutoId(),
+                sinalMovimentacao(registro.getTipoMovimentacao()), registro.getQuantidade(), data);
+        pipeline.publicar(registro, idMovimentacao);
+    }
+
+    /**
+     * Lê as chaves geradas por um INSERT e confere se há uma para cada linha
+     * inserida. Deve ser chamado antes do commit: sem as chaves, o ranking e a
+     * fila de auditoria não podem ser atualizados, então a transação é desfeita.
+     * 
+     * @param st Comando executado com {@link Statement#RETURN_GENERATED_KEYS}
+     * @param esperadas Quantidade de linhas inseridas
+     * @return IDs gerados, na ordem das linhas
+     * @throws SQLException Se a leitura falhar ou a quantidade de chaves for diferente
+     */
+    static List<Long> lerChavesGeradas(Statement st, int esperadas) throws SQLException {
+        List<Long> ids = new ArrayList<>(esperadas);
+        try (ResultSet chaves = st.getGeneratedKeys()) {
+            while (chaves.next()) {
+                ids.add(chaves.getLong(1));
+            }
+        }
+        if (ids.size() != esperadas) {
+            throw new SQLException("O banco retornou " + ids.size() + " chaves geradas para " + esperadas + " movimentações");
         }
- 
+        return ids;
     }
 
     /**
@@ -67,8 +210,8 @@ public class RegistroMovimentacaoDAO {
         String sql = "SELECT id, produto_id, tipo_movimentacao, quantidade, observacao, data_movimentacao FROM registro_movimentacao ORDER BY id DESC";
 
         try (Connection conn = conexao.conectar();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
 
             while (rs.next()) {
                 int id = rs.getInt("id");
@@ -124,77 +267,249 @@ public class RegistroMovimentacaoDAO {
     }
     
     /**
-     * Identifica o produto que teve mais entradas no estoque.
+     * Lista uma página do histórico de movimentações usando paginação por chave (keyset).
+     * Cada página busca registros com id menor que o último id da página anterior,
+     * de modo que o custo da consulta não cresce com a profundidade da paginação.
+     * Quando filtrada por produto, a consulta depende do índice em (produto_id, id)
+     * criado por sql/migracoes/003-indice-movimentacao-produto.sql.
      * 
-     * @return Array com [nome do produto, total de entradas] ou ["Nenhum", "0"] se não houver movimentações
+     * @param produtoId ID do produto para filtrar, ou null para todas as movimentações
+     * @param cursor Cursor recebido na página anterior, ou null para a primeira página
+     * @param tamanhoPagina Quantidade de registros por página (limitada ao máximo configurado)
+     * @return Página com os registros e o cursor da próxima página
+     * @throws IllegalArgumentException Se o cursor for inválido ou de outra consulta
      */
-    public String[] produtoComMaisEntrada() {
-        Conexao conexao = new Conexao();
-        String sql = "SELECT p.nome, SUM(rm.quantidade) as total_entrada " +
-                     "FROM registro_movimentacao rm " +
-                     "INNER JOIN produto p ON rm.produto_id = p.id " +
-                     "WHERE rm.tipo_movimentacao = 'Entrada' " +
-                     "GROUP BY rm.produto_id, p.nome " +
-                     "ORDER BY total_entrada DESC " +
-                     "LIMIT 1";
+    public PaginaMovimentacoes listarMovimentacoesPaginado(Integer produtoId, String cursor, int tamanhoPagina) {
+        int limite = tamanhoPagina <= 0 ? TAMANHO_PAGINA_PADRAO : Math.min(tamanhoPagina, tamanhoPaginaMaximo);
+        int ultimoId = cursor == null ? Integer.MAX_VALUE : decodificarCursor(cursor, produtoId);
 
-        try (Connection conn = conexao.conectar();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        String sql = produtoId == null
+                ? "SELECT id, produto_id, tipo_movimentacao, quantidade, observacao, data_movimentacao FROM registro_movimentacao WHERE id < ? ORDER BY id DESC LIMIT ?"
+                : "SELECT id, produto_id, tipo_movimentacao, quantidade, observacao, data_movimentacao FROM registro_movimentacao WHERE produto_id = ? AND id < ? ORDER BY id DESC LIMIT ?";
 
-            if (rs.next()) {
-                return new String[]{
-                    rs.getString("nome"),
-                    String.valueOf(rs.getInt("total_entrada"))
-                };
+        List<RegistroMovimentacao> itens = new ArrayList<>(limite + 1);
+        try (Connection conn = new Conexao().conectar();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            int p = 1;
+            if (produtoId != null) {
+                stmt.setInt(p++, produtoId);
+            }
+            stmt.setInt(p++, ultimoId);
+            stmt.setInt(p, limite + 1);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    itens.add(mapearRegistro(rs));
+                }
             }
         } catch (SQLException e) {
-            System.err.println("Erro ao buscar produto com mais entrada: " + e.getMessage());
+            System.err.println("Erro ao listar página de movimentações: " + e.getMessage());
+        }
+
+        String proximoCursor = null;
+        if (itens.size() > limite) {
+            itens.remove(limite);
+            proximoCursor = codificarCursor(produtoId, itens.get(limite - 1).getId());
+        }
+        return new PaginaMovimentacoes(itens, proximoCursor);
+    }
+
+    /**
+     * Abre uma consulta de todas as movimentações para leitura em blocos,
+     * da mais recente para a mais antiga. O chamador deve fechar o cursor ao terminar.
+     * 
+     * @param tamanhoBloco Quantidade de linhas buscadas por vez no servidor
+     * @return Cursor da consulta
+     * @throws SQLException Se não for possível abrir a consulta
+     */
+    public CursorDados<RegistroMovimentacao> abrirCursorMovimentacoes(int tamanhoBloco) throws SQLException {
+        String sql = "SELECT id, produto_id, tipo_movimentacao, quantidade, observacao, data_movimentacao FROM registro_movimentacao ORDER BY id DESC";
+        return new CursorConsulta<>(sql, tamanhoBloco, this::mapearRegistro);
+    }
+
+    /**
+     * Monta um registro de movimentação a partir da linha atual do ResultSet.
+     * 
+     * @param rs ResultSet posicionado em uma linha de registro_movimentacao
+     * @return Registro de movimentação
+     * @throws SQLException Se ocorrer erro na leitura das colunas
+     */
+    private RegistroMovimentacao mapearRegistro(ResultSet rs) throws SQLException {
+        return new RegistroMovimentacao(
+                rs.getInt("id"),
+                rs.getInt("produto_id"),
+                rs.getString("tipo_movimentacao"),
+                rs.getInt("quantidade"),
+                rs.getString("observacao"),
+                rs.getString("data_movimentacao")
+        );
+    }
+
+    /**
+     * Gera o cursor opaco de uma página, vinculado ao filtro usado na consulta.
+     * 
+     * @param produtoId Filtro de produto, ou null
+     * @param ultimoId ID do último registro da página
+     * @return Cursor codificado
+     */
+    static String codificarCursor(Integer produtoId, int ultimoId) {
+        String conteudo = "m:" + (produtoId == null ? "*" : produtoId) + ":" + ultimoId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(conteudo.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica um cursor e valida se pertence à mesma consulta.
+     * 
+     * @param cursor Cursor recebido do cliente
+     * @param produtoId Filtro de produto da consulta atual, ou null
+     * @return ID do último registro da página anterior
+     * @throws IllegalArgumentException Se o cursor for inválido
+     */
+    static int decodificarCursor(String cursor, Integer produtoId) {
+        try {
+            String conteudo = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] partes = conteudo.split(":");
+            String filtro = produtoId == null ? "*" : String.valueOf(produtoId);
+            if (partes.length != 3 || !"m".equals(partes[0]) || !filtro.equals(partes[1])) {
+                throw new IllegalArgumentException("Cursor não pertence a esta consulta");
+            }
+            return Integer.parseInt(partes[2]);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor de paginação inválido: " + e.getMessage());
         }
-        return new String[]{"Nenhum", "0"};
     }
     
+    /**
+     * Identifica o produto que teve mais entradas no estoque.
+     * A consulta é atendida pelo ranking em memória.
+     * 
+     * @param produtoDAO DAO de produtos, usado para obter os nomes
+     * @return Array com [nome do produto, total de entradas] ou ["Nenhum", "0"] se não houver movimentações
+     */
+    public String[] produtoComMaisEntrada(ProdutoRepositorio produtoDAO) {
+        return primeiroDoRanking(RankingMovimentacoes.ENTRADA, produtoDAO);
+    }
+
     /**
      * Identifica o produto que teve mais saídas do estoque.
+     * A consulta é atendida pelo ranking em memória.
      * 
+     * @param produtoDAO DAO de produtos, usado para obter os nomes
      * @return Array com [nome do produto, total de saídas] ou ["Nenhum", "0"] se não houver movimentações
      */
-    public String[] produtoComMaisSaida() {
-        Conexao conexao = new Conexao();
-        String sql = "SELECT p.nome, SUM(rm.quantidade) as total_saida " +
+    public String[] produtoComMaisSaida(ProdutoRepositorio produtoDAO) {
+        return primeiroDoRanking(RankingMovimentacoes.SAIDA, produtoDAO);
+    }
+
+    /**
+     * Retorna o primeiro colocado do ranking desde o início.
+     * 
+     * @param criterio Critério do ranking
+     * @param produtoDAO DAO de produtos, usado para obter os nomes
+     * @return Array com [nome do produto, total], ou ["Nenhum", "0"] se não houver movimentações
+     */
+    private String[] primeiroDoRanking(String criterio, ProdutoRepositorio produtoDAO) {
+        List<Object[]> primeiro = listarRankingMovimentacoes(criterio, 0, 1, produtoDAO);
+        if (primeiro.isEmpty()) {
+            return new String[]{"Nenhum", "0"};
+        }
+        return new String[]{(String) primeiro.get(0)[1], String.valueOf(primeiro.get(0)[2])};
+    }
+
+    /**
+     * Lista os N produtos mais movimentados segundo um critério, desde o início ou
+     * nos últimos dias. A consulta é atendida pelo ranking em memória, sem reler o
+     * histórico; o banco só é consultado se o ranking não puder ser carregado.
+     * Produtos excluídos não aparecem no resultado.
+     * 
+     * @param criterio ENTRADA, SAIDA ou LIQUIDO (entradas menos saídas)
+     * @param dias Janela em dias até hoje, ou 0 para desde o início
+     * @param n Quantidade de produtos
+     * @param produtoDAO DAO de produtos, usado para obter os nomes
+     * @return Lista de arrays contendo [id, nome, total], do maior para o menor total
+     * @throws IllegalArgumentException Se o critério ou a janela forem inválidos
+     */
+    public List<Object[]> listarRankingMovimentacoes(String criterio, int dias, int n, ProdutoRepositorio produtoDAO) {
+        List<Object[]> lista = new ArrayList<>();
+        if (ranking.garantirCarregado()) {
+            for (long[] item : ranking.listar(criterio, dias, n, id -> produtoDAO.ProcurarProdutoID(id).getId() != 0)) {
+                Produto produto = produtoDAO.ProcurarProdutoID((int) item[0]);
+                lista.add(new Object[]{produto.getId(), produto.getNome(), item[1]});
+            }
+            return lista;
+        }
+
+        String expressao;
+        switch (RankingMovimentacoes.colunaCriterio(criterio)) {
+            case 0:
+                expressao = "SUM(CASE WHEN rm.tipo_movimentacao = ? THEN rm.quantidade ELSE 0 END)";
+                break;
+            case 1:
+                expressao = "SUM(CASE WHEN rm.tipo_movimentacao IN (?, ?) THEN rm.quantidade ELSE 0 END)";
+                break;
+            default:
+                expressao = "SUM(CASE WHEN rm.tipo_movimentacao = ? THEN rm.quantidade "
+                        + "WHEN rm.tipo_movimentacao IN (?, ?) THEN -rm.quantidade ELSE 0 END)";
+        }
+        if (dias < 0 || dias > ranking.getJanelaMaximaDias()) {
+            throw new IllegalArgumentException("Janela deve estar entre 0 (desde o início) e " + ranking.getJanelaMaximaDias() + " dias");
+        }
+        boolean liquido = RankingMovimentacoes.LIQUIDO.equalsIgnoreCase(criterio);
+        String sql = "SELECT p.id, p.nome, " + expressao + " AS total " +
                      "FROM registro_movimentacao rm " +
                      "INNER JOIN produto p ON rm.produto_id = p.id " +
-                     "WHERE rm.tipo_movimentacao = 'Saída' " +
-                     "GROUP BY rm.produto_id, p.nome " +
-                     "ORDER BY total_saida DESC " +
-                     "LIMIT 1";
+                     (dias > 0 ? "WHERE rm.data_movimentacao >= ? " : "") +
+                     "GROUP BY p.id, p.nome " +
+                     (liquido ? "" : "HAVING total <> 0 ") +
+                     "ORDER BY total DESC, p.id " +
+                     "LIMIT ?";
 
-        try (Connection conn = conexao.conectar();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        try (Connection conn = new Conexao().conectar();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            if (rs.next()) {
-                return new String[]{
-                    rs.getString("nome"),
-                    String.valueOf(rs.getInt("total_saida"))
-                };
+            int p = 1;
+            if (!RankingMovimentacoes.SAIDA.equalsIgnoreCase(criterio)) {
+                stmt.setString(p++, "Entrada");
+            }
+            if (!RankingMovimentacoes.ENTRADA.equalsIgnoreCase(criterio)) {
+                stmt.setString(p++, "Saída");
+                stmt.setString(p++, "Saida");
+            }
+            if (dias > 0) {
+                stmt.setDate(p++, java.sql.Date.valueOf(LocalDate.now().minusDays(dias - 1)));
+            }
+            stmt.setInt(p, n);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    lista.add(new Object[]{rs.getInt("id"), rs.getString("nome"), rs.getLong("total")});
+                }
             }
         } catch (SQLException e) {
-            System.err.println("Erro ao buscar produto com mais saída: " + e.getMessage());
+            System.err.println("Erro ao listar ranking de movimentações: " + e.getMessage());
         }
-        return new String[]{"Nenhum", "0"};
+        return lista;
     }
     
     /**
      * Registra uma movimentação e atualiza automaticamente o saldo do produto no estoque.
      * Realiza as operações em uma transação para garantir consistência dos dados.
-     * Verifica e alerta sobre quantidades abaixo do mínimo ou acima do máximo.
+     * A saída só é aplicada se o saldo for suficiente: a condição faz parte do
+     * próprio UPDATE, de modo que saídas concorrentes nunca deixam o saldo negativo.
+     * Os alertas de quantidade mínima/máxima e a auditoria são avaliados após o
+     * commit, de forma assíncrona, pelo {@link PipelineMovimentacoes}.
      * 
      * @param registro Registro de movimentação a ser salvo
      * @param produtoDAO DAO de produtos para consultas
-     * @return true se o registro e atualização foram bem-sucedidos, false caso contrário
+     * @return Resultado da movimentação: {@link ResultadoMovimentacao#ESTOQUE_INSUFICIENTE}
+     * se a saída for maior que o saldo e {@link ResultadoMovimentacao#DADOS_INVALIDOS}
+     * se o tipo for desconhecido ou a quantidade não for positiva
      */
-    public boolean registrarMovimentacaoEAtualizarSaldo(RegistroMovimentacao registro, ProdutoDAO produtoDAO) {
+    public ResultadoMovimentacao registrarMovimentacaoEAtualizarSaldo(RegistroMovimentacao registro, ProdutoRepositorio produtoDAO) {
+        ResultadoMovimentacao invalido = validar(0, registro);
+        if (invalido != null) {
+            return invalido;
+        }
+        boolean entrada = sinalMovimentacao(registro.getTipoMovimentacao()) > 0;
         Conexao conexao = new Conexao();
         Connection conn = null;
         
@@ -202,48 +517,56 @@ public class RegistroMovimentacaoDAO {
             conn = conexao.conectar();
             conn.setAutoCommit(false);
             
-            // 1. Registrar a movimentação
-            String sqlMovimentacao = "INSERT INTO registro_movimentacao (produto_id, tipo_movimentacao, quantidade, observacao, data_movimentacao) VALUES (?, ?, ?, ?, ?)";
-            try (PreparedStatement stMov = conn.prepareStatement(sqlMovimentacao)) {
-                stMov.setInt(1, registro.getProdutoId());
-                stMov.setString(2, registro.getTipoMovimentacao());
-                stMov.setInt(3, registro.getQuantidade());
-                stMov.setString(4, registro.getObservacao());
-                stMov.setDate(5, java.sql.Date.valueOf(LocalDate.now()));
-                stMov.execute();
-            }
-            
-            // 2. Atualizar saldo do produto
+            // 1. Atualizar saldo do produto, exigindo saldo suficiente nas saídas
             String sqlUpdateProduto;
-            if ("Entrada".equalsIgnoreCase(registro.getTipoMovimentacao())) {
-                sqlUpdateProduto = "UPDATE produto SET quantidade = quantidade + ? WHERE id = ?";
+            if (entrada) {
+                sqlUpdateProduto = "UPDATE produto SET quantidade = quantidade + ?, versao = versao + 1 WHERE id = ?";
             } else { // Saída
-                sqlUpdateProduto = "UPDATE produto SET quantidade = quantidade - ? WHERE id = ?";
+                sqlUpdateProduto = "UPDATE produto SET quantidade = quantidade - ?, versao = versao + 1 WHERE id = ? AND quantidade >= ?";
             }
             
             try (PreparedStatement stUpdate = conn.prepareStatement(sqlUpdateProduto)) {
                 stUpdate.setInt(1, registro.getQuantidade());
                 stUpdate.setInt(2, registro.getProdutoId());
+                if (!entrada) {
+                    stUpdate.setInt(3, registro.getQuantidade());
+                }
                 int linhasAfetadas = stUpdate.executeUpdate();
                 
                 if (linhasAfetadas == 0) {
                     conn.rollback();
-                    return false;
+                    String status = produtoExiste(conn, registro.getProdutoId())
+                            ? ResultadoMovimentacao.ESTOQUE_INSUFICIENTE : ResultadoMovimentacao.PRODUTO_INEXISTENTE;
+                    return resultado(0, registro.getProdutoId(), status);
                 }
             }
             
-            // 3. Verificar e avisar sobre quantidade mínima/máxima
-            Produto produto = produtoDAO.ProcurarProdutoID(registro.getProdutoId());
-            if (produto != null && produto.getId() != 0) {
-                if ("Saída".equalsIgnoreCase(registro.getTipoMovimentacao()) && produto.getQuantidade() < produto.getMin()) {
-                    System.out.println("⚠️ AVISO: Produto " + produto.getNome() + " está abaixo da quantidade mínima! Quantidade atual: " + produto.getQuantidade() + " | Mínima: " + produto.getMin());
-                } else if ("Entrada".equalsIgnoreCase(registro.getTipoMovimentacao()) && produto.getQuantidade() > produto.getMax()) {
-                    System.out.println("⚠️ AVISO: Produto " + produto.getNome() + " está acima da quantidade máxima! Quantidade atual: " + produto.getQuantidade() + " | Máxima: " + produto.getMax());
-                }
+            // 2. Registrar a movimentação
+            String sqlMovimentacao = "INSERT INTO registro_movimentacao (produto_id, tipo_movimentacao, quantidade, observacao, data_movimentacao) VALUES (?, ?, ?, ?, ?)";
+            LocalDate hoje = LocalDate.now();
+            long idMovimentacao = 0;
+            try (PreparedStatement stMov = conn.prepareStatement(sqlMovimentacao, Statement.RETURN_GENERATED_KEYS)) {
+                stMov.setInt(1, registro.getProdutoId());
+                stMov.setString(2, registro.getTipoMovimentacao());
+                stMov.setInt(3, registro.getQuantidade());
+                stMov.setString(4, registro.getObservacao());
+                stMov.setDate(5, java.sql.Date.valueOf(hoje));
+                stMov.execute();
+                idMovimentacao = lerChavesGeradas(stMov, 1).get(0);
             }
+
+            // 3. Ler o produto gravado, ainda travado pelo UPDATE desta transação
+            List<Produto> gravados = ProdutoDAO.lerProdutos(conn, Collections.singletonList(registro.getProdutoId()));
             
             conn.commit();
-            return true;
+            fecharConexao(conn);
+            conn = null;
+            produtoDAO.notificarMovimentados(gravados);
+            ranking.registrar(idMovimentacao, registro.getProdutoId(),
+                    sinalMovimentacao(registro.getTipoMovimentacao()), registro.getQuantidade(), hoje);
+            // auditoria e alertas de estoque são tratados fora da transação e da requisição
+            publicarComSaldo(registro, idMovimentacao, gravados.isEmpty() ? null : gravados.get(0), produtoDAO);
+            return resultado(0, registro.getProdutoId(), ResultadoMovimentacao.SUCESSO);
             
         } catch (SQLException e) {
             if (conn != null) {
@@ -254,16 +577,312 @@ public class RegistroMovimentacaoDAO {
                 }
             }
             System.err.println("Erro ao registrar movimentação e atualizar saldo: " + e.getMessage());
-            return false;
+            return new ResultadoMovimentacao(0, registro.getProdutoId(), ResultadoMovimentacao.ERRO,
+                    "Movimentação não gravada: " + e.getMessage());
         } finally {
+            if (conn != null) {
+                fecharConexao(conn);
+            }
+        }
+    }
+
+    /**
+     * Indica se o produto existe, usando a conexão informada.
+     * 
+     * @param conn Conexão aberta
+     * @param produtoId ID do produto
+     * @return true se o produto está cadastrado
+     * @throws SQLException Se ocorrer erro na operação de banco de dados
+     */
+    private static boolean produtoExiste(Connection conn, int produtoId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT 1 FROM produto WHERE id = ?")) {
+            stmt.setInt(1, produtoId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    /**
+     * Cria o resultado de uma movimentação com a mensagem padrão do status.
+     * 
+     * @param indice Posição da movimentação na lista enviada
+     * @param produtoId ID do produto
+     * @param status {@link ResultadoMovimentacao#SUCESSO}, {@link ResultadoMovimentacao#PRODUTO_INEXISTENTE}
+     * ou {@link ResultadoMovimentacao#ESTOQUE_INSUFICIENTE}
+     * @return Resultado da movimentação
+     */
+    static ResultadoMovimentacao resultado(int indice, int produtoId, String status) {
+        String mensagem;
+        if (ResultadoMovimentacao.SUCESSO.equals(status)) {
+            mensagem = "Movimentação registrada";
+        } else if (ResultadoMovimentacao.ESTOQUE_INSUFICIENTE.equals(status)) {
+            mensagem = "Estoque insuficiente para o produto: " + produtoId;
+        } else {
+            mensagem = "Produto não encontrado: " + produtoId;
+        }
+        return new ResultadoMovimentacao(indice, produtoId, status, mensagem);
+    }
+
+    /**
+     * Restaura o autocommit e devolve a conexão de uma transação ao pool.
+     * 
+     * @param conn Conexão a fechar
+     */
+    private static void fecharConexao(Connection conn) {
+        try {
+            conn.setAutoCommit(true);
+            conn.close();
+        } catch (SQLException e) {
+            System.err.println("Erro ao fechar conexão: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Valida os dados de uma movimentação antes de qualquer alteração de saldo:
+     * o tipo deve ser entrada ou saída, a quantidade, maior que zero, e a
+     * observação deve caber na coluna. Sem essa verificação, uma saída com
+     * quantidade negativa aumentaria o saldo sem passar pela exigência de saldo
+     * suficiente.
+     * 
+     * @param indice Posição da movimentação na lista enviada
+     * @param registro Movimentação a validar
+     * @return Resultado {@link ResultadoMovimentacao#DADOS_INVALIDOS} com o motivo,
+     * ou null se a movimentação for válida
+     */
+    static ResultadoMovimentacao validar(int indice, RegistroMovimentacao registro) {
+        if (registro == null) {
+            return new ResultadoMovimentacao(indice, 0, ResultadoMovimentacao.DADOS_INVALIDOS, "Movimentação nula");
+        }
+        if (sinalMovimentacao(registro.getTipoMovimentacao()) == 0) {
+            return new ResultadoMovimentacao(indice, registro.getProdutoId(), ResultadoMovimentacao.DADOS_INVALIDOS,
+                    "Tipo de movimentação inválido: " + registro.getTipoMovimentacao());
+        }
+        if (registro.getQuantidade() <= 0) {
+            return new ResultadoMovimentacao(indice, registro.getProdutoId(), ResultadoMovimentacao.DADOS_INVALIDOS,
+                    "Quantidade deve ser maior que zero");
+        }
+        if (registro.getObservacao() != null && registro.getObservacao().length() > TAMANHO_MAXIMO_OBSERVACAO) {
+            return new ResultadoMovimentacao(indice, registro.getProdutoId(), ResultadoMovimentacao.DADOS_INVALIDOS,
+                    "Observação deve ter no máximo " + TAMANHO_MAXIMO_OBSERVACAO + " caracteres");
+        }
+        return null;
+    }
+
+    /**
+     * Registra várias movimentações e atualiza os saldos dos produtos em uma única transação.
+     * Os produtos envolvidos são lidos com SELECT ... FOR UPDATE, em
+     * ordem de ID para evitar deadlocks entre lotes concorrentes, e as
+     * movimentações são aplicadas sobre eles na ordem da lista: uma saída maior
+     * que o saldo naquele ponto é recusada sem impedir as demais. As variações
+     * aceitas do mesmo produto são somadas em uma única atualização, e as
+     * inserções e atualizações são enviadas ao banco em lote.
+     * Movimentações com dados inválidos ou de produtos inexistentes são recusadas
+     * individualmente sem impedir o registro das demais.
+     * 
+     * @param registros Movimentações a serem registradas
+     * @param produtoDAO DAO de produtos, notificado após a gravação com os
+     *                   produtos lidos somados às variações, sem nova consulta
+     * @return Resultado de cada movimentação, na mesma ordem da lista recebida
+     */
+    public List<ResultadoMovimentacao> registrarMovimentacoesEmLote(List<RegistroMovimentacao> registros, ProdutoRepositorio produtoDAO) {
+        List<ResultadoMovimentacao> resultados = new ArrayList<>(registros.size());
+        Set<Integer> produtosEnvolvidos = new TreeSet<>();
+
+        // 1. Validar os dados de cada movimentação
+        for (int i = 0; i < registros.size(); i++) {
+            RegistroMovimentacao registro = registros.get(i);
+            ResultadoMovimentacao invalido = validar(i, registro);
+            if (invalido != null) {
+                resultados.add(invalido);
+            } else {
+                resultados.add(resultado(i, registro.getProdutoId(), ResultadoMovimentacao.SUCESSO));
+                produtosEnvolvidos.add(registro.getProdutoId());
+            }
+        }
+
+        if (produtosEnvolvidos.isEmpty()) {
+            return resultados;
+        }
+
+        Conexao conexao = new Conexao();
+        Connection conn = null;
+
+        try {
+            conn = conexao.conectar();
+            conn.setAutoCommit(false);
+
+            // 2. Travar e ler os produtos envolvidos, em ordem de ID
+            Map<Integer, Produto> travados = new TreeMap<>();
+            Map<Integer, Integer> saldos = new TreeMap<>();
+            StringBuilder sqlSaldos = new StringBuilder("SELECT * FROM produto WHERE id IN (");
+            for (int i = 0; i < produtosEnvolvidos.size(); i++) {
+                sqlSaldos.append(i == 0 ? "?" : ", ?");
+            }
+            sqlSaldos.append(") ORDER BY id FOR UPDATE");
+            try (PreparedStatement stSaldos = conn.prepareStatement(sqlSaldos.toString())) {
+                int p = 1;
+                for (int id : produtosEnvolvidos) {
+                    stSaldos.setInt(p++, id);
+                }
+                try (ResultSet rs = stSaldos.executeQuery()) {
+                    while (rs.next()) {
+                        Produto produto = ProdutoDAO.mapearProduto(rs);
+                        travados.put(produto.getId(), produto);
+                        saldos.put(produto.getId(), produto.getQuantidade());
+                    }
+                }
+            }
+
+            // 3. Aplicar as movimentações na ordem da lista e somar as variações aceitas
+            Map<Integer, Integer> deltaPorProduto = new TreeMap<>();
+            for (ResultadoMovimentacao resultado : resultados) {
+                if (!resultado.isSucesso()) {
+                    continue;
+                }
+                RegistroMovimentacao registro = registros.get(resultado.getIndice());
+                Integer saldo = saldos.get(registro.getProdutoId());
+                int delta = sinalMovimentacao(registro.getTipoMovimentacao()) * registro.getQuantidade();
+                if (saldo == null) {
+                    resultados.set(resultado.getIndice(),
+                            resultado(resultado.getIndice(), registro.getProdutoId(), ResultadoMovimentacao.PRODUTO_INEXISTENTE));
+                } else if (saldo + delta < 0) {
+                    resultados.set(resultado.getIndice(),
+                            resultado(resultado.getIndice(), registro.getProdutoId(), ResultadoMovimentacao.ESTOQUE_INSUFICIENTE));
+                } else {
+                    saldos.put(registro.getProdutoId(), saldo + delta);
+                    deltaPorProduto.merge(registro.getProdutoId(), delta, Integer::sum);
+                }
+            }
+
+            // 4. Atualizar os saldos em lote, uma atualização por produto
+            if (!deltaPorProduto.isEmpty()) {
+                String sqlUpdateProduto = "UPDATE produto SET quantidade = quantidade + ?, versao = versao + 1 WHERE id = ?";
+                try (PreparedStatement stUpdate = conn.prepareStatement(sqlUpdateProduto)) {
+                    for (Map.Entry<Integer, Integer> delta : deltaPorProduto.entrySet()) {
+                        stUpdate.setInt(1, delta.getValue());
+                        stUpdate.setInt(2, delta.getKey());
+                        stUpdate.addBatch();
+                    }
+                    stUpdate.executeBatch();
+                }
+            }
+
+            // 5. Registrar as movimentações aceitas em lote
+            String sqlMovimentacao = "INSERT INTO registro_movimentacao (produto_id, tipo_movimentacao, quantidade, observacao, data_movimentacao) VALUES (?, ?, ?, ?, ?)";
+            LocalDate hoje = LocalDate.now();
+            List<RegistroMovimentacao> aceitos = new ArrayList<>();
+            List<Long> idsGerados = new ArrayList<>();
+            try (PreparedStatement stMov = conn.prepareStatement(sqlMovimentacao, Statement.RETURN_GENERATED_KEYS)) {
+                for (ResultadoMovimentacao resultado : resultados) {
+                    if (!resultado.isSucesso()) {
+                        continue;
+                    }
+                    RegistroMovimentacao registro = registros.get(resultado.getIndice());
+                    stMov.setInt(1, registro.getProdutoId());
+                    stMov.setString(2, registro.getTipoMovimentacao());
+                    stMov.setInt(3, registro.getQuantidade());
+                    stMov.setString(4, registro.getObservacao());
+                    stMov.setDate(5, java.sql.Date.valueOf(hoje));
+                    stMov.addBatch();
+                    aceitos.add(registro);
+                }
+                if (!aceitos.isEmpty()) {
+                    stMov.executeBatch();
+                    idsGerados.addAll(lerChavesGeradas(stMov, aceitos.size()));
+                }
+            }
+
+            conn.commit();
+            fecharConexao(conn);
+            conn = null;
+            // os produtos estavam travados desde a leitura: o estado gravado é o lido mais a variação
+            List<Produto> gravados = new ArrayList<>(deltaPorProduto.size());
+            for (Map.Entry<Integer, Integer> delta : deltaPorProduto.entrySet()) {
+                Produto lido = travados.get(delta.getKey());
+                gravados.add(new Produto(lido.getId(), lido.getNome(), lido.getUnidade(), lido.getPreco(),
+                        lido.getQuantidade() + delta.getValue(), lido.getMin(), lido.getMax(),
+                        lido.getCategoria(), lido.getVersao() + 1));
+            }
+            produtoDAO.notificarMovimentados(gravados);
+            Map<Integer, Produto> gravadoPorId = new HashMap<>();
+            for (Produto gravado : gravados) {
+                gravadoPorId.put(gravado.getId(), gravado);
+            }
+            for (int i = 0; i < aceitos.size(); i++) {
+                RegistroMovimentacao registro = aceitos.get(i);
+                ranking.registrar(idsGerados.get(i), registro.getProdutoId(),
+                        sinalMovimentacao(registro.getTipoMovimentacao()), registro.getQuantidade(), hoje);
+                publicarComSaldo(registro, idsGerados.get(i), gravadoPorId.get(registro.getProdutoId()), produtoDAO);
+            }
+            return resultados;
+
+        } catch (SQLException e) {
             if (conn != null) {
                 try {
-                    conn.setAutoCommit(true);
-                    conn.close();
-                } catch (SQLException e) {
-                    System.err.println("Erro ao fechar conexão: " + e.getMessage());
+                    conn.rollback();
+                } catch (SQLException rollbackEx) {
+                    System.err.println("Erro ao fazer rollback: " + rollbackEx.getMessage());
+                }
+            }
+            System.err.println("Erro ao registrar lote de movimentações: " + e.getMessage());
+            for (ResultadoMovimentacao resultado : resultados) {
+                String status = resultado.getStatus();
+                if (resultado.isSucesso() || ResultadoMovimentacao.PRODUTO_INEXISTENTE.equals(status)
+                        || ResultadoMovimentacao.ESTOQUE_INSUFICIENTE.equals(status)) {
+                    resultado.setStatus(ResultadoMovimentacao.ERRO);
+                    resultado.setMensagem("Lote não gravado: " + e.getMessage());
                 }
             }
+            return resultados;
+        } finally {
+            if (conn != null) {
+                fecharConexao(conn);
+            }
+        }
+    }
+
+    /**
+     * Publica uma movimentação que alterou o saldo na fila de auditoria, com o
+     * produto gravado, para que os limites de estoque sejam avaliados pela thread
+     * consumidora. Com a fila cheia, os limites são avaliados nesta thread, para
+     * não perder a mudança de situação do produto.
+     *
+     * @param registro Movimentação gravada
+     * @param idMovimentacao ID gerado para a movimentação
+     * @param gravado Produto com o saldo gravado, ou null se desconhecido
+     * @param produtoDAO Repositório de produtos, dono do monitor de estoque
+     */
+    private void publicarComSaldo(RegistroMovimentacao registro, long idMovimentacao, Produto gravado,
+            ProdutoRepositorio produtoDAO) {
+        MonitorEstoque monitor = produtoDAO.getMonitorEstoque();
+        if (!pipeline.publicar(registro, idMovimentacao, gravado, monitor) && gravado != null) {
+            monitor.saldoAlterado(gravado);
+        }
+    }
+
+    /**
+     * Retorna a fila assíncrona de auditoria das movimentações.
+     *
+     * @return Pipeline de movimentações
+     */
+    public PipelineMovimentacoes getPipeline() {
+        return pipeline;
+    }
+
+    /**
+     * Retorna o sinal da variação de saldo de um tipo de movimentação.
+     * 
+     * @param tipoMovimentacao Tipo de movimentação (Entrada ou Saída)
+     * @return 1 para entrada, -1 para saída ou 0 se o tipo for inválido
+     */
+    static int sinalMovimentacao(String tipoMovimentacao) {
+        if ("Entrada".equalsIgnoreCase(tipoMovimentacao)) {
+            return 1;
+        }
+        if ("Saída".equalsIgnoreCase(tipoMovimentacao) || "Saida".equalsIgnoreCase(tipoMovimentacao)) {
+            return -1;
         }
+        return 0;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,147 @@
+package dao;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Fotografia binária dos saldos do estoque em um ponto do histórico de movimentações.
+ * Guarda o ID da última movimentação incluída e a quantidade de cada produto;
+ * os saldos atuais são obtidos aplicando a ela as movimentações seguintes.
+ *
+ * Formato: número mágico, versão, último ID, quantidade de produtos, pares
+ * (ID, saldo) e o CRC32 de tudo o que vem antes. O arquivo é gravado em um
+ * temporário e movido para o lugar do anterior, de modo que uma falha durante a
+ * gravação nunca deixa uma fotografia parcial.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+public class SnapshotSaldos {
+
+    /**
+     * Número mágico que identifica o arquivo ("ESTQ").
+     */
+    private static final int MAGICO = 0x45535451;
+
+    /**
+     * Versão do formato do arquivo.
+     */
+    private static final int VERSAO = 1;
+
+    /**
+     * ID da última movimentação incluída nos saldos.
+     */
+    private final long ultimaMovimentacao;
+
+    /**
+     * Saldo por ID do produto.
+     */
+    private final Map<Integer, Integer> saldos;
+
+    /**
+     * Construtor da fotografia.
+     *
+     * @param ultimaMovimentacao ID da última movimentação incluída nos saldos
+     * @param saldos Saldo por ID do produto
+     */
+    public SnapshotSaldos(long ultimaMovimentacao, Map<Integer, Integer> saldos) {
+        this.ultimaMovimentacao = ultimaMovimentacao;
+        this.saldos = saldos;
+    }
+
+    /**
+     * Grava a fotografia no arquivo informado, substituindo a anterior.
+     *
+     * @param arquivo Caminho do arquivo
+     * @throws IOException Se não for possível gravar o arquivo
+     */
+    public void gravar(Path arquivo) throws IOException {
+        Path pasta = arquivo.toAbsolutePath().getParent();
+        Files.createDirectories(pasta);
+        Path temporario = pasta.resolve(arquivo.getFileName() + ".tmp");
+        try (FileOutputStream arquivoSaida = new FileOutputStream(temporario.toFile())) {
+            CheckedOutputStream verificado = new CheckedOutputStream(new BufferedOutputStream(arquivoSaida), new CRC32());
+            DataOutputStream saida = new DataOutputStream(verificado);
+            saida.writeInt(MAGICO);
+            saida.writeInt(VERSAO);
+            saida.writeLong(ultimaMovimentacao);
+            saida.writeInt(saldos.size());
+            for (Map.Entry<Integer, Integer> saldo : saldos.entrySet()) {
+                saida.writeInt(saldo.getKey());
+                saida.writeInt(saldo.getValue());
+            }
+            saida.flush();
+            new DataOutputStream(arquivoSaida).writeLong(verificado.getChecksum().getValue());
+            arquivoSaida.getFD().sync();
+        }
+        Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Lê a fotografia do arquivo informado.
+     *
+     * @param arquivo Caminho do arquivo
+     * @return Fotografia lida, ou null se o arquivo não existir
+     * @throws IOException Se o arquivo estiver corrompido ou não puder ser lido
+     */
+    public static SnapshotSaldos ler(Path arquivo) throws IOException {
+        if (!Files.exists(arquivo)) {
+            return null;
+        }
+        try (CheckedInputStream verificado = new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(arquivo)), new CRC32())) {
+            DataInputStream entrada = new DataInputStream(verificado);
+            if (entrada.readInt() != MAGICO) {
+                throw new IOException("arquivo não é uma fotografia de saldos");
+            }
+            int versao = entrada.readInt();
+            if (versao != VERSAO) {
+                throw new IOException("versão de fotografia não suportada: " + versao);
+            }
+            long ultimaMovimentacao = entrada.readLong();
+            int quantidade = entrada.readInt();
+            if (quantidade < 0) {
+                throw new IOException("quantidade de produtos inválida: " + quantidade);
+            }
+            Map<Integer, Integer> saldos = new HashMap<>(quantidade * 2);
+            for (int i = 0; i < quantidade; i++) {
+                saldos.put(entrada.readInt(), entrada.readInt());
+            }
+            long calculado = verificado.getChecksum().getValue();
+            if (new DataInputStream(verificado).readLong() != calculado) {
+                throw new IOException("CRC da fotografia não confere");
+            }
+            return new SnapshotSaldos(ultimaMovimentacao, saldos);
+        }
+    }
+
+    /**
+     * Retorna o ID da última movimentação incluída nos saldos.
+     *
+     * @return ID da movimentação
+     */
+    public long getUltimaMovimentacao() {
+        return ultimaMovimentacao;
+    }
+
+    /**
+     * Retorna o saldo por ID do produto.
+     *
+     * @return Saldos
+     */
+    public Map<Integer, Integer> getSaldos() {
+        return saldos;
+    }
+}
@@ -0,0 +1,93 @@
+package dao;
+
+import java.util.Collection;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Travas por produto distribuídas em listras: cada ID de produto é associado a
+ * uma de um número fixo de travas, de modo que movimentações de produtos
+ * diferentes quase nunca disputam a mesma trava e a memória não cresce com o
+ * catálogo. Vários produtos são travados sempre em ordem crescente de listra,
+ * o que evita deadlocks entre lotes concorrentes.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+public class TravasProdutos {
+
+    /**
+     * Travas das listras.
+     */
+    private final ReentrantLock[] listras;
+
+    /**
+     * Construtor das travas.
+     *
+     * @param quantidade Quantidade de listras, arredondada para a potência de 2 seguinte
+     */
+    public TravasProdutos(int quantidade) {
+        int tamanho = Integer.highestOneBit(Math.max(1, quantidade - 1)) << 1;
+        listras = new ReentrantLock[Math.max(1, tamanho)];
+        for (int i = 0; i < listras.length; i++) {
+            listras[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Retorna a listra de um produto, espalhando IDs consecutivos entre as listras.
+     *
+     * @param produtoId ID do produto
+     * @return Índice da listra
+     */
+    private int listra(int produtoId) {
+        int h = produtoId * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (listras.length - 1);
+    }
+
+    /**
+     * Trava o produto informado.
+     *
+     * @param produtoId ID do produto
+     */
+    public void travar(int produtoId) {
+        listras[listra(produtoId)].lock();
+    }
+
+    /**
+     * Destrava o produto informado.
+     *
+     * @param produtoId ID do produto
+     */
+    public void destravar(int produtoId) {
+        listras[listra(produtoId)].unlock();
+    }
+
+    /**
+     * Trava todos os produtos informados, em ordem crescente de listra.
+     *
+     * @param produtoIds IDs dos produtos
+     * @return Listras travadas, a serem informadas em {@link #destravar(Collection)}
+     */
+    public Collection<Integer> travar(Collection<Integer> produtoIds) {
+        TreeSet<Integer> travadas = new TreeSet<>();
+        for (int id : produtoIds) {
+            travadas.add(listra(id));
+        }
+        for (int i : travadas) {
+            listras[i].lock();
+        }
+        return travadas;
+    }
+
+    /**
+     * Destrava as listras retornadas por {@link #travar(Collection)}.
+     *
+     * @param travadas Listras travadas
+     */
+    public void destravar(Collection<Integer> travadas) {
+        for (int i : travadas) {
+            listras[i].unlock();
+        }
+    }
+}
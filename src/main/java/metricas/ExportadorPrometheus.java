@@ -0,0 +1,109 @@
+package metricas;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exportação das métricas no formato de texto do Prometheus.
+ * As métricas podem ser gravadas periodicamente em um arquivo local (lido,
+ * por exemplo, pelo textfile collector do node_exporter) e/ou servidas por
+ * HTTP em uma porta local no caminho /metrics.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+public class ExportadorPrometheus {
+
+    /**
+     * Registro de métricas exportado.
+     */
+    private final RegistroMetricas registro;
+
+    /**
+     * Agendador da gravação do arquivo, ou null se desativada.
+     */
+    private ScheduledExecutorService agendador;
+
+    /**
+     * Servidor HTTP, ou null se desativado.
+     */
+    private HttpServer servidor;
+
+    /**
+     * Construtor do exportador.
+     *
+     * @param registro Registro de métricas exportado
+     */
+    public ExportadorPrometheus(RegistroMetricas registro) {
+        this.registro = registro;
+    }
+
+    /**
+     * Inicia a gravação periódica das métricas em um arquivo. O arquivo é
+     * substituído de forma atômica, para que nunca seja lido pela metade.
+     *
+     * @param arquivo Caminho do arquivo
+     * @param intervaloSeg Intervalo entre gravações, em segundos
+     */
+    public synchronized void iniciarArquivo(String arquivo, int intervaloSeg) {
+        Path destino = Paths.get(arquivo).toAbsolutePath();
+        Path temporario = destino.resolveSibling(destino.getFileName() + ".tmp");
+        agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metricas-prometheus-arquivo");
+            t.setDaemon(true);
+            return t;
+        });
+        agendador.scheduleWithFixedDelay(() -> {
+            try {
+                Files.write(temporario, registro.gerarTextoPrometheus().getBytes(StandardCharsets.UTF_8));
+                Files.move(temporario, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                System.err.println("Erro ao gravar métricas em " + destino + ": " + e.getMessage());
+            }
+        }, intervaloSeg, Math.max(1, intervaloSeg), TimeUnit.SECONDS);
+    }
+
+    /**
+     * Inicia o servidor HTTP das métricas, aceitando apenas conexões locais.
+     *
+     * @param porta Porta do servidor
+     * @throws IOException Se a porta não puder ser aberta
+     */
+    public synchronized void iniciarPorta(int porta) throws IOException {
+        servidor = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), porta), 0);
+        servidor.createContext("/metrics", troca -> {
+            byte[] corpo = registro.gerarTextoPrometheus().getBytes(StandardCharsets.UTF_8);
+            troca.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            troca.sendResponseHeaders(200, corpo.length);
+            try (OutputStream saida = troca.getResponseBody()) {
+                saida.write(corpo);
+            }
+        });
+        servidor.start();
+    }
+
+    /**
+     * Encerra a gravação do arquivo e o servidor HTTP.
+     */
+    public synchronized void encerrar() {
+        if (agendador != null) {
+            agendador.shutdownNow();
+            agendador = null;
+        }
+        if (servidor != null) {
+            servidor.stop(0);
+            servidor = null;
+        }
+    }
+}
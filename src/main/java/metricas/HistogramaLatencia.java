@@ -0,0 +1,162 @@
+package metricas;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latências com faixas em escala logarítmica.
+ * Cada potência de 2 (em nanossegundos) é dividida em 8 faixas iguais, o que
+ * limita o erro dos percentis a 12,5% com 504 contadores fixos. O registro não
+ * usa travas: apenas incrementos atômicos no contador da faixa.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+public class HistogramaLatencia {
+
+    /**
+     * Bits de subdivisão de cada potência de 2 (8 faixas).
+     */
+    private static final int BITS_SUBFAIXA = 3;
+
+    /**
+     * Quantidade de faixas por potência de 2.
+     */
+    private static final int SUBFAIXAS = 1 << BITS_SUBFAIXA;
+
+    /**
+     * Quantidade total de faixas, suficiente para qualquer long positivo.
+     */
+    private static final int QUANTIDADE_FAIXAS = (64 - BITS_SUBFAIXA) * SUBFAIXAS;
+
+    /**
+     * Contadores de cada faixa.
+     */
+    private final AtomicLongArray faixas = new AtomicLongArray(QUANTIDADE_FAIXAS);
+
+    /**
+     * Quantidade de valores registrados.
+     */
+    private final LongAdder quantidade = new LongAdder();
+
+    /**
+     * Soma dos valores registrados, em nanossegundos.
+     */
+    private final LongAdder soma = new LongAdder();
+
+    /**
+     * Maior valor registrado, em nanossegundos.
+     */
+    private final LongAccumulator maximo = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Calcula a faixa de um valor.
+     *
+     * @param valor Valor em nanossegundos (não negativo)
+     * @return Índice da faixa
+     */
+    static int faixa(long valor) {
+        if (valor < SUBFAIXAS) {
+            return (int) valor;
+        }
+        int expoente = 63 - Long.numberOfLeadingZeros(valor);
+        int subfaixa = (int) (valor >>> (expoente - BITS_SUBFAIXA)) & (SUBFAIXAS - 1);
+        return (expoente - BITS_SUBFAIXA + 1) * SUBFAIXAS + subfaixa;
+    }
+
+    /**
+     * Calcula o maior valor que cai em uma faixa.
+     *
+     * @param faixa Índice da faixa
+     * @return Limite superior da faixa, em nanossegundos
+     */
+    static long limiteSuperior(int faixa) {
+        if (faixa < SUBFAIXAS) {
+            return faixa;
+        }
+        int expoente = faixa / SUBFAIXAS + BITS_SUBFAIXA - 1;
+        long subfaixa = faixa % SUBFAIXAS;
+        long inicio = (SUBFAIXAS + subfaixa) << (expoente - BITS_SUBFAIXA);
+        long largura = 1L << (expoente - BITS_SUBFAIXA);
+        return inicio + largura - 1;
+    }
+
+    /**
+     * Registra uma latência.
+     *
+     * @param nanos Latência em nanossegundos
+     */
+    public void registrar(long nanos) {
+        long valor = Math.max(0, nanos);
+        faixas.incrementAndGet(faixa(valor));
+        quantidade.increment();
+        soma.add(valor);
+        maximo.accumulate(valor);
+    }
+
+    /**
+     * Calcula um percentil das latências registradas. O resultado é o limite
+     * superior da faixa que contém o percentil, limitado ao maior valor registrado.
+     *
+     * @param percentil Percentil entre 0 e 1 (por exemplo 0.99)
+     * @return Latência em nanossegundos, ou 0 se nada foi registrado
+     */
+    public long percentil(double percentil) {
+        long[] copia = new long[QUANTIDADE_FAIXAS];
+        long total = 0;
+        for (int i = 0; i < QUANTIDADE_FAIXAS; i++) {
+            copia[i] = faixas.get(i);
+            total += copia[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long posicao = Math.max(1, (long) Math.ceil(Math.min(1.0, Math.max(0.0, percentil)) * total));
+        long acumulado = 0;
+        for (int i = 0; i < QUANTIDADE_FAIXAS; i++) {
+            acumulado += copia[i];
+            if (acumulado >= posicao) {
+                return Math.min(limiteSuperior(i), getMaximo());
+            }
+        }
+        return getMaximo();
+    }
+
+    /**
+     * Retorna a quantidade de valores registrados.
+     *
+     * @return Quantidade
+     */
+    public long getQuantidade() {
+        return quantidade.sum();
+    }
+
+    /**
+     * Retorna a soma dos valores registrados.
+     *
+     * @return Soma em nanossegundos
+     */
+    public long getSoma() {
+        return soma.sum();
+    }
+
+    /**
+     * Retorna o maior valor registrado.
+     *
+     * @return Máximo em nanossegundos
+     */
+    public long getMaximo() {
+        return maximo.get();
+    }
+
+    /**
+     * Retorna a média dos valores registrados.
+     *
+     * @return Média em nanossegundos
+     */
+    public double getMedia() {
+        long n = getQuantidade();
+        return n == 0 ? 0.0 : (double) getSoma() / n;
+    }
+}
@@ -0,0 +1,134 @@
+package metricas;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas de uma operação (método remoto ou consulta SQL): quantidade de
+ * chamadas, de erros, de chamadas em andamento e o histograma de latências.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+public class MetricaOperacao {
+
+    /**
+     * Família da operação (por exemplo "servico" ou "sql").
+     */
+    private final String familia;
+
+    /**
+     * Nome da operação.
+     */
+    private final String nome;
+
+    /**
+     * Quantidade de chamadas concluídas.
+     */
+    private final LongAdder chamadas = new LongAdder();
+
+    /**
+     * Quantidade de chamadas concluídas com erro.
+     */
+    private final LongAdder erros = new LongAdder();
+
+    /**
+     * Quantidade de chamadas em andamento.
+     */
+    private final AtomicInteger emAndamento = new AtomicInteger();
+
+    /**
+     * Latências das chamadas concluídas.
+     */
+    private final HistogramaLatencia latencias = new HistogramaLatencia();
+
+    /**
+     * Construtor da métrica.
+     *
+     * @param familia Família da operação
+     * @param nome Nome da operação
+     */
+    MetricaOperacao(String familia, String nome) {
+        this.familia = familia;
+        this.nome = nome;
+    }
+
+    /**
+     * Marca o início de uma chamada.
+     *
+     * @return Instante de início, a ser informado em {@link #encerrar(long, boolean)}
+     */
+    public long iniciar() {
+        emAndamento.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    /**
+     * Marca o fim de uma chamada.
+     *
+     * @param inicio Instante retornado por {@link #iniciar()}
+     * @param erro true se a chamada terminou com erro
+     */
+    public void encerrar(long inicio, boolean erro) {
+        latencias.registrar(System.nanoTime() - inicio);
+        emAndamento.decrementAndGet();
+        chamadas.increment();
+        if (erro) {
+            erros.increment();
+        }
+    }
+
+    /**
+     * Retorna a família da operação.
+     *
+     * @return Família
+     */
+    public String getFamilia() {
+        return familia;
+    }
+
+    /**
+     * Retorna o nome da operação.
+     *
+     * @return Nome
+     */
+    public String getNome() {
+        return nome;
+    }
+
+    /**
+     * Retorna a quantidade de chamadas concluídas.
+     *
+     * @return Chamadas
+     */
+    public long getChamadas() {
+        return chamadas.sum();
+    }
+
+    /**
+     * Retorna a quantidade de chamadas com erro.
+     *
+     * @return Erros
+     */
+    public long getErros() {
+        return erros.sum();
+    }
+
+    /**
+     * Retorna a quantidade de chamadas em andamento.
+     *
+     * @return Chamadas em andamento
+     */
+    public int getEmAndamento() {
+        return emAndamento.get();
+    }
+
+    /**
+     * Retorna o histograma de latências.
+     *
+     * @return Histograma
+     */
+    public HistogramaLatencia getLatencias() {
+        return latencias;
+    }
+}
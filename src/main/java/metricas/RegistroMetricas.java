@@ -0,0 +1,215 @@
+package metricas;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registro das métricas de operações do servidor (singleton).
+ * As métricas são criadas na primeira chamada de cada operação e agrupadas
+ * por família. Para limitar a memória, cada família guarda no máximo
+ * {@link #MAXIMO_POR_FAMILIA} operações; as excedentes são somadas em "outras".
+ * Além das operações, o registro guarda distribuições de valores que não são
+ * latências, como o tamanho dos lotes gravados, em histogramas nomeados.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+public final class RegistroMetricas {
+
+    /**
+     * Família das métricas dos métodos remotos.
+     */
+    public static final String SERVICO = "servico";
+
+    /**
+     * Família das métricas das consultas SQL.
+     */
+    public static final String SQL = "sql";
+
+    /**
+     * Quantidade máxima de operações distintas por família.
+     */
+    public static final int MAXIMO_POR_FAMILIA = 500;
+
+    /**
+     * Instância única do registro.
+     */
+    private static final RegistroMetricas INSTANCIA = new RegistroMetricas();
+
+    /**
+     * Métricas indexadas por família e nome da operação.
+     */
+    private final ConcurrentMap<String, ConcurrentMap<String, MetricaOperacao>> familias = new ConcurrentHashMap<>();
+
+    /**
+     * Distribuições de valores indexadas pelo nome.
+     */
+    private final ConcurrentMap<String, HistogramaLatencia> distribuicoes = new ConcurrentHashMap<>();
+
+    /**
+     * Construtor privado (singleton).
+     */
+    private RegistroMetricas() {
+    }
+
+    /**
+     * Retorna a instância única do registro.
+     *
+     * @return Registro de métricas
+     */
+    public static RegistroMetricas getInstancia() {
+        return INSTANCIA;
+    }
+
+    /**
+     * Retorna a métrica de uma operação, criando-a na primeira chamada.
+     *
+     * @param familia Família da operação
+     * @param nome Nome da operação
+     * @return Métrica da operação
+     */
+    public MetricaOperacao metrica(String familia, String nome) {
+        ConcurrentMap<String, MetricaOperacao> metricas = familias.computeIfAbsent(familia, f -> new ConcurrentHashMap<>());
+        MetricaOperacao metrica = metricas.get(nome);
+        if (metrica != null) {
+            return metrica;
+        }
+        String chave = metricas.size() < MAXIMO_POR_FAMILIA ? nome : "outras";
+        return metricas.computeIfAbsent(chave, n -> new MetricaOperacao(familia, n));
+    }
+
+    /**
+     * Remove todas as métricas registradas.
+     */
+    public void limpar() {
+        familias.clear();
+        distribuicoes.clear();
+    }
+
+    /**
+     * Retorna todas as métricas, ordenadas por família e nome.
+     *
+     * @return Métricas registradas
+     */
+    public List<MetricaOperacao> listar() {
+        List<MetricaOperacao> lista = new ArrayList<>();
+        for (ConcurrentMap<String, MetricaOperacao> metricas : familias.values()) {
+            lista.addAll(metricas.values());
+        }
+        lista.sort(Comparator.comparing(MetricaOperacao::getFamilia).thenComparing(MetricaOperacao::getNome));
+        return lista;
+    }
+
+    /**
+     * Retorna o histograma da distribuição informada, criando-o na primeira chamada.
+     * Os valores registrados são publicados sem conversão de unidade.
+     *
+     * @param nome Nome da distribuição
+     * @return Histograma da distribuição
+     */
+    public HistogramaLatencia distribuicao(String nome) {
+        return distribuicoes.computeIfAbsent(nome, n -> new HistogramaLatencia());
+    }
+
+    /**
+     * Retorna as distribuições registradas, ordenadas pelo nome.
+     *
+     * @return Histograma por nome da distribuição
+     */
+    public Map<String, HistogramaLatencia> listarDistribuicoes() {
+        return new TreeMap<>(distribuicoes);
+    }
+
+    /**
+     * Gera as métricas no formato de texto do Prometheus.
+     * As latências são publicadas como summary em segundos, com os quantis
+     * 0.5, 0.99 e 0.999; as distribuições, como summary com os quantis 0.5,
+     * 0.9 e 0.99 e o valor máximo.
+     *
+     * @return Texto no formato de exposição do Prometheus
+     */
+    public String gerarTextoPrometheus() {
+        List<MetricaOperacao> metricas = listar();
+        StringBuilder sb = new StringBuilder();
+        sb.append("# HELP estoque_chamadas_total Chamadas concluídas por operação.\n");
+        sb.append("# TYPE estoque_chamadas_total counter\n");
+        for (MetricaOperacao m : metricas) {
+            sb.append("estoque_chamadas_total").append(rotulos(m)).append(' ').append(m.getChamadas()).append('\n');
+        }
+        sb.append("# HELP estoque_erros_total Chamadas concluídas com erro por operação.\n");
+        sb.append("# TYPE estoque_erros_total counter\n");
+        for (MetricaOperacao m : metricas) {
+            sb.append("estoque_erros_total").append(rotulos(m)).append(' ').append(m.getErros()).append('\n');
+        }
+        sb.append("# HELP estoque_em_andamento Chamadas em andamento por operação.\n");
+        sb.append("# TYPE estoque_em_andamento gauge\n");
+        for (MetricaOperacao m : metricas) {
+            sb.append("estoque_em_andamento").append(rotulos(m)).append(' ').append(m.getEmAndamento()).append('\n');
+        }
+        sb.append("# HELP estoque_latencia_segundos Latência das chamadas por operação.\n");
+        sb.append("# TYPE estoque_latencia_segundos summary\n");
+        for (MetricaOperacao m : metricas) {
+            HistogramaLatencia h = m.getLatencias();
+            String base = "familia=\"" + escapar(m.getFamilia()) + "\",operacao=\"" + escapar(m.getNome()) + "\"";
+            for (double q : new double[]{0.5, 0.99, 0.999}) {
+                sb.append("estoque_latencia_segundos{").append(base).append(",quantile=\"").append(q).append("\"} ")
+                        .append(segundos(h.percentil(q))).append('\n');
+            }
+            sb.append("estoque_latencia_segundos_sum{").append(base).append("} ").append(segundos(h.getSoma())).append('\n');
+            sb.append("estoque_latencia_segundos_count{").append(base).append("} ").append(h.getQuantidade()).append('\n');
+        }
+        Map<String, HistogramaLatencia> valores = listarDistribuicoes();
+        if (!valores.isEmpty()) {
+            sb.append("# HELP estoque_distribuicao Distribuição de valores, como o tamanho dos lotes gravados.\n");
+            sb.append("# TYPE estoque_distribuicao summary\n");
+            for (Map.Entry<String, HistogramaLatencia> d : valores.entrySet()) {
+                HistogramaLatencia h = d.getValue();
+                String base = "nome=\"" + escapar(d.getKey()) + "\"";
+                for (double q : new double[]{0.5, 0.9, 0.99}) {
+                    sb.append("estoque_distribuicao{").append(base).append(",quantile=\"").append(q).append("\"} ")
+                            .append(h.percentil(q)).append('\n');
+                }
+                sb.append("estoque_distribuicao_sum{").append(base).append("} ").append(h.getSoma()).append('\n');
+                sb.append("estoque_distribuicao_count{").append(base).append("} ").append(h.getQuantidade()).append('\n');
+                sb.append("estoque_distribuicao_maximo{").append(base).append("} ").append(h.getMaximo()).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Monta os rótulos de uma métrica.
+     *
+     * @param m Métrica
+     * @return Rótulos entre chaves
+     */
+    private static String rotulos(MetricaOperacao m) {
+        return "{familia=\"" + escapar(m.getFamilia()) + "\",operacao=\"" + escapar(m.getNome()) + "\"}";
+    }
+
+    /**
+     * Escapa um valor de rótulo do Prometheus.
+     *
+     * @param valor Valor original
+     * @return Valor escapado
+     */
+    private static String escapar(String valor) {
+        return valor.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * Converte nanossegundos em segundos formatados.
+     *
+     * @param nanos Valor em nanossegundos
+     * @return Valor em segundos
+     */
+    private static String segundos(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+}
@@ -0,0 +1,263 @@
+package modelo;
+
+import java.io.Serializable;
+
+/**
+ * Classe que representa um alerta de estoque, gerado quando a quantidade de um
+ * produto cruza o limite mínimo ou máximo, entra na margem acima do mínimo (ou
+ * volta a ficar entre os limites).
+ * 
+ * @author bnsant
+ * @version 1.0
+ */
+public class AlertaEstoque implements Serializable {
+    /**
+     * Versão serial para garantir compatibilidade na serialização.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Quantidade entre o mínimo e o máximo.
+     */
+    public static final String NORMAL = "NORMAL";
+
+    /**
+     * Quantidade abaixo do mínimo.
+     */
+    public static final String ABAIXO_MINIMO = "ABAIXO_MINIMO";
+
+    /**
+     * Quantidade no mínimo ou dentro da margem configurada acima dele.
+     */
+    public static final String PROXIMO_MINIMO = "PROXIMO_MINIMO";
+
+    /**
+     * Quantidade acima do máximo.
+     */
+    public static final String ACIMA_MAXIMO = "ACIMA_MAXIMO";
+
+    /**
+     * ID do produto.
+     */
+    private int produtoId;
+
+    /**
+     * Nome do produto.
+     */
+    private String nomeProduto;
+
+    /**
+     * Situação do produto antes da alteração (uma das constantes desta classe).
+     */
+    private String situacaoAnterior;
+
+    /**
+     * Situação do produto após a alteração (uma das constantes desta classe).
+     */
+    private String situacao;
+
+    /**
+     * Quantidade em estoque após a alteração.
+     */
+    private int quantidade;
+
+    /**
+     * Quantidade mínima do produto.
+     */
+    private int min;
+
+    /**
+     * Quantidade máxima do produto.
+     */
+    private int max;
+
+    /**
+     * Instante em que o alerta foi gerado (milissegundos desde 1970).
+     */
+    private long instante;
+
+    /**
+     * Construtor padrão.
+     */
+    public AlertaEstoque() {
+    }
+
+    /**
+     * Construtor que cria o alerta a partir do estado atual do produto.
+     * 
+     * @param produto Produto após a alteração
+     * @param situacaoAnterior Situação antes da alteração
+     * @param situacao Situação após a alteração
+     */
+    public AlertaEstoque(Produto produto, String situacaoAnterior, String situacao) {
+        this.produtoId = produto.getId();
+        this.nomeProduto = produto.getNome();
+        this.situacaoAnterior = situacaoAnterior;
+        this.situacao = situacao;
+        this.quantidade = produto.getQuantidade();
+        this.min = produto.getMin();
+        this.max = produto.getMax();
+        this.instante = System.currentTimeMillis();
+    }
+
+    /**
+     * Retorna o ID do produto.
+     * 
+     * @return ID do produto
+     */
+    public int getProdutoId() {
+        return produtoId;
+    }
+
+    /**
+     * Define o ID do produto.
+     * 
+     * @param produtoId ID do produto
+     */
+    public void setProdutoId(int produtoId) {
+        this.produtoId = produtoId;
+    }
+
+    /**
+     * Retorna o nome do produto.
+     * 
+     * @return Nome do produto
+     */
+    public String getNomeProduto() {
+        return nomeProduto;
+    }
+
+    /**
+     * Define o nome do produto.
+     * 
+     * @param nomeProduto Nome do produto
+     */
+    public void setNomeProduto(String nomeProduto) {
+        this.nomeProduto = nomeProduto;
+    }
+
+    /**
+     * Retorna a situação do produto antes da alteração.
+     * 
+     * @return Situação anterior
+     */
+    public String getSituacaoAnterior() {
+        return situacaoAnterior;
+    }
+
+    /**
+     * Define a situação do produto antes da alteração.
+     * 
+     * @param situacaoAnterior Situação anterior
+     */
+    public void setSituacaoAnterior(String situacaoAnterior) {
+        this.situacaoAnterior = situacaoAnterior;
+    }
+
+    /**
+     * Retorna a situação do produto após a alteração.
+     * 
+     * @return Situação atual
+     */
+    public String getSituacao() {
+        return situacao;
+    }
+
+    /**
+     * Define a situação do produto após a alteração.
+     * 
+     * @param situacao Situação atual
+     */
+    public void setSituacao(String situacao) {
+        this.situacao = situacao;
+    }
+
+    /**
+     * Retorna a quantidade em estoque após a alteração.
+     * 
+     * @return Quantidade em estoque
+     */
+    public int getQuantidade() {
+        return quantidade;
+    }
+
+    /**
+     * Define a quantidade em estoque após a alteração.
+     * 
+     * @param quantidade Quantidade em estoque
+     */
+    public void setQuantidade(int quantidade) {
+        this.quantidade = quantidade;
+    }
+
+    /**
+     * Retorna a quantidade mínima do produto.
+     * 
+     * @return Quantidade mínima
+     */
+    public int getMin() {
+        return min;
+    }
+
+    /**
+     * Define a quantidade mínima do produto.
+     * 
+     * @param min Quantidade mínima
+     */
+    public void setMin(int min) {
+        this.min = min;
+    }
+
+    /**
+     * Retorna a quantidade máxima do produto.
+     * 
+     * @return Quantidade máxima
+     */
+    public int getMax() {
+        return max;
+    }
+
+    /**
+     * Define a quantidade máxima do produto.
+     * 
+     * @param max Quantidade máxima
+     */
+    public void setMax(int max) {
+        this.max = max;
+    }
+
+    /**
+     * Retorna o instante em que o alerta foi gerado.
+     * 
+     * @return Milissegundos desde 1970
+     */
+    public long getInstante() {
+        return instante;
+    }
+
+    /**
+     * Define o instante em que o alerta foi gerado.
+     * 
+     * @param instante Milissegundos desde 1970
+     */
+    public void setInstante(long instante) {
+        this.instante = instante;
+    }
+
+    /**
+     * Retorna uma representação em string do alerta.
+     * 
+     * @return String com os dados do alerta
+     */
+    @Override
+    public String toString() {
+        return "AlertaEstoque{" +
+                "produtoId=" + produtoId +
+                ", nomeProduto='" + nomeProduto + '\'' +
+                ", " + situacaoAnterior + " -> " + situacao +
+                ", quantidade=" + quantidade +
+                ", min=" + min +
+                ", max=" + max +
+                '}';
+    }
+}
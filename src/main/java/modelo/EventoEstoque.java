@@ -0,0 +1,193 @@
+package modelo;
+
+import java.io.Serializable;
+
+/**
+ * Classe que representa uma alteração no estoque enviada aos clientes inscritos.
+ * Os eventos de um mesmo produto ou categoria ainda não entregues são agrupados,
+ * de modo que o cliente recebe sempre o estado mais recente.
+ * 
+ * @author bnsant
+ * @version 1.0
+ */
+public class EventoEstoque implements Serializable {
+    /**
+     * Versão serial para garantir compatibilidade na serialização.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Produto criado ou alterado (dados cadastrais, preço ou quantidade em estoque).
+     */
+    public static final String PRODUTO_ALTERADO = "PRODUTO_ALTERADO";
+
+    /**
+     * Produto excluído.
+     */
+    public static final String PRODUTO_REMOVIDO = "PRODUTO_REMOVIDO";
+
+    /**
+     * Muitos produtos alterados de uma vez (importação, reajuste): o cliente deve reler o catálogo.
+     */
+    public static final String CATALOGO_RECARREGADO = "CATALOGO_RECARREGADO";
+
+    /**
+     * Categoria criada ou alterada.
+     */
+    public static final String CATEGORIA_ALTERADA = "CATEGORIA_ALTERADA";
+
+    /**
+     * Categoria excluída.
+     */
+    public static final String CATEGORIA_REMOVIDA = "CATEGORIA_REMOVIDA";
+
+    /**
+     * Tipo do evento (uma das constantes desta classe).
+     */
+    private String tipo;
+
+    /**
+     * ID do produto ou da categoria afetada (0 nos eventos de catálogo).
+     */
+    private int id;
+
+    /**
+     * Estado atual do produto, nos eventos PRODUTO_ALTERADO.
+     */
+    private Produto produto;
+
+    /**
+     * Estado atual da categoria, nos eventos CATEGORIA_ALTERADA.
+     */
+    private Categoria categoria;
+
+    /**
+     * Instante em que o evento foi gerado (milissegundos desde 1970).
+     */
+    private long instante;
+
+    /**
+     * Construtor padrão.
+     */
+    public EventoEstoque() {
+    }
+
+    /**
+     * Construtor completo do evento.
+     * 
+     * @param tipo Tipo do evento
+     * @param id ID do produto ou da categoria afetada
+     * @param produto Estado atual do produto, ou null
+     * @param categoria Estado atual da categoria, ou null
+     */
+    public EventoEstoque(String tipo, int id, Produto produto, Categoria categoria) {
+        this.tipo = tipo;
+        this.id = id;
+        this.produto = produto;
+        this.categoria = categoria;
+        this.instante = System.currentTimeMillis();
+    }
+
+    /**
+     * Retorna o tipo do evento.
+     * 
+     * @return Tipo do evento
+     */
+    public String getTipo() {
+        return tipo;
+    }
+
+    /**
+     * Define o tipo do evento.
+     * 
+     * @param tipo Tipo do evento
+     */
+    public void setTipo(String tipo) {
+        this.tipo = tipo;
+    }
+
+    /**
+     * Retorna o ID do produto ou da categoria afetada.
+     * 
+     * @return ID afetado
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Define o ID do produto ou da categoria afetada.
+     * 
+     * @param id ID afetado
+     */
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    /**
+     * Retorna o estado atual do produto.
+     * 
+     * @return Produto, ou null se o evento não for de alteração de produto
+     */
+    public Produto getProduto() {
+        return produto;
+    }
+
+    /**
+     * Define o estado atual do produto.
+     * 
+     * @param produto Produto
+     */
+    public void setProduto(Produto produto) {
+        this.produto = produto;
+    }
+
+    /**
+     * Retorna o estado atual da categoria.
+     * 
+     * @return Categoria, ou null se o evento não for de alteração de categoria
+     */
+    public Categoria getCategoria() {
+        return categoria;
+    }
+
+    /**
+     * Define o estado atual da categoria.
+     * 
+     * @param categoria Categoria
+     */
+    public void setCategoria(Categoria categoria) {
+        this.categoria = categoria;
+    }
+
+    /**
+     * Retorna o instante em que o evento foi gerado.
+     * 
+     * @return Milissegundos desde 1970
+     */
+    public long getInstante() {
+        return instante;
+    }
+
+    /**
+     * Define o instante em que o evento foi gerado.
+     * 
+     * @param instante Milissegundos desde 1970
+     */
+    public void setInstante(long instante) {
+        this.instante = instante;
+    }
+
+    /**
+     * Retorna uma representação em string do evento.
+     * 
+     * @return String com os dados do evento
+     */
+    @Override
+    public String toString() {
+        return "EventoEstoque{" +
+                "tipo=" + tipo +
+                ", id=" + id +
+                '}';
+    }
+}
@@ -0,0 +1,90 @@
+package modelo;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Classe que representa uma página do histórico de movimentações.
+ * Contém os registros da página e o cursor opaco para buscar a próxima página.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+public class PaginaMovimentacoes implements Serializable {
+    /**
+     * Versão serial para garantir compatibilidade na serialização.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Registros da página, do mais recente para o mais antigo.
+     */
+    private List<RegistroMovimentacao> itens;
+
+    /**
+     * Cursor da próxima página, ou null se esta for a última.
+     */
+    private String proximoCursor;
+
+    /**
+     * Construtor padrão.
+     */
+    public PaginaMovimentacoes() {
+    }
+
+    /**
+     * Construtor completo da página.
+     *
+     * @param itens Registros da página
+     * @param proximoCursor Cursor da próxima página, ou null se for a última
+     */
+    public PaginaMovimentacoes(List<RegistroMovimentacao> itens, String proximoCursor) {
+        this.itens = itens;
+        this.proximoCursor = proximoCursor;
+    }
+
+    /**
+     * Retorna os registros da página.
+     *
+     * @return Registros de movimentação
+     */
+    public List<RegistroMovimentacao> getItens() {
+        return itens;
+    }
+
+    /**
+     * Define os registros da página.
+     *
+     * @param itens Registros de movimentação
+     */
+    public void setItens(List<RegistroMovimentacao> itens) {
+        this.itens = itens;
+    }
+
+    /**
+     * Retorna o cursor a ser enviado para obter a próxima página.
+     *
+     * @return Cursor da próxima página ou null
+     */
+    public String getProximoCursor() {
+        return proximoCursor;
+    }
+
+    /**
+     * Define o cursor da próxima página.
+     *
+     * @param proximoCursor Cursor da próxima página
+     */
+    public void setProximoCursor(String proximoCursor) {
+        this.proximoCursor = proximoCursor;
+    }
+
+    /**
+     * Indica se existem mais páginas após esta.
+     *
+     * @return true se houver próxima página
+     */
+    public boolean temMais() {
+        return proximoCursor != null;
+    }
+}
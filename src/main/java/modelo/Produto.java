@@ -56,6 +56,13 @@ public class Produto implements Serializable {
      */
     private String categoria;
 
+    /**
+     * Versão do registro, incrementada a cada alteração gravada. Uma atualização
+     * só é aceita se informar a versão atual, o que rejeita cópias desatualizadas.
+     * Clientes compilados antes deste campo enviam sempre 0.
+     */
+    private int versao;
+
     /**
      * Construtor padrão que inicializa um produto com valores padrão.
      */
@@ -86,6 +93,24 @@ public class Produto implements Serializable {
         this.categoria = categoria;
     }
 
+    /**
+     * Construtor completo do produto com a versão do registro.
+     * 
+     * @param id Identificador único do produto
+     * @param nome Nome do produto
+     * @param unidade Unidade de medida
+     * @param preco Preço unitário
+     * @param quantidade Quantidade em estoque
+     * @param min Quantidade mínima
+     * @param max Quantidade máxima
+     * @param categoria Categoria do produto
+     * @param versao Versão do registro
+     */
+    public Produto(int id, String nome, String unidade, double preco, int quantidade, int min, int max, String categoria, int versao) {
+        this(id, nome, unidade, preco, quantidade, min, max, categoria);
+        this.versao = versao;
+    }
+
     /**
      * Retorna o identificador único do produto.
      * 
@@ -229,6 +254,24 @@ public class Produto implements Serializable {
     public void setCategoria(String nomeCategoria) {
         this.categoria = nomeCategoria;
     }
+
+    /**
+     * Retorna a versão do registro lida junto com o produto.
+     * 
+     * @return Versão do registro
+     */
+    public int getVersao() {
+        return versao;
+    }
+
+    /**
+     * Define a versão do registro.
+     * 
+     * @param versao Versão do registro
+     */
+    public void setVersao(int versao) {
+        this.versao = versao;
+    }
     
     /**
      * Retorna uma representação em string do produto (apenas o nome).
@@ -0,0 +1,213 @@
+package modelo;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Classe que representa o andamento ou o resultado de uma importação de produtos.
+ * Informa quantas linhas foram lidas, importadas e recusadas, os motivos das
+ * primeiras recusas e a vazão da importação.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+public class RelatorioImportacao implements Serializable {
+    /**
+     * Versão serial para garantir compatibilidade na serialização.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Quantidade máxima de mensagens de recusa guardadas no relatório.
+     */
+    public static final int MAXIMO_MENSAGENS = 1000;
+
+    /**
+     * Quantidade de linhas de dados lidas do arquivo.
+     */
+    private long linhasLidas;
+
+    /**
+     * Quantidade de produtos gravados e confirmados no banco.
+     */
+    private long importadas;
+
+    /**
+     * Quantidade de linhas recusadas na validação.
+     */
+    private long rejeitadas;
+
+    /**
+     * Mensagens das primeiras linhas recusadas (linha e motivo).
+     */
+    private final List<String> mensagensRejeicao = new ArrayList<>();
+
+    /**
+     * Tempo decorrido desde o início da importação, em milissegundos.
+     */
+    private long duracaoMs;
+
+    /**
+     * Indica se a importação terminou.
+     */
+    private boolean concluida;
+
+    /**
+     * Erro que interrompeu a importação, ou null se não houve.
+     */
+    private String erro;
+
+    /**
+     * Construtor padrão que inicia um relatório vazio.
+     */
+    public RelatorioImportacao() {
+    }
+
+    /**
+     * Registra a recusa de uma linha, guardando a mensagem enquanto houver espaço.
+     *
+     * @param numeroLinha Número da linha no arquivo
+     * @param motivo Motivo da recusa
+     */
+    public void registrarRejeicao(long numeroLinha, String motivo) {
+        rejeitadas++;
+        if (mensagensRejeicao.size() < MAXIMO_MENSAGENS) {
+            mensagensRejeicao.add("Linha " + numeroLinha + ": " + motivo);
+        }
+    }
+
+    /**
+     * Retorna a vazão da importação em linhas lidas por segundo.
+     *
+     * @return Linhas por segundo
+     */
+    public double getLinhasPorSegundo() {
+        return duracaoMs == 0 ? 0.0 : linhasLidas * 1000.0 / duracaoMs;
+    }
+
+    /**
+     * Retorna a quantidade de linhas de dados lidas.
+     *
+     * @return Linhas lidas
+     */
+    public long getLinhasLidas() {
+        return linhasLidas;
+    }
+
+    /**
+     * Define a quantidade de linhas de dados lidas.
+     *
+     * @param linhasLidas Linhas lidas
+     */
+    public void setLinhasLidas(long linhasLidas) {
+        this.linhasLidas = linhasLidas;
+    }
+
+    /**
+     * Retorna a quantidade de produtos importados.
+     *
+     * @return Produtos importados
+     */
+    public long getImportadas() {
+        return importadas;
+    }
+
+    /**
+     * Define a quantidade de produtos importados.
+     *
+     * @param importadas Produtos importados
+     */
+    public void setImportadas(long importadas) {
+        this.importadas = importadas;
+    }
+
+    /**
+     * Retorna a quantidade de linhas recusadas.
+     *
+     * @return Linhas recusadas
+     */
+    public long getRejeitadas() {
+        return rejeitadas;
+    }
+
+    /**
+     * Retorna as mensagens das primeiras linhas recusadas.
+     *
+     * @return Mensagens de recusa
+     */
+    public List<String> getMensagensRejeicao() {
+        return mensagensRejeicao;
+    }
+
+    /**
+     * Retorna o tempo decorrido da importação.
+     *
+     * @return Duração em milissegundos
+     */
+    public long getDuracaoMs() {
+        return duracaoMs;
+    }
+
+    /**
+     * Define o tempo decorrido da importação.
+     *
+     * @param duracaoMs Duração em milissegundos
+     */
+    public void setDuracaoMs(long duracaoMs) {
+        this.duracaoMs = duracaoMs;
+    }
+
+    /**
+     * Indica se a importação terminou.
+     *
+     * @return true se concluída
+     */
+    public boolean isConcluida() {
+        return concluida;
+    }
+
+    /**
+     * Define se a importação terminou.
+     *
+     * @param concluida true se concluída
+     */
+    public void setConcluida(boolean concluida) {
+        this.concluida = concluida;
+    }
+
+    /**
+     * Retorna o erro que interrompeu a importação.
+     *
+     * @return Mensagem de erro ou null
+     */
+    public String getErro() {
+        return erro;
+    }
+
+    /**
+     * Define o erro que interrompeu a importação.
+     *
+     * @param erro Mensagem de erro
+     */
+    public void setErro(String erro) {
+        this.erro = erro;
+    }
+
+    /**
+     * Retorna uma representação em string do relatório.
+     *
+     * @return Resumo da importação
+     */
+    @Override
+    public String toString() {
+        return "RelatorioImportacao{" +
+                "lidas=" + linhasLidas +
+                ", importadas=" + importadas +
+                ", rejeitadas=" + rejeitadas +
+                ", duracaoMs=" + duracaoMs +
+                ", linhasPorSegundo=" + String.format("%.1f", getLinhasPorSegundo()) +
+                (erro != null ? ", erro='" + erro + '\'' : "") +
+                '}';
+    }
+}
@@ -0,0 +1,180 @@
+package modelo;
+
+import java.io.Serializable;
+
+/**
+ * Classe que representa o resultado do registro de uma movimentação de estoque.
+ * Usada no registro em lote para informar, item a item, se a movimentação foi
+ * aceita ou o motivo da recusa.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+public class ResultadoMovimentacao implements Serializable {
+    /**
+     * Versão serial para garantir compatibilidade na serialização.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Movimentação registrada com sucesso.
+     */
+    public static final String SUCESSO = "SUCESSO";
+
+    /**
+     * O produto informado não existe.
+     */
+    public static final String PRODUTO_INEXISTENTE = "PRODUTO_INEXISTENTE";
+
+    /**
+     * Os dados da movimentação são inválidos (tipo ou quantidade).
+     */
+    public static final String DADOS_INVALIDOS = "DADOS_INVALIDOS";
+
+    /**
+     * A saída é maior que o saldo do produto.
+     */
+    public static final String ESTOQUE_INSUFICIENTE = "ESTOQUE_INSUFICIENTE";
+
+    /**
+     * Ocorreu um erro no banco de dados ao registrar a movimentação.
+     */
+    public static final String ERRO = "ERRO";
+
+    /**
+     * Posição da movimentação na lista enviada.
+     */
+    private int indice;
+
+    /**
+     * ID do produto movimentado.
+     */
+    private int produtoId;
+
+    /**
+     * Situação do registro (uma das constantes desta classe).
+     */
+    private String status;
+
+    /**
+     * Mensagem descritiva do resultado.
+     */
+    private String mensagem;
+
+    /**
+     * Construtor padrão.
+     */
+    public ResultadoMovimentacao() {
+    }
+
+    /**
+     * Construtor completo do resultado.
+     *
+     * @param indice Posição da movimentação na lista enviada
+     * @param produtoId ID do produto movimentado
+     * @param status Situação do registro
+     * @param mensagem Mensagem descritiva
+     */
+    public ResultadoMovimentacao(int indice, int produtoId, String status, String mensagem) {
+        this.indice = indice;
+        this.produtoId = produtoId;
+        this.status = status;
+        this.mensagem = mensagem;
+    }
+
+    /**
+     * Indica se a movimentação foi registrada.
+     *
+     * @return true se o status for SUCESSO
+     */
+    public boolean isSucesso() {
+        return SUCESSO.equals(status);
+    }
+
+    /**
+     * Retorna a posição da movimentação na lista enviada.
+     *
+     * @return Índice da movimentação
+     */
+    public int getIndice() {
+        return indice;
+    }
+
+    /**
+     * Define a posição da movimentação na lista enviada.
+     *
+     * @param indice Índice da movimentação
+     */
+    public void setIndice(int indice) {
+        this.indice = indice;
+    }
+
+    /**
+     * Retorna o ID do produto movimentado.
+     *
+     * @return ID do produto
+     */
+    public int getProdutoId() {
+        return produtoId;
+    }
+
+    /**
+     * Define o ID do produto movimentado.
+     *
+     * @param produtoId ID do produto
+     */
+    public void setProdutoId(int produtoId) {
+        this.produtoId = produtoId;
+    }
+
+    /**
+     * Retorna a situação do registro.
+     *
+     * @return Status do resultado
+     */
+    public String getStatus() {
+        return status;
+    }
+
+    /**
+     * Define a situação do registro.
+     *
+     * @param status Status do resultado
+     */
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    /**
+     * Retorna a mensagem descritiva do resultado.
+     *
+     * @return Mensagem
+     */
+    public String getMensagem() {
+        return mensagem;
+    }
+
+    /**
+     * Define a mensagem descritiva do resultado.
+     *
+     * @param mensagem Mensagem
+     */
+    public void setMensagem(String mensagem) {
+        this.mensagem = mensagem;
+    }
+
+    /**
+     * Retorna uma representação em string do resultado.
+     *
+     * @return String com os dados do resultado
+     */
+    @Override
+    public String toString() {
+        return "ResultadoMovimentacao{" +
+                "indice=" + indice +
+                ", produtoId=" + produtoId +
+                ", status=" + status +
+                ", mensagem='" + mensagem + '\'' +
+                '}';
+    }
+}
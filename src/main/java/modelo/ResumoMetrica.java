@@ -0,0 +1,293 @@
+package modelo;
+
+import java.io.Serializable;
+
+/**
+ * Classe que representa o resumo das métricas de uma operação do servidor
+ * (método remoto ou consulta SQL), enviado aos clientes de monitoramento.
+ * As latências são informadas em milissegundos.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+public class ResumoMetrica implements Serializable {
+    /**
+     * Versão serial para garantir compatibilidade na serialização.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Família da operação ("servico" ou "sql").
+     */
+    private String familia;
+
+    /**
+     * Nome da operação.
+     */
+    private String operacao;
+
+    /**
+     * Quantidade de chamadas concluídas.
+     */
+    private long chamadas;
+
+    /**
+     * Quantidade de chamadas com erro.
+     */
+    private long erros;
+
+    /**
+     * Quantidade de chamadas em andamento.
+     */
+    private int emAndamento;
+
+    /**
+     * Latência média, em milissegundos.
+     */
+    private double mediaMs;
+
+    /**
+     * Percentis 50, 99 e 99,9 da latência, em milissegundos.
+     */
+    private double p50Ms;
+    private double p99Ms;
+    private double p999Ms;
+
+    /**
+     * Maior latência registrada, em milissegundos.
+     */
+    private double maximoMs;
+
+    /**
+     * Construtor padrão.
+     */
+    public ResumoMetrica() {
+    }
+
+    /**
+     * Construtor completo do resumo.
+     *
+     * @param familia Família da operação
+     * @param operacao Nome da operação
+     * @param chamadas Chamadas concluídas
+     * @param erros Chamadas com erro
+     * @param emAndamento Chamadas em andamento
+     * @param mediaMs Latência média
+     * @param p50Ms Percentil 50
+     * @param p99Ms Percentil 99
+     * @param p999Ms Percentil 99,9
+     * @param maximoMs Maior latência
+     */
+    public ResumoMetrica(String familia, String operacao, long chamadas, long erros, int emAndamento,
+            double mediaMs, double p50Ms, double p99Ms, double p999Ms, double maximoMs) {
+        this.familia = familia;
+        this.operacao = operacao;
+        this.chamadas = chamadas;
+        this.erros = erros;
+        this.emAndamento = emAndamento;
+        this.mediaMs = mediaMs;
+        this.p50Ms = p50Ms;
+        this.p99Ms = p99Ms;
+        this.p999Ms = p999Ms;
+        this.maximoMs = maximoMs;
+    }
+
+    /**
+     * Retorna a família da operação.
+     *
+     * @return Família
+     */
+    public String getFamilia() {
+        return familia;
+    }
+
+    /**
+     * Define a família da operação.
+     *
+     * @param familia Família
+     */
+    public void setFamilia(String familia) {
+        this.familia = familia;
+    }
+
+    /**
+     * Retorna o nome da operação.
+     *
+     * @return Operação
+     */
+    public String getOperacao() {
+        return operacao;
+    }
+
+    /**
+     * Define o nome da operação.
+     *
+     * @param operacao Operação
+     */
+    public void setOperacao(String operacao) {
+        this.operacao = operacao;
+    }
+
+    /**
+     * Retorna a quantidade de chamadas concluídas.
+     *
+     * @return Chamadas
+     */
+    public long getChamadas() {
+        return chamadas;
+    }
+
+    /**
+     * Define a quantidade de chamadas concluídas.
+     *
+     * @param chamadas Chamadas
+     */
+    public void setChamadas(long chamadas) {
+        this.chamadas = chamadas;
+    }
+
+    /**
+     * Retorna a quantidade de chamadas com erro.
+     *
+     * @return Erros
+     */
+    public long getErros() {
+        return erros;
+    }
+
+    /**
+     * Define a quantidade de chamadas com erro.
+     *
+     * @param erros Erros
+     */
+    public void setErros(long erros) {
+        this.erros = erros;
+    }
+
+    /**
+     * Retorna a quantidade de chamadas em andamento.
+     *
+     * @return Chamadas em andamento
+     */
+    public int getEmAndamento() {
+        return emAndamento;
+    }
+
+    /**
+     * Define a quantidade de chamadas em andamento.
+     *
+     * @param emAndamento Chamadas em andamento
+     */
+    public void setEmAndamento(int emAndamento) {
+        this.emAndamento = emAndamento;
+    }
+
+    /**
+     * Retorna a latência média.
+     *
+     * @return Média em milissegundos
+     */
+    public double getMediaMs() {
+        return mediaMs;
+    }
+
+    /**
+     * Define a latência média.
+     *
+     * @param mediaMs Média em milissegundos
+     */
+    public void setMediaMs(double mediaMs) {
+        this.mediaMs = mediaMs;
+    }
+
+    /**
+     * Retorna o percentil 50 da latência.
+     *
+     * @return p50 em milissegundos
+     */
+    public double getP50Ms() {
+        return p50Ms;
+    }
+
+    /**
+     * Define o percentil 50 da latência.
+     *
+     * @param p50Ms p50 em milissegundos
+     */
+    public void setP50Ms(double p50Ms) {
+        this.p50Ms = p50Ms;
+    }
+
+    /**
+     * Retorna o percentil 99 da latência.
+     *
+     * @return p99 em milissegundos
+     */
+    public double getP99Ms() {
+        return p99Ms;
+    }
+
+    /**
+     * Define o percentil 99 da latência.
+     *
+     * @param p99Ms p99 em milissegundos
+     */
+    public void setP99Ms(double p99Ms) {
+        this.p99Ms = p99Ms;
+    }
+
+    /**
+     * Retorna o percentil 99,9 da latência.
+     *
+     * @return p999 em milissegundos
+     */
+    public double getP999Ms() {
+        return p999Ms;
+    }
+
+    /**
+     * Define o percentil 99,9 da latência.
+     *
+     * @param p999Ms p999 em milissegundos
+     */
+    public void setP999Ms(double p999Ms) {
+        this.p999Ms = p999Ms;
+    }
+
+    /**
+     * Retorna a maior latência registrada.
+     *
+     * @return Máximo em milissegundos
+     */
+    public double getMaximoMs() {
+        return maximoMs;
+    }
+
+    /**
+     * Define a maior latência registrada.
+     *
+     * @param maximoMs Máximo em milissegundos
+     */
+    public void setMaximoMs(double maximoMs) {
+        this.maximoMs = maximoMs;
+    }
+
+    /**
+     * Retorna uma representação em string do resumo.
+     *
+     * @return String com os dados do resumo
+     */
+    @Override
+    public String toString() {
+        return "ResumoMetrica{" +
+                familia + '/' + operacao +
+                ", chamadas=" + chamadas +
+                ", erros=" + erros +
+                ", emAndamento=" + emAndamento +
+                ", p50=" + String.format("%.3f", p50Ms) +
+                ", p99=" + String.format("%.3f", p99Ms) +
+                ", p999=" + String.format("%.3f", p999Ms) +
+                ", max=" + String.format("%.3f", maximoMs) +
+                '}';
+    }
+}
@@ -1,12 +1,21 @@
 package server;
 
+import dao.ConfiguracaoBanco;
+import dao.FabricaRepositorios;
 import java.rmi.Naming;
 import java.rmi.registry.LocateRegistry;
+import java.rmi.server.UnicastRemoteObject;
+import metricas.ExportadorPrometheus;
+import metricas.RegistroMetricas;
+import service.EstoqueService;
 import service.EstoqueServiceImpl;
+import service.MetricsServiceImpl;
+import service.ServicoInstrumentado;
 
 /**
  * Classe principal do servidor RMI.
- * Responsável por iniciar o registro RMI e disponibilizar o serviço de estoque.
+ * Responsável por iniciar o registro RMI e disponibilizar os serviços de estoque
+ * e de métricas.
  * 
  * @author bnsant
  * @version 1.0
@@ -15,19 +24,43 @@ public class ServidorRMI {
     
     /**
      * Método principal que inicia o servidor RMI.
-     * Cria o registro RMI na porta 1099 e registra o serviço de estoque.
+     * Cria o registro RMI na porta 1099 e registra o serviço de estoque, sobre o
+     * armazenamento definido em armazenamento.tipo e com as chamadas medidas, e o
+     * serviço de métricas. Se configurado, exporta as
+     * métricas no formato do Prometheus em um arquivo ou porta local.
      * 
      * @param args Argumentos da linha de comando (não utilizados)
      */
     public static void main(String[] args) {
         try {
+            ConfiguracaoBanco config = ConfiguracaoBanco.getInstancia();
+            // limita as chamadas aos ouvintes remotos; precisa ser definido antes do primeiro uso do RMI
+            long timeoutEntrega = config.getLong("notificacao.timeoutEntregaMs", 10000);
+            if (timeoutEntrega > 0 && System.getProperty("sun.rmi.transport.tcp.responseTimeout") == null) {
+                System.setProperty("sun.rmi.transport.tcp.responseTimeout", Long.toString(timeoutEntrega));
+            }
+
             LocateRegistry.createRegistry(1099);
 
-            EstoqueServiceImpl service = new EstoqueServiceImpl();
+            FabricaRepositorios repositorios = FabricaRepositorios.criarConfigurado();
+            EstoqueServiceImpl service = new EstoqueServiceImpl(repositorios);
+            // só o proxy medido é exportado; a implementação não é um objeto remoto
+            EstoqueService instrumentado = ServicoInstrumentado.instrumentar(EstoqueService.class, service);
+
+            Naming.rebind("EstoqueService", UnicastRemoteObject.exportObject(instrumentado, 0));
+            Naming.rebind("MetricsService", new MetricsServiceImpl());
 
-            Naming.rebind("EstoqueService", service);
+            ExportadorPrometheus exportador = new ExportadorPrometheus(RegistroMetricas.getInstancia());
+            String arquivo = config.getString("metricas.prometheus.arquivo", "");
+            if (!arquivo.isEmpty()) {
+                exportador.iniciarArquivo(arquivo, config.getInt("metricas.prometheus.intervaloSeg", 15));
+            }
+            int porta = config.getInt("metricas.prometheus.porta", 0);
+            if (porta > 0) {
+                exportador.iniciarPorta(porta);
+            }
 
-            System.out.println("✅ Servidor RMI do estoque iniciado...");
+            System.out.println("✅ Servidor RMI do estoque iniciado (armazenamento: " + repositorios.getTipo() + ")...");
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -0,0 +1,33 @@
+package service;
+
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+
+/**
+ * Interface remota para inscrição em alertas de estoque.
+ * Permite ao setor de compras ser avisado assim que um produto fica abaixo do
+ * mínimo ou acima do máximo, sem consultar o relatório periodicamente.
+ * 
+ * @author bnsant
+ * @version 1.0
+ */
+public interface AlertaService extends Remote {
+
+    /**
+     * Inscreve um ouvinte para receber os alertas de estoque.
+     * Um ouvinte que demora a receber os alertas ou fica inacessível é descartado.
+     * 
+     * @param ouvinte Ouvinte remoto exportado pelo cliente
+     * @throws RemoteException Se ocorrer erro na comunicação remota ou o limite de inscritos for atingido
+     */
+    void inscreverAlertasEstoque(OuvinteAlertasEstoque ouvinte) throws RemoteException;
+    
+    /**
+     * Cancela a inscrição de um ouvinte de alertas de estoque.
+     * 
+     * @param ouvinte Ouvinte remoto inscrito anteriormente
+     * @throws RemoteException Se ocorrer erro na comunicação remota
+     */
+    void cancelarAlertasEstoque(OuvinteAlertasEstoque ouvinte) throws RemoteException;
+
+}
@@ -0,0 +1,43 @@
+package service;
+
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import java.util.List;
+
+/**
+ * Interface remota de um cursor sobre uma consulta aberta no servidor.
+ * Permite ao cliente ler resultados grandes em blocos, sob demanda, sem que o
+ * servidor precise montar a lista completa em memória. Cursores sem acesso
+ * por mais tempo que o prazo de concessão (lease) são fechados pelo servidor.
+ * 
+ * @param <T> Tipo dos itens retornados
+ * @author bnsant
+ * @version 1.0
+ */
+public interface CursorRemoto<T> extends Remote {
+
+    /**
+     * Lê o próximo bloco de itens.
+     * 
+     * @return Itens do bloco, ou lista vazia se a leitura terminou
+     * @throws RemoteException Se ocorrer erro na comunicação remota, na consulta
+     *         ou se o cursor já tiver sido fechado
+     */
+    List<T> proximoBloco() throws RemoteException;
+    
+    /**
+     * Indica se ainda podem existir itens a ler.
+     * 
+     * @return true se a leitura não terminou
+     * @throws RemoteException Se ocorrer erro na comunicação remota
+     */
+    boolean temMais() throws RemoteException;
+    
+    /**
+     * Fecha o cursor e libera os recursos do servidor.
+     * 
+     * @throws RemoteException Se ocorrer erro na comunicação remota
+     */
+    void fechar() throws RemoteException;
+
+}
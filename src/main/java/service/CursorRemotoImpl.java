@@ -0,0 +1,132 @@
+package service;
+
+import dao.CursorDados;
+import java.rmi.NoSuchObjectException;
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+import java.rmi.server.Unreferenced;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Implementação do cursor remoto sobre uma {@link CursorDados}.
+ * O cursor é exportado individualmente e removido do registro de cursores
+ * abertos quando a leitura termina, quando o cliente o fecha, quando o prazo
+ * de concessão expira ou quando o RMI detecta que o cliente não o referencia mais.
+ * 
+ * @param <T> Tipo dos itens retornados
+ * @author bnsant
+ * @version 1.0
+ */
+public class CursorRemotoImpl<T> extends UnicastRemoteObject implements CursorRemoto<T>, Unreferenced {
+
+    /**
+     * Versão serial para garantir compatibilidade na serialização.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Consulta aberta no servidor.
+     */
+    private final CursorDados<T> consulta;
+
+    /**
+     * Quantidade de itens por bloco.
+     */
+    private final int tamanhoBloco;
+
+    /**
+     * Gerenciador responsável pelos cursores abertos.
+     */
+    private final GerenciadorCursores gerenciador;
+
+    /**
+     * Instante (ms) do último acesso do cliente.
+     */
+    private volatile long ultimoAcesso;
+
+    /**
+     * Indica se o cursor já foi fechado.
+     */
+    private boolean fechado;
+
+    /**
+     * Construtor que exporta o cursor.
+     * 
+     * @param consulta Consulta aberta no servidor
+     * @param tamanhoBloco Quantidade de itens por bloco
+     * @param gerenciador Gerenciador dos cursores abertos
+     * @throws RemoteException Se ocorrer erro na exportação do objeto remoto
+     */
+    CursorRemotoImpl(CursorDados<T> consulta, int tamanhoBloco, GerenciadorCursores gerenciador) throws RemoteException {
+        this.consulta = consulta;
+        this.tamanhoBloco = tamanhoBloco;
+        this.gerenciador = gerenciador;
+        this.ultimoAcesso = System.currentTimeMillis();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized List<T> proximoBloco() throws RemoteException {
+        if (fechado) {
+            throw new RemoteException("Cursor já fechado");
+        }
+        ultimoAcesso = System.currentTimeMillis();
+        try {
+            List<T> bloco = consulta.lerBloco(tamanhoBloco);
+            if (consulta.isFim()) {
+                fechar();
+            }
+            return bloco;
+        } catch (SQLException e) {
+            fechar();
+            throw new RemoteException("Erro ao ler cursor: " + e.getMessage());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized boolean temMais() throws RemoteException {
+        ultimoAcesso = System.currentTimeMillis();
+        return !fechado && !consulta.isFim();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void fechar() {
+        if (fechado) {
+            return;
+        }
+        fechado = true;
+        consulta.close();
+        gerenciador.remover(this);
+        try {
+            UnicastRemoteObject.unexportObject(this, true);
+        } catch (NoSuchObjectException e) {
+            // já removido do RMI
+        }
+    }
+
+    /**
+     * Chamado pelo RMI quando nenhum cliente referencia mais o cursor.
+     */
+    @Override
+    public void unreferenced() {
+        fechar();
+    }
+
+    /**
+     * Retorna o instante do último acesso do cliente.
+     * 
+     * @return Instante em milissegundos
+     */
+    long getUltimoAcesso() {
+        return ultimoAcesso;
+    }
+}
@@ -11,6 +11,8 @@ package service;
  * - CategoriaService: operações relacionadas a categorias
  * - MovimentacaoService: operações de movimentação de estoque
  * - RelatorioService: geração de relatórios e consultas consolidadas
+ * - AlertaService: inscrição em alertas de limites de estoque
+ * - EventoService: inscrição nas alterações de produtos, estoque e categorias
  * 
  * @author bnsant
  * @version 1.0
@@ -19,6 +21,8 @@ public interface EstoqueService extends
         ProdutoService,
         CategoriaService,
         MovimentacaoService,
-        RelatorioService {
+        RelatorioService,
+        AlertaService,
+        EventoService {
     // Nenhum método aqui. Todos vêm das interfaces estendidas.
 }
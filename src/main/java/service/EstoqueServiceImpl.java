@@ -1,50 +1,119 @@
 package service;
 
-import dao.ProdutoDAO;
-import dao.CategoriaDAO;
-import dao.RegistroMovimentacaoDAO;
+import dao.CategoriaRepositorio;
+import dao.ConfiguracaoBanco;
+import dao.FabricaRepositorios;
+import dao.MovimentacaoRepositorio;
+import dao.ProdutoRepositorio;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.rmi.RemoteException;
-import java.rmi.server.UnicastRemoteObject;
 import java.util.List;
+import modelo.AlertaEstoque;
 import modelo.Produto;
 import modelo.Categoria;
+import modelo.PaginaMovimentacoes;
+import modelo.RelatorioImportacao;
 import modelo.RegistroMovimentacao;
+import modelo.ResultadoMovimentacao;
 import java.sql.SQLException;
 
 /**
  * Implementação do serviço remoto de estoque.
  * Fornece a implementação concreta de todos os métodos definidos na interface EstoqueService.
- * Utiliza os DAOs para realizar operações no banco de dados.
+ * Utiliza os repositórios do armazenamento configurado (MySQL ou memória).
+ * A implementação não é exportada por conta própria: o servidor exporta uma única
+ * vez o proxy medido criado por {@link ServicoInstrumentado}.
  * 
  * @author bnsant
  * @version 1.0
  */
-public class EstoqueServiceImpl extends UnicastRemoteObject implements EstoqueService {
+public class EstoqueServiceImpl implements EstoqueService {
 
     /**
-     * DAO para operações com produtos.
+     * Quantidade de resultados das buscas e rankings quando o limite não é informado.
      */
-    private final ProdutoDAO produtoDAO;
+    private static final int LIMITE_PADRAO_BUSCA = 10;
+
+    /**
+     * Quantidade máxima de resultados das buscas e rankings.
+     */
+    private static final int LIMITE_MAXIMO_BUSCA = 100;
+
+    /**
+     * Repositório para operações com produtos.
+     */
+    private final ProdutoRepositorio produtoRepositorio;
     
     /**
-     * DAO para operações com categorias.
+     * Repositório para operações com categorias.
      */
-    private final CategoriaDAO categoriaDAO;
+    private final CategoriaRepositorio categoriaRepositorio;
     
     /**
-     * DAO para operações com registros de movimentação.
+     * Repositório para operações com registros de movimentação.
      */
-    private final RegistroMovimentacaoDAO registroMovimentacaoDAO;
+    private final MovimentacaoRepositorio movimentacaoRepositorio;
+    
+    /**
+     * Controle dos cursores remotos abertos.
+     */
+    private final GerenciadorCursores gerenciadorCursores;
 
     /**
-     * Construtor que inicializa os DAOs necessários.
+     * Pasta de onde os arquivos CSV são importados; nenhum arquivo fora dela é aberto.
+     */
+    private final Path diretorioImportacao;
+
+    /**
+     * Entrega dos alertas de estoque aos clientes inscritos.
+     */
+    private final PublicadorEventos<OuvinteAlertasEstoque, AlertaEstoque> publicadorAlertas;
+
+    /**
+     * Entrega das alterações do estoque aos clientes inscritos.
+     */
+    private final NotificadorEventosEstoque notificadorEventos;
+
+    /**
+     * Construtor que usa o armazenamento definido em armazenamento.tipo.
      * 
      * @throws RemoteException Se ocorrer erro na inicialização do objeto remoto
      */
     public EstoqueServiceImpl() throws RemoteException {
-        this.produtoDAO = new ProdutoDAO();
-        this.categoriaDAO = new CategoriaDAO();
-        this.registroMovimentacaoDAO = new RegistroMovimentacaoDAO();
+        this(FabricaRepositorios.criarConfigurado());
+    }
+
+    /**
+     * Construtor que usa os repositórios informados.
+     * 
+     * @param repositorios Repositórios do armazenamento escolhido
+     * @throws RemoteException Se ocorrer erro na inicialização do objeto remoto
+     */
+    public EstoqueServiceImpl(FabricaRepositorios repositorios) throws RemoteException {
+        this.produtoRepositorio = repositorios.getProdutos();
+        this.categoriaRepositorio = repositorios.getCategorias();
+        this.movimentacaoRepositorio = repositorios.getMovimentacoes();
+        this.gerenciadorCursores = new GerenciadorCursores();
+
+        ConfiguracaoBanco config = ConfiguracaoBanco.getInstancia();
+        this.diretorioImportacao = Paths.get(config.getString("importacao.diretorio", "importacao")).toAbsolutePath().normalize();
+        this.publicadorAlertas = new PublicadorEventos<>("alertas-estoque",
+                config.getInt("notificacao.capacidadeFila", 256),
+                config.getInt("notificacao.maximoInscritos", 64),
+                config.getLong("notificacao.timeoutEntregaMs", 10000),
+                OuvinteAlertasEstoque::alertaEstoque, null);
+        produtoRepositorio.getMonitorEstoque().adicionarObservador(publicadorAlertas::publicar);
+        this.notificadorEventos = new NotificadorEventosEstoque(
+                config.getInt("notificacao.capacidadeFila", 256),
+                config.getInt("notificacao.maximoInscritos", 64),
+                config.getLong("notificacao.timeoutEntregaMs", 10000));
+        produtoRepositorio.adicionarOuvinte(notificadorEventos);
     }
 
     /**
@@ -52,7 +121,7 @@ public class EstoqueServiceImpl extends UnicastRemoteObject implements EstoqueSe
      */
     @Override
     public void criarProduto(Produto p) throws RemoteException {
-        produtoDAO.CadastrarProduto(p);
+        produtoRepositorio.CadastrarProduto(p);
     }
 
     /**
@@ -60,7 +129,21 @@ public class EstoqueServiceImpl extends UnicastRemoteObject implements EstoqueSe
      */
     @Override
     public void atualizarProduto(Produto p) throws RemoteException {
-        produtoDAO.AtualizarProduto(p);
+        if (!produtoRepositorio.AtualizarProduto(p)) {
+            throw new RemoteException("Erro ao atualizar produto: produto " + p.getId()
+                    + " inexistente ou alterado desde a leitura (versão " + p.getVersao() + ")");
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void atualizarDadosProduto(Produto p) throws RemoteException {
+        if (!produtoRepositorio.atualizarDadosCadastrais(p)) {
+            throw new RemoteException("Erro ao atualizar produto: produto " + p.getId()
+                    + " inexistente ou alterado desde a leitura (versão " + p.getVersao() + ")");
+        }
     }
 
     /**
@@ -68,7 +151,7 @@ public class EstoqueServiceImpl extends UnicastRemoteObject implements EstoqueSe
      */
     @Override
     public void excluirProduto(int id) throws RemoteException {
-        produtoDAO.DeletarProdutoID(id);
+        produtoRepositorio.DeletarProdutoID(id);
     }
 
     /**
@@ -76,7 +159,7 @@ public class EstoqueServiceImpl extends UnicastRemoteObject implements EstoqueSe
      */
     @Override
     public List<Produto> listarProdutos() throws RemoteException {
-        return produtoDAO.getMinhaListaProdutos();
+        return produtoRepositorio.getMinhaListaProdutos();
     }
 
     /**
@@ -84,7 +167,7 @@ public class EstoqueServiceImpl extends UnicastRemoteObject implements EstoqueSe
      */
     @Override
     public Produto buscarProdutoPorId(int id) throws RemoteException {
-        return produtoDAO.ProcurarProdutoID(id);
+        return produtoRepositorio.ProcurarProdutoID(id);
     }
 
     /**
@@ -92,7 +175,87 @@ public class EstoqueServiceImpl extends UnicastRemoteObject implements EstoqueSe
      */
     @Override
     public Produto buscarProdutoPorNome(String nome) throws RemoteException {
-        return produtoDAO.ProcurarProdutoNome(nome);
+        return produtoRepositorio.ProcurarProdutoNome(nome);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Produto> buscarPorPrefixo(String prefixo, int limite) throws RemoteException {
+        int limiteValido = limite <= 0 ? LIMITE_PADRAO_BUSCA : Math.min(limite, LIMITE_MAXIMO_BUSCA);
+        return produtoRepositorio.buscarPorPrefixo(prefixo, limiteValido);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Produto> buscarProdutosAproximado(String termo, String categoria, int limite) throws RemoteException {
+        int limiteValido = limite <= 0 ? LIMITE_PADRAO_BUSCA : Math.min(limite, LIMITE_MAXIMO_BUSCA);
+        return produtoRepositorio.buscarAproximado(termo, categoria, limiteValido);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RelatorioImportacao importarProdutosCsv(String nomeArquivo) throws RemoteException {
+        Path arquivo = resolverArquivoImportacao(nomeArquivo);
+        try (Reader leitor = Files.newBufferedReader(arquivo, StandardCharsets.UTF_8)) {
+            return produtoRepositorio.importarProdutosCsv(leitor);
+        } catch (IOException e) {
+            throw new RemoteException("Erro ao importar produtos: não foi possível ler o arquivo " + nomeArquivo);
+        }
+    }
+
+    /**
+     * Resolve o nome informado pelo cliente dentro da pasta de importação.
+     * Caminhos absolutos, componentes ".." e links que levem para fora da pasta
+     * são recusados, de modo que o cliente não consegue abrir outros arquivos do servidor.
+     * 
+     * @param nomeArquivo Nome do arquivo, relativo à pasta de importação
+     * @return Caminho real do arquivo dentro da pasta
+     * @throws RemoteException Se o nome for inválido ou o arquivo não estiver na pasta
+     */
+    private Path resolverArquivoImportacao(String nomeArquivo) throws RemoteException {
+        if (nomeArquivo == null || nomeArquivo.isBlank()) {
+            throw new RemoteException("Erro ao importar produtos: nome do arquivo não informado");
+        }
+        Path relativo;
+        try {
+            relativo = Paths.get(nomeArquivo);
+        } catch (InvalidPathException e) {
+            throw new RemoteException("Erro ao importar produtos: nome de arquivo inválido");
+        }
+        if (relativo.isAbsolute() || relativo.getRoot() != null) {
+            throw new RemoteException("Erro ao importar produtos: informe o nome do arquivo relativo à pasta de importação");
+        }
+        for (Path parte : relativo) {
+            if ("..".equals(parte.toString())) {
+                throw new RemoteException("Erro ao importar produtos: o nome do arquivo não pode conter \"..\"");
+            }
+        }
+        Path pasta;
+        Path arquivo;
+        try {
+            pasta = diretorioImportacao.toRealPath();
+            arquivo = pasta.resolve(relativo).toRealPath();
+        } catch (IOException e) {
+            throw new RemoteException("Erro ao importar produtos: arquivo não encontrado na pasta de importação: " + nomeArquivo);
+        }
+        if (!arquivo.startsWith(pasta) || !Files.isRegularFile(arquivo)) {
+            throw new RemoteException("Erro ao importar produtos: arquivo fora da pasta de importação");
+        }
+        return arquivo;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CursorRemoto<Produto> abrirCursorProdutos(int tamanhoBloco) throws RemoteException {
+        return gerenciadorCursores.abrir(produtoRepositorio::abrirCursorProdutos, tamanhoBloco);
     }
 
     /**
@@ -101,7 +264,8 @@ public class EstoqueServiceImpl extends UnicastRemoteObject implements EstoqueSe
     @Override
     public void criarCategoria(Categoria c) throws RemoteException {
         try {
-            categoriaDAO.salvar(c);
+            categoriaRepositorio.salvar(c);
+            notificadorEventos.categoriaAlterada(c);
         } catch (SQLException e) {
             throw new RemoteException("Erro ao criar categoria: " + e.getMessage());
         }
@@ -113,7 +277,8 @@ public class EstoqueServiceImpl extends UnicastRemoteObject implements EstoqueSe
     @Override
     public void atualizarCategoria(Categoria c) throws RemoteException {
         try {
-            categoriaDAO.atualizar(c);
+            categoriaRepositorio.atualizar(c);
+            notificadorEventos.categoriaAlterada(c);
         } catch (SQLException e) {
             throw new RemoteException("Erro ao atualizar categoria: " + e.getMessage());
         }
@@ -125,7 +290,8 @@ public class EstoqueServiceImpl extends UnicastRemoteObject implements EstoqueSe
     @Override
     public void excluirCategoria(int id) throws RemoteException {
         try {
-            categoriaDAO.excluir(id);
+            categoriaRepositorio.excluir(id);
+            notificadorEventos.categoriaRemovida(id);
         } catch (SQLException e) {
             throw new RemoteException("Erro ao excluir categoria: " + e.getMessage());
         }
@@ -137,7 +303,7 @@ public class EstoqueServiceImpl extends UnicastRemoteObject implements EstoqueSe
     @Override
     public List<Categoria> listarCategorias() throws RemoteException {
         try {
-            return categoriaDAO.listarCategorias();
+            return categoriaRepositorio.listarCategorias();
         } catch (SQLException e) {
             throw new RemoteException("Erro ao listar categorias: " + e.getMessage());
         }
@@ -148,7 +314,21 @@ public class EstoqueServiceImpl extends UnicastRemoteObject implements EstoqueSe
      */
     @Override
     public void registrarMovimentacao(RegistroMovimentacao m) throws RemoteException {
-        registroMovimentacaoDAO.registrarMovimentacaoEAtualizarSaldo(m, produtoDAO);
+        ResultadoMovimentacao resultado = movimentacaoRepositorio.registrarMovimentacaoEAtualizarSaldo(m, produtoRepositorio);
+        if (!resultado.isSucesso()) {
+            throw new RemoteException("Erro ao registrar movimentação: " + resultado.getMensagem());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<ResultadoMovimentacao> registrarMovimentacoes(List<RegistroMovimentacao> movimentacoes) throws RemoteException {
+        if (movimentacoes == null) {
+            throw new RemoteException("Erro ao registrar movimentações: lista não informada");
+        }
+        return movimentacaoRepositorio.registrarMovimentacoesEmLote(movimentacoes, produtoRepositorio);
     }
 
     /**
@@ -156,7 +336,7 @@ public class EstoqueServiceImpl extends UnicastRemoteObject implements EstoqueSe
      */
     @Override
     public List<RegistroMovimentacao> listarMovimentacoes() throws RemoteException {
-        return registroMovimentacaoDAO.listarTodasMovimentacoes();
+        return movimentacaoRepositorio.listarTodasMovimentacoes();
     }
 
     /**
@@ -164,7 +344,39 @@ public class EstoqueServiceImpl extends UnicastRemoteObject implements EstoqueSe
      */
     @Override
     public List<RegistroMovimentacao> listarMovimentacoesPorProduto(int produtoId) throws RemoteException {
-        return registroMovimentacaoDAO.listarMovimentacoesPorProduto(produtoId);
+        return movimentacaoRepositorio.listarMovimentacoesPorProduto(produtoId);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PaginaMovimentacoes listarMovimentacoesPaginado(String cursor, int tamanhoPagina) throws RemoteException {
+        try {
+            return movimentacaoRepositorio.listarMovimentacoesPaginado(null, cursor, tamanhoPagina);
+        } catch (IllegalArgumentException e) {
+            throw new RemoteException("Erro ao listar movimentações: " + e.getMessage());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PaginaMovimentacoes listarMovimentacoesPorProdutoPaginado(int produtoId, String cursor, int tamanhoPagina) throws RemoteException {
+        try {
+            return movimentacaoRepositorio.listarMovimentacoesPaginado(produtoId, cursor, tamanhoPagina);
+        } catch (IllegalArgumentException e) {
+            throw new RemoteException("Erro ao listar movimentações: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CursorRemoto<RegistroMovimentacao> abrirCursorMovimentacoes(int tamanhoBloco) throws RemoteException {
+        return gerenciadorCursores.abrir(movimentacaoRepositorio::abrirCursorMovimentacoes, tamanhoBloco);
     }
     
     /**
@@ -172,7 +384,7 @@ public class EstoqueServiceImpl extends UnicastRemoteObject implements EstoqueSe
      */
     @Override
     public List<Produto> listarProdutosOrdenadosPorNome() throws RemoteException {
-        return produtoDAO.listarProdutoOrdenadoPorNome();
+        return produtoRepositorio.listarProdutoOrdenadoPorNome();
     }
     
     /**
@@ -180,7 +392,7 @@ public class EstoqueServiceImpl extends UnicastRemoteObject implements EstoqueSe
      */
     @Override
     public List<Produto> listarProdutosAbaixoMinimo() throws RemoteException {
-        return produtoDAO.listarProdutosAbaixoMinimo();
+        return produtoRepositorio.listarProdutosAbaixoMinimo();
     }
     
     /**
@@ -188,7 +400,7 @@ public class EstoqueServiceImpl extends UnicastRemoteObject implements EstoqueSe
      */
     @Override
     public List<String[]> listarQuantidadePorCategoria() throws RemoteException {
-        return produtoDAO.listarQuantidadePorCategoria();
+        return produtoRepositorio.listarQuantidadePorCategoria();
     }
     
     /**
@@ -196,7 +408,15 @@ public class EstoqueServiceImpl extends UnicastRemoteObject implements EstoqueSe
      */
     @Override
     public List<Object[]> listarBalancoFisicoFinanceiro() throws RemoteException {
-        return produtoDAO.listarBalancoFisicoFinanceiro();
+        return produtoRepositorio.listarBalancoFisicoFinanceiro();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CursorRemoto<Object[]> abrirCursorBalancoFisicoFinanceiro(int tamanhoBloco) throws RemoteException {
+        return gerenciadorCursores.abrir(produtoRepositorio::abrirCursorBalancoFisicoFinanceiro, tamanhoBloco);
     }
     
     /**
@@ -204,7 +424,15 @@ public class EstoqueServiceImpl extends UnicastRemoteObject implements EstoqueSe
      */
     @Override
     public double calcularValorTotalEstoque() throws RemoteException {
-        return produtoDAO.calcularValorTotalEstoque();
+        return produtoRepositorio.calcularValorTotalEstoque();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Object[]> listarValorPorCategoria() throws RemoteException {
+        return produtoRepositorio.listarValorPorCategoria();
     }
     
     /**
@@ -212,7 +440,7 @@ public class EstoqueServiceImpl extends UnicastRemoteObject implements EstoqueSe
      */
     @Override
     public String[] produtoComMaisEntrada() throws RemoteException {
-        return registroMovimentacaoDAO.produtoComMaisEntrada();
+        return movimentacaoRepositorio.produtoComMaisEntrada(produtoRepositorio);
     }
     
     /**
@@ -220,7 +448,20 @@ public class EstoqueServiceImpl extends UnicastRemoteObject implements EstoqueSe
      */
     @Override
     public String[] produtoComMaisSaida() throws RemoteException {
-        return registroMovimentacaoDAO.produtoComMaisSaida();
+        return movimentacaoRepositorio.produtoComMaisSaida(produtoRepositorio);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Object[]> listarRankingMovimentacoes(String criterio, int dias, int n) throws RemoteException {
+        int nValido = n <= 0 ? LIMITE_PADRAO_BUSCA : Math.min(n, LIMITE_MAXIMO_BUSCA);
+        try {
+            return movimentacaoRepositorio.listarRankingMovimentacoes(criterio, dias, nValido, produtoRepositorio);
+        } catch (IllegalArgumentException e) {
+            throw new RemoteException("Erro ao listar ranking de movimentações: " + e.getMessage());
+        }
     }
     
     /**
@@ -229,9 +470,45 @@ public class EstoqueServiceImpl extends UnicastRemoteObject implements EstoqueSe
     @Override
     public boolean reajustarPrecosPercentual(double percentual) throws RemoteException {
         try {
-            return produtoDAO.reajustarPrecosPercentual(percentual);
+            return produtoRepositorio.reajustarPrecosPercentual(percentual);
         } catch (SQLException e) {
             throw new RemoteException("Erro ao reajustar preços: " + e.getMessage());
         }
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void inscreverAlertasEstoque(OuvinteAlertasEstoque ouvinte) throws RemoteException {
+        // os alertas dependem do conjunto vigiado, que passa a acompanhar as alterações a partir da carga
+        if (!produtoRepositorio.carregarIndices()) {
+            throw new RemoteException("Erro ao inscrever ouvinte: não foi possível carregar o estoque");
+        }
+        publicadorAlertas.inscrever(ouvinte);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void cancelarAlertasEstoque(OuvinteAlertasEstoque ouvinte) throws RemoteException {
+        publicadorAlertas.cancelar(ouvinte);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void inscreverEventosEstoque(OuvinteEventosEstoque ouvinte) throws RemoteException {
+        notificadorEventos.inscrever(ouvinte);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void cancelarEventosEstoque(OuvinteEventosEstoque ouvinte) throws RemoteException {
+        notificadorEventos.cancelar(ouvinte);
+    }
 }
@@ -0,0 +1,34 @@
+package service;
+
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+
+/**
+ * Interface remota para inscrição nas alterações do estoque.
+ * Substitui a consulta periódica da lista de produtos: o cliente inscrito recebe
+ * as alterações de produtos, de quantidades em estoque e de categorias.
+ * 
+ * @author bnsant
+ * @version 1.0
+ */
+public interface EventoService extends Remote {
+
+    /**
+     * Inscreve um ouvinte para receber as alterações do estoque.
+     * Alterações do mesmo produto ou categoria ainda não entregues são agrupadas.
+     * Um ouvinte que demora a receber os eventos ou fica inacessível é descartado.
+     * 
+     * @param ouvinte Ouvinte remoto exportado pelo cliente
+     * @throws RemoteException Se ocorrer erro na comunicação remota ou o limite de inscritos for atingido
+     */
+    void inscreverEventosEstoque(OuvinteEventosEstoque ouvinte) throws RemoteException;
+    
+    /**
+     * Cancela a inscrição de um ouvinte de alterações do estoque.
+     * 
+     * @param ouvinte Ouvinte remoto inscrito anteriormente
+     * @throws RemoteException Se ocorrer erro na comunicação remota
+     */
+    void cancelarEventosEstoque(OuvinteEventosEstoque ouvinte) throws RemoteException;
+
+}
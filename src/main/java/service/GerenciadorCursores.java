@@ -0,0 +1,154 @@
+package service;
+
+import dao.ConfiguracaoBanco;
+import dao.CursorDados;
+import java.rmi.RemoteException;
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Controla os cursores remotos abertos pelo servidor.
+ * Limita a quantidade de cursores simultâneos, já que cada um ocupa uma conexão
+ * do pool: cada cursor aberto ocupa uma vaga de um {@link Semaphore}, reservada
+ * antes de abrir a consulta e devolvida quando o cursor sai do registro. Fecha periodicamente os cursores cujo prazo de concessão expirou.
+ * 
+ * @author bnsant
+ * @version 1.0
+ */
+public class GerenciadorCursores {
+
+    /**
+     * Abre uma consulta no banco de dados.
+     * 
+     * @param <T> Tipo dos itens da consulta
+     */
+    @FunctionalInterface
+    public interface AberturaConsulta<T> {
+
+        /**
+         * Abre a consulta com o tamanho de bloco informado.
+         * 
+         * @param tamanhoBloco Quantidade de linhas buscadas por vez
+         * @return Consulta aberta
+         * @throws SQLException Se não for possível abrir a consulta
+         */
+        CursorDados<T> abrir(int tamanhoBloco) throws SQLException;
+    }
+
+    /**
+     * Cursores abertos no momento.
+     */
+    private final Set<CursorRemotoImpl<?>> abertos = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Quantidade máxima de cursores abertos.
+     */
+    private final int maximoAbertos;
+
+    /**
+     * Vagas de cursores ainda disponíveis.
+     */
+    private final Semaphore vagas;
+
+    /**
+     * Prazo de concessão sem acesso, em milissegundos.
+     */
+    private final long leaseMs;
+
+    /**
+     * Maior quantidade de itens por bloco.
+     */
+    private final int tamanhoBlocoMaximo;
+
+    /**
+     * Construtor que lê os limites da configuração e agenda a limpeza de cursores expirados.
+     */
+    public GerenciadorCursores() {
+        ConfiguracaoBanco config = ConfiguracaoBanco.getInstancia();
+        this.maximoAbertos = config.getInt("cursor.maximoAbertos", 8);
+        this.leaseMs = config.getLong("cursor.leaseMs", 60000);
+        this.tamanhoBlocoMaximo = config.getInt("cursor.tamanhoBlocoMaximo", 1000);
+        this.vagas = new Semaphore(Math.max(0, maximoAbertos));
+
+        ScheduledExecutorService limpeza = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "cursores-remotos-limpeza");
+            t.setDaemon(true);
+            return t;
+        });
+        long intervalo = Math.max(1000, leaseMs / 4);
+        limpeza.scheduleWithFixedDelay(this::fecharExpirados, intervalo, intervalo, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Abre uma consulta e exporta o cursor remoto correspondente.
+     * 
+     * @param <T> Tipo dos itens da consulta
+     * @param abertura Função que abre a consulta no DAO
+     * @param tamanhoBloco Quantidade de itens por bloco pedida pelo cliente
+     * @return Cursor remoto exportado
+     * @throws RemoteException Se o limite de cursores foi atingido ou a consulta falhou
+     */
+    public <T> CursorRemoto<T> abrir(AberturaConsulta<T> abertura, int tamanhoBloco) throws RemoteException {
+        if (!vagas.tryAcquire()) {
+            fecharExpirados();
+            if (!vagas.tryAcquire()) {
+                throw new RemoteException("Limite de " + maximoAbertos + " cursores abertos atingido");
+            }
+        }
+        int bloco = tamanhoBloco <= 0 ? 100 : Math.min(tamanhoBloco, tamanhoBlocoMaximo);
+        CursorDados<T> consulta;
+        try {
+            consulta = abertura.abrir(bloco);
+        } catch (SQLException | RuntimeException e) {
+            vagas.release();
+            throw new RemoteException("Erro ao abrir cursor: " + e.getMessage());
+        }
+        try {
+            CursorRemotoImpl<T> cursor = new CursorRemotoImpl<>(consulta, bloco, this);
+            abertos.add(cursor);
+            return cursor;
+        } catch (RemoteException | RuntimeException e) {
+            consulta.close();
+            vagas.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Remove um cursor fechado do registro e devolve a sua vaga.
+     * 
+     * @param cursor Cursor fechado
+     */
+    void remover(CursorRemotoImpl<?> cursor) {
+        if (abertos.remove(cursor)) {
+            vagas.release();
+        }
+    }
+
+    /**
+     * Fecha os cursores sem acesso há mais tempo que o prazo de concessão.
+     */
+    private void fecharExpirados() {
+        long agora = System.currentTimeMillis();
+        for (CursorRemotoImpl<?> cursor : abertos) {
+            if (agora - cursor.getUltimoAcesso() > leaseMs) {
+                System.out.println("Fechando cursor remoto abandonado.");
+                cursor.fechar();
+            }
+        }
+    }
+
+    /**
+     * Retorna a quantidade de cursores abertos.
+     * 
+     * @return Cursores abertos
+     */
+    public int getQuantidadeAbertos() {
+        return abertos.size();
+    }
+}
@@ -0,0 +1,42 @@
+package service;
+
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import java.util.List;
+import modelo.ResumoMetrica;
+
+/**
+ * Interface remota para consulta das métricas do servidor.
+ * Informa, para cada método remoto e cada consulta SQL, a quantidade de
+ * chamadas, de erros, de chamadas em andamento e os percentis de latência.
+ * Registrada no RMI como "MetricsService", ao lado do EstoqueService.
+ * 
+ * @author bnsant
+ * @version 1.0
+ */
+public interface MetricsService extends Remote {
+
+    /**
+     * Lista o resumo das métricas de todas as operações.
+     * 
+     * @return Resumos ordenados por família e nome da operação
+     * @throws RemoteException Se ocorrer erro na comunicação remota
+     */
+    List<ResumoMetrica> listarMetricas() throws RemoteException;
+    
+    /**
+     * Retorna as métricas no formato de texto do Prometheus.
+     * 
+     * @return Texto no formato de exposição do Prometheus
+     * @throws RemoteException Se ocorrer erro na comunicação remota
+     */
+    String exportarPrometheus() throws RemoteException;
+    
+    /**
+     * Zera todas as métricas registradas.
+     * 
+     * @throws RemoteException Se ocorrer erro na comunicação remota
+     */
+    void zerarMetricas() throws RemoteException;
+
+}
@@ -0,0 +1,71 @@
+package service;
+
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.ArrayList;
+import java.util.List;
+import metricas.HistogramaLatencia;
+import metricas.MetricaOperacao;
+import metricas.RegistroMetricas;
+import modelo.ResumoMetrica;
+
+/**
+ * Implementação do serviço remoto de métricas.
+ * Lê as métricas do {@link RegistroMetricas} alimentado pela instrumentação
+ * dos métodos remotos e das consultas SQL.
+ * 
+ * @author bnsant
+ * @version 1.0
+ */
+public class MetricsServiceImpl extends UnicastRemoteObject implements MetricsService {
+
+    /**
+     * Versão serial para garantir compatibilidade na serialização.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Registro de métricas consultado.
+     */
+    private final RegistroMetricas registro;
+
+    /**
+     * Construtor que associa o serviço ao registro de métricas do servidor.
+     * 
+     * @throws RemoteException Se ocorrer erro na inicialização do objeto remoto
+     */
+    public MetricsServiceImpl() throws RemoteException {
+        this.registro = RegistroMetricas.getInstancia();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<ResumoMetrica> listarMetricas() throws RemoteException {
+        List<ResumoMetrica> resumos = new ArrayList<>();
+        for (MetricaOperacao m : registro.listar()) {
+            HistogramaLatencia h = m.getLatencias();
+            resumos.add(new ResumoMetrica(m.getFamilia(), m.getNome(), m.getChamadas(), m.getErros(),
+                    m.getEmAndamento(), h.getMedia() / 1e6, h.percentil(0.5) / 1e6,
+                    h.percentil(0.99) / 1e6, h.percentil(0.999) / 1e6, h.getMaximo() / 1e6));
+        }
+        return resumos;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String exportarPrometheus() throws RemoteException {
+        return registro.gerarTextoPrometheus();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void zerarMetricas() throws RemoteException {
+        registro.limpar();
+    }
+}
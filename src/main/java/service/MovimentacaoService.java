@@ -3,7 +3,9 @@ package service;
 import java.rmi.Remote;
 import java.rmi.RemoteException;
 import java.util.List;
+import modelo.PaginaMovimentacoes;
 import modelo.RegistroMovimentacao;
+import modelo.ResultadoMovimentacao;
 
 /**
  * Interface remota para operações relacionadas a Movimentações de Estoque.
@@ -16,12 +18,24 @@ public interface MovimentacaoService extends Remote {
 
     /**
      * Registra uma nova movimentação de estoque (entrada ou saída).
+     * Saídas maiores que o saldo do produto são recusadas sem alterar o estoque.
      * 
      * @param m Registro de movimentação a ser salvo
-     * @throws RemoteException Se ocorrer erro na comunicação remota
+     * @throws RemoteException Se a movimentação for recusada (produto inexistente
+     * ou estoque insuficiente) ou ocorrer erro na comunicação remota
      */
     void registrarMovimentacao(RegistroMovimentacao m) throws RemoteException;
     
+    /**
+     * Registra várias movimentações de estoque em uma única chamada e transação.
+     * Indicado para leitores que acumulam entradas e saídas e as enviam de uma vez.
+     * 
+     * @param movimentacoes Movimentações a serem registradas
+     * @return Resultado de cada movimentação, na mesma ordem da lista enviada
+     * @throws RemoteException Se ocorrer erro na comunicação remota
+     */
+    List<ResultadoMovimentacao> registrarMovimentacoes(List<RegistroMovimentacao> movimentacoes) throws RemoteException;
+    
     /**
      * Lista todas as movimentações registradas no sistema.
      * 
@@ -38,6 +52,37 @@ public interface MovimentacaoService extends Remote {
      * @throws RemoteException Se ocorrer erro na comunicação remota
      */
     List<RegistroMovimentacao> listarMovimentacoesPorProduto(int produtoId) throws RemoteException;
+    
+    /**
+     * Lista uma página do histórico de movimentações, da mais recente para a mais antiga.
+     * 
+     * @param cursor Cursor retornado na página anterior, ou null para a primeira página
+     * @param tamanhoPagina Quantidade de registros por página
+     * @return Página de movimentações com o cursor da próxima página
+     * @throws RemoteException Se ocorrer erro na comunicação remota ou o cursor for inválido
+     */
+    PaginaMovimentacoes listarMovimentacoesPaginado(String cursor, int tamanhoPagina) throws RemoteException;
+    
+    /**
+     * Lista uma página do histórico de movimentações de um produto, da mais recente para a mais antiga.
+     * 
+     * @param produtoId ID do produto
+     * @param cursor Cursor retornado na página anterior, ou null para a primeira página
+     * @param tamanhoPagina Quantidade de registros por página
+     * @return Página de movimentações com o cursor da próxima página
+     * @throws RemoteException Se ocorrer erro na comunicação remota ou o cursor for inválido
+     */
+    PaginaMovimentacoes listarMovimentacoesPorProdutoPaginado(int produtoId, String cursor, int tamanhoPagina) throws RemoteException;
+    
+    /**
+     * Abre um cursor remoto sobre todas as movimentações, da mais recente para a mais antiga.
+     * O cliente deve fechar o cursor ao terminar a leitura.
+     * 
+     * @param tamanhoBloco Quantidade de movimentações por bloco
+     * @return Cursor remoto de movimentações
+     * @throws RemoteException Se ocorrer erro na comunicação remota ou o limite de cursores for atingido
+     */
+    CursorRemoto<RegistroMovimentacao> abrirCursorMovimentacoes(int tamanhoBloco) throws RemoteException;
 
 }
 
@@ -0,0 +1,133 @@
+package service;
+
+import dao.OuvinteProdutos;
+import java.rmi.RemoteException;
+import java.util.List;
+import modelo.Categoria;
+import modelo.EventoEstoque;
+import modelo.Produto;
+
+/**
+ * Converte as alterações de produtos e categorias em {@link EventoEstoque} e as
+ * publica para os clientes inscritos. Registrado como ouvinte do ProdutoDAO, recebe
+ * cada produto relido do banco após a escrita; as alterações de categoria são
+ * informadas pelo serviço.
+ * 
+ * @author bnsant
+ * @version 1.0
+ */
+public class NotificadorEventosEstoque implements OuvinteProdutos {
+
+    /**
+     * Chave de agrupamento dos eventos de catálogo.
+     */
+    private static final String CHAVE_CATALOGO = "*";
+
+    /**
+     * Entrega dos eventos aos clientes inscritos.
+     */
+    private final PublicadorEventos<OuvinteEventosEstoque, EventoEstoque> publicador;
+
+    /**
+     * Construtor do notificador.
+     * 
+     * @param capacidadeFila Quantidade máxima de eventos pendentes por inscrito
+     * @param maximoInscritos Quantidade máxima de inscritos
+     * @param timeoutEntregaMs Tempo máximo de uma entrega em milissegundos (0 sem limite)
+     */
+    public NotificadorEventosEstoque(int capacidadeFila, int maximoInscritos, long timeoutEntregaMs) {
+        this.publicador = new PublicadorEventos<>("eventos-estoque", capacidadeFila, maximoInscritos,
+                timeoutEntregaMs, OuvinteEventosEstoque::eventoEstoque, NotificadorEventosEstoque::chave);
+    }
+
+    /**
+     * Calcula a chave de agrupamento de um evento: eventos pendentes do mesmo
+     * produto ou da mesma categoria são substituídos pelo mais recente.
+     * 
+     * @param evento Evento
+     * @return Chave de agrupamento
+     */
+    private static Object chave(EventoEstoque evento) {
+        switch (evento.getTipo()) {
+            case EventoEstoque.PRODUTO_ALTERADO:
+            case EventoEstoque.PRODUTO_REMOVIDO:
+                return "P" + evento.getId();
+            case EventoEstoque.CATEGORIA_ALTERADA:
+            case EventoEstoque.CATEGORIA_REMOVIDA:
+                // categorias recém-criadas ainda não têm ID e não são agrupadas
+                return evento.getId() == 0 ? new Object() : "C" + evento.getId();
+            default:
+                return CHAVE_CATALOGO;
+        }
+    }
+
+    /**
+     * Inscreve um ouvinte.
+     * 
+     * @param ouvinte Ouvinte remoto
+     * @throws RemoteException Se o limite de inscritos foi atingido
+     */
+    public void inscrever(OuvinteEventosEstoque ouvinte) throws RemoteException {
+        publicador.inscrever(ouvinte);
+    }
+
+    /**
+     * Cancela a inscrição de um ouvinte.
+     * 
+     * @param ouvinte Ouvinte remoto
+     */
+    public void cancelar(OuvinteEventosEstoque ouvinte) {
+        publicador.cancelar(ouvinte);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void catalogoCarregado(List<Produto> produtos) {
+        publicador.publicar(new EventoEstoque(EventoEstoque.CATALOGO_RECARREGADO, 0, null, null));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void produtoAlterado(Produto produto) {
+        publicador.publicar(new EventoEstoque(EventoEstoque.PRODUTO_ALTERADO, produto.getId(), produto, null));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void produtoRemovido(int id) {
+        publicador.publicar(new EventoEstoque(EventoEstoque.PRODUTO_REMOVIDO, id, null, null));
+    }
+
+    /**
+     * Publica a criação ou alteração de uma categoria.
+     * 
+     * @param categoria Categoria criada ou alterada
+     */
+    public void categoriaAlterada(Categoria categoria) {
+        publicador.publicar(new EventoEstoque(EventoEstoque.CATEGORIA_ALTERADA, categoria.getId(), null, categoria));
+    }
+
+    /**
+     * Publica a exclusão de uma categoria.
+     * 
+     * @param id ID da categoria excluída
+     */
+    public void categoriaRemovida(int id) {
+        publicador.publicar(new EventoEstoque(EventoEstoque.CATEGORIA_REMOVIDA, id, null, null));
+    }
+
+    /**
+     * Retorna a quantidade de ouvintes inscritos.
+     * 
+     * @return Inscritos
+     */
+    public int getQuantidadeInscritos() {
+        return publicador.getQuantidadeInscritos();
+    }
+}
@@ -0,0 +1,25 @@
+package service;
+
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import modelo.AlertaEstoque;
+
+/**
+ * Interface remota implementada pelo cliente para receber alertas de estoque.
+ * O cliente exporta o objeto (por exemplo, com UnicastRemoteObject) e o inscreve
+ * no servidor; os alertas são entregues de forma assíncrona.
+ * 
+ * @author bnsant
+ * @version 1.0
+ */
+public interface OuvinteAlertasEstoque extends Remote {
+
+    /**
+     * Recebe um alerta de produto que cruzou o limite mínimo ou máximo.
+     * 
+     * @param alerta Alerta de estoque
+     * @throws RemoteException Se ocorrer erro na comunicação remota
+     */
+    void alertaEstoque(AlertaEstoque alerta) throws RemoteException;
+
+}
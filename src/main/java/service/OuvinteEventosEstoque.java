@@ -0,0 +1,25 @@
+package service;
+
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import modelo.EventoEstoque;
+
+/**
+ * Interface remota implementada pelo cliente para receber as alterações do estoque.
+ * O cliente exporta o objeto (por exemplo, com UnicastRemoteObject) e o inscreve
+ * no servidor, deixando de consultar a lista de produtos periodicamente.
+ * 
+ * @author bnsant
+ * @version 1.0
+ */
+public interface OuvinteEventosEstoque extends Remote {
+
+    /**
+     * Recebe uma alteração de produto, estoque ou categoria.
+     * 
+     * @param evento Evento de alteração
+     * @throws RemoteException Se ocorrer erro na comunicação remota
+     */
+    void eventoEstoque(EventoEstoque evento) throws RemoteException;
+
+}
@@ -4,6 +4,7 @@ import java.rmi.Remote;
 import java.rmi.RemoteException;
 import java.util.List;
 import modelo.Produto;
+import modelo.RelatorioImportacao;
 
 /**
  * Interface remota para operações relacionadas a Produtos.
@@ -23,12 +24,27 @@ public interface ProdutoService extends Remote {
     void criarProduto(Produto p) throws RemoteException;
     
     /**
-     * Atualiza os dados de um produto existente.
+     * Atualiza todos os dados de um produto existente, inclusive a quantidade.
+     * O produto deve trazer a versão com que foi lido; se ele tiver sido
+     * alterado desde então, a atualização é rejeitada e o produto deve ser lido de novo.
+     * Clientes anteriores ao campo versao enviam sempre 0 e têm a atualização
+     * rejeitada assim que o produto for alterado uma vez; enquanto existirem,
+     * o servidor pode desligar a verificação com produto.versao.verificar=false.
      * 
-     * @param p Produto com os dados atualizados
-     * @throws RemoteException Se ocorrer erro na comunicação remota
+     * @param p Produto com os dados atualizados e a versão lida
+     * @throws RemoteException Se ocorrer erro na comunicação remota ou a atualização for rejeitada
      */
     void atualizarProduto(Produto p) throws RemoteException;
+
+    /**
+     * Atualiza nome, unidade, preço, limites e categoria de um produto sem
+     * alterar a quantidade em estoque, com a mesma verificação de versão de
+     * {@link #atualizarProduto(Produto)}.
+     * 
+     * @param p Produto com os dados atualizados e a versão lida
+     * @throws RemoteException Se ocorrer erro na comunicação remota ou a atualização for rejeitada
+     */
+    void atualizarDadosProduto(Produto p) throws RemoteException;
     
     /**
      * Exclui um produto do sistema pelo ID.
@@ -64,6 +80,30 @@ public interface ProdutoService extends Remote {
      */
     Produto buscarProdutoPorNome(String nome) throws RemoteException;
     
+    /**
+     * Busca produtos cujo nome começa com o prefixo informado, para autocompletar.
+     * A busca não diferencia maiúsculas de minúsculas e é atendida em memória.
+     * 
+     * @param prefixo Início do nome do produto
+     * @param limite Quantidade máxima de resultados (até 100)
+     * @return Produtos encontrados, em ordem alfabética
+     * @throws RemoteException Se ocorrer erro na comunicação remota
+     */
+    List<Produto> buscarPorPrefixo(String prefixo, int limite) throws RemoteException;
+    
+    /**
+     * Busca aproximada de produtos pelo nome ou pela categoria.
+     * Ignora acentos e maiúsculas e tolera pequenos erros de digitação
+     * (por exemplo, "acucar" encontra "Açúcar").
+     * 
+     * @param termo Texto a buscar
+     * @param categoria Categoria para filtrar, ou null para todas
+     * @param limite Quantidade máxima de resultados (até 100)
+     * @return Produtos encontrados, do mais ao menos parecido
+     * @throws RemoteException Se ocorrer erro na comunicação remota
+     */
+    List<Produto> buscarProdutosAproximado(String termo, String categoria, int limite) throws RemoteException;
+    
     /**
      * Lista todos os produtos ordenados alfabeticamente por nome.
      * 
@@ -79,6 +119,29 @@ public interface ProdutoService extends Remote {
      * @throws RemoteException Se ocorrer erro na comunicação remota
      */
     List<Produto> listarProdutosAbaixoMinimo() throws RemoteException;
+    
+    /**
+     * Importa em massa os produtos de um arquivo CSV da pasta de importação do
+     * servidor (chave importacao.diretorio). Só são aceitos nomes relativos a
+     * essa pasta, sem "..".
+     * O arquivo deve conter as colunas nome;unidade;quantidade;preco;min;max;categoria.
+     * 
+     * @param nomeArquivo Nome do arquivo CSV, relativo à pasta de importação
+     * @return Relatório com linhas importadas, recusadas e vazão
+     * @throws RemoteException Se ocorrer erro na comunicação remota, o nome for
+     * recusado ou o arquivo não puder ser lido
+     */
+    RelatorioImportacao importarProdutosCsv(String nomeArquivo) throws RemoteException;
+    
+    /**
+     * Abre um cursor remoto sobre todos os produtos, para leitura em blocos.
+     * O cliente deve fechar o cursor ao terminar a leitura.
+     * 
+     * @param tamanhoBloco Quantidade de produtos por bloco
+     * @return Cursor remoto de produtos, ordenado por ID
+     * @throws RemoteException Se ocorrer erro na comunicação remota ou o limite de cursores for atingido
+     */
+    CursorRemoto<Produto> abrirCursorProdutos(int tamanhoBloco) throws RemoteException;
 
 }
 
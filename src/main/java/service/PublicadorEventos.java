@@ -0,0 +1,368 @@
+package service;
+
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Entrega assíncrona de eventos a ouvintes remotos inscritos.
+ * Cada inscrito tem uma fila limitada própria, esvaziada por uma tarefa de
+ * entrega de cada vez, de modo que um cliente lento não atrasa os demais nem a
+ * thread que publicou o evento. Inscritos cuja fila enche, cuja chamada remota
+ * falha ou cuja entrega passa do tempo limite sem resposta são descartados. A
+ * thread presa na chamada sem resposta é liberada pelo tempo limite de resposta
+ * do RMI (sun.rmi.transport.tcp.responseTimeout), definido pelo servidor.
+ * 
+ * Opcionalmente os eventos podem ser agrupados por uma chave: um evento novo
+ * substitui o evento pendente com a mesma chave (por exemplo, o mesmo produto),
+ * de modo que o cliente recebe apenas o estado mais recente.
+ * 
+ * @param <L> Tipo do ouvinte remoto
+ * @param <E> Tipo do evento
+ * @author bnsant
+ * @version 1.0
+ */
+public class PublicadorEventos<L extends Remote, E> {
+
+    /**
+     * Chamada remota que entrega um evento a um ouvinte.
+     * 
+     * @param <L> Tipo do ouvinte remoto
+     * @param <E> Tipo do evento
+     */
+    @FunctionalInterface
+    public interface Entrega<L, E> {
+
+        /**
+         * Entrega o evento ao ouvinte.
+         * 
+         * @param ouvinte Ouvinte remoto
+         * @param evento Evento a entregar
+         * @throws RemoteException Se a chamada remota falhar
+         */
+        void entregar(L ouvinte, E evento) throws RemoteException;
+    }
+
+    /**
+     * Ouvinte inscrito e sua fila de eventos pendentes.
+     */
+    private final class Inscricao implements Runnable {
+        private final L ouvinte;
+        private final LinkedHashMap<Object, E> fila = new LinkedHashMap<>();
+        private boolean agendada;
+        private boolean cancelada;
+
+        /**
+         * Início da chamada remota em andamento (System.nanoTime), ou 0 se não há entrega em andamento.
+         */
+        private volatile long entregaIniciadaEm;
+
+        private Inscricao(L ouvinte) {
+            this.ouvinte = ouvinte;
+        }
+
+        /**
+         * Enfileira um evento e agenda a entrega se necessário.
+         * 
+         * @param evento Evento a enfileirar
+         * @return false se a fila estava cheia
+         */
+        private synchronized boolean enfileirar(E evento) {
+            if (cancelada) {
+                return true;
+            }
+            Object chave = chaveAgrupamento == null ? new Object() : chaveAgrupamento.apply(evento);
+            if (fila.containsKey(chave)) {
+                // mantém a posição do evento pendente e substitui pelo mais recente
+                fila.put(chave, evento);
+                agrupados.incrementAndGet();
+                return true;
+            }
+            if (fila.size() >= capacidadeFila) {
+                return false;
+            }
+            fila.put(chave, evento);
+            if (!agendada) {
+                agendada = true;
+                entregas.execute(this);
+            }
+            return true;
+        }
+
+        /**
+         * Retira o próximo evento, ou encerra a tarefa se a fila estiver vazia.
+         * 
+         * @return Próximo evento ou null
+         */
+        private synchronized E proximo() {
+            Iterator<Map.Entry<Object, E>> it = fila.entrySet().iterator();
+            if (cancelada || !it.hasNext()) {
+                agendada = false;
+                return null;
+            }
+            E evento = it.next().getValue();
+            it.remove();
+            return evento;
+        }
+
+        /**
+         * Entrega os eventos pendentes até esvaziar a fila.
+         */
+        @Override
+        public void run() {
+            E evento;
+            while ((evento = proximo()) != null) {
+                entregaIniciadaEm = System.nanoTime();
+                try {
+                    entrega.entregar(ouvinte, evento);
+                    entregues.incrementAndGet();
+                } catch (RemoteException | RuntimeException e) {
+                    descartar(this, "falha na entrega: " + e.getMessage());
+                    return;
+                } finally {
+                    entregaIniciadaEm = 0;
+                }
+            }
+        }
+    }
+
+    /**
+     * Nome usado nas mensagens e nas threads de entrega.
+     */
+    private final String nome;
+
+    /**
+     * Quantidade máxima de eventos pendentes por inscrito.
+     */
+    private final int capacidadeFila;
+
+    /**
+     * Quantidade máxima de inscritos.
+     */
+    private final int maximoInscritos;
+
+    /**
+     * Tempo máximo de uma entrega, em milissegundos (0 sem limite).
+     */
+    private final long timeoutEntregaMs;
+
+    /**
+     * Chamada remota de entrega.
+     */
+    private final Entrega<L, E> entrega;
+
+    /**
+     * Chave de agrupamento dos eventos pendentes, ou null para não agrupar.
+     */
+    private final Function<E, Object> chaveAgrupamento;
+
+    /**
+     * Inscrições ativas.
+     */
+    private final List<Inscricao> inscricoes = new CopyOnWriteArrayList<>();
+
+    /**
+     * Threads que executam as entregas.
+     */
+    private final ExecutorService entregas;
+
+    /**
+     * Verificação periódica das entregas que passaram do tempo limite, ou null sem limite.
+     */
+    private final ScheduledExecutorService vigia;
+
+    /**
+     * Contadores de eventos entregues e de inscritos descartados.
+     */
+    private final AtomicInteger entregues = new AtomicInteger();
+    private final AtomicInteger descartados = new AtomicInteger();
+    private final AtomicInteger agrupados = new AtomicInteger();
+
+    /**
+     * Construtor do publicador sem agrupamento: todos os eventos são entregues.
+     * 
+     * @param nome Nome usado nas mensagens e nas threads de entrega
+     * @param capacidadeFila Quantidade máxima de eventos pendentes por inscrito
+     * @param maximoInscritos Quantidade máxima de inscritos
+     * @param entrega Chamada remota que entrega um evento a um ouvinte
+     */
+    public PublicadorEventos(String nome, int capacidadeFila, int maximoInscritos, Entrega<L, E> entrega) {
+        this(nome, capacidadeFila, maximoInscritos, 0, entrega, null);
+    }
+
+    /**
+     * Construtor do publicador com agrupamento dos eventos pendentes.
+     * 
+     * @param nome Nome usado nas mensagens e nas threads de entrega
+     * @param capacidadeFila Quantidade máxima de eventos pendentes por inscrito
+     * @param maximoInscritos Quantidade máxima de inscritos
+     * @param timeoutEntregaMs Tempo máximo de uma entrega em milissegundos; o inscrito
+     *        que não responde nesse prazo é descartado (0 sem limite)
+     * @param entrega Chamada remota que entrega um evento a um ouvinte
+     * @param chaveAgrupamento Chave do evento; um evento pendente com a mesma chave é
+     *        substituído (null para não agrupar)
+     */
+    public PublicadorEventos(String nome, int capacidadeFila, int maximoInscritos, long timeoutEntregaMs,
+            Entrega<L, E> entrega, Function<E, Object> chaveAgrupamento) {
+        this.nome = nome;
+        this.timeoutEntregaMs = Math.max(0, timeoutEntregaMs);
+        this.chaveAgrupamento = chaveAgrupamento;
+        this.capacidadeFila = Math.max(1, capacidadeFila);
+        this.maximoInscritos = Math.max(1, maximoInscritos);
+        this.entrega = entrega;
+        AtomicInteger numeroThread = new AtomicInteger();
+        this.entregas = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, nome + "-entrega-" + numeroThread.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        if (this.timeoutEntregaMs > 0) {
+            this.vigia = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, nome + "-vigia-entregas");
+                t.setDaemon(true);
+                return t;
+            });
+            long intervalo = Math.max(50, this.timeoutEntregaMs / 4);
+            vigia.scheduleWithFixedDelay(this::descartarEntregasAtrasadas, intervalo, intervalo, TimeUnit.MILLISECONDS);
+        } else {
+            this.vigia = null;
+        }
+    }
+
+    /**
+     * Inscreve um ouvinte. Inscrever o mesmo ouvinte duas vezes não tem efeito.
+     * 
+     * @param ouvinte Ouvinte remoto
+     * @throws RemoteException Se o limite de inscritos foi atingido
+     */
+    public synchronized void inscrever(L ouvinte) throws RemoteException {
+        if (ouvinte == null) {
+            throw new RemoteException("Erro ao inscrever ouvinte: ouvinte não informado");
+        }
+        for (Inscricao inscricao : inscricoes) {
+            if (inscricao.ouvinte.equals(ouvinte)) {
+                return;
+            }
+        }
+        if (inscricoes.size() >= maximoInscritos) {
+            throw new RemoteException("Erro ao inscrever ouvinte: limite de " + maximoInscritos + " inscritos atingido");
+        }
+        inscricoes.add(new Inscricao(ouvinte));
+    }
+
+    /**
+     * Cancela a inscrição de um ouvinte.
+     * 
+     * @param ouvinte Ouvinte remoto
+     */
+    public synchronized void cancelar(L ouvinte) {
+        for (Inscricao inscricao : inscricoes) {
+            if (inscricao.ouvinte.equals(ouvinte)) {
+                remover(inscricao);
+            }
+        }
+    }
+
+    /**
+     * Publica um evento para todos os inscritos, sem esperar a entrega.
+     * 
+     * @param evento Evento a publicar
+     */
+    public void publicar(E evento) {
+        for (Inscricao inscricao : inscricoes) {
+            if (!inscricao.enfileirar(evento)) {
+                descartar(inscricao, "fila cheia (" + capacidadeFila + " eventos pendentes)");
+            }
+        }
+    }
+
+    /**
+     * Descarta os inscritos cuja entrega em andamento passou do tempo limite.
+     * A chamada remota não é interrompida, mas o inscrito deixa de receber eventos.
+     */
+    private void descartarEntregasAtrasadas() {
+        long agora = System.nanoTime();
+        for (Inscricao inscricao : inscricoes) {
+            long iniciada = inscricao.entregaIniciadaEm;
+            if (iniciada != 0) {
+                long decorridoMs = TimeUnit.NANOSECONDS.toMillis(agora - iniciada);
+                if (decorridoMs > timeoutEntregaMs) {
+                    descartar(inscricao, "entrega sem resposta há " + decorridoMs + " ms");
+                }
+            }
+        }
+    }
+
+    /**
+     * Descarta um inscrito lento ou inacessível.
+     * 
+     * @param inscricao Inscrição a descartar
+     * @param motivo Motivo do descarte
+     */
+    private void descartar(Inscricao inscricao, String motivo) {
+        if (remover(inscricao)) {
+            descartados.incrementAndGet();
+            System.err.println("Ouvinte de " + nome + " descartado: " + motivo);
+        }
+    }
+
+    /**
+     * Remove uma inscrição e descarta seus eventos pendentes.
+     * 
+     * @param inscricao Inscrição a remover
+     * @return true se a inscrição estava ativa
+     */
+    private boolean remover(Inscricao inscricao) {
+        synchronized (inscricao) {
+            inscricao.cancelada = true;
+            inscricao.fila.clear();
+        }
+        return inscricoes.remove(inscricao);
+    }
+
+    /**
+     * Retorna a quantidade de ouvintes inscritos.
+     * 
+     * @return Inscritos
+     */
+    public int getQuantidadeInscritos() {
+        return inscricoes.size();
+    }
+
+    /**
+     * Retorna o total de eventos entregues.
+     * 
+     * @return Eventos entregues
+     */
+    public int getEntregues() {
+        return entregues.get();
+    }
+
+    /**
+     * Retorna o total de inscritos descartados por lentidão ou falha.
+     * 
+     * @return Inscritos descartados
+     */
+    public int getDescartados() {
+        return descartados.get();
+    }
+
+    /**
+     * Retorna o total de eventos pendentes substituídos por um mais recente.
+     * 
+     * @return Eventos agrupados
+     */
+    public int getAgrupados() {
+        return agrupados.get();
+    }
+}
@@ -29,6 +29,17 @@ public interface RelatorioService extends Remote {
      */
     List<Object[]> listarBalancoFisicoFinanceiro() throws RemoteException;
     
+    /**
+     * Abre um cursor remoto sobre o balanço físico e financeiro, para leitura em blocos.
+     * Cada item tem o mesmo formato de {@link #listarBalancoFisicoFinanceiro()}.
+     * O cliente deve fechar o cursor ao terminar a leitura.
+     * 
+     * @param tamanhoBloco Quantidade de linhas por bloco
+     * @return Cursor remoto do balanço
+     * @throws RemoteException Se ocorrer erro na comunicação remota ou o limite de cursores for atingido
+     */
+    CursorRemoto<Object[]> abrirCursorBalancoFisicoFinanceiro(int tamanhoBloco) throws RemoteException;
+    
     /**
      * Calcula o valor total do estoque.
      * 
@@ -37,6 +48,14 @@ public interface RelatorioService extends Remote {
      */
     double calcularValorTotalEstoque() throws RemoteException;
     
+    /**
+     * Lista, por categoria, a quantidade de produtos e o valor em estoque.
+     * 
+     * @return Lista de arrays contendo [categoria, quantidade de produtos, valor total]
+     * @throws RemoteException Se ocorrer erro na comunicação remota
+     */
+    List<Object[]> listarValorPorCategoria() throws RemoteException;
+    
     /**
      * Identifica o produto que teve mais entradas no estoque.
      * 
@@ -53,6 +72,17 @@ public interface RelatorioService extends Remote {
      */
     String[] produtoComMaisSaida() throws RemoteException;
     
+    /**
+     * Lista os produtos mais movimentados, desde o início ou nos últimos dias.
+     * 
+     * @param criterio ENTRADA, SAIDA ou LIQUIDO (entradas menos saídas)
+     * @param dias Janela em dias até hoje (por exemplo, 7 ou 30), ou 0 para desde o início
+     * @param n Quantidade de produtos (até 100)
+     * @return Lista de arrays contendo [id, nome, total], do maior para o menor total
+     * @throws RemoteException Se ocorrer erro na comunicação remota ou o critério ou a janela forem inválidos
+     */
+    List<Object[]> listarRankingMovimentacoes(String criterio, int dias, int n) throws RemoteException;
+    
     /**
      * Reajusta os preços de todos os produtos aplicando um percentual.
      * 
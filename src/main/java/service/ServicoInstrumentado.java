@@ -0,0 +1,83 @@
+package service;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.rmi.Remote;
+import metricas.MetricaOperacao;
+import metricas.RegistroMetricas;
+
+/**
+ * Instrumentação dos métodos de um serviço remoto.
+ * Cria um proxy da interface remota que mede cada chamada (latência, erros e
+ * chamadas em andamento) no {@link RegistroMetricas} antes de repassá-la à
+ * implementação. O proxy é exportado no RMI no lugar da implementação.
+ * 
+ * @author bnsant
+ * @version 1.0
+ */
+public final class ServicoInstrumentado implements InvocationHandler {
+
+    /**
+     * Implementação do serviço.
+     */
+    private final Object alvo;
+
+    /**
+     * Registro onde as chamadas são medidas.
+     */
+    private final RegistroMetricas registro;
+
+    /**
+     * Construtor do tratador.
+     * 
+     * @param alvo Implementação do serviço
+     * @param registro Registro de métricas
+     */
+    private ServicoInstrumentado(Object alvo, RegistroMetricas registro) {
+        this.alvo = alvo;
+        this.registro = registro;
+    }
+
+    /**
+     * Cria o proxy instrumentado de um serviço remoto.
+     * 
+     * @param <T> Tipo da interface remota
+     * @param interfaceRemota Interface remota do serviço
+     * @param alvo Implementação do serviço
+     * @return Proxy que mede as chamadas e as repassa à implementação
+     */
+    public static <T extends Remote> T instrumentar(Class<T> interfaceRemota, T alvo) {
+        return interfaceRemota.cast(Proxy.newProxyInstance(
+                interfaceRemota.getClassLoader(),
+                new Class<?>[]{interfaceRemota},
+                new ServicoInstrumentado(alvo, RegistroMetricas.getInstancia())));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+        if (metodo.getDeclaringClass() == Object.class) {
+            switch (metodo.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return metodo.invoke(alvo, args);
+            }
+        }
+        MetricaOperacao metrica = registro.metrica(RegistroMetricas.SERVICO, metodo.getName());
+        long inicio = metrica.iniciar();
+        boolean erro = true;
+        try {
+            Object resultado = metodo.invoke(alvo, args);
+            erro = false;
+            return resultado;
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        } finally {
+            metrica.encerrar(inicio, erro);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Arrays;
+import java.util.List;
+import modelo.Produto;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testes do {@link AgregadosEstoque}: totais por categoria com a mesma
+ * política de agrupamento do índice de categorias.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+class AgregadosEstoqueTest {
+
+    /**
+     * Cria um produto de teste com preço 2.
+     *
+     * @param id ID do produto
+     * @param quantidade Quantidade em estoque
+     * @param categoria Categoria
+     * @return Produto
+     */
+    private static Produto produto(int id, int quantidade, String categoria) {
+        return new Produto(id, "Produto " + id, "un", 2.0, quantidade, 0, 100, categoria);
+    }
+
+    @Test
+    void totaisPorCategoriaSeguemOGroupByDoBanco() {
+        AgregadosEstoque agregados = new AgregadosEstoque();
+        List<Produto> produtos = Arrays.asList(
+                produto(1, 10, "Tintas"), produto(2, 5, "tintas"), produto(3, 1, null), produto(4, 2, "Tintas"));
+        agregados.catalogoCarregado(produtos);
+
+        List<Object[]> linhas = agregados.listarPorCategoria();
+        assertEquals(3, linhas.size());
+        assertNull(linhas.get(0)[0]);
+        assertEquals(1, linhas.get(0)[1]);
+        assertEquals("Tintas", linhas.get(1)[0]);
+        assertEquals(2, linhas.get(1)[1]);
+        assertEquals(24.0, (double) linhas.get(1)[2], 0.0001);
+        assertEquals("tintas", linhas.get(2)[0]);
+        assertEquals(36.0, agregados.getValorTotal(), 0.0001);
+        assertFalse(agregados.reconciliar(produtos));
+    }
+}
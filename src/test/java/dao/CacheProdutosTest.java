@@ -0,0 +1,112 @@
+package dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import modelo.Produto;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testes do {@link CacheProdutos}: remoção com deslocamento para trás na
+ * sondagem linear, remoção pelo relógio e geração das leituras.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+class CacheProdutosTest {
+
+    /**
+     * Cria um produto de teste.
+     *
+     * @param id ID do produto
+     * @param quantidade Quantidade em estoque
+     * @return Produto
+     */
+    private static Produto produto(int id, int quantidade) {
+        return new Produto(id, "Produto " + id, "un", 1.0, quantidade, 0, 100, "Geral");
+    }
+
+    @Test
+    void remocaoMantemAcessiveisOsDemaisDoAgrupamento() {
+        // capacidade 8 em uma tabela de 16 posições: agrupamentos frequentes
+        CacheProdutos cache = new CacheProdutos(8);
+        Map<Integer, Integer> esperado = new HashMap<>();
+        Random aleatorio = new Random(42);
+
+        for (int passo = 0; passo < 20000; passo++) {
+            if (esperado.size() < 8 && aleatorio.nextBoolean()) {
+                int id = 1 + aleatorio.nextInt(40);
+                int quantidade = aleatorio.nextInt(1000);
+                assertTrue(cache.preencher(produto(id, quantidade), cache.getGeracao()));
+                esperado.put(id, quantidade);
+            } else if (!esperado.isEmpty()) {
+                List<Integer> ids = new ArrayList<>(esperado.keySet());
+                int id = ids.get(aleatorio.nextInt(ids.size()));
+                cache.invalidar(id);
+                esperado.remove(id);
+            }
+
+            assertEquals(esperado.size(), cache.getTamanho(), "tamanho no passo " + passo);
+            for (int id = 1; id <= 40; id++) {
+                Produto p = cache.buscar(id);
+                if (esperado.containsKey(id)) {
+                    assertNotNull(p, "produto " + id + " perdido no passo " + passo);
+                    assertEquals((int) esperado.get(id), p.getQuantidade());
+                } else {
+                    assertNull(p, "produto " + id + " removido ainda encontrado no passo " + passo);
+                }
+            }
+        }
+        assertEquals(0, cache.getRemocoesPorCapacidade());
+    }
+
+    @Test
+    void relogioDaSegundaChanceAosProdutosAcessados() {
+        CacheProdutos cache = new CacheProdutos(3);
+        cache.preencher(produto(1, 10), cache.getGeracao());
+        cache.preencher(produto(2, 20), cache.getGeracao());
+        cache.preencher(produto(3, 30), cache.getGeracao());
+        cache.buscar(1);
+        cache.buscar(2);
+
+        cache.preencher(produto(4, 40), cache.getGeracao());
+
+        assertEquals(3, cache.getTamanho());
+        assertEquals(1, cache.getRemocoesPorCapacidade());
+        assertNull(cache.buscar(3), "o único produto sem acesso deveria ser removido");
+        assertNotNull(cache.buscar(1));
+        assertNotNull(cache.buscar(2));
+        assertNotNull(cache.buscar(4));
+    }
+
+    @Test
+    void leituraAnteriorAInvalidacaoNaoEGuardada() {
+        CacheProdutos cache = new CacheProdutos(16);
+        long geracaoLeitura = cache.getGeracao();
+        cache.invalidar(1);
+
+        assertFalse(cache.preencher(produto(1, 10), geracaoLeitura));
+        assertNull(cache.buscar(1));
+        assertTrue(cache.preencher(produto(1, 11), cache.getGeracao()));
+        assertEquals(11, cache.buscar(1).getQuantidade());
+    }
+
+    @Test
+    void produtosSaoCopiadosNaEntradaENaSaida() {
+        CacheProdutos cache = new CacheProdutos(16);
+        Produto original = produto(1, 10);
+        cache.preencher(original, cache.getGeracao());
+        original.setQuantidade(99);
+        cache.buscar(1).setQuantidade(77);
+
+        assertEquals(10, cache.buscar(1).getQuantidade());
+    }
+}
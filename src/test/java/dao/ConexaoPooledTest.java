@@ -0,0 +1,138 @@
+package dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testes do cache de statements preparados da {@link ConexaoPooled}:
+ * reaproveitamento entre empréstimos, statement avulso quando o do cache está
+ * em uso, remoção do menos usado e limpeza dos parâmetros na devolução. As
+ * conexões vêm do {@link DriverFalso}.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+class ConexaoPooledTest {
+
+    /**
+     * Consulta usada nos testes.
+     */
+    private static final String SQL = "UPDATE produto SET quantidade = ? WHERE id = ?";
+
+    /**
+     * Prepara, executa e fecha um statement.
+     *
+     * @param conexao Conexão emprestada
+     * @param sql Texto SQL
+     * @throws SQLException Se o statement falhar
+     */
+    private static void executar(Connection conexao, String sql) throws SQLException {
+        try (PreparedStatement st = conexao.prepareStatement(sql)) {
+            st.setInt(1, 10);
+            st.setInt(2, 1);
+            st.executeUpdate();
+        }
+    }
+
+    @Test
+    void statementEReaproveitadoEntreEmprestimos() throws SQLException {
+        PoolConexoes pool = DriverFalso.pool("cache-reaproveitamento", "pool.cacheStatements=4");
+
+        for (int i = 0; i < 3; i++) {
+            try (Connection conexao = pool.obterConexao()) {
+                executar(conexao, SQL);
+            }
+        }
+
+        DriverFalso.ConexaoFalsa fisica = DriverFalso.conexoes("cache-reaproveitamento").get(0);
+        assertEquals(1, fisica.preparados(SQL));
+        DriverFalso.StatementFalso statement = fisica.statements.get(0);
+        assertEquals(3, statement.execucoes.get());
+        assertEquals(3, statement.limpezas.get());
+        assertFalse(statement.fechado);
+        assertEquals(2, pool.getAcertosCacheStatements());
+        assertEquals(1, pool.getFalhasCacheStatements());
+    }
+
+    @Test
+    void statementEmUsoGeraUmAvulsoFechadoNaDevolucao() throws SQLException {
+        PoolConexoes pool = DriverFalso.pool("cache-avulso", "pool.cacheStatements=4");
+
+        try (Connection conexao = pool.obterConexao()) {
+            PreparedStatement cacheado = conexao.prepareStatement(SQL);
+            PreparedStatement avulso = conexao.prepareStatement(SQL);
+            assertSame(conexao, cacheado.getConnection());
+            avulso.executeUpdate();
+            cacheado.close();
+            assertThrows(SQLException.class, cacheado::executeUpdate);
+        }
+
+        DriverFalso.ConexaoFalsa fisica = DriverFalso.conexoes("cache-avulso").get(0);
+        assertEquals(2, fisica.preparados(SQL));
+        assertFalse(fisica.statements.get(0).fechado);
+        assertTrue(fisica.statements.get(1).fechado, "o avulso deveria ser fechado na devolução");
+    }
+
+    @Test
+    void cacheCheioFechaOStatementMenosUsado() throws SQLException {
+        PoolConexoes pool = DriverFalso.pool("cache-lru", "pool.cacheStatements=2");
+
+        try (Connection conexao = pool.obterConexao()) {
+            executar(conexao, "SELECT 1");
+            executar(conexao, "SELECT 2");
+            executar(conexao, "SELECT 1");
+            executar(conexao, "SELECT 3");
+            executar(conexao, "SELECT 1");
+            executar(conexao, "SELECT 2");
+        }
+
+        DriverFalso.ConexaoFalsa fisica = DriverFalso.conexoes("cache-lru").get(0);
+        assertEquals(1, fisica.preparados("SELECT 1"));
+        assertEquals(2, fisica.preparados("SELECT 2"));
+        assertEquals(1, fisica.preparados("SELECT 3"));
+        assertTrue(fisica.statements.get(1).fechado, "SELECT 2 era o menos usado ao entrar SELECT 3");
+        assertTrue(fisica.statements.get(2).fechado, "SELECT 3 era o menos usado ao voltar SELECT 2");
+        assertFalse(fisica.statements.get(0).fechado);
+    }
+
+    @Test
+    void chavesGeradasUsamOutraEntradaDoCache() throws SQLException {
+        PoolConexoes pool = DriverFalso.pool("cache-chaves", "pool.cacheStatements=4");
+
+        try (Connection conexao = pool.obterConexao()) {
+            conexao.prepareStatement(SQL).close();
+            conexao.prepareStatement(SQL, Statement.RETURN_GENERATED_KEYS).close();
+            conexao.prepareStatement(SQL, Statement.RETURN_GENERATED_KEYS).close();
+        }
+
+        DriverFalso.ConexaoFalsa fisica = DriverFalso.conexoes("cache-chaves").get(0);
+        assertEquals(2, fisica.preparados(SQL));
+        assertFalse(fisica.statements.get(0).comChaves);
+        assertTrue(fisica.statements.get(1).comChaves);
+    }
+
+    @Test
+    void cacheDesativadoPreparaEFechaACadaUso() throws SQLException {
+        PoolConexoes pool = DriverFalso.pool("cache-desativado", "pool.cacheStatements=0");
+
+        try (Connection conexao = pool.obterConexao()) {
+            executar(conexao, SQL);
+            executar(conexao, SQL);
+        }
+
+        DriverFalso.ConexaoFalsa fisica = DriverFalso.conexoes("cache-desativado").get(0);
+        assertEquals(2, fisica.preparados(SQL));
+        assertTrue(fisica.statements.get(0).fechado);
+        assertTrue(fisica.statements.get(1).fechado);
+        assertEquals(0, pool.getAcertosCacheStatements() + pool.getFalhasCacheStatements());
+    }
+}
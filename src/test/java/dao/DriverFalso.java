@@ -0,0 +1,282 @@
+package dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Driver JDBC usado nos testes do pool de conexões: aceita URLs jdbc:falso:nome
+ * e devolve conexões que não acessam banco algum, apenas registram as chamadas
+ * recebidas. As conexões abertas ficam disponíveis pelo nome da URL.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+public class DriverFalso implements Driver {
+
+    /**
+     * Prefixo das URLs aceitas.
+     */
+    static final String PREFIXO = "jdbc:falso:";
+
+    /**
+     * Conexões abertas, por nome da URL.
+     */
+    private static final Map<String, List<ConexaoFalsa>> CONEXOES = new ConcurrentHashMap<>();
+
+    static {
+        try {
+            DriverManager.registerDriver(new DriverFalso());
+        } catch (SQLException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Cria um pool de conexões sobre este driver, sem conexões mínimas e sem
+     * manutenção durante o teste.
+     *
+     * @param nome Nome da URL, que separa as conexões de cada teste
+     * @param configuracoes Configurações adicionais, no formato chave=valor
+     * @return Pool de conexões
+     */
+    static PoolConexoes pool(String nome, String... configuracoes) {
+        Properties propriedades = new Properties();
+        propriedades.setProperty("db.driver", DriverFalso.class.getName());
+        propriedades.setProperty("db.url", PREFIXO + nome);
+        propriedades.setProperty("pool.minimo", "0");
+        propriedades.setProperty("pool.manutencaoIntervaloMs", "3600000");
+        for (String configuracao : configuracoes) {
+            int igual = configuracao.indexOf('=');
+            propriedades.setProperty(configuracao.substring(0, igual), configuracao.substring(igual + 1));
+        }
+        return new PoolConexoes(new ConfiguracaoBanco(propriedades));
+    }
+
+    /**
+     * Retorna as conexões físicas abertas com a URL informada.
+     *
+     * @param nome Nome da URL
+     * @return Conexões, em ordem de abertura
+     */
+    static List<ConexaoFalsa> conexoes(String nome) {
+        return CONEXOES.computeIfAbsent(nome, n -> new CopyOnWriteArrayList<>());
+    }
+
+    @Override
+    public Connection connect(String url, Properties info) {
+        if (!acceptsURL(url)) {
+            return null;
+        }
+        ConexaoFalsa conexao = new ConexaoFalsa();
+        conexoes(url.substring(PREFIXO.length())).add(conexao);
+        return conexao.proxy;
+    }
+
+    @Override
+    public boolean acceptsURL(String url) {
+        return url != null && url.startsWith(PREFIXO);
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+        return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return 1;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 0;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException("getParentLogger");
+    }
+
+    /**
+     * Conexão física falsa.
+     */
+    static class ConexaoFalsa implements InvocationHandler {
+
+        /**
+         * Conexão entregue ao pool.
+         */
+        final Connection proxy = (Connection) Proxy.newProxyInstance(
+                DriverFalso.class.getClassLoader(), new Class<?>[]{Connection.class}, this);
+
+        /**
+         * Statements preparados na conexão, em ordem.
+         */
+        final List<StatementFalso> statements = new CopyOnWriteArrayList<>();
+
+        /**
+         * Quantidade de rollbacks recebidos.
+         */
+        final AtomicInteger rollbacks = new AtomicInteger();
+
+        /**
+         * Resposta de isValid.
+         */
+        volatile boolean valida = true;
+
+        /**
+         * Estado da conexão.
+         */
+        volatile boolean fechada;
+        volatile boolean autoCommit = true;
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws SQLException {
+            switch (metodo.getName()) {
+                case "close":
+                    fechada = true;
+                    return null;
+                case "isClosed":
+                    return fechada;
+                case "isValid":
+                    return valida && !fechada;
+                case "getAutoCommit":
+                    return autoCommit;
+                case "setAutoCommit":
+                    autoCommit = (Boolean) args[0];
+                    return null;
+                case "rollback":
+                    rollbacks.incrementAndGet();
+                    return null;
+                case "isReadOnly":
+                    return false;
+                case "commit":
+                case "setReadOnly":
+                case "clearWarnings":
+                    return null;
+                case "prepareStatement":
+                    StatementFalso statement = new StatementFalso((String) args[0], args.length > 1);
+                    statements.add(statement);
+                    return statement.proxy;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "ConexaoFalsa@" + Integer.toHexString(System.identityHashCode(proxy));
+                default:
+                    throw new SQLFeatureNotSupportedException(metodo.getName());
+            }
+        }
+
+        /**
+         * Conta os statements preparados com o texto SQL informado.
+         *
+         * @param sql Texto SQL
+         * @return Quantidade de statements preparados
+         */
+        int preparados(String sql) {
+            int quantidade = 0;
+            for (StatementFalso statement : statements) {
+                if (statement.sql.equals(sql)) {
+                    quantidade++;
+                }
+            }
+            return quantidade;
+        }
+    }
+
+    /**
+     * Statement preparado falso.
+     */
+    static class StatementFalso implements InvocationHandler {
+
+        /**
+         * Statement entregue ao pool.
+         */
+        final PreparedStatement proxy = (PreparedStatement) Proxy.newProxyInstance(
+                DriverFalso.class.getClassLoader(), new Class<?>[]{PreparedStatement.class}, this);
+
+        /**
+         * Texto SQL preparado.
+         */
+        final String sql;
+
+        /**
+         * Se foi preparado com retorno de chaves geradas.
+         */
+        final boolean comChaves;
+
+        /**
+         * Quantidade de limpezas de parâmetros e de execuções.
+         */
+        final AtomicInteger limpezas = new AtomicInteger();
+        final AtomicInteger execucoes = new AtomicInteger();
+
+        /**
+         * Indica se o statement foi fechado.
+         */
+        volatile boolean fechado;
+
+        /**
+         * Construtor do statement.
+         *
+         * @param sql Texto SQL
+         * @param comChaves Se retorna chaves geradas
+         */
+        StatementFalso(String sql, boolean comChaves) {
+            this.sql = sql;
+            this.comChaves = comChaves;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws SQLException {
+            String nome = metodo.getName();
+            switch (nome) {
+                case "close":
+                    fechado = true;
+                    return null;
+                case "isClosed":
+                    return fechado;
+                case "clearParameters":
+                    limpezas.incrementAndGet();
+                    return null;
+                case "clearBatch":
+                    return null;
+                case "executeUpdate":
+                    execucoes.incrementAndGet();
+                    return 1;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "StatementFalso[" + sql + "]";
+                default:
+                    if (nome.startsWith("set")) {
+                        return null;
+                    }
+                    throw new SQLFeatureNotSupportedException(nome);
+            }
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import modelo.RegistroMovimentacao;
+import modelo.ResultadoMovimentacao;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testes do {@link GrupoCommitMovimentacoes}: resultado próprio de cada
+ * chamador, nova gravação individual após falha do lote, prazo de espera e
+ * recuperação da thread de gravação. O DAO é substituído por um que não usa o banco.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+class GrupoCommitMovimentacoesTest {
+
+    /**
+     * DAO que responde aos lotes sem acessar o banco e guarda os lotes recebidos.
+     */
+    private static class DaoFalso extends RegistroMovimentacaoDAO {
+
+        /**
+         * Movimentações recebidas em cada lote.
+         */
+        final List<List<RegistroMovimentacao>> lotes = new CopyOnWriteArrayList<>();
+
+        /**
+         * Movimentações regravadas individualmente.
+         */
+        final List<RegistroMovimentacao> individuais = new CopyOnWriteArrayList<>();
+
+        /**
+         * Responde a uma movimentação do lote; por padrão, sucesso.
+         *
+         * @param indice Posição no lote
+         * @param registro Movimentação
+         * @return Resultado
+         */
+        ResultadoMovimentacao responder(int indice, RegistroMovimentacao registro) {
+            return new ResultadoMovimentacao(indice, registro.getProdutoId(), ResultadoMovimentacao.SUCESSO, "ok");
+        }
+
+        @Override
+        public List<ResultadoMovimentacao> registrarMovimentacoesEmLote(List<RegistroMovimentacao> registros, ProdutoRepositorio produtos) {
+            lotes.add(new ArrayList<>(registros));
+            List<ResultadoMovimentacao> resultados = new ArrayList<>();
+            for (int i = 0; i < registros.size(); i++) {
+                resultados.add(responder(i, registros.get(i)));
+            }
+            return resultados;
+        }
+
+        @Override
+        public ResultadoMovimentacao registrarMovimentacaoEAtualizarSaldo(RegistroMovimentacao registro, ProdutoRepositorio produtos) {
+            individuais.add(registro);
+            return new ResultadoMovimentacao(0, registro.getProdutoId(), ResultadoMovimentacao.SUCESSO, "individual");
+        }
+    }
+
+    /**
+     * Repositório de produtos informado nas movimentações que alteram o saldo.
+     */
+    private final ProdutoRepositorio produtos = new ProdutoRepositorioMemoria();
+
+    /**
+     * Cria uma movimentação de saída.
+     *
+     * @param produtoId ID do produto
+     * @return Movimentação
+     */
+    private static RegistroMovimentacao movimentacao(int produtoId) {
+        return new RegistroMovimentacao(0, produtoId, "Saída", 1, null, null);
+    }
+
+    /**
+     * Registra uma movimentação por thread, todas liberadas ao mesmo tempo.
+     *
+     * @param grupo Group commit
+     * @param chamadores Quantidade de threads; a thread i movimenta o produto i + 1
+     * @return Resultado recebido por cada thread
+     * @throws InterruptedException Se a espera for interrompida
+     */
+    private AtomicReferenceArray<ResultadoMovimentacao> registrarEmParalelo(GrupoCommitMovimentacoes grupo, int chamadores)
+            throws InterruptedException {
+        AtomicReferenceArray<ResultadoMovimentacao> resultados = new AtomicReferenceArray<>(chamadores);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < chamadores; i++) {
+            int chamador = i;
+            Thread t = new Thread(() -> {
+                try {
+                    largada.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                resultados.set(chamador, grupo.registrarMovimentacaoEAtualizarSaldo(movimentacao(chamador + 1), produtos));
+            });
+            threads.add(t);
+            t.start();
+        }
+        largada.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+        return resultados;
+    }
+
+    @Test
+    void cadaChamadorRecebeOResultadoDaSuaMovimentacao() throws InterruptedException {
+        DaoFalso dao = new DaoFalso() {
+            @Override
+            ResultadoMovimentacao responder(int indice, RegistroMovimentacao registro) {
+                String status = registro.getProdutoId() % 2 == 0
+                        ? ResultadoMovimentacao.SUCESSO : ResultadoMovimentacao.ESTOQUE_INSUFICIENTE;
+                return new ResultadoMovimentacao(indice, registro.getProdutoId(), status, status);
+            }
+        };
+        GrupoCommitMovimentacoes grupo = new GrupoCommitMovimentacoes(dao, 1_000_000, 16, 10_000);
+
+        AtomicReferenceArray<ResultadoMovimentacao> resultados = registrarEmParalelo(grupo, 16);
+
+        for (int i = 0; i < 16; i++) {
+            ResultadoMovimentacao resultado = resultados.get(i);
+            int produtoId = i + 1;
+            assertEquals(produtoId, resultado.getProdutoId());
+            assertEquals(0, resultado.getIndice());
+            assertEquals(produtoId % 2 == 0 ? ResultadoMovimentacao.SUCESSO : ResultadoMovimentacao.ESTOQUE_INSUFICIENTE,
+                    resultado.getStatus());
+        }
+        int gravadas = 0;
+        for (List<RegistroMovimentacao> lote : dao.lotes) {
+            gravadas += lote.size();
+        }
+        assertEquals(16, gravadas);
+        assertTrue(dao.individuais.isEmpty());
+    }
+
+    @Test
+    void loteComErroEGravadoDeNovoUmaAUm() throws InterruptedException {
+        DaoFalso dao = new DaoFalso() {
+            @Override
+            ResultadoMovimentacao responder(int indice, RegistroMovimentacao registro) {
+                return new ResultadoMovimentacao(indice, registro.getProdutoId(), ResultadoMovimentacao.ERRO, "falha do lote");
+            }
+        };
+        GrupoCommitMovimentacoes grupo = new GrupoCommitMovimentacoes(dao, 1_000_000, 8, 10_000);
+
+        AtomicReferenceArray<ResultadoMovimentacao> resultados = registrarEmParalelo(grupo, 8);
+
+        assertEquals(1, dao.lotes.size());
+        assertEquals(8, dao.individuais.size());
+        for (int i = 0; i < 8; i++) {
+            assertEquals(ResultadoMovimentacao.SUCESSO, resultados.get(i).getStatus());
+            assertEquals(i + 1, resultados.get(i).getProdutoId());
+        }
+    }
+
+    @Test
+    void prazoEsgotadoRetornaErroENaoGravaOPedidoRetirado() throws InterruptedException {
+        CountDownLatch liberar = new CountDownLatch(1);
+        DaoFalso dao = new DaoFalso() {
+            @Override
+            ResultadoMovimentacao responder(int indice, RegistroMovimentacao registro) {
+                if (registro.getProdutoId() == 1) {
+                    try {
+                        liberar.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.responder(indice, registro);
+            }
+        };
+        GrupoCommitMovimentacoes grupo = new GrupoCommitMovimentacoes(dao, 0, 16, 200);
+
+        ResultadoMovimentacao emGravacao = grupo.registrarMovimentacaoEAtualizarSaldo(movimentacao(1), produtos);
+        assertEquals(ResultadoMovimentacao.ERRO, emGravacao.getStatus());
+        assertTrue(emGravacao.getMensagem().contains("pode ter sido gravada"));
+
+        ResultadoMovimentacao naFila = grupo.registrarMovimentacaoEAtualizarSaldo(movimentacao(2), produtos);
+        assertEquals(ResultadoMovimentacao.ERRO, naFila.getStatus());
+        assertTrue(naFila.getMensagem().startsWith("Movimentação não gravada"));
+
+        liberar.countDown();
+        assertTrue(grupo.registrarMovimentacaoEAtualizarSaldo(movimentacao(3), produtos).isSucesso());
+        for (List<RegistroMovimentacao> lote : dao.lotes) {
+            for (RegistroMovimentacao registro : lote) {
+                assertFalse(registro.getProdutoId() == 2, "movimentação retirada da fila foi gravada");
+            }
+        }
+    }
+
+    @Test
+    void threadDeGravacaoEReiniciadaAposUmError() {
+        AtomicInteger chamadas = new AtomicInteger();
+        DaoFalso dao = new DaoFalso() {
+            @Override
+            public List<ResultadoMovimentacao> registrarMovimentacoesEmLote(List<RegistroMovimentacao> registros, ProdutoRepositorio produtos) {
+                if (chamadas.getAndIncrement() == 0) {
+                    throw new StackOverflowError("falha simulada");
+                }
+                return super.registrarMovimentacoesEmLote(registros, produtos);
+            }
+        };
+        GrupoCommitMovimentacoes grupo = new GrupoCommitMovimentacoes(dao, 0, 16, 10_000);
+
+        ResultadoMovimentacao primeira = grupo.registrarMovimentacaoEAtualizarSaldo(movimentacao(1), produtos);
+        assertEquals(ResultadoMovimentacao.ERRO, primeira.getStatus());
+
+        assertTrue(grupo.registrarMovimentacaoEAtualizarSaldo(movimentacao(2), produtos).isSucesso());
+        assertEquals(2, chamadas.get());
+    }
+}
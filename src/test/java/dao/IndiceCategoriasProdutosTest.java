@@ -0,0 +1,64 @@
+package dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import modelo.Produto;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testes do {@link IndiceCategoriasProdutos}: agrupamento pelo valor cadastrado
+ * da categoria, como no GROUP BY do banco, e grupo próprio para os produtos sem categoria.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+class IndiceCategoriasProdutosTest {
+
+    /**
+     * Cria um produto de teste.
+     *
+     * @param id ID do produto
+     * @param categoria Categoria
+     * @return Produto
+     */
+    private static Produto produto(int id, String categoria) {
+        return new Produto(id, "Produto " + id, "un", 1.0, 10, 0, 100, categoria);
+    }
+
+    @Test
+    void agrupaPeloValorCadastradoComOsSemCategoriaPrimeiro() {
+        IndiceCategoriasProdutos indice = new IndiceCategoriasProdutos();
+        indice.catalogoCarregado(Arrays.asList(
+                produto(1, "Ferragens"), produto(2, "ferragens"), produto(3, null),
+                produto(4, "Ferragens"), produto(5, null)));
+
+        assertEquals(Arrays.asList(null, "Ferragens", "ferragens"), indice.listarCategorias());
+        List<String[]> contagem = indice.contarPorCategoria();
+        assertEquals(3, contagem.size());
+        assertNull(contagem.get(0)[0]);
+        assertEquals("2", contagem.get(0)[1]);
+        assertEquals("2", contagem.get(1)[1]);
+        assertEquals("1", contagem.get(2)[1]);
+        assertEquals(2, indice.buscarPorCategoria("Ferragens").size());
+        assertTrue(indice.buscarPorCategoria(null).isEmpty());
+    }
+
+    @Test
+    void alteracaoMoveOProdutoEntreOsGrupos() {
+        IndiceCategoriasProdutos indice = new IndiceCategoriasProdutos();
+        indice.catalogoCarregado(Arrays.asList(produto(1, null), produto(2, "Tintas")));
+
+        indice.produtoAlterado(produto(1, "Tintas"));
+        assertEquals(Arrays.asList("Tintas"), indice.listarCategorias());
+        assertEquals(2, indice.buscarPorCategoria("Tintas").size());
+
+        indice.produtoAlterado(produto(2, null));
+        indice.produtoRemovido(1);
+        assertEquals(Arrays.asList((String) null), indice.listarCategorias());
+        assertEquals("1", indice.contarPorCategoria().get(0)[1]);
+    }
+}
@@ -0,0 +1,192 @@
+package dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import modelo.RegistroMovimentacao;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Testes do {@link JournalMovimentacoes}: recuperação das entradas pendentes
+ * a partir do checkpoint, descarte de gravações corrompidas e remoção dos
+ * segmentos confirmados.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+class JournalMovimentacoesTest {
+
+    /**
+     * Data das movimentações gravadas.
+     */
+    private static final LocalDate DATA = LocalDate.of(2024, 5, 17);
+
+    /**
+     * Pasta temporária dos segmentos.
+     */
+    @TempDir
+    Path pasta;
+
+    /**
+     * Abre um journal na pasta temporária, sem fsync, e recupera as entradas pendentes.
+     *
+     * @param ultimaConfirmada Última sequência confirmada no banco
+     * @return Journal aberto
+     * @throws IOException Se o journal não puder ser aberto
+     */
+    private JournalMovimentacoes abrir(long ultimaConfirmada) throws IOException {
+        JournalMovimentacoes journal = new JournalMovimentacoes(pasta, 4096, JournalMovimentacoes.FSYNC_NUNCA, 0, 10000);
+        journal.recuperar(ultimaConfirmada);
+        return journal;
+    }
+
+    /**
+     * Cria uma movimentação de entrada.
+     *
+     * @param produtoId ID do produto
+     * @param observacao Observação
+     * @return Movimentação
+     */
+    private static RegistroMovimentacao movimentacao(int produtoId, String observacao) {
+        return new RegistroMovimentacao(0, produtoId, "Entrada", produtoId * 10, observacao, null);
+    }
+
+    /**
+     * Grava movimentações uma a uma, dos produtos 1 até a quantidade informada.
+     *
+     * @param journal Journal
+     * @param quantidade Quantidade de movimentações
+     * @param observacao Observação de todas as movimentações
+     * @throws IOException Se a gravação falhar
+     */
+    private static void anexar(JournalMovimentacoes journal, int quantidade, String observacao) throws IOException {
+        for (int i = 1; i <= quantidade; i++) {
+            journal.anexar(List.of(movimentacao(i, observacao)), DATA, true);
+        }
+    }
+
+    /**
+     * Lista os arquivos de segmento da pasta, em ordem de nome.
+     *
+     * @return Arquivos de segmento
+     * @throws IOException Se a pasta não puder ser lida
+     */
+    private List<Path> segmentos() throws IOException {
+        List<Path> arquivos = new ArrayList<>();
+        try (DirectoryStream<Path> lista = Files.newDirectoryStream(pasta, "journal-*.seg")) {
+            lista.forEach(arquivos::add);
+        }
+        arquivos.sort(null);
+        return arquivos;
+    }
+
+    @Test
+    void recuperaAsEntradasGravadasComTodosOsCampos() throws IOException {
+        JournalMovimentacoes journal = abrir(0);
+        journal.anexar(List.of(movimentacao(1, "primeira"), movimentacao(2, null)), DATA, true);
+        journal.anexar(List.of(movimentacao(3, "sem saldo")), DATA, false);
+
+        List<JournalMovimentacoes.Entrada> recuperadas = abrir(0).lerPendentes(100);
+
+        assertEquals(3, recuperadas.size());
+        for (int i = 0; i < 3; i++) {
+            JournalMovimentacoes.Entrada entrada = recuperadas.get(i);
+            assertEquals(i + 1, entrada.getSequencia());
+            assertEquals(i + 1, entrada.getRegistro().getProdutoId());
+            assertEquals((i + 1) * 10, entrada.getRegistro().getQuantidade());
+            assertEquals("Entrada", entrada.getRegistro().getTipoMovimentacao());
+            assertEquals(DATA, entrada.getData());
+        }
+        assertEquals("primeira", recuperadas.get(0).getRegistro().getObservacao());
+        assertNull(recuperadas.get(1).getRegistro().getObservacao());
+        assertTrue(recuperadas.get(1).isAtualizaSaldo());
+        assertFalse(recuperadas.get(2).isAtualizaSaldo());
+    }
+
+    @Test
+    void observacaoNulaEVaziaSaoRecuperadasSemAlteracao() throws IOException {
+        abrir(0).anexar(List.of(movimentacao(1, null), movimentacao(2, ""), movimentacao(3, "texto")), DATA, true);
+
+        List<JournalMovimentacoes.Entrada> recuperadas = abrir(0).lerPendentes(100);
+
+        assertNull(recuperadas.get(0).getRegistro().getObservacao());
+        assertEquals("", recuperadas.get(1).getRegistro().getObservacao());
+        assertEquals("texto", recuperadas.get(2).getRegistro().getObservacao());
+    }
+
+    @Test
+    void checkpointDescartaAsConfirmadasEContinuaASequencia() throws IOException {
+        anexar(abrir(0), 5, "x");
+
+        JournalMovimentacoes journal = abrir(3);
+        List<JournalMovimentacoes.Entrada> pendentes = journal.lerPendentes(100);
+        assertEquals(2, pendentes.size());
+        assertEquals(4, pendentes.get(0).getSequencia());
+        assertEquals(5, pendentes.get(1).getSequencia());
+
+        journal.anexar(List.of(movimentacao(9, "depois")), DATA, true);
+        assertEquals(6, journal.lerPendentes(100).get(2).getSequencia());
+        assertEquals(3, abrir(3).getQuantidadePendentes());
+    }
+
+    @Test
+    void gravacaoCorrompidaEncerraALeituraDoSegmento() throws IOException {
+        anexar(abrir(0), 4, "observação");
+        List<Path> arquivos = segmentos();
+        assertEquals(1, arquivos.size());
+
+        // altera o último byte escrito, que pertence à última entrada
+        byte[] conteudo = Files.readAllBytes(arquivos.get(0));
+        int ultimo = conteudo.length - 1;
+        while (conteudo[ultimo] == 0) {
+            ultimo--;
+        }
+        conteudo[ultimo] ^= 0x5A;
+        Files.write(arquivos.get(0), conteudo);
+
+        JournalMovimentacoes journal = abrir(0);
+        assertEquals(3, journal.getQuantidadePendentes());
+        journal.anexar(List.of(movimentacao(9, null)), DATA, true);
+        assertEquals(4, journal.lerPendentes(100).get(3).getSequencia());
+    }
+
+    @Test
+    void confirmacaoApagaOsSegmentosJaConfirmados() throws IOException {
+        JournalMovimentacoes journal = abrir(0);
+        anexar(journal, 100, "x".repeat(200));
+        int criados = journal.getQuantidadeSegmentos();
+        assertTrue(criados > 3, "esperados vários segmentos, criados " + criados);
+
+        journal.confirmar(50);
+        assertEquals(50, journal.getQuantidadePendentes());
+        assertTrue(segmentos().size() < criados);
+        assertEquals(51, abrir(50).lerPendentes(1).get(0).getSequencia());
+
+        journal.confirmar(100);
+        assertEquals(0, journal.getQuantidadePendentes());
+        assertEquals(1, journal.getQuantidadeSegmentos());
+    }
+
+    @Test
+    void journalCheioRecusaOLoteInteiro() throws IOException {
+        JournalMovimentacoes journal = new JournalMovimentacoes(pasta, 4096, JournalMovimentacoes.FSYNC_NUNCA, 0, 2);
+        journal.recuperar(0);
+        journal.anexar(List.of(movimentacao(1, null)), DATA, true);
+
+        assertThrows(IOException.class,
+                () -> journal.anexar(List.of(movimentacao(2, null), movimentacao(3, null)), DATA, true));
+        assertEquals(1, journal.getQuantidadePendentes());
+        assertEquals(1, abrir(0).getQuantidadePendentes());
+    }
+}
@@ -0,0 +1,161 @@
+package dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import modelo.Produto;
+import modelo.RegistroMovimentacao;
+import modelo.ResultadoMovimentacao;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testes do {@link MovimentacaoRepositorioMemoria}: resultado de cada linha de
+ * um lote de movimentações, na ordem recebida, e saídas concorrentes limitadas
+ * ao saldo.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+class MovimentacaoRepositorioMemoriaTest {
+
+    /**
+     * Repositório de produtos em memória.
+     */
+    private final ProdutoRepositorioMemoria produtos = new ProdutoRepositorioMemoria();
+
+    /**
+     * Repositório de movimentações testado.
+     */
+    private final MovimentacaoRepositorioMemoria movimentacoes = new MovimentacaoRepositorioMemoria(produtos);
+
+    /**
+     * Cria uma movimentação.
+     *
+     * @param produtoId ID do produto
+     * @param tipo Tipo da movimentação
+     * @param quantidade Quantidade movimentada
+     * @return Movimentação
+     */
+    private static RegistroMovimentacao movimentacao(int produtoId, String tipo, int quantidade) {
+        return new RegistroMovimentacao(0, produtoId, tipo, quantidade, null, null);
+    }
+
+    /**
+     * Extrai os status dos resultados, conferindo o índice de cada um.
+     *
+     * @param resultados Resultados do lote
+     * @return Status, na ordem dos resultados
+     */
+    private static List<String> status(List<ResultadoMovimentacao> resultados) {
+        List<String> lista = new ArrayList<>();
+        for (int i = 0; i < resultados.size(); i++) {
+            assertEquals(i, resultados.get(i).getIndice());
+            lista.add(resultados.get(i).getStatus());
+        }
+        return lista;
+    }
+
+    @Test
+    void loteRetornaOResultadoDeCadaLinhaNaOrdem() {
+        produtos.CadastrarProduto(new Produto(0, "Parafuso", "un", 0.5, 10, 0, 100, "Ferragens"));
+        int id = produtos.ProcurarProdutoNome("Parafuso").getId();
+
+        List<RegistroMovimentacao> lote = Arrays.asList(
+                movimentacao(id, "Saída", 4),
+                movimentacao(id, "Saída", 7),
+                movimentacao(id + 1000, "Entrada", 1),
+                movimentacao(id, "Transferência", 1),
+                movimentacao(id, "Entrada", 0),
+                null,
+                movimentacao(id, "Entrada", 5),
+                movimentacao(id, "Saída", 7));
+
+        List<ResultadoMovimentacao> resultados = movimentacoes.registrarMovimentacoesEmLote(lote, produtos);
+
+        assertEquals(Arrays.asList(
+                ResultadoMovimentacao.SUCESSO,
+                ResultadoMovimentacao.ESTOQUE_INSUFICIENTE,
+                ResultadoMovimentacao.PRODUTO_INEXISTENTE,
+                ResultadoMovimentacao.DADOS_INVALIDOS,
+                ResultadoMovimentacao.DADOS_INVALIDOS,
+                ResultadoMovimentacao.DADOS_INVALIDOS,
+                ResultadoMovimentacao.SUCESSO,
+                ResultadoMovimentacao.SUCESSO), status(resultados));
+        assertEquals(id + 1000, resultados.get(2).getProdutoId());
+        assertEquals(4, produtos.ProcurarProdutoID(id).getQuantidade());
+        assertEquals(3, movimentacoes.listarMovimentacoesPorProduto(id).size());
+    }
+
+    @Test
+    void observacaoMaiorQueAColunaERecusada() {
+        produtos.CadastrarProduto(new Produto(0, "Porca", "un", 0.2, 10, 0, 100, "Ferragens"));
+        int id = produtos.ProcurarProdutoNome("Porca").getId();
+        RegistroMovimentacao longa = movimentacao(id, "Entrada", 1);
+        longa.setObservacao("x".repeat(RegistroMovimentacaoDAO.TAMANHO_MAXIMO_OBSERVACAO + 1));
+
+        List<ResultadoMovimentacao> resultados = movimentacoes.registrarMovimentacoesEmLote(
+                Arrays.asList(longa, movimentacao(id, "Entrada", 1)), produtos);
+
+        assertEquals(Arrays.asList(ResultadoMovimentacao.DADOS_INVALIDOS, ResultadoMovimentacao.SUCESSO), status(resultados));
+        assertEquals(11, produtos.ProcurarProdutoID(id).getQuantidade());
+    }
+
+    @Test
+    void saidasConcorrentesNuncaDeixamOSaldoNegativo() throws InterruptedException {
+        produtos.CadastrarProduto(new Produto(0, "Arruela", "un", 0.1, 100, 0, 1000, "Ferragens"));
+        produtos.CadastrarProduto(new Produto(0, "Rebite", "un", 0.1, 100, 0, 1000, "Ferragens"));
+        int[] ids = {produtos.ProcurarProdutoNome("Arruela").getId(), produtos.ProcurarProdutoNome("Rebite").getId()};
+        AtomicIntegerArray aceitas = new AtomicIntegerArray(2);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            int thread = i;
+            Thread t = new Thread(() -> {
+                try {
+                    largada.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int j = 0; j < 50; j++) {
+                    if (thread % 2 == 0) {
+                        // movimentação avulsa, alternando os produtos
+                        int p = j % 2;
+                        if (movimentacoes.registrarMovimentacaoEAtualizarSaldo(
+                                movimentacao(ids[p], "Saída", 1), produtos).isSucesso()) {
+                            aceitas.incrementAndGet(p);
+                        }
+                    } else {
+                        // lote com os dois produtos, em ordens diferentes conforme a thread
+                        int primeiro = thread % 4 == 1 ? 0 : 1;
+                        List<ResultadoMovimentacao> resultados = movimentacoes.registrarMovimentacoesEmLote(Arrays.asList(
+                                movimentacao(ids[primeiro], "Saída", 1),
+                                movimentacao(ids[1 - primeiro], "Saída", 1)), produtos);
+                        for (ResultadoMovimentacao resultado : resultados) {
+                            if (resultado.isSucesso()) {
+                                aceitas.incrementAndGet(resultado.getProdutoId() == ids[0] ? 0 : 1);
+                            } else {
+                                assertEquals(ResultadoMovimentacao.ESTOQUE_INSUFICIENTE, resultado.getStatus());
+                            }
+                        }
+                    }
+                }
+            });
+            threads.add(t);
+            t.start();
+        }
+        largada.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        for (int p = 0; p < 2; p++) {
+            assertEquals(100, aceitas.get(p));
+            assertEquals(0, produtos.ProcurarProdutoID(ids[p]).getQuantidade());
+            assertEquals(100, movimentacoes.listarMovimentacoesPorProduto(ids[p]).size());
+        }
+    }
+}
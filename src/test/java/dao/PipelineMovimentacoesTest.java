@@ -0,0 +1,208 @@
+package dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import modelo.AlertaEstoque;
+import modelo.Produto;
+import modelo.RegistroMovimentacao;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testes do {@link PipelineMovimentacoes}: ordem de consumo do buffer circular
+ * com vários produtores, descarte com o buffer cheio, formato da auditoria e
+ * avaliação dos limites de estoque na thread consumidora.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+class PipelineMovimentacoesTest {
+
+    /**
+     * Cria uma movimentação de entrada.
+     *
+     * @param produtoId ID do produto
+     * @param observacao Observação
+     * @return Movimentação
+     */
+    private static RegistroMovimentacao movimentacao(int produtoId, String observacao) {
+        return new RegistroMovimentacao(0, produtoId, "Entrada", 1, observacao, null);
+    }
+
+    /**
+     * Cria um produto com mínimo 10 e máximo 100.
+     *
+     * @param id ID do produto
+     * @param quantidade Quantidade em estoque
+     * @param versao Versão do produto
+     * @return Produto
+     */
+    private static Produto produto(int id, int quantidade, int versao) {
+        return new Produto(id, "Produto " + id, "un", 1.0, quantidade, 10, 100, "Geral", versao);
+    }
+
+    /**
+     * Espera uma condição ficar verdadeira por até 10 segundos.
+     *
+     * @param condicao Condição esperada
+     * @throws InterruptedException Se a espera for interrompida
+     */
+    private static void esperar(BooleanSupplier condicao) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condicao.getAsBoolean()) {
+            assertTrue(System.nanoTime() < limite, "tempo esgotado esperando a fila");
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    void consumidorAuditaTodasAsMovimentacoesNaOrdemDeCadaProdutor() throws InterruptedException {
+        StringWriter auditoria = new StringWriter();
+        PipelineMovimentacoes pipeline = new PipelineMovimentacoes(8192, auditoria);
+        int produtores = 4;
+        int porProdutor = 2000;
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 1; p <= produtores; p++) {
+            int produtoId = p;
+            Thread t = new Thread(() -> {
+                for (int i = 1; i <= porProdutor; i++) {
+                    assertTrue(pipeline.publicar(movimentacao(produtoId, null), i));
+                }
+            });
+            threads.add(t);
+            t.start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        esperar(() -> pipeline.getProcessados() == produtores * porProdutor);
+
+        Map<Integer, Long> ultimoPorProduto = new HashMap<>();
+        String[] linhas = auditoria.toString().split(System.lineSeparator());
+        assertEquals(produtores * porProdutor, linhas.length);
+        for (String linha : linhas) {
+            String[] campos = linha.split(";", -1);
+            int produtoId = Integer.parseInt(campos[2]);
+            long id = Long.parseLong(campos[1]);
+            assertEquals(ultimoPorProduto.getOrDefault(produtoId, 0L) + 1, id, "ordem do produtor " + produtoId);
+            ultimoPorProduto.put(produtoId, id);
+        }
+        assertEquals(0, pipeline.getDescartados());
+        assertEquals(0, pipeline.getPendentes());
+    }
+
+    @Test
+    void bufferCheioDescartaSemBloquearOProdutor() throws InterruptedException {
+        CountDownLatch liberar = new CountDownLatch(1);
+        StringWriter gravado = new StringWriter();
+        Writer auditoriaLenta = new Writer() {
+            @Override
+            public void write(char[] dados, int inicio, int tamanho) {
+                try {
+                    liberar.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                gravado.write(dados, inicio, tamanho);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        PipelineMovimentacoes pipeline = new PipelineMovimentacoes(4, auditoriaLenta);
+
+        assertTrue(pipeline.publicar(movimentacao(1, null), 1));
+        // o consumidor retira o primeiro evento e fica preso na gravação
+        esperar(() -> pipeline.getPendentes() == 0);
+        for (int i = 2; i <= 5; i++) {
+            assertTrue(pipeline.publicar(movimentacao(1, null), i));
+        }
+        assertFalse(pipeline.publicar(movimentacao(1, null), 6));
+        assertEquals(1, pipeline.getDescartados());
+        assertEquals(5, pipeline.getPublicados());
+
+        liberar.countDown();
+        esperar(() -> pipeline.getProcessados() == 5);
+        assertEquals(5, gravado.toString().split(System.lineSeparator()).length);
+    }
+
+    @Test
+    void observacaoNaoQuebraALinhaDeAuditoria() throws InterruptedException {
+        StringWriter auditoria = new StringWriter();
+        PipelineMovimentacoes pipeline = new PipelineMovimentacoes(16, auditoria);
+
+        pipeline.publicar(movimentacao(7, "nota;fiscal\r\n123"), 42);
+        esperar(() -> pipeline.getProcessados() == 1);
+
+        String linha = auditoria.toString();
+        assertTrue(linha.endsWith(System.lineSeparator()));
+        String[] campos = linha.substring(0, linha.length() - System.lineSeparator().length()).split(";", -1);
+        assertEquals(6, campos.length);
+        assertEquals("42", campos[1]);
+        assertEquals("7", campos[2]);
+        assertEquals("Entrada", campos[3]);
+        assertEquals("1", campos[4]);
+        assertEquals("nota fiscal  123", campos[5]);
+    }
+
+    @Test
+    void alertaDoSaldoMovimentadoEGeradoNaThreadConsumidora() throws InterruptedException {
+        MonitorEstoque monitor = new MonitorEstoque(0);
+        List<AlertaEstoque> alertas = new CopyOnWriteArrayList<>();
+        List<String> threads = new CopyOnWriteArrayList<>();
+        monitor.adicionarObservador(alerta -> {
+            alertas.add(alerta);
+            threads.add(Thread.currentThread().getName());
+        });
+        monitor.catalogoCarregado(List.of(produto(1, 50, 1), produto(2, 50, 1)));
+        PipelineMovimentacoes pipeline = new PipelineMovimentacoes(16, null);
+
+        pipeline.publicar(movimentacao(1, null), 1, produto(1, 5, 2), monitor);
+        pipeline.publicar(movimentacao(2, null), 2, produto(2, 60, 2), monitor);
+        esperar(() -> pipeline.getProcessados() == 2);
+
+        assertEquals(1, alertas.size());
+        assertEquals(1, alertas.get(0).getProdutoId());
+        assertEquals(AlertaEstoque.NORMAL, alertas.get(0).getSituacaoAnterior());
+        assertEquals(AlertaEstoque.ABAIXO_MINIMO, alertas.get(0).getSituacao());
+        assertEquals("pipeline-movimentacoes", threads.get(0));
+        assertEquals(1, monitor.listarAbaixoMinimo().size());
+    }
+
+    @Test
+    void saldoMaisAntigoQueOAplicadoEIgnorado() throws InterruptedException {
+        MonitorEstoque monitor = new MonitorEstoque(0);
+        List<AlertaEstoque> alertas = new CopyOnWriteArrayList<>();
+        monitor.adicionarObservador(alertas::add);
+        monitor.catalogoCarregado(List.of(produto(1, 50, 1)));
+        PipelineMovimentacoes pipeline = new PipelineMovimentacoes(16, null);
+
+        pipeline.publicar(movimentacao(1, null), 2, produto(1, 5, 3), monitor);
+        pipeline.publicar(movimentacao(1, null), 1, produto(1, 50, 2), monitor);
+        // produto desconhecido do monitor (excluído ou ainda não carregado)
+        pipeline.publicar(movimentacao(9, null), 3, produto(9, 500, 1), monitor);
+        esperar(() -> pipeline.getProcessados() == 3);
+
+        assertEquals(1, alertas.size());
+        assertEquals(AlertaEstoque.ABAIXO_MINIMO, alertas.get(0).getSituacao());
+        assertEquals(1, monitor.listarAbaixoMinimo().size());
+        assertEquals(1, monitor.listarForaDosLimites().size());
+    }
+}
@@ -0,0 +1,111 @@
+package dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testes do {@link PoolConexoes}: reaproveitamento das conexões devolvidas,
+ * limite de conexões com tempo de espera, restauração do estado na devolução,
+ * descarte das conexões inválidas e captura da pilha do empréstimo. As conexões
+ * vêm do {@link DriverFalso}.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+class PoolConexoesTest {
+
+    @Test
+    void conexaoDevolvidaEReaproveitada() throws SQLException {
+        PoolConexoes pool = DriverFalso.pool("reaproveitamento");
+
+        Connection primeira = pool.obterConexao();
+        assertEquals(1, pool.getConexoesEmUso());
+        primeira.close();
+        assertTrue(primeira.isClosed());
+        assertEquals(0, pool.getConexoesEmUso());
+        assertEquals(1, pool.getConexoesOciosas());
+
+        try (Connection segunda = pool.obterConexao()) {
+            assertNotNull(segunda);
+        }
+        assertEquals(1, pool.getTotalCriadas());
+        assertEquals(2, pool.getTotalEmprestimos());
+        assertEquals(1, DriverFalso.conexoes("reaproveitamento").size());
+    }
+
+    @Test
+    void poolEsgotadoRecusaAposOTempoLimite() throws SQLException {
+        PoolConexoes pool = DriverFalso.pool("esgotado", "pool.maximo=1", "pool.timeoutAquisicaoMs=100");
+
+        Connection emprestada = pool.obterConexao();
+        long inicio = System.nanoTime();
+        assertThrows(SQLTimeoutException.class, pool::obterConexao);
+        assertTrue(System.nanoTime() - inicio >= 90_000_000L, "a recusa deveria esperar o tempo limite");
+        assertEquals(1, pool.getTotalTimeouts());
+
+        emprestada.close();
+        try (Connection seguinte = pool.obterConexao()) {
+            assertNotNull(seguinte);
+        }
+        assertEquals(1, pool.getTotalConexoes());
+    }
+
+    @Test
+    void devolucaoDesfazATransacaoAbertaEEncerraOEmprestimo() throws SQLException {
+        PoolConexoes pool = DriverFalso.pool("transacao");
+
+        Connection conexao = pool.obterConexao();
+        conexao.setAutoCommit(false);
+        conexao.close();
+        conexao.close();
+
+        DriverFalso.ConexaoFalsa fisica = DriverFalso.conexoes("transacao").get(0);
+        assertEquals(1, fisica.rollbacks.get());
+        assertTrue(fisica.autoCommit);
+        assertEquals(1, pool.getConexoesOciosas());
+        assertThrows(SQLException.class, () -> conexao.setAutoCommit(false));
+    }
+
+    @Test
+    void conexaoOciosaInvalidaEDescartada() throws SQLException {
+        PoolConexoes pool = DriverFalso.pool("invalida", "pool.validacaoAposOciosoMs=0");
+
+        pool.obterConexao().close();
+        List<DriverFalso.ConexaoFalsa> fisicas = DriverFalso.conexoes("invalida");
+        fisicas.get(0).valida = false;
+
+        try (Connection conexao = pool.obterConexao()) {
+            assertNotNull(conexao);
+        }
+        assertEquals(2, fisicas.size());
+        assertTrue(fisicas.get(0).fechada);
+        assertEquals(1, pool.getTotalDescartadas());
+        assertEquals(1, pool.getTotalConexoes());
+    }
+
+    @Test
+    void pilhaDoEmprestimoSoECapturadaSeConfigurada() throws SQLException {
+        PoolConexoes pool = DriverFalso.pool("pilha");
+        Connection fisica = new DriverFalso().connect(DriverFalso.PREFIXO + "pilha", null);
+        ConexaoPooled conexao = new ConexaoPooled(pool, fisica, 0);
+
+        conexao.emprestar(false).close();
+        assertNull(conexao.getOrigemEmprestimo());
+
+        Connection emprestada = conexao.emprestar(true);
+        Throwable origem = conexao.getOrigemEmprestimo();
+        assertNotNull(origem);
+        assertEquals(PoolConexoesTest.class.getName(), origem.getStackTrace()[1].getClassName());
+        emprestada.close();
+        assertNull(conexao.getOrigemEmprestimo());
+    }
+}
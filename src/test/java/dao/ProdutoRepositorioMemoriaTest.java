@@ -0,0 +1,103 @@
+package dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import modelo.Produto;
+import modelo.ResultadoMovimentacao;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testes da atualização condicionada à versão no {@link ProdutoRepositorioMemoria}:
+ * recusa de versões antigas, incremento a cada escrita e atualizações concorrentes.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+class ProdutoRepositorioMemoriaTest {
+
+    /**
+     * Repositório testado.
+     */
+    private final ProdutoRepositorioMemoria produtos = new ProdutoRepositorioMemoria();
+
+    /**
+     * Cadastra um produto e o lê de volta.
+     *
+     * @param nome Nome do produto
+     * @return Produto lido, com ID e versão
+     */
+    private Produto cadastrar(String nome) {
+        produtos.CadastrarProduto(new Produto(0, nome, "un", 1.0, 10, 0, 100, "Geral"));
+        return produtos.ProcurarProdutoNome(nome);
+    }
+
+    @Test
+    void versaoAntigaERecusadaEAAtualEIncrementada() {
+        Produto lido = cadastrar("Martelo");
+        assertEquals(0, lido.getVersao());
+
+        lido.setPreco(2.5);
+        assertTrue(produtos.atualizarDadosCadastrais(lido));
+        Produto atual = produtos.ProcurarProdutoID(lido.getId());
+        assertEquals(1, atual.getVersao());
+        assertEquals(10, atual.getQuantidade());
+
+        // a mesma leitura usada de novo está desatualizada
+        lido.setPreco(9.9);
+        assertFalse(produtos.atualizarDadosCadastrais(lido));
+        assertEquals(2.5, produtos.ProcurarProdutoID(lido.getId()).getPreco(), 0.0001);
+    }
+
+    @Test
+    void movimentacaoTornaALeituraAnteriorDesatualizada() {
+        Produto lido = cadastrar("Serrote");
+
+        assertEquals(ResultadoMovimentacao.SUCESSO, produtos.ajustarQuantidadeSeSuficiente(lido.getId(), -3));
+        lido.setQuantidade(50);
+        assertFalse(produtos.AtualizarProduto(lido));
+        assertEquals(7, produtos.ProcurarProdutoID(lido.getId()).getQuantidade());
+
+        Produto relido = produtos.ProcurarProdutoID(lido.getId());
+        relido.setQuantidade(50);
+        assertTrue(produtos.AtualizarProduto(relido));
+        assertEquals(50, produtos.ProcurarProdutoID(lido.getId()).getQuantidade());
+        assertEquals(2, produtos.ProcurarProdutoID(lido.getId()).getVersao());
+    }
+
+    @Test
+    void apenasUmaDasAtualizacoesDaMesmaVersaoVence() throws InterruptedException {
+        Produto lido = cadastrar("Alicate");
+        AtomicInteger vencedoras = new AtomicInteger();
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Produto copia = produtos.ProcurarProdutoID(lido.getId());
+            copia.setNome("Alicate " + i);
+            Thread t = new Thread(() -> {
+                try {
+                    largada.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (produtos.atualizarDadosCadastrais(copia)) {
+                    vencedoras.incrementAndGet();
+                }
+            });
+            threads.add(t);
+            t.start();
+        }
+        largada.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        assertEquals(1, vencedoras.get());
+        assertEquals(1, produtos.ProcurarProdutoID(lido.getId()).getVersao());
+    }
+}
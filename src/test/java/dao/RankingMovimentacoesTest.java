@@ -0,0 +1,131 @@
+package dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testes do {@link RankingMovimentacoes}: totais por janela de dias, manutenção
+ * das janelas já consultadas e filtro dos candidatos fora da trava.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+class RankingMovimentacoesTest {
+
+    /**
+     * Data de hoje.
+     */
+    private static final LocalDate HOJE = LocalDate.now();
+
+    /**
+     * Próximo ID de movimentação.
+     */
+    private long proximoId = 1;
+
+    /**
+     * Cria um ranking vazio, sem consultar o banco.
+     *
+     * @return Ranking com janela máxima de 30 dias
+     */
+    private static RankingMovimentacoes ranking() {
+        RankingMovimentacoes ranking = new RankingMovimentacoes(30);
+        ranking.iniciarVazio();
+        return ranking;
+    }
+
+    /**
+     * Registra uma movimentação.
+     *
+     * @param ranking Ranking
+     * @param produtoId ID do produto
+     * @param sinal 1 para entrada, -1 para saída
+     * @param quantidade Quantidade movimentada
+     * @param data Data da movimentação
+     */
+    private void registrar(RankingMovimentacoes ranking, int produtoId, int sinal, int quantidade, LocalDate data) {
+        ranking.registrar(proximoId++, produtoId, sinal, quantidade, data);
+    }
+
+    /**
+     * Converte o ranking em texto "produto=total", na ordem.
+     *
+     * @param itens Itens do ranking
+     * @return Itens em texto
+     */
+    private static List<String> texto(List<long[]> itens) {
+        List<String> lista = new ArrayList<>();
+        for (long[] item : itens) {
+            lista.add(item[0] + "=" + item[1]);
+        }
+        return lista;
+    }
+
+    @Test
+    void janelaConsideraApenasOsDiasPedidos() {
+        RankingMovimentacoes ranking = ranking();
+        registrar(ranking, 1, 1, 5, HOJE);
+        registrar(ranking, 2, 1, 50, HOJE.minusDays(3));
+        registrar(ranking, 3, 1, 500, HOJE.minusDays(40));
+        registrar(ranking, 1, -1, 2, HOJE);
+
+        assertEquals(List.of("1=5"), texto(ranking.listar(RankingMovimentacoes.ENTRADA, 1, 10, id -> true)));
+        assertEquals(List.of("2=50", "1=5"), texto(ranking.listar(RankingMovimentacoes.ENTRADA, 7, 10, id -> true)));
+        assertEquals(List.of("3=500", "2=50", "1=5"), texto(ranking.listar(RankingMovimentacoes.ENTRADA, 0, 10, id -> true)));
+        assertEquals(List.of("1=2"), texto(ranking.listar(RankingMovimentacoes.SAIDA, 7, 10, id -> true)));
+        assertEquals(List.of("2=50", "1=3"), texto(ranking.listar(RankingMovimentacoes.LIQUIDO, 7, 10, id -> true)));
+    }
+
+    @Test
+    void janelaJaConsultadaRecebeAsNovasMovimentacoes() {
+        RankingMovimentacoes ranking = ranking();
+        registrar(ranking, 1, 1, 10, HOJE);
+        registrar(ranking, 2, 1, 20, HOJE.minusDays(1));
+        assertEquals(List.of("2=20", "1=10"), texto(ranking.listar(RankingMovimentacoes.ENTRADA, 2, 10, id -> true)));
+
+        registrar(ranking, 1, 1, 15, HOJE);
+        registrar(ranking, 3, 1, 99, HOJE.minusDays(5));
+
+        assertEquals(List.of("1=25", "2=20"), texto(ranking.listar(RankingMovimentacoes.ENTRADA, 2, 10, id -> true)));
+        assertEquals(List.of("3=99", "1=25", "2=20"), texto(ranking.listar(RankingMovimentacoes.ENTRADA, 7, 10, id -> true)));
+    }
+
+    @Test
+    void filtroRecusandoOsPrimeirosBuscaMaisCandidatos() {
+        RankingMovimentacoes ranking = ranking();
+        for (int id = 1; id <= 50; id++) {
+            registrar(ranking, id, 1, id, HOJE);
+        }
+
+        List<long[]> itens = ranking.listar(RankingMovimentacoes.ENTRADA, 0, 3, id -> id % 10 == 0);
+
+        assertEquals(List.of("50=50", "40=40", "30=30"), texto(itens));
+    }
+
+    @Test
+    void filtroPodeRegistrarMovimentacoesPoisRodaSemATrava() {
+        RankingMovimentacoes ranking = ranking();
+        registrar(ranking, 1, 1, 10, HOJE);
+        registrar(ranking, 2, 1, 5, HOJE);
+
+        // com a trava de leitura mantida durante o filtro, o registro ficaria bloqueado
+        List<long[]> itens = ranking.listar(RankingMovimentacoes.ENTRADA, 1, 2, id -> {
+            registrar(ranking, 3, 1, 1, HOJE);
+            return true;
+        });
+
+        assertEquals(List.of("1=10", "2=5"), texto(itens));
+        assertEquals(3, ranking.listar(RankingMovimentacoes.ENTRADA, 1, 10, id -> true).size());
+    }
+
+    @Test
+    void criterioOuJanelaInvalidosSaoRecusados() {
+        RankingMovimentacoes ranking = ranking();
+        assertThrows(IllegalArgumentException.class, () -> ranking.listar("TOTAL", 0, 5, id -> true));
+        assertThrows(IllegalArgumentException.class, () -> ranking.listar(RankingMovimentacoes.SAIDA, 31, 5, id -> true));
+    }
+}
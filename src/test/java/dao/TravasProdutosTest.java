@@ -0,0 +1,113 @@
+package dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testes do {@link TravasProdutos}: exclusão mútua por produto, reentrância e
+ * ausência de deadlock entre lotes que travam os mesmos produtos em ordens diferentes.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+class TravasProdutosTest {
+
+    /**
+     * Inicia as threads, todas liberadas ao mesmo tempo, e espera o término
+     * de cada uma por até 10 segundos.
+     *
+     * @param tarefas Tarefas, uma por thread
+     * @throws InterruptedException Se a espera for interrompida
+     */
+    private static void executarEmParalelo(List<Runnable> tarefas) throws InterruptedException {
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (Runnable tarefa : tarefas) {
+            Thread t = new Thread(() -> {
+                try {
+                    largada.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                tarefa.run();
+            });
+            t.setDaemon(true);
+            threads.add(t);
+            t.start();
+        }
+        largada.countDown();
+        for (Thread t : threads) {
+            t.join(10_000);
+            assertFalse(t.isAlive(), "thread presa: possível deadlock");
+        }
+    }
+
+    @Test
+    void mesmoProdutoNuncaETravadoPorDuasThreads() throws InterruptedException {
+        TravasProdutos travas = new TravasProdutos(4);
+        int[] saldo = new int[1];
+        List<Runnable> tarefas = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            tarefas.add(() -> {
+                for (int j = 0; j < 10_000; j++) {
+                    travas.travar(7);
+                    try {
+                        saldo[0]++;
+                    } finally {
+                        travas.destravar(7);
+                    }
+                }
+            });
+        }
+
+        executarEmParalelo(tarefas);
+
+        assertEquals(80_000, saldo[0]);
+    }
+
+    @Test
+    void travaEReentranteParaAMesmaThread() throws InterruptedException {
+        TravasProdutos travas = new TravasProdutos(1);
+        travas.travar(1);
+        Collection<Integer> listras = travas.travar(Arrays.asList(1, 2, 3));
+        travas.destravar(listras);
+        travas.destravar(1);
+
+        // com uma única listra, outra thread só consegue travar se tudo foi destravado
+        executarEmParalelo(Collections.singletonList(() -> {
+            travas.travar(99);
+            travas.destravar(99);
+        }));
+    }
+
+    @Test
+    void lotesEmOrdensDiferentesNaoSeBloqueiam() throws InterruptedException {
+        TravasProdutos travas = new TravasProdutos(16);
+        List<Integer> crescente = new ArrayList<>();
+        for (int id = 1; id <= 64; id++) {
+            crescente.add(id);
+        }
+        List<Integer> decrescente = new ArrayList<>(crescente);
+        Collections.reverse(decrescente);
+
+        List<Runnable> tarefas = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            List<Integer> ordem = i % 2 == 0 ? crescente : decrescente;
+            tarefas.add(() -> {
+                for (int j = 0; j < 2_000; j++) {
+                    travas.destravar(travas.travar(ordem));
+                }
+            });
+        }
+
+        executarEmParalelo(tarefas);
+    }
+}
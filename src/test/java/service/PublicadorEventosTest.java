@@ -0,0 +1,94 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.rmi.Remote;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testes do {@link PublicadorEventos}: entrega a cada inscrito e descarte do
+ * inscrito cuja entrega não responde dentro do tempo limite.
+ *
+ * @author bnsant
+ * @version 1.0
+ */
+class PublicadorEventosTest {
+
+    /**
+     * Ouvinte remoto de teste, identificado pelo nome.
+     */
+    private static final class Ouvinte implements Remote {
+
+        /**
+         * Nome do ouvinte.
+         */
+        private final String nome;
+
+        /**
+         * Construtor do ouvinte.
+         *
+         * @param nome Nome do ouvinte
+         */
+        private Ouvinte(String nome) {
+            this.nome = nome;
+        }
+    }
+
+    /**
+     * Espera uma condição ficar verdadeira por até 10 segundos.
+     *
+     * @param condicao Condição esperada
+     * @throws InterruptedException Se a espera for interrompida
+     */
+    private static void esperar(BooleanSupplier condicao) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condicao.getAsBoolean()) {
+            assertTrue(System.nanoTime() < limite, "tempo esgotado esperando as entregas");
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    void inscritoSemRespostaEDescartadoSemAtrasarOsDemais() throws Exception {
+        CountDownLatch liberar = new CountDownLatch(1);
+        List<String> recebidos = new CopyOnWriteArrayList<>();
+        Ouvinte travado = new Ouvinte("travado");
+        Ouvinte ativo = new Ouvinte("ativo");
+        PublicadorEventos<Ouvinte, Integer> publicador = new PublicadorEventos<>("teste", 16, 4, 200,
+                (ouvinte, evento) -> {
+                    if (ouvinte == travado) {
+                        try {
+                            liberar.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                    recebidos.add(ouvinte.nome + ":" + evento);
+                }, null);
+        publicador.inscrever(travado);
+        publicador.inscrever(ativo);
+
+        publicador.publicar(1);
+        publicador.publicar(2);
+
+        esperar(() -> publicador.getQuantidadeInscritos() == 1);
+        assertEquals(1, publicador.getDescartados());
+        esperar(() -> recebidos.size() == 2);
+        assertEquals(List.of("ativo:1", "ativo:2"), recebidos);
+
+        // a entrega presa termina, mas o inscrito descartado não recebe mais eventos
+        liberar.countDown();
+        publicador.publicar(3);
+        esperar(() -> recebidos.contains("ativo:3") && recebidos.contains("travado:1"));
+        Thread.sleep(50);
+        assertEquals(4, recebidos.size());
+        assertFalse(recebidos.contains("travado:2"));
+    }
+}